@@ -0,0 +1,44 @@
+package com.example.backend.config;
+
+import com.example.backend.service.AppointmentReminderNotifier;
+import com.example.backend.service.LoggingAppointmentReminderNotifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class AppointmentReminderConfig {
+
+    @Value("${appointments.reminders.workers:2}")
+    private Integer workers;
+
+    @Value("${appointments.reminders.queue-capacity:1000}")
+    private Integer queueCapacity;
+
+    /**
+     * Reminders are only logged unless another AppointmentReminderNotifier bean is defined.
+     */
+    @Bean
+    @ConditionalOnMissingBean(AppointmentReminderNotifier.class)
+    public AppointmentReminderNotifier appointmentReminderNotifier() {
+        return new LoggingAppointmentReminderNotifier();
+    }
+
+    /**
+     * Sends due reminders off the timing wheel's thread, so a slow notifier does not delay the ticks.
+     * A reminder rejected by a full queue is retried like a failed send.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor appointmentReminderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("appointment-reminder-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
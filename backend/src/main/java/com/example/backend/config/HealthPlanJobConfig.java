@@ -0,0 +1,33 @@
+package com.example.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class HealthPlanJobConfig {
+    
+    @Value("${health-plan.jobs.workers:2}")
+    private Integer workers;
+    
+    @Value("${health-plan.jobs.queue-capacity:50}")
+    private Integer queueCapacity;
+    
+    /**
+     * Bounded worker pool for asynchronous plan generation.
+     * When every worker is busy and the queue is full, submissions are rejected
+     * instead of piling up behind slow Gemini calls.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor healthPlanJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("plan-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.backend.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Times every public method of the @Service classes in com.example.backend.service (including
+ * service.ai, e.g. GeminiClient) as "service.method", tagged with class, method and outcome
+ * (success, cancelled, or the exception class).
+ * Methods returning CompletableFuture, Mono or Flux are timed until the result completes or is cancelled,
+ * so a Gemini-backed call shows its real latency rather than the time to build the pipeline. A Mono or
+ * Flux is timed per subscription, from subscribe, so a late or repeated subscribe is not over-counted.
+ * The caller gets the original future back, so cancelling it still reaches the producer.
+ * Repository calls are timed by Spring Data's own "spring.data.repository.invocations" metric.
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    static final String METRIC = "service.method";
+
+    private static final String SUCCESS = "success";
+    private static final String CANCELLED = "cancelled";
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(com.example.backend.service..*) && @within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String className = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String methodName = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            stop(sample, className, methodName, outcome(e));
+            throw e;
+        }
+
+        if (result instanceof CompletableFuture<?> future) {
+            // Timing only; the dependent future whenComplete returns is not handed out
+            future.whenComplete((value, error) -> stop(sample, className, methodName, outcome(error)));
+            return future;
+        }
+        if (result instanceof Mono<?> mono) {
+            return Mono.defer(() -> {
+                Timer.Sample subscription = Timer.start(meterRegistry);
+                return mono.doOnError(e -> stop(subscription, className, methodName, outcome(e)))
+                        .doFinally(signal -> stopUnlessError(subscription, className, methodName, signal));
+            });
+        }
+        if (result instanceof Flux<?> flux) {
+            return Flux.defer(() -> {
+                Timer.Sample subscription = Timer.start(meterRegistry);
+                return flux.doOnError(e -> stop(subscription, className, methodName, outcome(e)))
+                        .doFinally(signal -> stopUnlessError(subscription, className, methodName, signal));
+            });
+        }
+        stop(sample, className, methodName, SUCCESS);
+        return result;
+    }
+
+    private void stopUnlessError(Timer.Sample sample, String className, String methodName, SignalType signal) {
+        if (signal != SignalType.ON_ERROR) {
+            stop(sample, className, methodName, signal == SignalType.CANCEL ? CANCELLED : SUCCESS);
+        }
+    }
+
+    private void stop(Timer.Sample sample, String className, String methodName, String outcome) {
+        sample.stop(Timer.builder(METRIC)
+                .description("Service method latency, until the async result completes")
+                .tag("class", className)
+                .tag("method", methodName)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    private static String outcome(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error == null) {
+            return SUCCESS;
+        }
+        return error instanceof CancellationException ? CANCELLED : error.getClass().getSimpleName();
+    }
+}
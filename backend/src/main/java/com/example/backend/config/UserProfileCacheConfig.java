@@ -0,0 +1,21 @@
+package com.example.backend.config;
+
+import com.example.backend.service.InMemoryUserProfileInvalidationBus;
+import com.example.backend.service.UserProfileInvalidationBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UserProfileCacheConfig {
+
+    /**
+     * Profile invalidations reach only this instance unless another UserProfileInvalidationBus bean
+     * (e.g. backed by a message broker) is defined.
+     */
+    @Bean
+    @ConditionalOnMissingBean(UserProfileInvalidationBus.class)
+    public UserProfileInvalidationBus userProfileInvalidationBus() {
+        return new InMemoryUserProfileInvalidationBus();
+    }
+}
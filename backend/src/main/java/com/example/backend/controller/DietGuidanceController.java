@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/diet-guidance")
@@ -23,12 +24,14 @@ public class DietGuidanceController {
      * POST /api/diet-guidance?userId={userId}&healthIssue={healthIssue}
      */
     @PostMapping
-    public ResponseEntity<?> generateGuidance(@RequestParam Long userId, @RequestParam String healthIssue) {
+    public CompletableFuture<ResponseEntity<?>> generateGuidance(@RequestParam Long userId, @RequestParam String healthIssue) {
         try {
-            DietGuidanceResponse guidance = dietGuidanceService.generateDietGuidance(userId, healthIssue);
-            return ResponseEntity.status(HttpStatus.CREATED).body(guidance);
+            return dietGuidanceService.generateDietGuidance(userId, healthIssue)
+                    .<ResponseEntity<?>>handle((guidance, e) -> e == null
+                            ? ResponseEntity.status(HttpStatus.CREATED).body(guidance)
+                            : ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         }
     }
     
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/facilities")
@@ -52,33 +53,47 @@ public class FacilityController {
     /**
      * Search facilities by name
      * GET /api/facilities/search?name={name}
+     * Optional: limit={k} (only the k best matches)
      */
     @GetMapping("/search")
-    public ResponseEntity<List<FacilityResponse>> searchFacilities(@RequestParam String name) {
-        List<FacilityResponse> facilities = facilityService.searchFacilitiesByName(name);
+    public ResponseEntity<List<FacilityResponse>> searchFacilities(
+            @RequestParam String name,
+            @RequestParam(required = false) Integer limit) {
+        List<FacilityResponse> facilities = facilityService.searchFacilitiesByName(name, limit);
         return ResponseEntity.ok(facilities);
     }
     
     /**
-     * Get nearby facilities
+     * Get nearby facilities, nearest first
      * GET /api/facilities/nearby?lat={latitude}&lng={longitude}&distance={distance}
+     * Optional: type={type}, specialty={specialty}, limit={k} (only the k nearest)
      */
     @GetMapping("/nearby")
-    public ResponseEntity<List<FacilityResponse>> getNearbyFacilities(
+    public ResponseEntity<?> getNearbyFacilities(
             @RequestParam BigDecimal lat,
             @RequestParam BigDecimal lng,
-            @RequestParam(defaultValue = "10.0") double distance) {
-        List<FacilityResponse> facilities = facilityService.getNearbyFacilities(lat, lng, distance);
-        return ResponseEntity.ok(facilities);
+            @RequestParam(defaultValue = "10.0") double distance,
+            @RequestParam(required = false) Facility.FacilityType type,
+            @RequestParam(required = false) String specialty,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            List<FacilityResponse> facilities = facilityService.getNearbyFacilities(lat, lng, distance, type, specialty, limit);
+            return ResponseEntity.ok(facilities);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
     
     /**
      * Get facilities by specialty
      * GET /api/facilities/specialty/{specialty}
+     * Optional: limit={k} (only the k best matches)
      */
     @GetMapping("/specialty/{specialty}")
-    public ResponseEntity<List<FacilityResponse>> getFacilitiesBySpecialty(@PathVariable String specialty) {
-        List<FacilityResponse> facilities = facilityService.getFacilitiesBySpecialty(specialty);
+    public ResponseEntity<List<FacilityResponse>> getFacilitiesBySpecialty(
+            @PathVariable String specialty,
+            @RequestParam(required = false) Integer limit) {
+        List<FacilityResponse> facilities = facilityService.getFacilitiesBySpecialty(specialty, limit);
         return ResponseEntity.ok(facilities);
     }
 }
@@ -0,0 +1,62 @@
+package com.example.backend.controller;
+
+import com.example.backend.service.ai.GeminiLatencyTracker;
+import com.example.backend.service.ai.GeminiRateLimiter;
+import com.example.backend.service.ai.GeminiResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/ai")
+@CrossOrigin(origins = "*")
+public class GeminiController {
+    
+    @Autowired
+    private GeminiResponseCache geminiResponseCache;
+    
+    @Autowired
+    private GeminiRateLimiter geminiRateLimiter;
+    
+    @Autowired
+    private GeminiLatencyTracker geminiLatencyTracker;
+    
+    /**
+     * Gemini response cache size and hit/miss counts per AI feature
+     * GET /api/ai/cache/stats
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(geminiResponseCache.getStats());
+    }
+    
+    /**
+     * Drop all cached Gemini responses (memory and disk)
+     * DELETE /api/ai/cache
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<?> clearCache() {
+        geminiResponseCache.clear();
+        return ResponseEntity.ok(Map.of("message", "Gemini response cache cleared"));
+    }
+    
+    /**
+     * Remaining Gemini quota, queue depth and admitted/shed counts per AI feature
+     * GET /api/ai/quota
+     */
+    @GetMapping("/quota")
+    public ResponseEntity<?> getQuotaStats() {
+        return ResponseEntity.ok(geminiRateLimiter.getStats());
+    }
+    
+    /**
+     * Gemini latency histogram and SLO attainment per priority class
+     * GET /api/ai/latency
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<?> getLatencyStats() {
+        return ResponseEntity.ok(geminiLatencyTracker.getStats());
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.request.GpAppointmentRequest;
+import com.example.backend.dto.response.AppointmentSlotResponse;
 import com.example.backend.dto.response.GpAppointmentResponse;
+import com.example.backend.service.AppointmentSlotService;
 import com.example.backend.service.GpAppointmentService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +23,9 @@ public class GpAppointmentController {
     @Autowired
     private GpAppointmentService gpAppointmentService;
     
+    @Autowired
+    private AppointmentSlotService appointmentSlotService;
+    
     /**
      * Book a GP appointment
      * POST /api/gp-appointments
@@ -102,4 +107,20 @@ public class GpAppointmentController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
+    
+    /**
+     * Get a facility's slots with places left (at most 14 days)
+     * GET /api/gp-appointments/facility/{facilityId}/slots?from={from}&to={to}
+     */
+    @GetMapping("/facility/{facilityId}/slots")
+    public ResponseEntity<?> getAvailableSlots(@PathVariable Long facilityId,
+                                               @RequestParam LocalDateTime from,
+                                               @RequestParam LocalDateTime to) {
+        try {
+            List<AppointmentSlotResponse> slots = appointmentSlotService.getAvailableSlots(facilityId, from, to);
+            return ResponseEntity.ok(slots);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 }
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/health-assessments")
@@ -26,12 +27,14 @@ public class HealthAssessmentController {
      * POST /api/health-assessments/trigger
      */
     @PostMapping("/trigger")
-    public ResponseEntity<?> triggerAssessment(@Valid @RequestBody HealthAssessmentRequest request) {
+    public CompletableFuture<ResponseEntity<?>> triggerAssessment(@Valid @RequestBody HealthAssessmentRequest request) {
         try {
-            HealthAssessmentResponse assessment = healthAssessmentService.triggerAssessment(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(assessment);
+            return healthAssessmentService.triggerAssessment(request)
+                    .<ResponseEntity<?>>handle((assessment, e) -> e == null
+                            ? ResponseEntity.status(HttpStatus.CREATED).body(assessment)
+                            : ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         }
     }
     
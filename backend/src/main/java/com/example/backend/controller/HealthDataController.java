@@ -2,21 +2,28 @@ package com.example.backend.controller;
 
 import com.example.backend.dto.request.HealthDataCreateRequest;
 import com.example.backend.dto.request.HealthDataUpdateRequest;
+import com.example.backend.dto.response.HealthDataBulkResponse;
+import com.example.backend.dto.response.HealthDataPageResponse;
 import com.example.backend.dto.response.HealthDataResponse;
 import com.example.backend.dto.response.HealthDataStatisticsResponse;
+import com.example.backend.dto.response.HealthMetricStatisticsResponse;
 import com.example.backend.entity.HealthData;
+import com.example.backend.service.HealthDataIngestService;
 import com.example.backend.service.HealthDataService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * REST controller for CRUD and queries on HealthData.
@@ -30,6 +37,9 @@ public class HealthDataController {
     @Autowired
     private HealthDataService healthDataService;
 
+    @Autowired
+    private HealthDataIngestService healthDataIngestService;
+
     /** Create one health-data record. */
     @PostMapping
     public ResponseEntity<?> createHealthData(@Valid @RequestBody HealthDataCreateRequest request) {
@@ -41,11 +51,45 @@ public class HealthDataController {
         }
     }
 
-    /** List all records (admin/dev use). */
+    /**
+     * Bulk ingest for synced devices: a JSON array of create requests (max 10,000 rows).
+     * Invalid rows are reported in "errors" by index; the others are inserted.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> bulkIngest(@RequestBody List<HealthDataCreateRequest> requests) {
+        try {
+            HealthDataBulkResponse result = healthDataIngestService.ingest(requests);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Bulk ingest, NDJSON body: one create request per line. */
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<?> bulkIngestNdjson(InputStream body) {
+        try {
+            HealthDataBulkResponse result = healthDataIngestService.ingestNdjson(body);
+            return ResponseEntity.ok(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * List all records (admin/dev use), one page at a time, newest first.
+     * Pass the returned nextCursor as ?cursor= for the next page; limit is capped at 500.
+     */
     @GetMapping
-    public ResponseEntity<List<HealthDataResponse>> getAllHealthData() {
-        List<HealthDataResponse> healthDataList = healthDataService.getAllHealthData();
-        return ResponseEntity.ok(healthDataList);
+    public ResponseEntity<?> getAllHealthData(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + HealthDataService.DEFAULT_PAGE_SIZE) int limit) {
+        try {
+            HealthDataPageResponse page = healthDataService.getHealthDataPage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     /** Get one record by id. */
@@ -56,17 +100,40 @@ public class HealthDataController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    /** List a user's records, ordered by recordedAt desc. */
+    /** List a user's records, ordered by recordedAt desc, one page at a time (cursor/limit as above). */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<?> getHealthDataByUserId(@PathVariable Long userId) {
+    public ResponseEntity<?> getHealthDataByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + HealthDataService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<HealthDataResponse> healthDataList = healthDataService.getHealthDataByUserId(userId);
-            return ResponseEntity.ok(healthDataList);
+            HealthDataPageResponse page = healthDataService.getHealthDataPageByUserId(userId, cursor, limit);
+            return ResponseEntity.ok(page);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
+    /**
+     * Export a user's full history as NDJSON (one record per line), newest first.
+     * Streamed from the database, so it works for any history length.
+     */
+    @GetMapping(value = "/user/{userId}/export", produces = "application/x-ndjson")
+    public ResponseEntity<?> exportHealthData(@PathVariable Long userId) {
+        try {
+            healthDataService.requireUser(userId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("error", e.getMessage()));
+        }
+        StreamingResponseBody body = out -> healthDataService.exportHealthData(userId, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"health-data-" + userId + ".ndjson\"")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     /** Get the latest (most recent) record of a user. */
     @GetMapping("/user/{userId}/latest")
     public ResponseEntity<?> getLatestHealthDataByUserId(@PathVariable Long userId) {
@@ -90,29 +157,33 @@ public class HealthDataController {
         }
     }
 
-    /** Query by explicit date range [startDate, endDate]. */
+    /** Query by explicit date range [startDate, endDate], one page at a time. */
     @GetMapping("/user/{userId}/date-range")
     public ResponseEntity<?> getHealthDataByDateRange(
             @PathVariable Long userId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + HealthDataService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<HealthDataResponse> healthDataList =
-                    healthDataService.getHealthDataByUserAndDateRange(userId, startDate, endDate);
-            return ResponseEntity.ok(healthDataList);
+            HealthDataPageResponse page =
+                    healthDataService.getHealthDataPageByUserAndDateRange(userId, startDate, endDate, cursor, limit);
+            return ResponseEntity.ok(page);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
-    /** Filter a user's records by mood enum. */
+    /** Filter a user's records by mood enum, one page at a time. */
     @GetMapping("/user/{userId}/mood/{mood}")
     public ResponseEntity<?> getHealthDataByMood(
             @PathVariable Long userId,
-            @PathVariable HealthData.MoodLevel mood) {
+            @PathVariable HealthData.MoodLevel mood,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + HealthDataService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<HealthDataResponse> healthDataList = healthDataService.getHealthDataByMood(userId, mood);
-            return ResponseEntity.ok(healthDataList);
+            HealthDataPageResponse page = healthDataService.getHealthDataPageByMood(userId, mood, cursor, limit);
+            return ResponseEntity.ok(page);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -141,6 +212,40 @@ public class HealthDataController {
         }
     }
 
+    /**
+     * Per-metric statistics (count, average, min, max, standard deviation) from the daily/weekly rollups.
+     * If no window is provided, defaults to the last 30 days.
+     */
+    @GetMapping("/user/{userId}/metrics")
+    public ResponseEntity<?> getMetricStatistics(
+            @PathVariable Long userId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        try {
+            if (startDate == null) startDate = LocalDateTime.now().minusDays(30);
+            if (endDate == null) endDate = LocalDateTime.now();
+
+            HealthMetricStatisticsResponse statistics =
+                    healthDataService.getMetricStatistics(userId, startDate, endDate);
+            return ResponseEntity.ok(statistics);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Recompute a user's rollups from the raw records (e.g. data saved before rollups existed). */
+    @PostMapping("/user/{userId}/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups(@PathVariable Long userId) {
+        try {
+            healthDataService.rebuildRollups(userId);
+            return ResponseEntity.ok(Map.of("message", "Rollups rebuilt successfully"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /** Update one record by id. */
     @PutMapping("/{id}")
     public ResponseEntity<?> updateHealthData(
@@ -165,39 +270,42 @@ public class HealthDataController {
         }
     }
 
-    /** Convenience: only weight-present rows from user's history. */
+    /** Convenience: only weight-present rows from user's history, one page at a time. */
     @GetMapping("/user/{userId}/weight-history")
-    public ResponseEntity<?> getWeightHistory(@PathVariable Long userId) {
+    public ResponseEntity<?> getWeightHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + HealthDataService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<HealthDataResponse> weightHistory = healthDataService.getHealthDataByUserId(userId).stream()
-                    .filter(h -> h.getWeight() != null)
-                    .collect(Collectors.toList());
+            HealthDataPageResponse weightHistory = healthDataService.getWeightHistoryPage(userId, cursor, limit);
             return ResponseEntity.ok(weightHistory);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
-    /** Convenience: only bmi-present rows from user's history. */
+    /** Convenience: only bmi-present rows from user's history, one page at a time. */
     @GetMapping("/user/{userId}/bmi-history")
-    public ResponseEntity<?> getBMIHistory(@PathVariable Long userId) {
+    public ResponseEntity<?> getBMIHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + HealthDataService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<HealthDataResponse> bmiHistory = healthDataService.getHealthDataByUserId(userId).stream()
-                    .filter(h -> h.getBmi() != null)
-                    .collect(Collectors.toList());
+            HealthDataPageResponse bmiHistory = healthDataService.getBMIHistoryPage(userId, cursor, limit);
             return ResponseEntity.ok(bmiHistory);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
 
-    /** Convenience: only heartRate-present rows from user's history. */
+    /** Convenience: only heartRate-present rows from user's history, one page at a time. */
     @GetMapping("/user/{userId}/heart-rate-history")
-    public ResponseEntity<?> getHeartRateHistory(@PathVariable Long userId) {
+    public ResponseEntity<?> getHeartRateHistory(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + HealthDataService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<HealthDataResponse> heartRateHistory = healthDataService.getHealthDataByUserId(userId).stream()
-                    .filter(h -> h.getHeartRate() != null)
-                    .collect(Collectors.toList());
+            HealthDataPageResponse heartRateHistory = healthDataService.getHeartRateHistoryPage(userId, cursor, limit);
             return ResponseEntity.ok(heartRateHistory);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
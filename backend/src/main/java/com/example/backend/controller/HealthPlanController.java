@@ -1,17 +1,25 @@
 package com.example.backend.controller;
 
 import com.example.backend.dto.request.HealthPlanRequest;
+import com.example.backend.dto.response.HealthPlanJobResponse;
 import com.example.backend.dto.response.HealthPlanResponse;
+import com.example.backend.dto.response.HealthPlanStreamEvent;
 import com.example.backend.entity.HealthPlan;
+import com.example.backend.service.HealthPlanJobService;
 import com.example.backend.service.HealthPlanService;
+import com.example.backend.service.HealthPlanStreamService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/health-plans")
@@ -21,20 +29,84 @@ public class HealthPlanController {
     @Autowired
     private HealthPlanService healthPlanService;
     
+    @Autowired
+    private HealthPlanJobService healthPlanJobService;
+    
+    @Autowired
+    private HealthPlanStreamService healthPlanStreamService;
+    
     /**
      * Generate personalized health plan
      * POST /api/health-plans/generate
      */
     @PostMapping("/generate")
-    public ResponseEntity<?> generateHealthPlan(@Valid @RequestBody HealthPlanRequest request) {
+    public CompletableFuture<ResponseEntity<?>> generateHealthPlan(@Valid @RequestBody HealthPlanRequest request) {
+        try {
+            return healthPlanService.generateHealthPlan(request)
+                    .<ResponseEntity<?>>handle((plan, e) -> e == null
+                            ? ResponseEntity.status(HttpStatus.CREATED).body(plan)
+                            : ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
+        }
+    }
+    
+    /**
+     * Generate a health plan, streaming each section as Server-Sent Events while Gemini writes it.
+     * Events: "delta" per chunk of model text, "section" per completed plan field,
+     * then "complete" with the saved plan, or "error"
+     * POST /api/health-plans/generate/stream
+     */
+    @PostMapping(value = "/generate/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<HealthPlanStreamEvent>> streamHealthPlan(@Valid @RequestBody HealthPlanRequest request) {
+        Flux<HealthPlanStreamEvent> events;
         try {
-            HealthPlanResponse plan = healthPlanService.generateHealthPlan(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(plan);
+            events = healthPlanStreamService.streamHealthPlan(request)
+                    .onErrorResume(e -> Flux.just(HealthPlanStreamEvent.error(e.getMessage())));
+        } catch (RuntimeException e) {
+            events = Flux.just(HealthPlanStreamEvent.error(e.getMessage()));
+        }
+        return events.map(event -> ServerSentEvent.builder(event)
+                .event(event.getType().name().toLowerCase())
+                .build());
+    }
+    
+    /**
+     * Submit an asynchronous plan generation job; returns the job id immediately
+     * POST /api/health-plans/jobs
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitHealthPlanJob(@Valid @RequestBody HealthPlanRequest request) {
+        try {
+            HealthPlanJobResponse job = healthPlanJobService.submitJob(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (HealthPlanJobService.JobQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
     
+    /**
+     * Worker pool queue depth, job counts and latency
+     * GET /api/health-plans/jobs/metrics
+     */
+    @GetMapping("/jobs/metrics")
+    public ResponseEntity<?> getHealthPlanJobMetrics() {
+        return ResponseEntity.ok(healthPlanJobService.getMetrics());
+    }
+    
+    /**
+     * Poll a plan generation job; the plan is included once status is SUCCEEDED
+     * GET /api/health-plans/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getHealthPlanJob(@PathVariable Long jobId) {
+        return healthPlanJobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job))
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     /**
      * Get all health plans
      * GET /api/health-plans
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/insurance-recommendations")
@@ -25,12 +26,14 @@ public class InsuranceRecommendationController {
      * POST /api/insurance-recommendations
      */
     @PostMapping
-    public ResponseEntity<?> generateRecommendation(@Valid @RequestBody InsuranceRecommendationRequest request) {
+    public CompletableFuture<ResponseEntity<?>> generateRecommendation(@Valid @RequestBody InsuranceRecommendationRequest request) {
         try {
-            InsuranceRecommendationResponse recommendation = insuranceRecommendationService.generateRecommendation(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(recommendation);
+            return insuranceRecommendationService.generateRecommendation(request)
+                    .<ResponseEntity<?>>handle((recommendation, e) -> e == null
+                            ? ResponseEntity.status(HttpStatus.CREATED).body(recommendation)
+                            : ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         }
     }
     
@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/medication-guidance")
@@ -23,12 +24,14 @@ public class MedicationGuidanceController {
      * POST /api/medication-guidance?userId={userId}&symptoms={symptoms}
      */
     @PostMapping
-    public ResponseEntity<?> generateGuidance(@RequestParam Long userId, @RequestParam String symptoms) {
+    public CompletableFuture<ResponseEntity<?>> generateGuidance(@RequestParam Long userId, @RequestParam String symptoms) {
         try {
-            MedicationGuidanceResponse guidance = medicationGuidanceService.generateMedicationGuidance(userId, symptoms);
-            return ResponseEntity.status(HttpStatus.CREATED).body(guidance);
+            return medicationGuidanceService.generateMedicationGuidance(userId, symptoms)
+                    .<ResponseEntity<?>>handle((guidance, e) -> e == null
+                            ? ResponseEntity.status(HttpStatus.CREATED).body(guidance)
+                            : ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         }
     }
     
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/smart-triage")
@@ -25,12 +26,14 @@ public class SmartTriageController {
      * POST /api/smart-triage
      */
     @PostMapping
-    public ResponseEntity<?> generateTriage(@Valid @RequestBody SmartTriageRequest request) {
+    public CompletableFuture<ResponseEntity<?>> generateTriage(@Valid @RequestBody SmartTriageRequest request) {
         try {
-            SmartTriageResponse triage = smartTriageService.generateTriage(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(triage);
+            return smartTriageService.generateTriage(request)
+                    .<ResponseEntity<?>>handle((triage, e) -> e == null
+                            ? ResponseEntity.status(HttpStatus.CREATED).body(triage)
+                            : ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of("error", e.getMessage())));
         }
     }
     
@@ -0,0 +1,14 @@
+package com.example.backend.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class AppointmentSlotResponse {
+    
+    private LocalDateTime slotStart;
+    private LocalDateTime slotEnd;
+    private Integer capacity;
+    private Integer available; // Places left
+}
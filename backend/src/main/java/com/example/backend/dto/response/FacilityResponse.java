@@ -22,6 +22,8 @@ public class FacilityResponse {
     private String operatingHours;
     private String directions;
     private Integer distance; // Distance in meters
+    private Integer appointmentSlotMinutes;
+    private Integer appointmentCapacity;
     private LocalDateTime createdAt;
     
     public static FacilityResponse fromFacility(Facility facility) {
@@ -39,6 +41,8 @@ public class FacilityResponse {
         response.setOperatingHours(facility.getOperatingHours());
         response.setDirections(facility.getDirections());
         response.setDistance(facility.getDistance());
+        response.setAppointmentSlotMinutes(facility.getAppointmentSlotMinutes());
+        response.setAppointmentCapacity(facility.getAppointmentCapacity());
         response.setCreatedAt(facility.getCreatedAt());
         return response;
     }
@@ -0,0 +1,28 @@
+package com.example.backend.dto.response;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class GeminiCacheStatsResponse {
+    
+    private Boolean enabled;
+    private Integer memoryEntries;
+    private Integer maxEntries;
+    private Long ttlMinutes;
+    private Boolean diskEnabled;
+    
+    // Keyed by AI feature name (TRIAGE, PLAN, ...); counts since startup
+    private Map<String, FeatureStats> features;
+    
+    @Data
+    public static class FeatureStats {
+        private Long hits;
+        private Long diskHits;
+        private Long misses;
+        // Requests that shared an identical in-flight Gemini call
+        private Long coalesced;
+        private Double hitRate;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.backend.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class GeminiLatencyStatsResponse {
+    
+    // Keyed by priority class (URGENT, NORMAL, BACKGROUND); since startup
+    private Map<String, ClassStats> priorityClasses;
+    
+    @Data
+    public static class ClassStats {
+        private Long sloMillis;
+        private Long count;
+        private Long failures;
+        private Double withinSloRatio;
+        private Double averageMillis;
+        private Long maxMillis;
+        // Estimated from the histogram buckets
+        private Long p50Millis;
+        private Long p95Millis;
+        private Long p99Millis;
+        private List<Bucket> buckets;
+    }
+    
+    @Data
+    public static class Bucket {
+        // null for the last, unbounded bucket
+        private Long upperBoundMillis;
+        private Long count;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.backend.dto.response;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class GeminiQuotaStatsResponse {
+    
+    private Boolean enabled;
+    
+    // Configured limits
+    private Integer requestsPerMinute;
+    private Long tokensPerMinute;
+    private Integer requestsPerDay;
+    
+    // Current state
+    private Integer requestsAvailable;
+    private Long tokensAvailable;
+    private Integer requestsToday;
+    private Integer queueDepth;
+    
+    // Keyed by AI feature name (TRIAGE, PLAN, ...); counts since startup
+    private Map<String, FeatureStats> features;
+    
+    @Data
+    public static class FeatureStats {
+        // Lower is served first
+        private Integer priority;
+        private Long admitted;
+        private Long shed;
+        private Double averageWaitMillis;
+    }
+}
@@ -19,6 +19,7 @@ public class GpAppointmentResponse {
     private String notes;
     private String reason;
     private LocalDateTime reminderTime;
+    private LocalDateTime reminderSentAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
@@ -35,6 +36,7 @@ public class GpAppointmentResponse {
         response.setNotes(appointment.getNotes());
         response.setReason(appointment.getReason());
         response.setReminderTime(appointment.getReminderTime());
+        response.setReminderSentAt(appointment.getReminderSentAt());
         response.setCreatedAt(appointment.getCreatedAt());
         response.setUpdatedAt(appointment.getUpdatedAt());
         return response;
@@ -0,0 +1,28 @@
+package com.example.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a bulk ingest: rows that failed validation are listed by their 0-based position in the
+ * request (for NDJSON, among the non-blank lines); all other rows were inserted.
+ */
+@Data
+public class HealthDataBulkResponse {
+    
+    private int received;
+    private int inserted;
+    private List<RowError> errors = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int index;
+        private String error;
+    }
+}
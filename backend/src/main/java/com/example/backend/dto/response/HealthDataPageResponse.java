@@ -0,0 +1,17 @@
+package com.example.backend.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of health data, newest first. Pass nextCursor back as ?cursor= to get the following page;
+ * it is null on the last page.
+ */
+@Data
+public class HealthDataPageResponse {
+    
+    private List<HealthDataResponse> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
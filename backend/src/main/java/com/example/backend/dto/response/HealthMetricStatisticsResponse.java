@@ -0,0 +1,31 @@
+package com.example.backend.dto.response;
+
+import com.example.backend.entity.HealthDataRollup;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-metric statistics of a user's health data over [startDate, endDate], answered from rollups.
+ * Metrics with no recorded values in the range are left out.
+ */
+@Data
+public class HealthMetricStatisticsResponse {
+    
+    private Long userId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private Map<HealthDataRollup.Metric, MetricStatistics> metrics = new EnumMap<>(HealthDataRollup.Metric.class);
+    
+    @Data
+    public static class MetricStatistics {
+        private Long count;
+        private Double average;
+        private Double min;
+        private Double max;
+        // Population standard deviation
+        private Double standardDeviation;
+    }
+}
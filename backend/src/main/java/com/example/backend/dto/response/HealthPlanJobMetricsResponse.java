@@ -0,0 +1,24 @@
+package com.example.backend.dto.response;
+
+import lombok.Data;
+
+@Data
+public class HealthPlanJobMetricsResponse {
+    
+    // Worker pool state
+    private Integer queueDepth;
+    private Integer queueCapacity;
+    private Integer activeWorkers;
+    private Integer maxWorkers;
+    
+    // Totals since startup
+    private Long submittedJobs;
+    private Long succeededJobs;
+    private Long failedJobs;
+    private Long rejectedJobs;
+    
+    // Latency from submit to finish, over finished jobs since startup
+    private Double averageLatencyMillis;
+    private Long maxLatencyMillis;
+    private Double averageQueueWaitMillis;
+}
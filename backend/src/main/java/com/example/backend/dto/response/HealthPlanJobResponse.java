@@ -0,0 +1,48 @@
+package com.example.backend.dto.response;
+
+import com.example.backend.entity.HealthPlan;
+import com.example.backend.entity.HealthPlanJob;
+import lombok.Data;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Data
+public class HealthPlanJobResponse {
+    
+    private Long jobId;
+    private Long userId;
+    private HealthPlan.PlanType type;
+    private HealthPlanJob.JobStatus status;
+    private String errorMessage;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long queueWaitMillis;
+    private Long runMillis;
+    
+    // Only present once status is SUCCEEDED
+    private HealthPlanResponse healthPlan;
+    
+    public static HealthPlanJobResponse fromHealthPlanJob(HealthPlanJob job) {
+        HealthPlanJobResponse response = new HealthPlanJobResponse();
+        response.setJobId(job.getId());
+        response.setUserId(job.getUser().getId());
+        response.setType(job.getType());
+        response.setStatus(job.getStatus());
+        response.setErrorMessage(job.getErrorMessage());
+        response.setSubmittedAt(job.getSubmittedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        if (job.getStartedAt() != null) {
+            response.setQueueWaitMillis(Duration.between(job.getSubmittedAt(), job.getStartedAt()).toMillis());
+            if (job.getFinishedAt() != null) {
+                response.setRunMillis(Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis());
+            }
+        }
+        if (job.getHealthPlan() != null) {
+            response.setHealthPlan(HealthPlanResponse.fromHealthPlan(job.getHealthPlan()));
+        }
+        return response;
+    }
+}
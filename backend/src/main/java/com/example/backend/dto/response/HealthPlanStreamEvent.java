@@ -0,0 +1,62 @@
+package com.example.backend.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * One Server-Sent Event of POST /api/health-plans/generate/stream.
+ * DELTA events carry each chunk of model text as it arrives, SECTION events carry a plan field as soon as Gemini has finished writing it,
+ * COMPLETE carries the saved plan, ERROR ends the stream without a plan.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HealthPlanStreamEvent {
+    
+    private EventType type;
+    
+    // SECTION: plan field name (planSummary, dietOverview, ...) and its text; DELTA: the chunk in content
+    private String section;
+    private String content;
+    
+    // COMPLETE
+    private HealthPlanResponse plan;
+    
+    // ERROR
+    private String error;
+    
+    public enum EventType {
+        DELTA,
+        SECTION,
+        COMPLETE,
+        ERROR
+    }
+    
+    public static HealthPlanStreamEvent delta(String content) {
+        HealthPlanStreamEvent event = new HealthPlanStreamEvent();
+        event.setType(EventType.DELTA);
+        event.setContent(content);
+        return event;
+    }
+    
+    public static HealthPlanStreamEvent section(String section, String content) {
+        HealthPlanStreamEvent event = new HealthPlanStreamEvent();
+        event.setType(EventType.SECTION);
+        event.setSection(section);
+        event.setContent(content);
+        return event;
+    }
+    
+    public static HealthPlanStreamEvent complete(HealthPlanResponse plan) {
+        HealthPlanStreamEvent event = new HealthPlanStreamEvent();
+        event.setType(EventType.COMPLETE);
+        event.setPlan(plan);
+        return event;
+    }
+    
+    public static HealthPlanStreamEvent error(String error) {
+        HealthPlanStreamEvent event = new HealthPlanStreamEvent();
+        event.setType(EventType.ERROR);
+        event.setError(error);
+        return event;
+    }
+}
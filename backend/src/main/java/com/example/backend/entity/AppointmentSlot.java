@@ -0,0 +1,37 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Number of active (scheduled or confirmed) GP appointments in one slot of a facility. Bookings take
+ * a place with a conditional increment (AppointmentSlotRepository.reserve), so the count cannot
+ * exceed the facility's capacity however many bookings race for the slot.
+ */
+@Entity
+@Table(name = "appointment_slots",
+       uniqueConstraints = @UniqueConstraint(name = "uk_appointment_slots_facility_slot_start",
+                                             columnNames = {"facility_id", "slot_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AppointmentSlot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "facility_id", nullable = false)
+    private Facility facility;
+    
+    @Column(nullable = false)
+    private LocalDateTime slotStart;
+    
+    @Column(nullable = false)
+    private Integer booked = 0;
+}
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "diet_guidance")
+@Table(name = "diet_guidance",
+       indexes = @Index(name = "idx_diet_guidance_user_created_at", columnList = "user_id, created_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
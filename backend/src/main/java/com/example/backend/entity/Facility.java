@@ -53,6 +53,10 @@ public class Facility {
     
     private Integer distance; // Distance in meters (calculated)
     
+    private Integer appointmentSlotMinutes; // Length of a bookable GP appointment slot, 15 when not set
+    
+    private Integer appointmentCapacity; // Appointments per slot (e.g. GPs on duty), 1 when not set
+    
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
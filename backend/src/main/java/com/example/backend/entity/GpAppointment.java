@@ -8,7 +8,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "gp_appointments")
+@Table(name = "gp_appointments",
+       indexes = {
+           @Index(name = "idx_gp_appointments_user_appointment_date", columnList = "user_id, appointment_date"),
+           @Index(name = "idx_gp_appointments_reminder_sent_at_reminder_time", columnList = "reminder_sent_at, reminder_time")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,6 +45,9 @@ public class GpAppointment {
     
     private LocalDateTime reminderTime;
     
+    // Set once the reminder has been delivered (see AppointmentReminderDispatcher); cleared on reschedule
+    private LocalDateTime reminderSentAt;
+    
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
     
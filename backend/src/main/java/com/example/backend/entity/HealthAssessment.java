@@ -9,7 +9,8 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "health_assessments")
+@Table(name = "health_assessments",
+       indexes = @Index(name = "idx_health_assessments_user_assessed_at", columnList = "user_id, assessed_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -14,7 +14,8 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "health_data")
+@Table(name = "health_data",
+       indexes = @Index(name = "idx_health_data_user_recorded_at", columnList = "user_id, recorded_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
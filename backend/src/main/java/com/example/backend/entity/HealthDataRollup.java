@@ -0,0 +1,90 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * Pre-aggregated HealthData values of one user, one metric and one day or ISO week (periodStart is the
+ * Monday). Kept up to date by HealthDataRollupService as records are created, updated and deleted,
+ * so range statistics do not have to scan raw health_data rows.
+ * sampleCount and the sums only include records where the metric is set.
+ */
+@Entity
+@Table(name = "health_data_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_rollup_user_period_metric",
+                                             columnNames = {"user_id", "granularity", "period_start", "metric"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HealthDataRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+    
+    @Column(nullable = false)
+    private LocalDate periodStart;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Metric metric;
+    
+    @Column(nullable = false)
+    private Long sampleCount = 0L;
+    
+    @Column(nullable = false)
+    private Double valueSum = 0.0;
+    
+    private Double valueMin;
+    
+    private Double valueMax;
+    
+    @Column(nullable = false)
+    private Double sumSquares = 0.0;
+    
+    public enum Granularity {
+        DAY,
+        WEEK
+    }
+    
+    public enum Metric {
+        WEIGHT(HealthData::getWeight),
+        BMI(HealthData::getBmi),
+        SYSTOLIC_PRESSURE(HealthData::getSystolicPressure),
+        DIASTOLIC_PRESSURE(HealthData::getDiastolicPressure),
+        HEART_RATE(HealthData::getHeartRate),
+        STEPS(HealthData::getSteps),
+        SLEEP_HOURS(HealthData::getSleepHours),
+        EXERCISE_MINUTES(HealthData::getExerciseMinutes),
+        WATER_INTAKE(HealthData::getWaterIntake);
+        
+        private final Function<HealthData, Number> extractor;
+        
+        Metric(Function<HealthData, Number> extractor) {
+            this.extractor = extractor;
+        }
+        
+        /** The metric's value in the record, or null when it was not recorded. */
+        public Double valueOf(HealthData healthData) {
+            Number value = extractor.apply(healthData);
+            if (value == null) {
+                return null;
+            }
+            return value instanceof BigDecimal decimal ? decimal.doubleValue() : Double.valueOf(value.doubleValue());
+        }
+    }
+}
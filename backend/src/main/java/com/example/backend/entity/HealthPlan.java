@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "health_plans")
+@Table(name = "health_plans",
+       indexes = @Index(name = "idx_health_plans_user_plan_date", columnList = "user_id, plan_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,62 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asynchronous health plan generation request.
+ * Created QUEUED on submit, moved to RUNNING by a worker, and finished as SUCCEEDED
+ * (with the saved plan attached) or FAILED (with the error message).
+ */
+@Entity
+@Table(name = "health_plan_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HealthPlanJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HealthPlan.PlanType type;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+    
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "health_plan_id")
+    private HealthPlan healthPlan;
+    
+    @Column(length = 1000)
+    private String errorMessage;
+    
+    @Column(nullable = false)
+    private LocalDateTime submittedAt = LocalDateTime.now();
+    
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime finishedAt;
+    
+    // Last time the instance that accepted the job reported it alive; unfinished jobs that stop getting
+    // heartbeats were dropped by a stopped instance and are failed by HealthPlanJobService
+    private LocalDateTime heartbeatAt;
+    
+    public enum JobStatus {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
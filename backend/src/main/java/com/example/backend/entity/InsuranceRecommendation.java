@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "insurance_recommendations")
+@Table(name = "insurance_recommendations",
+       indexes = @Index(name = "idx_insurance_recommendations_user_recommendation_date", columnList = "user_id, recommendation_date"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "medication_guidance")
+@Table(name = "medication_guidance",
+       indexes = @Index(name = "idx_medication_guidance_user_created_at", columnList = "user_id, created_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "smart_triage")
+@Table(name = "smart_triage",
+       indexes = @Index(name = "idx_smart_triage_user_triage_time", columnList = "user_id, triage_time"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
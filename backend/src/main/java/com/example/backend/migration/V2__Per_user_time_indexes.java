@@ -0,0 +1,66 @@
+package com.example.backend.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Composite (user_id, timestamp) indexes for the per-user, newest-first queries of the repositories.
+ * The same indexes are declared with @Index on the entities, so a schema created by Hibernate has them
+ * too. On a fresh database Flyway runs before Hibernate creates the tables, so tables that do not exist
+ * yet are skipped, as are indexes that already exist (written with JDBC metadata rather than SQL so it
+ * works on MySQL and H2 alike).
+ */
+public class V2__Per_user_time_indexes extends BaseJavaMigration {
+
+    record IndexDefinition(String table, String name, String columns) {
+    }
+
+    static final List<IndexDefinition> INDEXES = List.of(
+            new IndexDefinition("health_data", "idx_health_data_user_recorded_at", "user_id, recorded_at"),
+            new IndexDefinition("health_assessments", "idx_health_assessments_user_assessed_at", "user_id, assessed_at"),
+            new IndexDefinition("health_plans", "idx_health_plans_user_plan_date", "user_id, plan_date"),
+            new IndexDefinition("smart_triage", "idx_smart_triage_user_triage_time", "user_id, triage_time"),
+            new IndexDefinition("gp_appointments", "idx_gp_appointments_user_appointment_date", "user_id, appointment_date"),
+            new IndexDefinition("diet_guidance", "idx_diet_guidance_user_created_at", "user_id, created_at"),
+            new IndexDefinition("medication_guidance", "idx_medication_guidance_user_created_at", "user_id, created_at"),
+            new IndexDefinition("insurance_recommendations", "idx_insurance_recommendations_user_recommendation_date",
+                    "user_id, recommendation_date"));
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        for (IndexDefinition index : INDEXES) {
+            if (tableExists(connection, index.table()) && !indexExists(connection, index.table(), index.name())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("CREATE INDEX " + index.name() + " ON " + index.table() + " (" + index.columns() + ")");
+                }
+            }
+        }
+    }
+
+    static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), table, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    static boolean indexExists(Connection connection, String table, String name) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, false)) {
+            while (indexes.next()) {
+                if (name.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.backend.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The appointment_slots table (see the AppointmentSlot entity), filled with the places taken by the
+ * upcoming scheduled and confirmed GP appointments, so bookings made before slots were tracked still
+ * count against capacity. On a fresh database Flyway runs before Hibernate creates the tables, so
+ * nothing is done without a gp_appointments table; Hibernate then creates appointment_slots itself.
+ * Those appointments could start at any time, so each is counted in the slot it starts in, the same
+ * one AppointmentSlotService releases on cancellation. Slot lengths follow the facility's
+ * appointment_slot_minutes where that column exists yet, as in AppointmentSlotService.slotMinutes.
+ */
+public class V3__Appointment_slots extends BaseJavaMigration {
+
+    private static final int DEFAULT_SLOT_MINUTES = 15;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!V2__Per_user_time_indexes.tableExists(connection, "gp_appointments")
+                || V2__Per_user_time_indexes.tableExists(connection, "appointment_slots")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE appointment_slots (" +
+                    "id BIGINT NOT NULL AUTO_INCREMENT, " +
+                    "facility_id BIGINT NOT NULL, " +
+                    "slot_start DATETIME(6) NOT NULL, " +
+                    "booked INT NOT NULL, " +
+                    "PRIMARY KEY (id), " +
+                    "CONSTRAINT uk_appointment_slots_facility_slot_start UNIQUE (facility_id, slot_start), " +
+                    "CONSTRAINT fk_appointment_slots_facility FOREIGN KEY (facility_id) REFERENCES facilities (facility_id))");
+        }
+
+        String slotMinutes = V4__Appointment_reminders.columnExists(connection, "facilities", "appointment_slot_minutes")
+                ? "f.appointment_slot_minutes" : "NULL";
+        Map<SlotKey, Integer> booked = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet appointments = statement.executeQuery(
+                     "SELECT a.facility_id, a.appointment_date, " + slotMinutes + " FROM gp_appointments a " +
+                     "JOIN facilities f ON f.facility_id = a.facility_id " +
+                     "WHERE a.status IN ('SCHEDULED', 'CONFIRMED') AND a.appointment_date >= CURRENT_TIMESTAMP")) {
+            while (appointments.next()) {
+                int minutes = slotMinutes((Number) appointments.getObject(3));
+                LocalDateTime slotStart = slotStart(appointments.getTimestamp(2).toLocalDateTime(), minutes);
+                booked.merge(new SlotKey(appointments.getLong(1), slotStart), 1, Integer::sum);
+            }
+        }
+        if (booked.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO appointment_slots (facility_id, slot_start, booked) VALUES (?, ?, ?)")) {
+            for (Map.Entry<SlotKey, Integer> slot : booked.entrySet()) {
+                insert.setLong(1, slot.getKey().facilityId());
+                insert.setTimestamp(2, Timestamp.valueOf(slot.getKey().slotStart()));
+                insert.setInt(3, slot.getValue());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static int slotMinutes(Number minutes) {
+        return minutes != null && minutes.intValue() > 0 && MINUTES_PER_DAY % minutes.intValue() == 0
+                ? minutes.intValue() : DEFAULT_SLOT_MINUTES;
+    }
+
+    /** Start of the slot the time falls in. */
+    private static LocalDateTime slotStart(LocalDateTime time, int minutes) {
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        return time.toLocalDate().atStartOfDay().plusMinutes(minuteOfDay / minutes * minutes);
+    }
+
+    private record SlotKey(long facilityId, LocalDateTime slotStart) {
+    }
+}
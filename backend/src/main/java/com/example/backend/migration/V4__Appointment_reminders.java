@@ -0,0 +1,44 @@
+package com.example.backend.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The reminder_sent_at column of gp_appointments and the (reminder_sent_at, reminder_time) index the
+ * reminder dispatcher loads its horizon window with (see GpAppointmentRepository.findPendingReminders).
+ * Both are declared on the GpAppointment entity too; like V2, a database without gp_appointments yet
+ * is left to Hibernate, and a column or index that already exists is skipped.
+ */
+public class V4__Appointment_reminders extends BaseJavaMigration {
+
+    static final String INDEX = "idx_gp_appointments_reminder_sent_at_reminder_time";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!V2__Per_user_time_indexes.tableExists(connection, "gp_appointments")) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (!columnExists(connection, "gp_appointments", "reminder_sent_at")) {
+                statement.execute("ALTER TABLE gp_appointments ADD COLUMN reminder_sent_at DATETIME(6)");
+            }
+            if (!V2__Per_user_time_indexes.indexExists(connection, "gp_appointments", INDEX)) {
+                statement.execute("CREATE INDEX " + INDEX + " ON gp_appointments (reminder_sent_at, reminder_time)");
+            }
+        }
+    }
+
+    static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+            return columns.next();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.backend.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fills health_data_rollups (see the HealthDataRollup entity) from the raw health_data records, which
+ * range statistics and the AI prompt summaries are read from. Rollups are only maintained for records
+ * written since they were introduced, so each user's rows are rebuilt from scratch here, the same as
+ * HealthDataRollupService.rebuild does, one user at a time to bound memory. A missing table is created
+ * first; like V3, a database without health_data yet is left to Hibernate.
+ * The metrics are listed here as they were when this migration was written, rather than read from
+ * HealthDataRollup.Metric, so that later changes to the entity do not change what it does.
+ */
+public class V5__Health_data_rollups extends BaseJavaMigration {
+
+    // health_data column and the metric name stored for it
+    private static final String[][] METRICS = {
+            {"weight", "WEIGHT"},
+            {"bmi", "BMI"},
+            {"systolic_pressure", "SYSTOLIC_PRESSURE"},
+            {"diastolic_pressure", "DIASTOLIC_PRESSURE"},
+            {"heart_rate", "HEART_RATE"},
+            {"steps", "STEPS"},
+            {"sleep_hours", "SLEEP_HOURS"},
+            {"exercise_minutes", "EXERCISE_MINUTES"},
+            {"water_intake", "WATER_INTAKE"}};
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        if (!V2__Per_user_time_indexes.tableExists(connection, "health_data")) {
+            return;
+        }
+        if (!V2__Per_user_time_indexes.tableExists(connection, "health_data_rollups")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE health_data_rollups (" +
+                        "id BIGINT NOT NULL AUTO_INCREMENT, " +
+                        "user_id BIGINT NOT NULL, " +
+                        "granularity VARCHAR(10) NOT NULL, " +
+                        "period_start DATE NOT NULL, " +
+                        "metric VARCHAR(30) NOT NULL, " +
+                        "sample_count BIGINT NOT NULL, " +
+                        "value_sum DOUBLE NOT NULL, " +
+                        "value_min DOUBLE, " +
+                        "value_max DOUBLE, " +
+                        "sum_squares DOUBLE NOT NULL, " +
+                        "PRIMARY KEY (id), " +
+                        "CONSTRAINT uk_rollup_user_period_metric UNIQUE (user_id, granularity, period_start, metric), " +
+                        "CONSTRAINT fk_health_data_rollups_user FOREIGN KEY (user_id) REFERENCES users (id))");
+            }
+        }
+
+        List<Long> userIds = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet users = statement.executeQuery("SELECT DISTINCT user_id FROM health_data")) {
+            while (users.next()) {
+                userIds.add(users.getLong(1));
+            }
+        }
+        for (Long userId : userIds) {
+            rebuild(connection, userId);
+        }
+    }
+
+    private static void rebuild(Connection connection, Long userId) throws Exception {
+        StringBuilder columns = new StringBuilder("recorded_at");
+        for (String[] metric : METRICS) {
+            columns.append(", ").append(metric[0]);
+        }
+
+        Map<RollupKey, Accumulator> rollups = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT " + columns + " FROM health_data WHERE user_id = ?")) {
+            select.setLong(1, userId);
+            try (ResultSet records = select.executeQuery()) {
+                while (records.next()) {
+                    LocalDate day = records.getTimestamp(1).toLocalDateTime().toLocalDate();
+                    LocalDate week = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                    for (int i = 0; i < METRICS.length; i++) {
+                        Object value = records.getObject(i + 2);
+                        if (value instanceof Number number) {
+                            double reading = number.doubleValue();
+                            rollups.computeIfAbsent(new RollupKey("DAY", day, METRICS[i][1]),
+                                    key -> new Accumulator()).add(reading);
+                            rollups.computeIfAbsent(new RollupKey("WEEK", week, METRICS[i][1]),
+                                    key -> new Accumulator()).add(reading);
+                        }
+                    }
+                }
+            }
+        }
+
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM health_data_rollups WHERE user_id = ?")) {
+            delete.setLong(1, userId);
+            delete.executeUpdate();
+        }
+        if (rollups.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO health_data_rollups " +
+                "(user_id, granularity, period_start, metric, sample_count, value_sum, value_min, value_max, sum_squares) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (Map.Entry<RollupKey, Accumulator> entry : rollups.entrySet()) {
+                RollupKey key = entry.getKey();
+                Accumulator accumulator = entry.getValue();
+                insert.setLong(1, userId);
+                insert.setString(2, key.granularity());
+                insert.setDate(3, Date.valueOf(key.periodStart()));
+                insert.setString(4, key.metric());
+                insert.setLong(5, accumulator.count);
+                insert.setDouble(6, accumulator.sum);
+                insert.setDouble(7, accumulator.min);
+                insert.setDouble(8, accumulator.max);
+                insert.setDouble(9, accumulator.sumSquares);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private record RollupKey(String granularity, LocalDate periodStart, String metric) {
+    }
+
+    private static final class Accumulator {
+        private long count;
+        private double sum;
+        private double sumSquares;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            sumSquares += value * value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+    }
+}
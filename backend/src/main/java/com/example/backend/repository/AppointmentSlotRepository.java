@@ -0,0 +1,50 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.AppointmentSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot, Long> {
+    
+    boolean existsByFacilityFacilityIdAndSlotStart(Long facilityId, LocalDateTime slotStart);
+    
+    /**
+     * Create the slot row with nothing booked; leaves an existing row as it is. Only the duplicate key
+     * is tolerated: INSERT IGNORE would also turn foreign key and data errors into warnings. On InnoDB
+     * the no-op update takes an exclusive lock on an existing row, so callers check existsBy... first
+     * and only the first bookings of a slot get here; the rest go straight to the conditional update.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO appointment_slots (facility_id, slot_start, booked) " +
+                   "VALUES (:facilityId, :slotStart, 0) " +
+                   "ON DUPLICATE KEY UPDATE id = id",
+           nativeQuery = true)
+    void ensureExists(@Param("facilityId") Long facilityId, @Param("slotStart") LocalDateTime slotStart);
+    
+    /**
+     * Take one place in the slot if fewer than capacity are booked. A single conditional update, so
+     * concurrent reservations of the last place cannot both succeed. Returns 1 if taken, 0 if full.
+     */
+    @Modifying
+    @Query("UPDATE AppointmentSlot s SET s.booked = s.booked + 1 " +
+           "WHERE s.facility.facilityId = :facilityId AND s.slotStart = :slotStart AND s.booked < :capacity")
+    int reserve(@Param("facilityId") Long facilityId,
+                @Param("slotStart") LocalDateTime slotStart,
+                @Param("capacity") Integer capacity);
+    
+    @Modifying
+    @Query("UPDATE AppointmentSlot s SET s.booked = s.booked - 1 " +
+           "WHERE s.facility.facilityId = :facilityId AND s.slotStart = :slotStart AND s.booked > 0")
+    int release(@Param("facilityId") Long facilityId, @Param("slotStart") LocalDateTime slotStart);
+    
+    @Query("SELECT s FROM AppointmentSlot s " +
+           "WHERE s.facility.facilityId = :facilityId AND s.slotStart >= :from AND s.booked > 0")
+    List<AppointmentSlot> findBookedFrom(@Param("facilityId") Long facilityId, @Param("from") LocalDateTime from);
+}
@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.DietGuidance;
 import com.example.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,9 +12,11 @@ import java.util.Optional;
 @Repository
 public interface DietGuidanceRepository extends JpaRepository<DietGuidance, Long> {
     
-    List<DietGuidance> findByUserOrderByCreatedAtDesc(User user);
+    @EntityGraph(attributePaths = "user")
+    List<DietGuidance> findByUserIdOrderByCreatedAtDesc(Long userId);
     
     Optional<DietGuidance> findFirstByUserOrderByCreatedAtDesc(User user);
     
+    @EntityGraph(attributePaths = "user")
     List<DietGuidance> findByHealthIssueContainingIgnoreCase(String healthIssue);
 }
@@ -3,17 +3,26 @@ package com.example.backend.repository;
 import com.example.backend.entity.Facility;
 import com.example.backend.entity.GpAppointment;
 import com.example.backend.entity.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GpAppointmentRepository extends JpaRepository<GpAppointment, Long> {
     
-    List<GpAppointment> findByUserOrderByAppointmentDateDesc(User user);
+    @EntityGraph(attributePaths = {"user", "facility"})
+    List<GpAppointment> findByUserIdOrderByAppointmentDateDesc(Long userId);
     
     Optional<GpAppointment> findFirstByUserOrderByAppointmentDateDesc(User user);
     
@@ -21,7 +30,40 @@ public interface GpAppointmentRepository extends JpaRepository<GpAppointment, Lo
     
     List<GpAppointment> findByStatusOrderByAppointmentDateAsc(GpAppointment.AppointmentStatus status);
     
-    List<GpAppointment> findByUserAndStatusOrderByAppointmentDateDesc(User user, GpAppointment.AppointmentStatus status);
+    @EntityGraph(attributePaths = {"user", "facility"})
+    List<GpAppointment> findByUserIdAndStatusOrderByAppointmentDateDesc(Long userId, GpAppointment.AppointmentStatus status);
     
     List<GpAppointment> findByAppointmentDateBetweenOrderByAppointmentDateAsc(LocalDateTime start, LocalDateTime end);
+    
+    /**
+     * Load the appointment with its row locked until the transaction ends, so concurrent cancels and
+     * reschedules of it apply one after the other and release its slot once.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM GpAppointment a WHERE a.appointmentId = :id")
+    Optional<GpAppointment> findByIdForUpdate(@Param("id") Long id);
+    
+    @EntityGraph(attributePaths = {"user", "facility"})
+    Optional<GpAppointment> findWithUserAndFacilityByAppointmentId(Long appointmentId);
+    
+    /**
+     * Undelivered reminders due up to the given time, for appointments that are still to come
+     * (overdue ones included, so reminders missed while no instance was running still go out).
+     */
+    @Query("SELECT a FROM GpAppointment a WHERE a.reminderSentAt IS NULL AND a.reminderTime <= :until " +
+           "AND a.status IN :statuses AND a.appointmentDate > :now")
+    List<GpAppointment> findPendingReminders(@Param("statuses") Collection<GpAppointment.AppointmentStatus> statuses,
+                                             @Param("until") LocalDateTime until,
+                                             @Param("now") LocalDateTime now);
+    
+    /**
+     * Record the reminder for reminderTime as delivered; does nothing if it was rescheduled meanwhile.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE GpAppointment a SET a.reminderSentAt = :sentAt " +
+           "WHERE a.appointmentId = :id AND a.reminderTime = :reminderTime AND a.reminderSentAt IS NULL")
+    int markReminderSent(@Param("id") Long id,
+                         @Param("reminderTime") LocalDateTime reminderTime,
+                         @Param("sentAt") LocalDateTime sentAt);
 }
@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.HealthAssessment;
 import com.example.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,14 +15,22 @@ import java.util.Optional;
 @Repository
 public interface HealthAssessmentRepository extends JpaRepository<HealthAssessment, Long> {
     
-    List<HealthAssessment> findByUserOrderByAssessedAtDesc(User user);
+    // Admin listing of every user's rows: fetch the users in the same statement instead of one SELECT per user
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<HealthAssessment> findAll();
     
-    Optional<HealthAssessment> findFirstByUserOrderByAssessedAtDesc(User user);
+    @EntityGraph(attributePaths = "user")
+    List<HealthAssessment> findByUserIdOrderByAssessedAtDesc(Long userId);
+    
+    @EntityGraph(attributePaths = "user")
+    Optional<HealthAssessment> findFirstByUserIdOrderByAssessedAtDesc(Long userId);
     
     List<HealthAssessment> findByUserAndAssessedAtBetweenOrderByAssessedAtDesc(
         User user, LocalDateTime startDate, LocalDateTime endDate);
     
-    List<HealthAssessment> findByUserAndTypeOrderByAssessedAtDesc(User user, HealthAssessment.AssessmentType type);
+    @EntityGraph(attributePaths = "user")
+    List<HealthAssessment> findByUserIdAndTypeOrderByAssessedAtDesc(Long userId, HealthAssessment.AssessmentType type);
     
     @Query("SELECT h FROM HealthAssessment h WHERE h.user = :user AND h.assessedAt >= :startDate ORDER BY h.assessedAt DESC")
     List<HealthAssessment> findRecentByUser(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
@@ -0,0 +1,31 @@
+package com.example.backend.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Count, averages and ranges of a user's health data over one date window, computed by the
+ * database in a single query (HealthDataRepository.aggregateByUserIdAndDateRange).
+ * Each average/min/max only covers the records where that metric is set; all are null when
+ * the window has no records.
+ */
+public record HealthDataAggregate(
+        Long totalRecords,
+        Double averageWeight,
+        Double averageBMI,
+        Double averageHeartRate,
+        Double averageSteps,
+        Double averageSleepHours,
+        Double averageExerciseMinutes,
+        BigDecimal minWeight,
+        BigDecimal maxWeight,
+        BigDecimal minBMI,
+        BigDecimal maxBMI,
+        Integer minHeartRate,
+        Integer maxHeartRate,
+        Integer minSteps,
+        Integer maxSteps,
+        Integer minSleepHours,
+        Integer maxSleepHours,
+        Integer minExerciseMinutes,
+        Integer maxExerciseMinutes) {
+}
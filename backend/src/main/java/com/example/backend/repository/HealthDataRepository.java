@@ -2,26 +2,34 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.HealthData;
 import com.example.backend.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface HealthDataRepository extends JpaRepository<HealthData, Long> {
     
     List<HealthData> findByUserOrderByRecordedAtDesc(User user);
     
-    List<HealthData> findByUserAndRecordedAtBetweenOrderByRecordedAtDesc(
-        User user, LocalDateTime startDate, LocalDateTime endDate);
+    // Keyed by user id with the user fetched in the same statement: callers neither load the user up front
+    // nor lazily per row when mapping to responses
+    @EntityGraph(attributePaths = "user")
+    List<HealthData> findByUserIdAndRecordedAtBetweenOrderByRecordedAtDesc(
+        Long userId, LocalDateTime startDate, LocalDateTime endDate);
     
-    Optional<HealthData> findFirstByUserOrderByRecordedAtDesc(User user);
-    
-    List<HealthData> findByUserAndMoodOrderByRecordedAtDesc(User user, HealthData.MoodLevel mood);
+    @EntityGraph(attributePaths = "user")
+    Optional<HealthData> findFirstByUserIdOrderByRecordedAtDesc(Long userId);
     
     @Query("SELECT h FROM HealthData h WHERE h.user = :user AND h.recordedAt >= :startDate ORDER BY h.recordedAt DESC")
     List<HealthData> findRecentByUser(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
@@ -47,34 +55,85 @@ public interface HealthDataRepository extends JpaRepository<HealthData, Long> {
     @Query("SELECT h FROM HealthData h WHERE h.user = :user AND h.exerciseMinutes IS NOT NULL ORDER BY h.recordedAt DESC")
     List<HealthData> findExerciseHistoryByUser(@Param("user") User user);
     
-    @Query("SELECT AVG(h.weight) FROM HealthData h WHERE h.user = :user AND h.weight IS NOT NULL AND h.recordedAt >= :startDate")
-    Double findAverageWeightByUserAndDateRange(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
-    
-    @Query("SELECT AVG(h.bmi) FROM HealthData h WHERE h.user = :user AND h.bmi IS NOT NULL AND h.recordedAt >= :startDate")
-    Double findAverageBMIByUserAndDateRange(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
-    
-    @Query("SELECT AVG(h.heartRate) FROM HealthData h WHERE h.user = :user AND h.heartRate IS NOT NULL AND h.recordedAt >= :startDate")
-    Double findAverageHeartRateByUserAndDateRange(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
-    
-    @Query("SELECT AVG(h.steps) FROM HealthData h WHERE h.user = :user AND h.steps IS NOT NULL AND h.recordedAt >= :startDate")
-    Double findAverageStepsByUserAndDateRange(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
-    
-    @Query("SELECT AVG(h.sleepHours) FROM HealthData h WHERE h.user = :user AND h.sleepHours IS NOT NULL AND h.recordedAt >= :startDate")
-    Double findAverageSleepHoursByUserAndDateRange(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
-    
-    @Query("SELECT AVG(h.exerciseMinutes) FROM HealthData h WHERE h.user = :user AND h.exerciseMinutes IS NOT NULL AND h.recordedAt >= :startDate")
-    Double findAverageExerciseMinutesByUserAndDateRange(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
-    
-    @Query("SELECT COUNT(h) FROM HealthData h WHERE h.user = :user AND h.recordedAt >= :startDate")
-    Long countRecordsByUserAndDateRange(@Param("user") User user, @Param("startDate") LocalDateTime startDate);
-    
-    @Query("SELECT h FROM HealthData h WHERE h.user = :user AND h.recordedAt BETWEEN :startDate AND :endDate ORDER BY h.recordedAt DESC")
-    List<HealthData> findByUserAndDateRange(@Param("user") User user, 
-                                          @Param("startDate") LocalDateTime startDate, 
-                                          @Param("endDate") LocalDateTime endDate);
-    
-    @Query("SELECT h FROM HealthData h WHERE h.user = :user AND h.recordedAt >= :startDate AND h.recordedAt < :endDate ORDER BY h.recordedAt DESC")
-    List<HealthData> findTodayRecordsByUser(@Param("user") User user, 
-                                          @Param("startDate") LocalDateTime startDate, 
-                                          @Param("endDate") LocalDateTime endDate);
+    /**
+     * Count, averages and min/max of every metric over [startDate, endDate] in one round trip.
+     */
+    @Query("SELECT new com.example.backend.repository.HealthDataAggregate(" +
+           "COUNT(h), AVG(h.weight), AVG(h.bmi), AVG(h.heartRate), AVG(h.steps), AVG(h.sleepHours), AVG(h.exerciseMinutes), " +
+           "MIN(h.weight), MAX(h.weight), MIN(h.bmi), MAX(h.bmi), MIN(h.heartRate), MAX(h.heartRate), " +
+           "MIN(h.steps), MAX(h.steps), MIN(h.sleepHours), MAX(h.sleepHours), MIN(h.exerciseMinutes), MAX(h.exerciseMinutes)) " +
+           "FROM HealthData h WHERE h.user.id = :userId AND h.recordedAt BETWEEN :startDate AND :endDate")
+    HealthDataAggregate aggregateByUserIdAndDateRange(@Param("userId") Long userId,
+                                                      @Param("startDate") LocalDateTime startDate,
+                                                      @Param("endDate") LocalDateTime endDate);
+    
+    @EntityGraph(attributePaths = "user")
+    List<HealthData> findTop10ByUserIdAndRecordedAtBetweenOrderByRecordedAtDesc(
+        Long userId, LocalDateTime startDate, LocalDateTime endDate);
+    
+    // Keyset pages, newest first: records strictly after the cursor (recordedAt, id); the page size comes from the Pageable.
+    // The redundant "recordedAt <= :cursorAt" bound lets the (user_id, recorded_at) index range-scan from the cursor.
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT h FROM HealthData h WHERE " +
+           "h.recordedAt <= :cursorAt AND (h.recordedAt < :cursorAt OR (h.recordedAt = :cursorAt AND h.id < :cursorId)) ORDER BY h.recordedAt DESC, h.id DESC")
+    List<HealthData> findPage(@Param("cursorAt") LocalDateTime cursorAt, @Param("cursorId") Long cursorId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT h FROM HealthData h WHERE h.user.id = :userId AND " +
+           "h.recordedAt <= :cursorAt AND (h.recordedAt < :cursorAt OR (h.recordedAt = :cursorAt AND h.id < :cursorId)) ORDER BY h.recordedAt DESC, h.id DESC")
+    List<HealthData> findPageByUserId(@Param("userId") Long userId, @Param("cursorAt") LocalDateTime cursorAt, @Param("cursorId") Long cursorId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT h FROM HealthData h WHERE h.user.id = :userId AND h.recordedAt BETWEEN :startDate AND :endDate AND " +
+           "h.recordedAt <= :cursorAt AND (h.recordedAt < :cursorAt OR (h.recordedAt = :cursorAt AND h.id < :cursorId)) ORDER BY h.recordedAt DESC, h.id DESC")
+    List<HealthData> findPageByUserIdAndDateRange(@Param("userId") Long userId,
+                                                    @Param("startDate") LocalDateTime startDate,
+                                                    @Param("endDate") LocalDateTime endDate,
+                                                    @Param("cursorAt") LocalDateTime cursorAt,
+                                                    @Param("cursorId") Long cursorId,
+                                                    Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT h FROM HealthData h WHERE h.user.id = :userId AND h.mood = :mood AND " +
+           "h.recordedAt <= :cursorAt AND (h.recordedAt < :cursorAt OR (h.recordedAt = :cursorAt AND h.id < :cursorId)) ORDER BY h.recordedAt DESC, h.id DESC")
+    List<HealthData> findPageByUserIdAndMood(@Param("userId") Long userId, @Param("mood") HealthData.MoodLevel mood,
+                                             @Param("cursorAt") LocalDateTime cursorAt, @Param("cursorId") Long cursorId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT h FROM HealthData h WHERE h.user.id = :userId AND h.weight IS NOT NULL AND " +
+           "h.recordedAt <= :cursorAt AND (h.recordedAt < :cursorAt OR (h.recordedAt = :cursorAt AND h.id < :cursorId)) ORDER BY h.recordedAt DESC, h.id DESC")
+    List<HealthData> findWeightPageByUserId(@Param("userId") Long userId, @Param("cursorAt") LocalDateTime cursorAt, @Param("cursorId") Long cursorId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT h FROM HealthData h WHERE h.user.id = :userId AND h.bmi IS NOT NULL AND " +
+           "h.recordedAt <= :cursorAt AND (h.recordedAt < :cursorAt OR (h.recordedAt = :cursorAt AND h.id < :cursorId)) ORDER BY h.recordedAt DESC, h.id DESC")
+    List<HealthData> findBMIPageByUserId(@Param("userId") Long userId, @Param("cursorAt") LocalDateTime cursorAt, @Param("cursorId") Long cursorId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT h FROM HealthData h WHERE h.user.id = :userId AND h.heartRate IS NOT NULL AND " +
+           "h.recordedAt <= :cursorAt AND (h.recordedAt < :cursorAt OR (h.recordedAt = :cursorAt AND h.id < :cursorId)) ORDER BY h.recordedAt DESC, h.id DESC")
+    List<HealthData> findHeartRatePageByUserId(@Param("userId") Long userId, @Param("cursorAt") LocalDateTime cursorAt, @Param("cursorId") Long cursorId, Pageable pageable);
+    
+    /**
+     * All records of a user, newest first, read from the database in chunks of the fetch size rather than
+     * all at once (MySQL needs useCursorFetch=true on the JDBC URL for that). Must be consumed inside a
+     * transaction and closed.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT h FROM HealthData h JOIN FETCH h.user WHERE h.user.id = :userId ORDER BY h.recordedAt DESC, h.id DESC")
+    Stream<HealthData> streamByUserId(@Param("userId") Long userId);
+    
+    List<HealthData> findByUserIdAndRecordedAtGreaterThanEqualAndRecordedAtLessThan(
+        Long userId, LocalDateTime startDate, LocalDateTime endDate);
+    
+    List<HealthData> findByUserIdAndRecordedAtBetween(Long userId, LocalDateTime startDate, LocalDateTime endDate);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT h FROM HealthData h WHERE h.user.id = :userId AND h.recordedAt >= :startDate AND h.recordedAt < :endDate ORDER BY h.recordedAt DESC")
+    List<HealthData> findTodayRecordsByUserId(@Param("userId") Long userId, 
+                                              @Param("startDate") LocalDateTime startDate, 
+                                              @Param("endDate") LocalDateTime endDate);
 }
@@ -0,0 +1,86 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.HealthDataRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface HealthDataRollupRepository extends JpaRepository<HealthDataRollup, Long> {
+    
+    List<HealthDataRollup> findByUserIdAndGranularityAndPeriodStartBetween(
+        Long userId, HealthDataRollup.Granularity granularity, LocalDate from, LocalDate to);
+    
+    /**
+     * Add count values (with their sum, min, max and sum of squares) to a rollup row, creating it if needed.
+     * A single atomic statement, so concurrent writes for the same user and period cannot lose updates.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO health_data_rollups " +
+                   "(user_id, granularity, period_start, metric, sample_count, value_sum, value_min, value_max, sum_squares) " +
+                   "VALUES (:userId, :granularity, :periodStart, :metric, :count, :sum, :min, :max, :sumSquares) " +
+                   "ON DUPLICATE KEY UPDATE sample_count = sample_count + VALUES(sample_count), " +
+                   "value_sum = value_sum + VALUES(value_sum), " +
+                   "value_min = LEAST(value_min, VALUES(value_min)), " +
+                   "value_max = GREATEST(value_max, VALUES(value_max)), " +
+                   "sum_squares = sum_squares + VALUES(sum_squares)",
+           nativeQuery = true)
+    void addValues(@Param("userId") Long userId,
+                   @Param("granularity") String granularity,
+                   @Param("periodStart") LocalDate periodStart,
+                   @Param("metric") String metric,
+                   @Param("count") Long count,
+                   @Param("sum") Double sum,
+                   @Param("min") Double min,
+                   @Param("max") Double max,
+                   @Param("sumSquares") Double sumSquares);
+    
+    /**
+     * Take one value out of the count and sums; min/max are corrected afterwards with setRange.
+     */
+    @Modifying
+    @Query("UPDATE HealthDataRollup r SET r.sampleCount = r.sampleCount - 1, r.valueSum = r.valueSum - :value, " +
+           "r.sumSquares = r.sumSquares - :square " +
+           "WHERE r.user.id = :userId AND r.granularity = :granularity AND r.periodStart = :periodStart AND r.metric = :metric")
+    int removeValue(@Param("userId") Long userId,
+                    @Param("granularity") HealthDataRollup.Granularity granularity,
+                    @Param("periodStart") LocalDate periodStart,
+                    @Param("metric") HealthDataRollup.Metric metric,
+                    @Param("value") Double value,
+                    @Param("square") Double square);
+    
+    @Modifying
+    @Query("UPDATE HealthDataRollup r SET r.valueMin = :min, r.valueMax = :max " +
+           "WHERE r.user.id = :userId AND r.granularity = :granularity AND r.periodStart = :periodStart AND r.metric = :metric")
+    int setRange(@Param("userId") Long userId,
+                 @Param("granularity") HealthDataRollup.Granularity granularity,
+                 @Param("periodStart") LocalDate periodStart,
+                 @Param("metric") HealthDataRollup.Metric metric,
+                 @Param("min") Double min,
+                 @Param("max") Double max);
+    
+    @Modifying
+    @Query("DELETE FROM HealthDataRollup r WHERE r.user.id = :userId AND r.sampleCount <= 0 " +
+           "AND r.periodStart BETWEEN :from AND :to")
+    int deleteEmpty(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+    
+    /**
+     * Per-metric min and max of the day rollups in [from, to], used to correct a week's range.
+     * Rows are [metric, min, max].
+     */
+    @Query("SELECT r.metric, MIN(r.valueMin), MAX(r.valueMax) FROM HealthDataRollup r " +
+           "WHERE r.user.id = :userId AND r.granularity = com.example.backend.entity.HealthDataRollup.Granularity.DAY " +
+           "AND r.periodStart BETWEEN :from AND :to GROUP BY r.metric")
+    List<Object[]> findDayRangesByMetric(@Param("userId") Long userId,
+                                         @Param("from") LocalDate from,
+                                         @Param("to") LocalDate to);
+    
+    @Modifying
+    @Query("DELETE FROM HealthDataRollup r WHERE r.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+}
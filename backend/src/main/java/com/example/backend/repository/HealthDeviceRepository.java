@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.HealthDevice;
 import com.example.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,9 +12,11 @@ import java.util.Optional;
 @Repository
 public interface HealthDeviceRepository extends JpaRepository<HealthDevice, Long> {
     
-    List<HealthDevice> findByUser(User user);
+    @EntityGraph(attributePaths = "user")
+    List<HealthDevice> findByUserId(Long userId);
     
-    List<HealthDevice> findByUserAndIsConnectedTrue(User user);
+    @EntityGraph(attributePaths = "user")
+    List<HealthDevice> findByUserIdAndIsConnectedTrue(Long userId);
     
     Optional<HealthDevice> findByUserAndDeviceIdentifier(User user, String deviceIdentifier);
     
@@ -0,0 +1,52 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.HealthPlanJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface HealthPlanJobRepository extends JpaRepository<HealthPlanJob, Long> {
+    
+    /**
+     * Record a heartbeat for those of the given jobs that are still queued or running.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE HealthPlanJob j SET j.heartbeatAt = :now " +
+           "WHERE j.id IN :ids AND j.status IN (com.example.backend.entity.HealthPlanJob.JobStatus.QUEUED, " +
+           "com.example.backend.entity.HealthPlanJob.JobStatus.RUNNING)")
+    int recordHeartbeat(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    /**
+     * Fail every queued or running job whose last heartbeat (or submission, before the first one) is
+     * older than cutoff.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE HealthPlanJob j SET j.status = com.example.backend.entity.HealthPlanJob.JobStatus.FAILED, " +
+           "j.errorMessage = :message, j.finishedAt = :finishedAt " +
+           "WHERE j.status IN (com.example.backend.entity.HealthPlanJob.JobStatus.QUEUED, " +
+           "com.example.backend.entity.HealthPlanJob.JobStatus.RUNNING) " +
+           "AND COALESCE(j.heartbeatAt, j.submittedAt) < :cutoff")
+    int failSilentSince(@Param("cutoff") LocalDateTime cutoff,
+                        @Param("message") String message,
+                        @Param("finishedAt") LocalDateTime finishedAt);
+    
+    /**
+     * Finish a queued or running job as FAILED; a job that already finished is left as it is.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE HealthPlanJob j SET j.status = com.example.backend.entity.HealthPlanJob.JobStatus.FAILED, " +
+           "j.errorMessage = :message, j.finishedAt = :finishedAt " +
+           "WHERE j.id = :id AND j.status IN (com.example.backend.entity.HealthPlanJob.JobStatus.QUEUED, " +
+           "com.example.backend.entity.HealthPlanJob.JobStatus.RUNNING)")
+    int markFailed(@Param("id") Long id, @Param("message") String message, @Param("finishedAt") LocalDateTime finishedAt);
+}
@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.HealthPlan;
 import com.example.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -12,13 +13,22 @@ import java.util.Optional;
 @Repository
 public interface HealthPlanRepository extends JpaRepository<HealthPlan, Long> {
     
-    List<HealthPlan> findByUserOrderByPlanDateDesc(User user);
+    // Admin listing of every user's rows: fetch the users in the same statement instead of one SELECT per user
+    @Override
+    @EntityGraph(attributePaths = "user")
+    List<HealthPlan> findAll();
     
-    Optional<HealthPlan> findFirstByUserOrderByPlanDateDesc(User user);
+    @EntityGraph(attributePaths = "user")
+    List<HealthPlan> findByUserIdOrderByPlanDateDesc(Long userId);
     
-    List<HealthPlan> findByUserAndTypeOrderByPlanDateDesc(User user, HealthPlan.PlanType type);
+    @EntityGraph(attributePaths = "user")
+    Optional<HealthPlan> findFirstByUserIdOrderByPlanDateDesc(Long userId);
+    
+    @EntityGraph(attributePaths = "user")
+    List<HealthPlan> findByUserIdAndTypeOrderByPlanDateDesc(Long userId, HealthPlan.PlanType type);
     
     List<HealthPlan> findByUserAndPlanDateBetweenOrderByPlanDateDesc(User user, LocalDateTime startDate, LocalDateTime endDate);
     
-    List<HealthPlan> findByUserAndStartDateLessThanEqualAndEndDateGreaterThanEqualOrderByPlanDateDesc(User user, LocalDateTime date, LocalDateTime date2);
+    @EntityGraph(attributePaths = "user")
+    List<HealthPlan> findByUserIdAndStartDateLessThanEqualAndEndDateGreaterThanEqualOrderByPlanDateDesc(Long userId, LocalDateTime date, LocalDateTime date2);
 }
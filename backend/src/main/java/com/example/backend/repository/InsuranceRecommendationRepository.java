@@ -1,7 +1,7 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.InsuranceRecommendation;
-import com.example.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,7 +11,9 @@ import java.util.Optional;
 @Repository
 public interface InsuranceRecommendationRepository extends JpaRepository<InsuranceRecommendation, Long> {
     
-    List<InsuranceRecommendation> findByUserOrderByRecommendationDateDesc(User user);
+    @EntityGraph(attributePaths = "user")
+    List<InsuranceRecommendation> findByUserIdOrderByRecommendationDateDesc(Long userId);
     
-    Optional<InsuranceRecommendation> findFirstByUserOrderByRecommendationDateDesc(User user);
+    @EntityGraph(attributePaths = "user")
+    Optional<InsuranceRecommendation> findFirstByUserIdOrderByRecommendationDateDesc(Long userId);
 }
@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.MedicationGuidance;
 import com.example.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,9 +12,11 @@ import java.util.Optional;
 @Repository
 public interface MedicationGuidanceRepository extends JpaRepository<MedicationGuidance, Long> {
     
-    List<MedicationGuidance> findByUserOrderByCreatedAtDesc(User user);
+    @EntityGraph(attributePaths = "user")
+    List<MedicationGuidance> findByUserIdOrderByCreatedAtDesc(Long userId);
     
     Optional<MedicationGuidance> findFirstByUserOrderByCreatedAtDesc(User user);
     
+    @EntityGraph(attributePaths = "user")
     List<MedicationGuidance> findBySymptomsContainingIgnoreCase(String symptoms);
 }
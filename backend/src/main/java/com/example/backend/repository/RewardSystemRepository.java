@@ -1,7 +1,7 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.RewardSystem;
-import com.example.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,5 +10,6 @@ import java.util.Optional;
 @Repository
 public interface RewardSystemRepository extends JpaRepository<RewardSystem, Long> {
     
-    Optional<RewardSystem> findByUser(User user);
+    @EntityGraph(attributePaths = "user")
+    Optional<RewardSystem> findByUserId(Long userId);
 }
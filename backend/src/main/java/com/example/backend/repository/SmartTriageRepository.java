@@ -1,7 +1,7 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.SmartTriage;
-import com.example.backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,9 +11,11 @@ import java.util.Optional;
 @Repository
 public interface SmartTriageRepository extends JpaRepository<SmartTriage, Long> {
     
-    List<SmartTriage> findByUserOrderByTriageTimeDesc(User user);
+    @EntityGraph(attributePaths = "user")
+    List<SmartTriage> findByUserIdOrderByTriageTimeDesc(Long userId);
     
-    Optional<SmartTriage> findFirstByUserOrderByTriageTimeDesc(User user);
+    @EntityGraph(attributePaths = "user")
+    Optional<SmartTriage> findFirstByUserIdOrderByTriageTimeDesc(Long userId);
     
     List<SmartTriage> findByPriorityOrderByTriageTimeDesc(SmartTriage.TriagePriority priority);
 }
@@ -0,0 +1,17 @@
+package com.example.backend.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * What an AppointmentReminderNotifier is given to remind a user of an upcoming GP appointment.
+ */
+public record AppointmentReminder(Long appointmentId,
+                                  Long userId,
+                                  String username,
+                                  String email,
+                                  Long facilityId,
+                                  String facilityName,
+                                  String facilityAddress,
+                                  LocalDateTime appointmentDate,
+                                  LocalDateTime reminderTime) {
+}
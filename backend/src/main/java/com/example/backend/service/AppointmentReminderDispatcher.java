@@ -0,0 +1,253 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.GpAppointment;
+import com.example.backend.repository.GpAppointmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires GP appointment reminders at their reminderTime to the AppointmentReminderNotifier.
+ * Only reminders due within appointments.reminders.horizon-minutes are held, in a ReminderTimingWheel
+ * ticked by one thread; the window is loaded from the database at startup and topped up whenever
+ * half of it has passed, so a restart reloads just the next window (plus any overdue, undelivered
+ * reminders of upcoming appointments). Bookings, cancellations and reschedules update the wheel once
+ * they commit; a reminder due past the loaded window is left to the load that reaches it.
+ * Delivery is at least once: reminderSentAt is only set after the notifier returns, and a failed or
+ * rejected send is retried with exponential backoff until it succeeds or the appointment starts.
+ * Every instance dispatches every reminder; set appointments.reminders.enabled=false on all but one
+ * to avoid duplicates.
+ */
+@Component
+public class AppointmentReminderDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger("appointments.reminders");
+
+    private static final EnumSet<GpAppointment.AppointmentStatus> ACTIVE =
+            EnumSet.of(GpAppointment.AppointmentStatus.SCHEDULED, GpAppointment.AppointmentStatus.CONFIRMED);
+
+    @Autowired
+    private GpAppointmentRepository gpAppointmentRepository;
+
+    @Autowired
+    private AppointmentReminderNotifier appointmentReminderNotifier;
+
+    @Autowired
+    private ThreadPoolTaskExecutor appointmentReminderExecutor;
+
+    @Value("${appointments.reminders.enabled:true}")
+    private boolean enabled;
+
+    @Value("${appointments.reminders.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${appointments.reminders.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${appointments.reminders.horizon-minutes:60}")
+    private long horizonMinutes;
+
+    @Value("${appointments.reminders.retry-millis:30000}")
+    private long retryMillis;
+
+    @Value("${appointments.reminders.max-retry-millis:900000}")
+    private long maxRetryMillis;
+
+    private volatile ReminderTimingWheel wheel;
+    // Reminders due up to here are in the wheel; later ones are loaded once the window reaches them
+    private volatile LocalDateTime loadedUntil;
+    private ScheduledExecutorService ticker;
+    // Failed sends per appointment, for the retry backoff
+    private final Map<Long, Integer> attempts = new ConcurrentHashMap<>();
+    // Taken off the wheel and not yet sent, so a window load does not schedule them a second time
+    private final Set<Long> sending = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || ticker != null) {
+            return;
+        }
+        reload();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "appointment-reminder-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    /** Drop every scheduled reminder and load the next horizon window from the database again. */
+    public synchronized void reload() {
+        wheel = new ReminderTimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+        attempts.clear();
+        sending.clear();
+        loadedUntil = null;
+        loadWindow();
+    }
+
+    /**
+     * Put the appointment's reminder in the wheel, or take it out if it no longer needs one, once the
+     * current transaction commits (right away without one).
+     */
+    public void update(GpAppointment appointment) {
+        Long appointmentId = appointment.getAppointmentId();
+        LocalDateTime reminderTime = needsReminder(appointment) ? appointment.getReminderTime() : null;
+        Runnable action = () -> {
+            ReminderTimingWheel current = wheel;
+            LocalDateTime until = loadedUntil;
+            if (current == null) {
+                return;
+            }
+            attempts.remove(appointmentId);
+            if (reminderTime != null && until != null && !reminderTime.isAfter(until)) {
+                current.schedule(appointmentId, toMillis(reminderTime));
+            } else {
+                current.cancel(appointmentId);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public boolean isScheduled(Long appointmentId) {
+        ReminderTimingWheel current = wheel;
+        return current != null && current.contains(appointmentId);
+    }
+
+    public int scheduledCount() {
+        ReminderTimingWheel current = wheel;
+        return current != null ? current.size() : 0;
+    }
+
+    private void tick() {
+        try {
+            for (Long appointmentId : wheel.advance(System.currentTimeMillis())) {
+                sending.add(appointmentId);
+                try {
+                    appointmentReminderExecutor.execute(() -> deliver(appointmentId));
+                } catch (TaskRejectedException e) {
+                    sending.remove(appointmentId);
+                    retryLater(appointmentId, e);
+                }
+            }
+            LocalDateTime until = loadedUntil;
+            if (until == null || LocalDateTime.now().plusMinutes(horizonMinutes / 2).isAfter(until)) {
+                loadWindow();
+            }
+        } catch (RuntimeException e) {
+            // Keep ticking; an exception would cancel the scheduled task
+            LOG.warn("Reminder tick failed", e);
+        }
+    }
+
+    /**
+     * Schedule every undelivered reminder due within the horizon. Reminders already in the wheel are
+     * scheduled again at the same time, so overlapping loads are harmless.
+     */
+    private synchronized void loadWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plusMinutes(horizonMinutes);
+        ReminderTimingWheel current = wheel;
+        for (GpAppointment appointment : gpAppointmentRepository.findPendingReminders(ACTIVE, until, now)) {
+            Long appointmentId = appointment.getAppointmentId();
+            if (!attempts.containsKey(appointmentId) && !sending.contains(appointmentId)) {
+                current.schedule(appointmentId, toMillis(appointment.getReminderTime()));
+            }
+        }
+        loadedUntil = until;
+    }
+
+    /**
+     * Send the reminder if it is still wanted and due, then record it as sent. The appointment is read
+     * again first, as it may have been cancelled, rescheduled or reminded by now.
+     */
+    private void deliver(Long appointmentId) {
+        try {
+            GpAppointment appointment = gpAppointmentRepository.findWithUserAndFacilityByAppointmentId(appointmentId)
+                    .orElse(null);
+            LocalDateTime now = LocalDateTime.now();
+            if (appointment == null || !needsReminder(appointment) || !appointment.getAppointmentDate().isAfter(now)) {
+                attempts.remove(appointmentId);
+                return;
+            }
+            if (appointment.getReminderTime().isAfter(now)) {
+                update(appointment);
+                return;
+            }
+
+            appointmentReminderNotifier.send(toReminder(appointment));
+            gpAppointmentRepository.markReminderSent(appointmentId, appointment.getReminderTime(), LocalDateTime.now());
+            attempts.remove(appointmentId);
+        } catch (RuntimeException e) {
+            retryLater(appointmentId, e);
+        } finally {
+            sending.remove(appointmentId);
+        }
+    }
+
+    private void retryLater(Long appointmentId, RuntimeException cause) {
+        int attempt = attempts.merge(appointmentId, 1, Integer::sum);
+        long delay = Math.min(retryMillis << Math.min(attempt - 1, 20), maxRetryMillis);
+        LOG.warn("Reminder for appointment {} failed (attempt {}), retrying in {} ms: {}",
+                appointmentId, attempt, delay, cause.toString());
+        wheel.schedule(appointmentId, System.currentTimeMillis() + delay);
+    }
+
+    private static boolean needsReminder(GpAppointment appointment) {
+        return appointment.getReminderTime() != null
+                && appointment.getReminderSentAt() == null
+                && ACTIVE.contains(appointment.getStatus());
+    }
+
+    private static AppointmentReminder toReminder(GpAppointment appointment) {
+        return new AppointmentReminder(
+                appointment.getAppointmentId(),
+                appointment.getUser().getId(),
+                appointment.getUser().getUsername(),
+                appointment.getUser().getEmail(),
+                appointment.getFacility().getFacilityId(),
+                appointment.getFacility().getName(),
+                appointment.getFacility().getAddress(),
+                appointment.getAppointmentDate(),
+                appointment.getReminderTime());
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.backend.service;
+
+/**
+ * Delivers GP appointment reminders (email, push, SMS...). The default LoggingAppointmentReminderNotifier
+ * only logs them; a deployment declares its own bean and the logging one backs off.
+ * Delivery is at least once: send may be called again for a reminder it already delivered (after a
+ * restart between delivery and recording it, or when several instances dispatch reminders), so
+ * implementations should tolerate or deduplicate on appointmentId and reminderTime.
+ * Throw to have the reminder retried later.
+ */
+public interface AppointmentReminderNotifier {
+
+    void send(AppointmentReminder reminder);
+}
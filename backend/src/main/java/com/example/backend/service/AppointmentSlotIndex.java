@@ -0,0 +1,100 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.AppointmentSlot;
+import com.example.backend.repository.AppointmentSlotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory booked counts of the appointment slots of each facility, for availability queries
+ * without a database round trip. A facility's slots from today on are loaded on first use into a
+ * map sorted by start, so the slots in a time range are a sub-map; counts change after each
+ * reservation and release commits.
+ * The appointment_slots table stays authoritative: bookings are only accepted by its conditional
+ * update, and a facility is reloaded after appointments.slot-index.refresh-seconds, which bounds
+ * how long bookings made through another instance go unseen here.
+ */
+@Component
+public class AppointmentSlotIndex {
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Value("${appointments.slot-index.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    private final Map<Long, FacilitySlots> facilities = new ConcurrentHashMap<>();
+    // Bumped by every count change; a load that overlapped one is used but not kept, as it may miss it
+    private final AtomicLong changes = new AtomicLong();
+
+    private record FacilitySlots(NavigableMap<LocalDateTime, Integer> booked, long loadedAtNanos) {
+    }
+
+    /**
+     * Booked count per slot start in [from, to); slots with nothing booked are left out.
+     */
+    public NavigableMap<LocalDateTime, Integer> bookedBetween(Long facilityId, LocalDateTime from, LocalDateTime to) {
+        return Collections.unmodifiableNavigableMap(slots(facilityId).subMap(from, true, to, false));
+    }
+
+    /**
+     * Add delta to the slot's count once the current transaction commits (right away without one).
+     */
+    public void adjust(Long facilityId, LocalDateTime slotStart, int delta) {
+        Runnable action = () -> {
+            changes.incrementAndGet();
+            FacilitySlots slots = facilities.get(facilityId);
+            if (slots != null) {
+                slots.booked().compute(slotStart, (start, booked) -> {
+                    int updated = (booked != null ? booked : 0) + delta;
+                    return updated > 0 ? updated : null;
+                });
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /** Drop every facility; each is loaded again on its next query. */
+    public void reload() {
+        changes.incrementAndGet();
+        facilities.clear();
+    }
+
+    private NavigableMap<LocalDateTime, Integer> slots(Long facilityId) {
+        FacilitySlots slots = facilities.get(facilityId);
+        if (slots != null && System.nanoTime() - slots.loadedAtNanos() < TimeUnit.SECONDS.toNanos(refreshSeconds)) {
+            return slots.booked();
+        }
+        long changesBeforeLoad = changes.get();
+        NavigableMap<LocalDateTime, Integer> booked = new ConcurrentSkipListMap<>();
+        for (AppointmentSlot slot : appointmentSlotRepository.findBookedFrom(facilityId, LocalDate.now().atStartOfDay())) {
+            booked.put(slot.getSlotStart(), slot.getBooked());
+        }
+        if (changes.get() == changesBeforeLoad) {
+            facilities.put(facilityId, new FacilitySlots(booked, System.nanoTime()));
+        }
+        return booked;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.response.AppointmentSlotResponse;
+import com.example.backend.entity.Facility;
+import com.example.backend.repository.AppointmentSlotRepository;
+import com.example.backend.repository.FacilityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+
+/**
+ * Slot model for GP appointments. A facility's days are divided into slots of appointmentSlotMinutes
+ * counted from midnight, each taking up to appointmentCapacity appointments, and an appointment must
+ * start at a slot boundary. Taking a place is a conditional increment of the slot's row in
+ * appointment_slots, atomic in the database, so concurrent bookings cannot overfill a slot.
+ * Availability is read from the AppointmentSlotIndex.
+ */
+@Service
+@Transactional
+public class AppointmentSlotService {
+
+    static final int DEFAULT_SLOT_MINUTES = 15;
+    static final int DEFAULT_CAPACITY = 1;
+    static final int MAX_AVAILABILITY_DAYS = 14;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    @Autowired
+    private AppointmentSlotRepository appointmentSlotRepository;
+
+    @Autowired
+    private AppointmentSlotIndex appointmentSlotIndex;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    /**
+     * Slots of the facility starting in [from, to), and not in the past, with places left, in time order.
+     */
+    @Transactional(readOnly = true)
+    public List<AppointmentSlotResponse> getAvailableSlots(Long facilityId, LocalDateTime from, LocalDateTime to) {
+        Facility facility = facilityRepository.findById(facilityId)
+                .orElseThrow(() -> new RuntimeException("Facility not found"));
+        if (!to.isAfter(from)) {
+            throw new RuntimeException("Availability range must end after it starts");
+        }
+        if (from.plusDays(MAX_AVAILABILITY_DAYS).isBefore(to)) {
+            throw new RuntimeException("Availability range is limited to " + MAX_AVAILABILITY_DAYS + " days");
+        }
+
+        int minutes = slotMinutes(facility);
+        int capacity = capacity(facility);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime first = firstSlotStart(from.isAfter(now) ? from : now, minutes);
+        NavigableMap<LocalDateTime, Integer> booked = appointmentSlotIndex.bookedBetween(facilityId, first, to);
+        List<AppointmentSlotResponse> slots = new ArrayList<>();
+        for (LocalDateTime start = first; start.isBefore(to); start = start.plusMinutes(minutes)) {
+            int available = capacity - booked.getOrDefault(start, 0);
+            if (available > 0) {
+                AppointmentSlotResponse slot = new AppointmentSlotResponse();
+                slot.setSlotStart(start);
+                slot.setSlotEnd(start.plusMinutes(minutes));
+                slot.setCapacity(capacity);
+                slot.setAvailable(available);
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Take a place in the facility's slot starting at start. Fails if start is not a slot boundary
+     * or the slot is fully booked, rolling back the caller's transaction.
+     */
+    public void reserve(Facility facility, LocalDateTime start) {
+        int minutes = slotMinutes(facility);
+        if (!isSlotStart(start, minutes)) {
+            throw new RuntimeException("Appointments start on " + minutes + " minute slot boundaries");
+        }
+        // Only the first booking of a slot inserts its row; the rest take no lock before the update
+        if (!appointmentSlotRepository.existsByFacilityFacilityIdAndSlotStart(facility.getFacilityId(), start)) {
+            appointmentSlotRepository.ensureExists(facility.getFacilityId(), start);
+        }
+        if (appointmentSlotRepository.reserve(facility.getFacilityId(), start, capacity(facility)) == 0) {
+            throw new RuntimeException("Appointment slot is fully booked");
+        }
+        appointmentSlotIndex.adjust(facility.getFacilityId(), start, 1);
+    }
+
+    /**
+     * Give back a place in the facility's slot that start falls in. Appointments booked before slots
+     * were tracked may start between boundaries; V3__Appointment_slots counted them in that slot.
+     */
+    public void release(Facility facility, LocalDateTime start) {
+        LocalDateTime slotStart = slotStartOf(start, slotMinutes(facility));
+        if (appointmentSlotRepository.release(facility.getFacilityId(), slotStart) > 0) {
+            appointmentSlotIndex.adjust(facility.getFacilityId(), slotStart, -1);
+        }
+    }
+
+    /** The facility's slot length; the default unless set to a positive number of minutes dividing a day. */
+    static int slotMinutes(Facility facility) {
+        Integer minutes = facility.getAppointmentSlotMinutes();
+        return minutes != null && minutes > 0 && MINUTES_PER_DAY % minutes == 0 ? minutes : DEFAULT_SLOT_MINUTES;
+    }
+
+    static int capacity(Facility facility) {
+        Integer capacity = facility.getAppointmentCapacity();
+        return capacity != null && capacity > 0 ? capacity : DEFAULT_CAPACITY;
+    }
+
+    static boolean isSlotStart(LocalDateTime time, int minutes) {
+        return time.getSecond() == 0 && time.getNano() == 0
+                && (time.getHour() * 60 + time.getMinute()) % minutes == 0;
+    }
+
+    /** Start of the slot the time falls in. */
+    static LocalDateTime slotStartOf(LocalDateTime time, int minutes) {
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        return time.toLocalDate().atStartOfDay().plusMinutes(minuteOfDay / minutes * minutes);
+    }
+
+    /** The earliest slot start at or after time. */
+    static LocalDateTime firstSlotStart(LocalDateTime time, int minutes) {
+        LocalDateTime midnight = time.toLocalDate().atStartOfDay();
+        long nanos = Duration.between(midnight, time).toNanos();
+        long slotNanos = Duration.ofMinutes(minutes).toNanos();
+        return midnight.plusNanos((nanos + slotNanos - 1) / slotNanos * slotNanos);
+    }
+}
@@ -4,15 +4,22 @@ import com.example.backend.dto.response.DietGuidanceResponse;
 import com.example.backend.entity.DietGuidance;
 import com.example.backend.entity.User;
 import com.example.backend.repository.DietGuidanceRepository;
-import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.GeminiCallLogger;
+import com.example.backend.service.ai.GeminiCallTrace;
 import com.example.backend.service.ai.GeminiDietService;
+import com.example.backend.service.ai.GeminiFeature;
+import com.example.backend.service.ai.UserProfile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,35 +30,46 @@ public class DietGuidanceService {
     private DietGuidanceRepository dietGuidanceRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
+    
+    @Autowired
+    private UserProfileCache userProfileCache;
     
     @Autowired(required = false)
     private GeminiDietService geminiDietService;
     
+    @Autowired
+    private GeminiCallLogger geminiCallLogger;
+    
     @Value("${gemini.enabled:false}")
     private Boolean geminiEnabled;
     
-    public DietGuidanceResponse generateDietGuidance(Long userId, String healthIssue) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<DietGuidanceResponse> generateDietGuidance(Long userId, String healthIssue) {
+        UserProfile profile = userProfileCache.get(userId);
+        User user = profile.toUserReference();
         
-        DietGuidance guidance;
+        GeminiCallTrace trace = geminiCallLogger.start(GeminiFeature.DIET);
+        Mono<DietGuidance> guidance;
         
         // Try to use Gemini AI if enabled, otherwise fall back to basic guidance
         if (geminiEnabled && geminiDietService != null) {
-            try {
-                guidance = geminiDietService.generateGeminiDietGuidance(user, healthIssue);
-            } catch (Exception e) {
-                System.err.println("Gemini diet guidance failed, falling back to basic guidance: " + e.getMessage());
-                guidance = createBasicDietGuidance(user, healthIssue);
-            }
+            guidance = geminiDietService.generateGeminiDietGuidance(profile, healthIssue)
+                    .onErrorResume(e -> {
+                        trace.fallback("basic guidance: " + e.getMessage());
+                        return Mono.fromSupplier(() -> createBasicDietGuidance(user, healthIssue));
+                    });
         } else {
             // Fall back to basic guidance
-            guidance = createBasicDietGuidance(user, healthIssue);
+            trace.fallback("gemini disabled");
+            guidance = Mono.fromSupplier(() -> createBasicDietGuidance(user, healthIssue));
         }
         
-        DietGuidance savedGuidance = dietGuidanceRepository.save(guidance);
-        return DietGuidanceResponse.fromDietGuidance(savedGuidance);
+        return geminiCallLogger.track(trace, guidance
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(entity -> trace.time(GeminiCallTrace.Phase.PERSIST, () -> dietGuidanceRepository.save(entity))))
+                .map(DietGuidanceResponse::fromDietGuidance)
+                .toFuture();
     }
     
     private DietGuidance createBasicDietGuidance(User user, String healthIssue) {
@@ -88,10 +106,9 @@ public class DietGuidanceService {
     
     @Transactional(readOnly = true)
     public List<DietGuidanceResponse> getUserGuidance(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return dietGuidanceRepository.findByUserOrderByCreatedAtDesc(user).stream()
+        return dietGuidanceRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
                 .map(DietGuidanceResponse::fromDietGuidance)
                 .collect(Collectors.toList());
     }
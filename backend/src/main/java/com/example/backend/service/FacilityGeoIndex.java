@@ -0,0 +1,286 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Facility;
+import com.example.backend.repository.FacilityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory grid index over facility coordinates for the nearby queries, so they no longer evaluate
+ * the haversine formula for every row. Cells are CELL_DEGREES wide in latitude and longitude; a query
+ * visits only the cells overlapping the bounding box of its circle and measures the exact
+ * great-circle distance of the facilities in them.
+ * Loaded from the database on first use and kept in sync by FacilityService after each create and
+ * delete commits. Facilities without coordinates are not indexed. Facilities written through another
+ * instance or directly through FacilityRepository are picked up by the reload that the first query after
+ * facilities.geo-index.refresh-seconds runs; other queries keep using the current index meanwhile.
+ */
+@Component
+public class FacilityGeoIndex {
+
+    static final double CELL_DEGREES = 0.1;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final int LONGITUDE_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final double FIRST_NEAREST_RADIUS_KM = 5.0;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Value("${facilities.geo-index.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // Bumped by put and remove, so that a reload overlapping one is repeated on next use
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile boolean loaded;
+    private volatile long refreshAtNanos;
+
+    /** The indexed fields of one facility; specialties are kept lower-cased. */
+    record Entry(Long facilityId, double latitude, double longitude, Facility.FacilityType type, String specialties) {
+
+        static Entry of(Facility facility) {
+            return new Entry(facility.getFacilityId(), facility.getLatitude().doubleValue(),
+                    facility.getLongitude().doubleValue(), facility.getFacilityType(),
+                    facility.getSpecialties() != null ? facility.getSpecialties().toLowerCase(Locale.ROOT) : "");
+        }
+
+        boolean matches(Facility.FacilityType type, String specialty) {
+            return (type == null || type == this.type) && (specialty == null || specialties.contains(specialty));
+        }
+    }
+
+    /** A facility and its great-circle distance from the query point, in km. */
+    public record Hit(Long facilityId, double distanceKm) {
+    }
+
+    /**
+     * Facilities within radiusKm of the point, nearest first. type and specialty (case-insensitive
+     * substring of the specialties) are optional filters.
+     */
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusKm,
+                                  Facility.FacilityType type, String specialty) {
+        ensureLoaded();
+        String specialtyFilter = specialty != null ? specialty.toLowerCase(Locale.ROOT) : null;
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (List<Entry> cell : cellsAround(latitude, longitude, radiusKm)) {
+                for (Entry entry : cell) {
+                    if (!entry.matches(type, specialtyFilter)) {
+                        continue;
+                    }
+                    double distance = distanceKm(latitude, longitude, entry.latitude(), entry.longitude());
+                    if (distance < radiusKm) {
+                        hits.add(new Hit(entry.facilityId(), distance));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm).thenComparing(Hit::facilityId));
+        return hits;
+    }
+
+    /**
+     * The k facilities nearest to the point within maxRadiusKm, nearest first, with the same filters.
+     * Searches circles of doubling radius until k facilities are inside one.
+     */
+    public List<Hit> nearest(double latitude, double longitude, int k, double maxRadiusKm,
+                             Facility.FacilityType type, String specialty) {
+        if (k < 1) {
+            throw new RuntimeException("limit must be at least 1");
+        }
+        double radius = Math.min(FIRST_NEAREST_RADIUS_KM, maxRadiusKm);
+        while (true) {
+            List<Hit> hits = withinRadius(latitude, longitude, radius, type, specialty);
+            if (hits.size() >= k || radius >= maxRadiusKm) {
+                return hits.size() > k ? new ArrayList<>(hits.subList(0, k)) : hits;
+            }
+            radius = Math.min(radius * 2, maxRadiusKm);
+        }
+    }
+
+    /** Index the facility, replacing its previous entry. */
+    public void put(Facility facility) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            removeEntry(facility.getFacilityId());
+            addEntry(facility);
+            changes.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drop the facility from the index. */
+    public void remove(Long facilityId) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            removeEntry(facilityId);
+            changes.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Rebuild the index from the facilities table. */
+    public void reload() {
+        long changesBeforeLoad = changes.get();
+        long startedAtNanos = System.nanoTime();
+        List<Facility> facilities = facilityRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            entries.clear();
+            facilities.forEach(this::addEntry);
+            loaded = true;
+            // A put or remove during the load may be missing from the rows read
+            refreshAtNanos = changes.get() == changesBeforeLoad
+                    ? startedAtNanos + TimeUnit.SECONDS.toNanos(refreshSeconds)
+                    : startedAtNanos;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        } else if (System.nanoTime() - refreshAtNanos >= 0 && refreshing.compareAndSet(false, true)) {
+            try {
+                reload();
+            } finally {
+                refreshing.set(false);
+            }
+        }
+    }
+
+    private void addEntry(Facility facility) {
+        if (facility.getFacilityId() == null || facility.getLatitude() == null || facility.getLongitude() == null) {
+            return;
+        }
+        Entry entry = Entry.of(facility);
+        entries.put(entry.facilityId(), entry);
+        cells.computeIfAbsent(cellKey(latitudeCell(entry.latitude()), longitudeCell(entry.longitude())),
+                key -> new ArrayList<>()).add(entry);
+    }
+
+    private void removeEntry(Long facilityId) {
+        Entry entry = entries.remove(facilityId);
+        if (entry == null) {
+            return;
+        }
+        long key = cellKey(latitudeCell(entry.latitude()), longitudeCell(entry.longitude()));
+        List<Entry> cell = cells.get(key);
+        cell.removeIf(e -> e.facilityId().equals(facilityId));
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    /**
+     * Non-empty cells overlapping the bounding box of the circle. Longitude wraps at the antimeridian;
+     * a box that reaches a pole spans every longitude. Falls back to all cells when the box covers more
+     * cells than are occupied.
+     */
+    private List<List<Entry>> cellsAround(double latitude, double longitude, double radiusKm) {
+        double latDelta = radiusKm / KM_PER_DEGREE;
+        double minLat = Math.max(-90, latitude - latDelta);
+        double maxLat = Math.min(90, latitude + latDelta);
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        boolean allLongitudes = minLat <= -90 || maxLat >= 90 || radiusKm / KM_PER_DEGREE >= 180 * cosLat;
+
+        int minLatCell = latitudeCell(minLat);
+        int maxLatCell = latitudeCell(maxLat);
+        int minLngCell;
+        int lngCellCount;
+        if (allLongitudes) {
+            minLngCell = 0;
+            lngCellCount = LONGITUDE_CELLS;
+        } else {
+            double lngDelta = latDelta / cosLat;
+            minLngCell = (int) Math.floor((longitude - lngDelta) / CELL_DEGREES);
+            lngCellCount = Math.min(LONGITUDE_CELLS,
+                    (int) Math.floor((longitude + lngDelta) / CELL_DEGREES) - minLngCell + 1);
+        }
+
+        long boxCells = (long) (maxLatCell - minLatCell + 1) * lngCellCount;
+        if (boxCells > cells.size()) {
+            List<List<Entry>> overlapping = new ArrayList<>();
+            for (Map.Entry<Long, List<Entry>> cell : cells.entrySet()) {
+                int latCell = (int) (cell.getKey() >> 32);
+                int lngCell = (int) (long) cell.getKey();
+                if (latCell >= minLatCell && latCell <= maxLatCell
+                        && Math.floorMod(lngCell - minLngCell, LONGITUDE_CELLS) < lngCellCount) {
+                    overlapping.add(cell.getValue());
+                }
+            }
+            return overlapping;
+        }
+
+        List<List<Entry>> overlapping = new ArrayList<>();
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int i = 0; i < lngCellCount; i++) {
+                List<Entry> cell = cells.get(cellKey(latCell, Math.floorMod(minLngCell + i, LONGITUDE_CELLS)));
+                if (cell != null) {
+                    overlapping.add(cell);
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    private static int latitudeCell(double latitude) {
+        return (int) Math.floor((latitude + 90) / CELL_DEGREES);
+    }
+
+    private static int longitudeCell(double longitude) {
+        return Math.floorMod((int) Math.floor(longitude / CELL_DEGREES), LONGITUDE_CELLS);
+    }
+
+    private static long cellKey(int latitudeCell, int longitudeCell) {
+        return ((long) latitudeCell << 32) | (longitudeCell & 0xFFFFFFFFL);
+    }
+}
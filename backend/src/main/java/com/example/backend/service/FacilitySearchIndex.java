@@ -0,0 +1,593 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Facility;
+import com.example.backend.repository.FacilityRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index for facility name and specialty search, replacing LIKE '%x%' scans.
+ * Text is lower-cased and stripped of accents and punctuation before indexing and querying.
+ * Each facility gets a document number in insertion order and every posting list is a sorted int
+ * array, so a create only appends; a delete leaves a tombstone until a quarter of the documents are
+ * dead and the index is compacted.
+ * Names are indexed by trigram: a name containing the query holds every trigram of the query, so
+ * candidates are the intersection of the query's posting lists; names sharing at least half of the
+ * query's trigrams are typo-tolerant matches. Specialties are split on commas and indexed by whole
+ * specialty and by word in a sorted term map, which answers prefix queries directly; substring and
+ * small edit-distance matches scan the term vocabulary, not the facilities.
+ * Results are ranked by match tier, then similarity, then shorter name, then insertion order; with
+ * a limit only the best ones are kept, in a bounded heap.
+ * Loaded from the database on first use and kept in sync by FacilityService after each create and
+ * delete commits; facilities written elsewhere are picked up by the reload that the first query after
+ * facilities.search-index.refresh-seconds runs, while other queries keep using the current index.
+ */
+@Component
+public class FacilitySearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int GRAM = 3;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final double MIN_FUZZY_SHARED_TRIGRAMS = 0.5;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+    // Match tiers, best first
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+    private static final int FUZZY = 4;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Value("${facilities.search-index.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Document number -> entry, null once deleted; name length (-1 once deleted) and trigram count
+    // alongside, to rank candidates without loading their entries
+    private final List<Entry> documents = new ArrayList<>();
+    private int[] nameLengths = new int[1024];
+    private int[] nameTrigramCounts = new int[1024];
+    private final Map<Long, Integer> documentByFacility = new HashMap<>();
+    private final Map<String, Postings> nameTrigrams = new HashMap<>();
+    private final NavigableMap<String, Postings> specialtyTerms = new TreeMap<>();
+    private int tombstones;
+    // Bumped by put and remove, so that a reload overlapping one is repeated on next use
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile boolean loaded;
+    private volatile long refreshAtNanos;
+
+    /** The indexed, normalized fields of one facility. */
+    record Entry(Long facilityId, String name, Set<String> trigrams, Set<String> terms) {
+
+        static Entry of(Facility facility) {
+            String name = normalize(facility.getName());
+            Set<String> terms = new LinkedHashSet<>();
+            if (facility.getSpecialties() != null) {
+                for (String specialty : facility.getSpecialties().split(",")) {
+                    String term = normalize(specialty);
+                    if (!term.isEmpty()) {
+                        terms.add(term);
+                        terms.addAll(List.of(term.split(" ")));
+                    }
+                }
+            }
+            return new Entry(facility.getFacilityId(), name, FacilitySearchIndex.trigrams(" " + name + " "), terms);
+        }
+    }
+
+    /** Ascending document numbers; may still hold tombstoned documents. */
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+        private int size;
+
+        void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+
+        /** Index of the first document >= target from start on: galloping, then binary search. */
+        int advance(int start, int target) {
+            int low = start;
+            int high = start;
+            int step = 1;
+            while (high < size && documents[high] < target) {
+                low = high + 1;
+                high = start + step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (documents[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * The best matches so far as keys packing tier, penalty (lower is better), name length and
+     * document number into a long, so that they sort in rank order. A max-heap of at most limit keys.
+     */
+    private static final class Ranking {
+
+        private final int limit;
+        private long[] keys = new long[16];
+        private int size;
+
+        Ranking(Integer limit) {
+            this.limit = limit != null ? limit : Integer.MAX_VALUE;
+        }
+
+        static long key(int tier, int penalty, int nameLength, int document) {
+            return ((long) tier << 56) | ((long) Math.min(penalty, 0xFFF) << 44)
+                    | ((long) Math.min(nameLength, 0xFFF) << 32) | document;
+        }
+
+        void offer(long key) {
+            if (size < limit) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                }
+                keys[size] = key;
+                siftUp(size++);
+            } else if (key < keys[0]) {
+                keys[0] = key;
+                siftDown(0);
+            }
+        }
+
+        boolean accepts(long key) {
+            return size < limit || key < keys[0];
+        }
+
+        boolean isFull() {
+            return size >= limit;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int[] documents() {
+            long[] sorted = Arrays.copyOf(keys, size);
+            Arrays.sort(sorted);
+            int[] documents = new int[size];
+            for (int i = 0; i < size; i++) {
+                documents[i] = (int) sorted[i];
+            }
+            return documents;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (keys[parent] >= keys[index]) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int largest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (keys[child] > keys[largest]) {
+                        largest = child;
+                    }
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+        }
+    }
+
+    /**
+     * Facilities whose name contains the query, best first: exact name, name prefix, word prefix,
+     * anywhere. When fewer than limit (or, without a limit, none) contain it, names sharing at
+     * least half of the query's trigrams follow, most similar first. Queries shorter than a
+     * trigram scan all names.
+     */
+    public List<Long> searchByName(String query, Integer limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || (limit != null && limit <= 0)) {
+            return List.of();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Ranking ranking = new Ranking(limit);
+            String wordStart = " " + normalized;
+            BitSet matched = new BitSet(documents.size());
+            if (normalized.length() < GRAM) {
+                for (int document = 0; document < documents.size(); document++) {
+                    offerName(document, normalized, wordStart, matched, ranking);
+                }
+            } else {
+                for (int document : containing(normalized)) {
+                    offerName(document, normalized, wordStart, matched, ranking);
+                }
+            }
+            // A full ranking holds limit names containing the query, fuzzy ones would rank below them
+            if (!ranking.isFull() && (limit != null || ranking.isEmpty())
+                    && normalized.length() >= MIN_FUZZY_LENGTH) {
+                offerSimilarNames(normalized, matched, ranking);
+            }
+            return facilityIds(ranking);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Facilities with a specialty matching the query, best first: a specialty or one of its words
+     * equal to the query, starting with it, containing it, and, only when nothing matched so far,
+     * within one edit (two from eight characters on).
+     */
+    public List<Long> searchBySpecialty(String query, Integer limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || (limit != null && limit <= 0)) {
+            return List.of();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            Ranking ranking = new Ranking(limit);
+            BitSet seen = new BitSet(documents.size());
+            Postings exact = specialtyTerms.get(normalized);
+            if (exact != null) {
+                offerAll(exact, EXACT, 0, seen, ranking);
+            }
+            // Later tiers rank below everything already kept once the ranking is full
+            for (Map.Entry<String, Postings> term : specialtyTerms.tailMap(normalized, false).entrySet()) {
+                if (ranking.isFull() || !term.getKey().startsWith(normalized)) {
+                    break;
+                }
+                offerAll(term.getValue(), PREFIX, 0, seen, ranking);
+            }
+            if (!ranking.isFull()) {
+                for (Map.Entry<String, Postings> term : specialtyTerms.entrySet()) {
+                    if (!term.getKey().startsWith(normalized) && term.getKey().contains(normalized)) {
+                        offerAll(term.getValue(), SUBSTRING, 0, seen, ranking);
+                    }
+                }
+            }
+            if (ranking.isEmpty() && normalized.length() >= MIN_FUZZY_LENGTH) {
+                int maxEdits = normalized.length() >= 8 ? 2 : 1;
+                for (Map.Entry<String, Postings> term : specialtyTerms.entrySet()) {
+                    int edits = editDistance(normalized, term.getKey(), maxEdits);
+                    if (edits <= maxEdits) {
+                        offerAll(term.getValue(), FUZZY, edits, seen, ranking);
+                    }
+                }
+            }
+            return facilityIds(ranking);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Index the facility, replacing its previous entry. */
+    public void put(Facility facility) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            removeEntry(facility.getFacilityId());
+            if (facility.getFacilityId() != null) {
+                addEntry(Entry.of(facility));
+            }
+            changes.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drop the facility from the index. */
+    public void remove(Long facilityId) {
+        ensureLoaded();
+        lock.writeLock().lock();
+        try {
+            removeEntry(facilityId);
+            changes.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Rebuild the index from the facilities table. */
+    public void reload() {
+        long changesBeforeLoad = changes.get();
+        long startedAtNanos = System.nanoTime();
+        List<Facility> facilities = facilityRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            clear();
+            for (Facility facility : facilities) {
+                if (facility.getFacilityId() != null) {
+                    addEntry(Entry.of(facility));
+                }
+            }
+            loaded = true;
+            // A put or remove during the load may be missing from the rows read
+            refreshAtNanos = changes.get() == changesBeforeLoad
+                    ? startedAtNanos + TimeUnit.SECONDS.toNanos(refreshSeconds)
+                    : startedAtNanos;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return documentByFacility.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String unaccented = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(unaccented.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + GRAM));
+        }
+        return trigrams;
+    }
+
+    /**
+     * Restricted Damerau-Levenshtein distance (an adjacent transposition counts as one edit), or
+     * maxEdits + 1 as soon as it is known to exceed maxEdits.
+     */
+    static int editDistance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], previous2[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], maxEdits + 1);
+    }
+
+    /**
+     * Offer the document if its name contains the query. Skips loading the name when even an exact or
+     * prefix match of its length would not make the ranking.
+     */
+    private void offerName(int document, String query, String wordStart, BitSet matched, Ranking ranking) {
+        int length = nameLengths[document];
+        if (length < 0) {
+            return;
+        }
+        long bestPossible = Ranking.key(length == query.length() ? EXACT : PREFIX, 0, length, document);
+        if (!ranking.accepts(bestPossible)) {
+            return;
+        }
+        String name = documents.get(document).name();
+        int tier;
+        if (name.equals(query)) {
+            tier = EXACT;
+        } else if (name.startsWith(query)) {
+            tier = PREFIX;
+        } else if (!name.contains(query)) {
+            return;
+        } else {
+            tier = name.contains(wordStart) ? WORD_PREFIX : SUBSTRING;
+        }
+        matched.set(document);
+        ranking.offer(Ranking.key(tier, 0, length, document));
+    }
+
+    /** Documents holding every trigram of the query: the posting lists intersected, shortest first. */
+    private int[] containing(String query) {
+        List<Postings> postings = new ArrayList<>();
+        for (String trigram : trigrams(query)) {
+            Postings posting = nameTrigrams.get(trigram);
+            if (posting == null) {
+                return new int[0];
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(posting -> posting.size));
+        Postings shortest = postings.get(0);
+        int[] candidates = Arrays.copyOf(shortest.documents, shortest.size);
+        int count = candidates.length;
+        for (int i = 1; i < postings.size() && count > 0; i++) {
+            Postings posting = postings.get(i);
+            int kept = 0;
+            int position = 0;
+            for (int c = 0; c < count; c++) {
+                position = posting.advance(position, candidates[c]);
+                if (position == posting.size) {
+                    break;
+                }
+                if (posting.documents[position] == candidates[c]) {
+                    candidates[kept++] = candidates[c];
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Names not matched yet sharing at least MIN_FUZZY_SHARED_TRIGRAMS of the query's trigrams
+     * (padded, so word boundaries count), penalized by one minus their Dice coefficient.
+     */
+    private void offerSimilarNames(String query, BitSet matched, Ranking ranking) {
+        Set<String> queryTrigrams = trigrams(" " + query + " ");
+        int[] shared = new int[documents.size()];
+        for (String trigram : queryTrigrams) {
+            Postings posting = nameTrigrams.get(trigram);
+            if (posting != null) {
+                for (int i = 0; i < posting.size; i++) {
+                    shared[posting.documents[i]]++;
+                }
+            }
+        }
+        int minShared = (int) Math.ceil(queryTrigrams.size() * MIN_FUZZY_SHARED_TRIGRAMS);
+        for (int document = 0; document < shared.length; document++) {
+            if (shared[document] < minShared || nameLengths[document] < 0 || matched.get(document)) {
+                continue;
+            }
+            double dice = 2.0 * shared[document] / (queryTrigrams.size() + nameTrigramCounts[document]);
+            int penalty = (int) Math.round((1 - dice) * 0xFFF);
+            ranking.offer(Ranking.key(FUZZY, penalty, nameLengths[document], document));
+        }
+    }
+
+    private void offerAll(Postings postings, int tier, int penalty, BitSet seen, Ranking ranking) {
+        for (int i = 0; i < postings.size; i++) {
+            int document = postings.documents[i];
+            if (nameLengths[document] >= 0 && !seen.get(document)) {
+                seen.set(document);
+                ranking.offer(Ranking.key(tier, penalty, nameLengths[document], document));
+            }
+        }
+    }
+
+    private List<Long> facilityIds(Ranking ranking) {
+        int[] ranked = ranking.documents();
+        List<Long> facilityIds = new ArrayList<>(ranked.length);
+        for (int document : ranked) {
+            facilityIds.add(documents.get(document).facilityId());
+        }
+        return facilityIds;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        } else if (System.nanoTime() - refreshAtNanos >= 0 && refreshing.compareAndSet(false, true)) {
+            try {
+                reload();
+            } finally {
+                refreshing.set(false);
+            }
+        }
+    }
+
+    private void clear() {
+        documents.clear();
+        documentByFacility.clear();
+        nameTrigrams.clear();
+        specialtyTerms.clear();
+        tombstones = 0;
+    }
+
+    private void addEntry(Entry entry) {
+        int document = documents.size();
+        documents.add(entry);
+        if (document == nameLengths.length) {
+            nameLengths = Arrays.copyOf(nameLengths, document * 2);
+            nameTrigramCounts = Arrays.copyOf(nameTrigramCounts, document * 2);
+        }
+        nameLengths[document] = entry.name().length();
+        nameTrigramCounts[document] = entry.trigrams().size();
+        documentByFacility.put(entry.facilityId(), document);
+        for (String trigram : entry.trigrams()) {
+            nameTrigrams.computeIfAbsent(trigram, key -> new Postings()).add(document);
+        }
+        for (String term : entry.terms()) {
+            specialtyTerms.computeIfAbsent(term, key -> new Postings()).add(document);
+        }
+    }
+
+    private void removeEntry(Long facilityId) {
+        Integer document = documentByFacility.remove(facilityId);
+        if (document == null) {
+            return;
+        }
+        documents.set(document, null);
+        nameLengths[document] = -1;
+        tombstones++;
+        if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones * 4 >= documents.size()) {
+            compact();
+        }
+    }
+
+    /** Renumber the live documents and rebuild the posting lists without the tombstones. */
+    private void compact() {
+        List<Entry> live = documents.stream().filter(Objects::nonNull).toList();
+        clear();
+        live.forEach(this::addEntry);
+    }
+}
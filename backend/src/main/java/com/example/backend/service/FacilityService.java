@@ -6,10 +6,16 @@ import com.example.backend.repository.FacilityRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -19,6 +25,12 @@ public class FacilityService {
     @Autowired
     private FacilityRepository facilityRepository;
     
+    @Autowired
+    private FacilityGeoIndex facilityGeoIndex;
+    
+    @Autowired
+    private FacilitySearchIndex facilitySearchIndex;
+    
     @Transactional(readOnly = true)
     public List<FacilityResponse> getAllFacilities() {
         return facilityRepository.findAll().stream()
@@ -39,29 +51,56 @@ public class FacilityService {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Facilities whose name contains the text, best match first, followed by close spellings when
+     * there are too few; limit keeps only the best ones.
+     */
     @Transactional(readOnly = true)
-    public List<FacilityResponse> searchFacilitiesByName(String name) {
-        return facilityRepository.findByNameContainingIgnoreCase(name).stream()
-                .map(FacilityResponse::fromFacility)
-                .collect(Collectors.toList());
+    public List<FacilityResponse> searchFacilitiesByName(String name, Integer limit) {
+        return findInOrder(facilitySearchIndex.searchByName(name, limit));
     }
     
+    /**
+     * Facilities within distanceInKm, nearest first, with the distance in meters filled in.
+     * type and specialty filter when given; limit keeps only the nearest ones.
+     */
     @Transactional(readOnly = true)
-    public List<FacilityResponse> getNearbyFacilities(BigDecimal latitude, BigDecimal longitude, double distanceInKm) {
-        return facilityRepository.findNearbyFacilities(latitude, longitude, distanceInKm).stream()
-                .map(FacilityResponse::fromFacility)
-                .collect(Collectors.toList());
+    public List<FacilityResponse> getNearbyFacilities(BigDecimal latitude, BigDecimal longitude, double distanceInKm,
+                                                      Facility.FacilityType type, String specialty, Integer limit) {
+        List<FacilityGeoIndex.Hit> hits = limit != null
+                ? facilityGeoIndex.nearest(latitude.doubleValue(), longitude.doubleValue(), limit, distanceInKm, type, specialty)
+                : facilityGeoIndex.withinRadius(latitude.doubleValue(), longitude.doubleValue(), distanceInKm, type, specialty);
+        
+        Map<Long, Facility> facilities = facilityRepository.findAllById(
+                        hits.stream().map(FacilityGeoIndex.Hit::facilityId).toList()).stream()
+                .collect(Collectors.toMap(Facility::getFacilityId, Function.identity()));
+        List<FacilityResponse> responses = new ArrayList<>(hits.size());
+        for (FacilityGeoIndex.Hit hit : hits) {
+            Facility facility = facilities.get(hit.facilityId());
+            if (facility != null) {
+                FacilityResponse response = FacilityResponse.fromFacility(facility);
+                response.setDistance((int) Math.round(hit.distanceKm() * 1000));
+                responses.add(response);
+            }
+        }
+        return responses;
     }
     
+    /**
+     * Facilities with a specialty matching the text, best match first (close spellings only when
+     * nothing matches); limit keeps only the best ones.
+     */
     @Transactional(readOnly = true)
-    public List<FacilityResponse> getFacilitiesBySpecialty(String specialty) {
-        return facilityRepository.findBySpecialtiesContainingIgnoreCase(specialty).stream()
-                .map(FacilityResponse::fromFacility)
-                .collect(Collectors.toList());
+    public List<FacilityResponse> getFacilitiesBySpecialty(String specialty, Integer limit) {
+        return findInOrder(facilitySearchIndex.searchBySpecialty(specialty, limit));
     }
     
     public FacilityResponse createFacility(Facility facility) {
         Facility savedFacility = facilityRepository.save(facility);
+        afterCommit(() -> {
+            facilityGeoIndex.put(savedFacility);
+            facilitySearchIndex.put(savedFacility);
+        });
         return FacilityResponse.fromFacility(savedFacility);
     }
     
@@ -70,5 +109,33 @@ public class FacilityService {
             throw new RuntimeException("Facility not found");
         }
         facilityRepository.deleteById(id);
+        afterCommit(() -> {
+            facilityGeoIndex.remove(id);
+            facilitySearchIndex.remove(id);
+        });
+    }
+    
+    private List<FacilityResponse> findInOrder(List<Long> ids) {
+        Map<Long, Facility> facilities = facilityRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Facility::getFacilityId, Function.identity()));
+        return ids.stream()
+                .map(facilities::get)
+                .filter(Objects::nonNull)
+                .map(FacilityResponse::fromFacility)
+                .collect(Collectors.toList());
+    }
+    
+    /** Apply an index update once the current transaction commits (right away without one). */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -7,11 +7,11 @@ import com.example.backend.entity.GpAppointment;
 import com.example.backend.entity.User;
 import com.example.backend.repository.FacilityRepository;
 import com.example.backend.repository.GpAppointmentRepository;
-import com.example.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -25,17 +25,30 @@ public class GpAppointmentService {
     private GpAppointmentRepository gpAppointmentRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
     
     @Autowired
     private FacilityRepository facilityRepository;
     
+    @Autowired
+    private AppointmentSlotService appointmentSlotService;
+    
+    @Autowired
+    private AppointmentReminderDispatcher appointmentReminderDispatcher;
+    
+    /**
+     * Book the appointment if its facility slot has a place left (see AppointmentSlotService).
+     */
     public GpAppointmentResponse bookAppointment(GpAppointmentRequest request) {
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = userExistenceCache.reference(request.getUserId());
         
         Facility facility = facilityRepository.findById(request.getFacilityId())
                 .orElseThrow(() -> new RuntimeException("Facility not found"));
+        if (!request.getAppointmentDate().isAfter(LocalDateTime.now())) {
+            throw new RuntimeException("Appointment date must be in the future");
+        }
+        
+        appointmentSlotService.reserve(facility, request.getAppointmentDate());
         
         GpAppointment appointment = new GpAppointment();
         appointment.setUser(user);
@@ -47,15 +60,15 @@ public class GpAppointmentService {
         appointment.setStatus(GpAppointment.AppointmentStatus.SCHEDULED);
         
         GpAppointment savedAppointment = gpAppointmentRepository.save(appointment);
+        appointmentReminderDispatcher.update(savedAppointment);
         return GpAppointmentResponse.fromGpAppointment(savedAppointment);
     }
     
     @Transactional(readOnly = true)
     public List<GpAppointmentResponse> getUserAppointments(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return gpAppointmentRepository.findByUserOrderByAppointmentDateDesc(user).stream()
+        return gpAppointmentRepository.findByUserIdOrderByAppointmentDateDesc(userId).stream()
                 .map(GpAppointmentResponse::fromGpAppointment)
                 .collect(Collectors.toList());
     }
@@ -67,34 +80,63 @@ public class GpAppointmentService {
     }
     
     public GpAppointmentResponse cancelAppointment(Long id) {
-        GpAppointment appointment = gpAppointmentRepository.findById(id)
+        GpAppointment appointment = gpAppointmentRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
         
+        if (holdsSlot(appointment)) {
+            appointmentSlotService.release(appointment.getFacility(), appointment.getAppointmentDate());
+        }
         appointment.setStatus(GpAppointment.AppointmentStatus.CANCELLED);
         GpAppointment updatedAppointment = gpAppointmentRepository.save(appointment);
+        appointmentReminderDispatcher.update(updatedAppointment);
         return GpAppointmentResponse.fromGpAppointment(updatedAppointment);
     }
     
+    /**
+     * Move the appointment to a slot with a place left, freeing its current one; a cancelled
+     * appointment is scheduled again. The reminder moves with it, keeping its lead time, and is
+     * sent again even if it went out for the old date.
+     */
     public GpAppointmentResponse rescheduleAppointment(Long id, LocalDateTime newDateTime) {
-        GpAppointment appointment = gpAppointmentRepository.findById(id)
+        GpAppointment appointment = gpAppointmentRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new RuntimeException("Appointment not found"));
+        if (!newDateTime.isAfter(LocalDateTime.now())) {
+            throw new RuntimeException("Appointment date must be in the future");
+        }
         
+        boolean holdsSlot = holdsSlot(appointment);
+        if (!holdsSlot || !newDateTime.equals(appointment.getAppointmentDate())) {
+            appointmentSlotService.reserve(appointment.getFacility(), newDateTime);
+            if (holdsSlot) {
+                appointmentSlotService.release(appointment.getFacility(), appointment.getAppointmentDate());
+            }
+        }
+        if (appointment.getReminderTime() != null) {
+            appointment.setReminderTime(appointment.getReminderTime()
+                    .plus(Duration.between(appointment.getAppointmentDate(), newDateTime)));
+            appointment.setReminderSentAt(null);
+        }
         appointment.setAppointmentDate(newDateTime);
         appointment.setStatus(GpAppointment.AppointmentStatus.SCHEDULED);
         GpAppointment updatedAppointment = gpAppointmentRepository.save(appointment);
+        appointmentReminderDispatcher.update(updatedAppointment);
         return GpAppointmentResponse.fromGpAppointment(updatedAppointment);
     }
     
     @Transactional(readOnly = true)
     public List<GpAppointmentResponse> getUpcomingAppointments(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
         LocalDateTime now = LocalDateTime.now();
-        return gpAppointmentRepository.findByUserAndStatusOrderByAppointmentDateDesc(
-                user, GpAppointment.AppointmentStatus.SCHEDULED).stream()
+        return gpAppointmentRepository.findByUserIdAndStatusOrderByAppointmentDateDesc(
+                userId, GpAppointment.AppointmentStatus.SCHEDULED).stream()
                 .filter(a -> a.getAppointmentDate().isAfter(now))
                 .map(GpAppointmentResponse::fromGpAppointment)
                 .collect(Collectors.toList());
     }
+    
+    private static boolean holdsSlot(GpAppointment appointment) {
+        return appointment.getStatus() == GpAppointment.AppointmentStatus.SCHEDULED
+                || appointment.getStatus() == GpAppointment.AppointmentStatus.CONFIRMED;
+    }
 }
@@ -2,19 +2,25 @@ package com.example.backend.service;
 
 import com.example.backend.dto.request.HealthAssessmentRequest;
 import com.example.backend.dto.response.HealthAssessmentResponse;
-import com.example.backend.dto.response.HealthDataResponse;
 import com.example.backend.entity.HealthAssessment;
 import com.example.backend.entity.User;
 import com.example.backend.repository.HealthAssessmentRepository;
-import com.example.backend.repository.UserRepository;
 import com.example.backend.service.ai.GeminiAssessmentService;
+import com.example.backend.service.ai.GeminiCallLogger;
+import com.example.backend.service.ai.GeminiCallTrace;
+import com.example.backend.service.ai.GeminiFeature;
+import com.example.backend.service.ai.HealthDataSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -29,49 +35,58 @@ public class HealthAssessmentService {
     private HealthAssessmentRepository healthAssessmentRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
 
     @Autowired
-    private HealthDataService healthDataService;
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private HealthDataRollupService healthDataRollupService;
 
     @Autowired
     private GeminiAssessmentService geminiAssessmentService;
 
+    @Autowired
+    private GeminiCallLogger geminiCallLogger;
+
     /**
      * Trigger an assessment for the given request.
      * Behavior:
      *  - if startDate/endDate provided: use that explicit window.
      *  - otherwise: use daysBack (default to 30 if null/invalid).
+     * The returned future completes after the assessment has been persisted.
+     * Not transactional as a whole; only the history read and the final save touch the database.
      */
-    public HealthAssessmentResponse triggerAssessment(HealthAssessmentRequest request) {
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<HealthAssessmentResponse> triggerAssessment(HealthAssessmentRequest request) {
+        User user = userProfileCache.get(request.getUserId()).toUserReference();
 
-        List<HealthDataResponse> healthDataList;
+        HealthDataSummary healthData;
 
         if (request.getStartDate() != null && request.getEndDate() != null) {
-            // explicit start/end window
-            healthDataList = healthDataService.getHealthDataByUserAndDateRange(
-                    request.getUserId(), request.getStartDate(), request.getEndDate());
+            // explicit start/end window, in whole days
+            healthData = healthDataRollupService.summarize(request.getUserId(),
+                    request.getStartDate().toLocalDate(), request.getEndDate().toLocalDate());
         } else {
             // daysBack window
             int days = (request.getDaysBack() != null && request.getDaysBack() > 0)
                     ? request.getDaysBack() : 30;
-            LocalDateTime endDate = LocalDateTime.now();
-            LocalDateTime startDate = endDate.minusDays(days);
-            healthDataList = healthDataService.getHealthDataByUserAndDateRange(
-                    request.getUserId(), startDate, endDate);
+            LocalDate endDate = LocalDate.now();
+            healthData = healthDataRollupService.summarize(request.getUserId(), endDate.minusDays(days), endDate);
         }
 
         // Generate assessment via Gemini or heuristic fallback
-        HealthAssessment assessment = geminiAssessmentService.generateGeminiAssessment(
-                healthDataList, request.getType());
-
-        // Persist and map to DTO
-        assessment.setUser(user);
-        assessment.setAssessedAt(LocalDateTime.now());
-        HealthAssessment saved = healthAssessmentRepository.save(assessment);
-        return HealthAssessmentResponse.fromHealthAssessment(saved);
+        GeminiCallTrace trace = geminiCallLogger.start(GeminiFeature.ASSESSMENT);
+        return geminiCallLogger.track(trace, geminiAssessmentService.generateGeminiAssessment(healthData, request.getType())
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(assessment -> {
+                            // Persist and map to DTO
+                            assessment.setUser(user);
+                            assessment.setAssessedAt(LocalDateTime.now());
+                            return trace.time(GeminiCallTrace.Phase.PERSIST, () -> healthAssessmentRepository.save(assessment));
+                        }))
+                .map(HealthAssessmentResponse::fromHealthAssessment)
+                .toFuture();
     }
 
     /* -------- read operations (unchanged) -------- */
@@ -91,27 +106,24 @@ public class HealthAssessmentService {
 
     @Transactional(readOnly = true)
     public List<HealthAssessmentResponse> getAssessmentsByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return healthAssessmentRepository.findByUserOrderByAssessedAtDesc(user).stream()
+        userExistenceCache.requireExists(userId);
+        return healthAssessmentRepository.findByUserIdOrderByAssessedAtDesc(userId).stream()
                 .map(HealthAssessmentResponse::fromHealthAssessment)
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public Optional<HealthAssessmentResponse> getLatestAssessmentByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return healthAssessmentRepository.findFirstByUserOrderByAssessedAtDesc(user)
+        userExistenceCache.requireExists(userId);
+        return healthAssessmentRepository.findFirstByUserIdOrderByAssessedAtDesc(userId)
                 .map(HealthAssessmentResponse::fromHealthAssessment);
     }
 
     @Transactional(readOnly = true)
     public List<HealthAssessmentResponse> getAssessmentsByType(
             Long userId, HealthAssessment.AssessmentType type) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return healthAssessmentRepository.findByUserAndTypeOrderByAssessedAtDesc(user, type).stream()
+        userExistenceCache.requireExists(userId);
+        return healthAssessmentRepository.findByUserIdAndTypeOrderByAssessedAtDesc(userId, type).stream()
                 .map(HealthAssessmentResponse::fromHealthAssessment)
                 .collect(Collectors.toList());
     }
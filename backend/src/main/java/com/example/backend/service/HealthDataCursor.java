@@ -0,0 +1,42 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.HealthData;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a (recordedAt DESC, id DESC) listing: the last record of the previous page.
+ * Sent to clients as an opaque URL-safe string.
+ */
+public record HealthDataCursor(LocalDateTime recordedAt, Long id) {
+
+    /** Sorts before every record, so the first page needs no separate query. */
+    static final HealthDataCursor START = new HealthDataCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    static HealthDataCursor after(HealthData healthData) {
+        return new HealthDataCursor(healthData.getRecordedAt(), healthData.getId());
+    }
+
+    /** START for a missing cursor; RuntimeException if the cursor was not produced by encode(). */
+    static HealthDataCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            return new HealthDataCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    String encode() {
+        String raw = recordedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
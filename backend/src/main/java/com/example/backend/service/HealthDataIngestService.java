@@ -0,0 +1,218 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.HealthDataCreateRequest;
+import com.example.backend.dto.response.HealthDataBulkResponse;
+import com.example.backend.entity.HealthData;
+import com.example.backend.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk ingestion of readings uploaded by synced devices.
+ * Rows are validated one by one and invalid rows are reported instead of failing the request; the
+ * valid rows are normalized like createHealthData (height to meters, BMI) and inserted with JDBC batches,
+ * since HealthData's IDENTITY ids rule out Hibernate insert batching. Rollups are updated once per
+ * user/period/metric rather than once per row.
+ */
+@Service
+@Transactional
+public class HealthDataIngestService {
+
+    public static final int MAX_ROWS = 10_000;
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO health_data (user_id, recorded_at, weight, height, bmi, " +
+            "systolic_pressure, diastolic_pressure, heart_rate, body_temperature, blood_sugar, mood, sleep_hours, " +
+            "exercise_minutes, water_intake, steps, notes, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HealthDataRollupService healthDataRollupService;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Ingest a JSON array body. Null entries are reported as row errors.
+     */
+    public HealthDataBulkResponse ingest(List<HealthDataCreateRequest> requests) {
+        return ingest(requests, Map.of());
+    }
+
+    /**
+     * Ingest an NDJSON body (one HealthDataCreateRequest per line; blank lines are skipped).
+     * A line that is not valid JSON is reported as a row error like a validation failure.
+     */
+    public HealthDataBulkResponse ingestNdjson(InputStream body) {
+        List<HealthDataCreateRequest> requests = new ArrayList<>();
+        Map<Integer, String> parseErrors = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (requests.size() == MAX_ROWS) {
+                    throw new RuntimeException("Too many rows (max " + MAX_ROWS + ")");
+                }
+                try {
+                    requests.add(objectMapper.readValue(line, HealthDataCreateRequest.class));
+                } catch (JsonProcessingException e) {
+                    parseErrors.put(requests.size(), "Invalid JSON: " + e.getOriginalMessage());
+                    requests.add(null);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ingest(requests, parseErrors);
+    }
+
+    /**
+     * rowErrors gives the error to report for a null row (default "Empty row").
+     */
+    private HealthDataBulkResponse ingest(List<HealthDataCreateRequest> requests, Map<Integer, String> rowErrors) {
+        if (requests.size() > MAX_ROWS) {
+            throw new RuntimeException("Too many rows: " + requests.size() + " (max " + MAX_ROWS + ")");
+        }
+        HealthDataBulkResponse response = new HealthDataBulkResponse();
+        response.setReceived(requests.size());
+
+        List<HealthData> accepted = new ArrayList<>(requests.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            HealthDataCreateRequest request = requests.get(i);
+            String error = request == null ? rowErrors.getOrDefault(i, "Empty row") : validate(request);
+            if (error != null) {
+                response.getErrors().add(new HealthDataBulkResponse.RowError(i, error));
+                continue;
+            }
+            accepted.add(toHealthData(request));
+            acceptedIndexes.add(i);
+        }
+
+        rejectUnknownUsers(accepted, acceptedIndexes, response);
+        insert(accepted);
+        healthDataRollupService.recordAddedAll(accepted);
+
+        response.getErrors().sort(Comparator.comparingInt(HealthDataBulkResponse.RowError::getIndex));
+        response.setInserted(accepted.size());
+        return response;
+    }
+
+    private String validate(HealthDataCreateRequest request) {
+        if (request.getUserId() == null) {
+            return "userId is required";
+        }
+        Set<ConstraintViolation<HealthDataCreateRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * The same defaults and normalization as HealthDataService.createHealthData; prePersist
+     * normalizes height to meters and computes BMI.
+     */
+    private HealthData toHealthData(HealthDataCreateRequest request) {
+        HealthData healthData = new HealthData();
+        healthData.setUser(userRepository.getReferenceById(request.getUserId()));
+        healthData.setRecordedAt(request.getRecordedAt() != null ? request.getRecordedAt() : LocalDateTime.now());
+        healthData.setWeight(request.getWeight());
+        healthData.setHeight(request.getHeight());
+        healthData.setSystolicPressure(request.getSystolicPressure());
+        healthData.setDiastolicPressure(request.getDiastolicPressure());
+        healthData.setHeartRate(request.getHeartRate());
+        healthData.setBodyTemperature(request.getBodyTemperature());
+        healthData.setBloodSugar(request.getBloodSugar());
+        healthData.setMood(request.getMood() != null ? request.getMood() : HealthData.MoodLevel.NEUTRAL);
+        healthData.setSleepHours(request.getSleepHours());
+        healthData.setExerciseMinutes(request.getExerciseMinutes());
+        healthData.setWaterIntake(request.getWaterIntake());
+        healthData.setSteps(request.getSteps());
+        healthData.setNotes(request.getNotes());
+        healthData.prePersist();
+        return healthData;
+    }
+
+    /**
+     * One query for all distinct user ids; rows of unknown users become row errors.
+     */
+    private void rejectUnknownUsers(List<HealthData> accepted, List<Integer> acceptedIndexes,
+                                    HealthDataBulkResponse response) {
+        Set<Long> userIds = accepted.stream().map(h -> h.getUser().getId()).collect(Collectors.toSet());
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> existing = new HashSet<>(userRepository.findExistingIds(userIds));
+        if (existing.size() == userIds.size()) {
+            return;
+        }
+        for (int i = accepted.size() - 1; i >= 0; i--) {
+            if (!existing.contains(accepted.get(i).getUser().getId())) {
+                response.getErrors().add(new HealthDataBulkResponse.RowError(acceptedIndexes.get(i), "User not found"));
+                accepted.remove(i);
+                acceptedIndexes.remove(i);
+            }
+        }
+    }
+
+    private void insert(List<HealthData> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, BATCH_SIZE, (ps, h) -> {
+            ps.setLong(1, h.getUser().getId());
+            ps.setObject(2, h.getRecordedAt());
+            ps.setBigDecimal(3, h.getWeight());
+            ps.setBigDecimal(4, h.getHeight());
+            ps.setBigDecimal(5, h.getBmi());
+            ps.setObject(6, h.getSystolicPressure(), Types.INTEGER);
+            ps.setObject(7, h.getDiastolicPressure(), Types.INTEGER);
+            ps.setObject(8, h.getHeartRate(), Types.INTEGER);
+            ps.setBigDecimal(9, h.getBodyTemperature());
+            ps.setObject(10, h.getBloodSugar(), Types.INTEGER);
+            ps.setString(11, h.getMood().name());
+            ps.setObject(12, h.getSleepHours(), Types.INTEGER);
+            ps.setObject(13, h.getExerciseMinutes(), Types.INTEGER);
+            ps.setObject(14, h.getWaterIntake(), Types.INTEGER);
+            ps.setObject(15, h.getSteps(), Types.INTEGER);
+            ps.setString(16, h.getNotes());
+            ps.setObject(17, h.getCreatedAt());
+        });
+    }
+}
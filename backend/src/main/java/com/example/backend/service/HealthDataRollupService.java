@@ -0,0 +1,405 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.response.HealthMetricStatisticsResponse;
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.HealthDataRollup;
+import com.example.backend.entity.User;
+import com.example.backend.repository.HealthDataRepository;
+import com.example.backend.repository.HealthDataRollupRepository;
+import com.example.backend.service.ai.HealthDataSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the daily and weekly HealthDataRollup rows and answers range statistics and the AI prompt
+ * summaries from them.
+ * HealthDataService reports every create, update and delete in the same transaction; count, sum and
+ * sum of squares are adjusted in place, min/max are recomputed for the affected day and week when a
+ * value is taken out. A range is answered from whole weeks and whole days in the middle, plus the raw
+ * records of the partial days at either edge. Records saved before rollups existed are rolled up by
+ * the V5__Health_data_rollups migration.
+ */
+@Service
+@Transactional
+public class HealthDataRollupService {
+
+    @Autowired
+    private HealthDataRollupRepository rollupRepository;
+
+    @Autowired
+    private HealthDataRepository healthDataRepository;
+
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    private static final double OUTLIER_DEVIATIONS = 2.0;
+    private static final int MAX_OUTLIER_DAYS = 3;
+
+    /**
+     * The rollup-relevant values of one HealthData record, taken before it is changed or deleted.
+     */
+    public record Readings(Long userId, LocalDateTime recordedAt, Map<HealthDataRollup.Metric, Double> values) {
+
+        public static Readings of(HealthData healthData) {
+            Map<HealthDataRollup.Metric, Double> values = new EnumMap<>(HealthDataRollup.Metric.class);
+            for (HealthDataRollup.Metric metric : HealthDataRollup.Metric.values()) {
+                Double value = metric.valueOf(healthData);
+                if (value != null) {
+                    values.put(metric, value);
+                }
+            }
+            return new Readings(healthData.getUser().getId(), healthData.getRecordedAt(), values);
+        }
+
+        LocalDate day() {
+            return recordedAt.toLocalDate();
+        }
+    }
+
+    public void recordAdded(HealthData healthData) {
+        add(Readings.of(healthData));
+    }
+
+    /**
+     * Bulk form of recordAdded: one upsert per (user, period, metric) instead of one per record.
+     */
+    public void recordAddedAll(Collection<HealthData> records) {
+        Map<RollupKey, Accumulator> rollups = new HashMap<>();
+        for (HealthData healthData : records) {
+            accumulate(rollups, Readings.of(healthData));
+        }
+        upsert(rollups);
+    }
+
+    public void recordRemoved(Readings removed) {
+        remove(removed);
+    }
+
+    public void recordUpdated(Readings before, HealthData after) {
+        Readings updated = Readings.of(after);
+        if (before.equals(updated)) {
+            return;
+        }
+        remove(before);
+        add(updated);
+    }
+
+    @Transactional(readOnly = true)
+    public HealthMetricStatisticsResponse getStatistics(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        userExistenceCache.requireExists(userId);
+        if (endDate.isBefore(startDate)) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+
+        Map<HealthDataRollup.Metric, Accumulator> totals = new EnumMap<>(HealthDataRollup.Metric.class);
+
+        // Whole days are those covered from 00:00 to the end of the day
+        LocalDate firstFullDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startDate.toLocalDate() : startDate.toLocalDate().plusDays(1);
+        LocalDate lastFullDay = endDate.plusNanos(1).toLocalDate().minusDays(1);
+
+        if (firstFullDay.isAfter(lastFullDay)) {
+            addRaw(totals, healthDataRepository.findByUserIdAndRecordedAtBetween(userId, startDate, endDate));
+        } else {
+            if (startDate.isBefore(firstFullDay.atStartOfDay())) {
+                addRaw(totals, healthDataRepository.findByUserIdAndRecordedAtGreaterThanEqualAndRecordedAtLessThan(
+                        userId, startDate, firstFullDay.atStartOfDay()));
+            }
+            LocalDateTime afterLastFullDay = lastFullDay.plusDays(1).atStartOfDay();
+            if (!endDate.isBefore(afterLastFullDay)) {
+                addRaw(totals, healthDataRepository.findByUserIdAndRecordedAtBetween(userId, afterLastFullDay, endDate));
+            }
+            addFullDays(totals, userId, firstFullDay, lastFullDay);
+        }
+
+        HealthMetricStatisticsResponse response = new HealthMetricStatisticsResponse();
+        response.setUserId(userId);
+        response.setStartDate(startDate);
+        response.setEndDate(endDate);
+        totals.forEach((metric, accumulator) -> response.getMetrics().put(metric, accumulator.toStatistics()));
+        return response;
+    }
+
+    /**
+     * Summary of the days from..to for the AI prompts, read from the day rollups only: one query whose
+     * result is bounded by days x metrics however many records the user has.
+     */
+    @Transactional(readOnly = true)
+    public HealthDataSummary summarize(Long userId, LocalDate from, LocalDate to) {
+        userExistenceCache.requireExists(userId);
+        if (to.isBefore(from)) {
+            throw new RuntimeException("End date must not be before start date");
+        }
+
+        Map<HealthDataRollup.Metric, List<HealthDataRollup>> days = new EnumMap<>(HealthDataRollup.Metric.class);
+        Set<LocalDate> daysWithData = new HashSet<>();
+        for (HealthDataRollup rollup : rollupRepository.findByUserIdAndGranularityAndPeriodStartBetween(
+                userId, HealthDataRollup.Granularity.DAY, from, to)) {
+            if (rollup.getSampleCount() > 0) {
+                days.computeIfAbsent(rollup.getMetric(), m -> new ArrayList<>()).add(rollup);
+                daysWithData.add(rollup.getPeriodStart());
+            }
+        }
+        if (days.isEmpty()) {
+            return HealthDataSummary.empty(from, to);
+        }
+
+        Map<HealthDataRollup.Metric, HealthDataSummary.MetricSummary> metrics = new EnumMap<>(HealthDataRollup.Metric.class);
+        days.forEach((metric, rollups) -> metrics.put(metric, summarizeMetric(rollups, from)));
+        return new HealthDataSummary(from, to, daysWithData.size(), metrics);
+    }
+
+    /**
+     * Recreate all rollups of a user from the raw records, e.g. for data saved before rollups existed.
+     */
+    public void rebuild(Long userId) {
+        User user = userExistenceCache.reference(userId);
+
+        rollupRepository.deleteByUserId(userId);
+
+        Map<RollupKey, Accumulator> rollups = new HashMap<>();
+        for (HealthData healthData : healthDataRepository.findByUserOrderByRecordedAtDesc(user)) {
+            accumulate(rollups, Readings.of(healthData));
+        }
+
+        List<HealthDataRollup> rows = new ArrayList<>(rollups.size());
+        rollups.forEach((key, accumulator) -> {
+            HealthDataRollup rollup = new HealthDataRollup();
+            rollup.setUser(user);
+            rollup.setGranularity(key.granularity());
+            rollup.setPeriodStart(key.periodStart());
+            rollup.setMetric(key.metric());
+            rollup.setSampleCount(accumulator.count);
+            rollup.setValueSum(accumulator.sum);
+            rollup.setValueMin(accumulator.min);
+            rollup.setValueMax(accumulator.max);
+            rollup.setSumSquares(accumulator.sumSquares);
+            rows.add(rollup);
+        });
+        rollupRepository.saveAll(rows);
+    }
+
+    private void add(Readings readings) {
+        Map<RollupKey, Accumulator> rollups = new HashMap<>();
+        accumulate(rollups, readings);
+        upsert(rollups);
+    }
+
+    private void upsert(Map<RollupKey, Accumulator> rollups) {
+        rollups.forEach((key, accumulator) -> rollupRepository.addValues(key.userId(), key.granularity().name(),
+                key.periodStart(), key.metric().name(), accumulator.count, accumulator.sum, accumulator.min,
+                accumulator.max, accumulator.sumSquares));
+    }
+
+    private static void accumulate(Map<RollupKey, Accumulator> rollups, Readings readings) {
+        LocalDate day = readings.day();
+        LocalDate week = weekStart(day);
+        readings.values().forEach((metric, value) -> {
+            rollups.computeIfAbsent(new RollupKey(readings.userId(), HealthDataRollup.Granularity.DAY, day, metric),
+                    key -> new Accumulator()).add(value);
+            rollups.computeIfAbsent(new RollupKey(readings.userId(), HealthDataRollup.Granularity.WEEK, week, metric),
+                    key -> new Accumulator()).add(value);
+        });
+    }
+
+    /**
+     * Expects the record to be already changed or deleted in the persistence context: the day's
+     * min/max are recomputed from the remaining raw records (the query flushes pending changes first).
+     */
+    private void remove(Readings readings) {
+        if (readings.values().isEmpty()) {
+            return;
+        }
+        Long userId = readings.userId();
+        LocalDate day = readings.day();
+        LocalDate week = weekStart(day);
+
+        readings.values().forEach((metric, value) -> {
+            rollupRepository.removeValue(userId, HealthDataRollup.Granularity.DAY, day, metric, value, value * value);
+            rollupRepository.removeValue(userId, HealthDataRollup.Granularity.WEEK, week, metric, value, value * value);
+        });
+        rollupRepository.deleteEmpty(userId, week, week.plusDays(6));
+
+        Map<HealthDataRollup.Metric, Accumulator> dayTotals = new EnumMap<>(HealthDataRollup.Metric.class);
+        addRaw(dayTotals, healthDataRepository.findByUserIdAndRecordedAtGreaterThanEqualAndRecordedAtLessThan(
+                userId, day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+        for (HealthDataRollup.Metric metric : readings.values().keySet()) {
+            Accumulator accumulator = dayTotals.get(metric);
+            if (accumulator != null) {
+                rollupRepository.setRange(userId, HealthDataRollup.Granularity.DAY, day, metric,
+                        accumulator.min, accumulator.max);
+            }
+        }
+
+        for (Object[] row : rollupRepository.findDayRangesByMetric(userId, week, week.plusDays(6))) {
+            HealthDataRollup.Metric metric = (HealthDataRollup.Metric) row[0];
+            if (readings.values().containsKey(metric)) {
+                rollupRepository.setRange(userId, HealthDataRollup.Granularity.WEEK, week, metric,
+                        (Double) row[1], (Double) row[2]);
+            }
+        }
+    }
+
+    /**
+     * Whole ISO weeks from the week rollups, the days before the first and after the last of them
+     * from the day rollups.
+     */
+    private void addFullDays(Map<HealthDataRollup.Metric, Accumulator> totals, Long userId,
+                             LocalDate firstDay, LocalDate lastDay) {
+        LocalDate firstWeek = firstDay.with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+        LocalDate lastWeek = lastDay.plusDays(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+
+        if (firstWeek.isAfter(lastWeek)) {
+            addRollups(totals, rollupRepository.findByUserIdAndGranularityAndPeriodStartBetween(
+                    userId, HealthDataRollup.Granularity.DAY, firstDay, lastDay));
+            return;
+        }
+        addRollups(totals, rollupRepository.findByUserIdAndGranularityAndPeriodStartBetween(
+                userId, HealthDataRollup.Granularity.WEEK, firstWeek, lastWeek));
+        if (firstDay.isBefore(firstWeek)) {
+            addRollups(totals, rollupRepository.findByUserIdAndGranularityAndPeriodStartBetween(
+                    userId, HealthDataRollup.Granularity.DAY, firstDay, firstWeek.minusDays(1)));
+        }
+        LocalDate afterLastWeek = lastWeek.plusWeeks(1);
+        if (!afterLastWeek.isAfter(lastDay)) {
+            addRollups(totals, rollupRepository.findByUserIdAndGranularityAndPeriodStartBetween(
+                    userId, HealthDataRollup.Granularity.DAY, afterLastWeek, lastDay));
+        }
+    }
+
+    private static void addRaw(Map<HealthDataRollup.Metric, Accumulator> totals, Collection<HealthData> records) {
+        for (HealthData healthData : records) {
+            for (HealthDataRollup.Metric metric : HealthDataRollup.Metric.values()) {
+                Double value = metric.valueOf(healthData);
+                if (value != null) {
+                    totals.computeIfAbsent(metric, m -> new Accumulator()).add(value);
+                }
+            }
+        }
+    }
+
+    private static void addRollups(Map<HealthDataRollup.Metric, Accumulator> totals, Collection<HealthDataRollup> rollups) {
+        for (HealthDataRollup rollup : rollups) {
+            if (rollup.getSampleCount() > 0) {
+                totals.computeIfAbsent(rollup.getMetric(), m -> new Accumulator()).merge(rollup);
+            }
+        }
+    }
+
+    private static HealthDataSummary.MetricSummary summarizeMetric(List<HealthDataRollup> rollups, LocalDate from) {
+        rollups.sort(Comparator.comparing(HealthDataRollup::getPeriodStart));
+        Accumulator total = new Accumulator();
+        List<HealthDataSummary.DailyValue> daily = new ArrayList<>(rollups.size());
+        for (HealthDataRollup rollup : rollups) {
+            total.merge(rollup);
+            daily.add(new HealthDataSummary.DailyValue(rollup.getPeriodStart(), rollup.getSampleCount(),
+                    rollup.getValueSum() / rollup.getSampleCount(), rollup.getValueMin(), rollup.getValueMax()));
+        }
+        HealthMetricStatisticsResponse.MetricStatistics statistics = total.toStatistics();
+        double average = statistics.getAverage();
+        double deviation = statistics.getStandardDeviation();
+
+        // Least-squares slope of the daily means over the day index
+        Double trendPerWeek = null;
+        if (daily.size() >= 2) {
+            double meanX = 0;
+            double meanY = 0;
+            for (HealthDataSummary.DailyValue day : daily) {
+                meanX += ChronoUnit.DAYS.between(from, day.day());
+                meanY += day.mean();
+            }
+            meanX /= daily.size();
+            meanY /= daily.size();
+            double covariance = 0;
+            double variance = 0;
+            for (HealthDataSummary.DailyValue day : daily) {
+                double x = ChronoUnit.DAYS.between(from, day.day()) - meanX;
+                covariance += x * (day.mean() - meanY);
+                variance += x * x;
+            }
+            trendPerWeek = covariance / variance * 7;
+        }
+
+        // Days with a reading more than two standard deviations from the window average
+        List<HealthDataSummary.DailyValue> outliers = List.of();
+        if (deviation > 0) {
+            outliers = daily.stream()
+                    .filter(day -> distance(day, average) > OUTLIER_DEVIATIONS * deviation)
+                    .sorted(Comparator.comparingDouble((HealthDataSummary.DailyValue day) -> distance(day, average)).reversed())
+                    .limit(MAX_OUTLIER_DAYS)
+                    .toList();
+        }
+
+        return new HealthDataSummary.MetricSummary(statistics.getCount(), average, statistics.getMin(),
+                statistics.getMax(), deviation, trendPerWeek, outliers, daily);
+    }
+
+    private static double distance(HealthDataSummary.DailyValue day, double average) {
+        return Math.max(day.max() - average, average - day.min());
+    }
+
+    static LocalDate weekStart(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private record RollupKey(Long userId, HealthDataRollup.Granularity granularity, LocalDate periodStart,
+                             HealthDataRollup.Metric metric) {
+    }
+
+    private static final class Accumulator {
+        private long count;
+        private double sum;
+        private double sumSquares;
+        private Double min;
+        private Double max;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            sumSquares += value * value;
+            min = min == null ? value : Math.min(min, value);
+            max = max == null ? value : Math.max(max, value);
+        }
+
+        void merge(HealthDataRollup rollup) {
+            count += rollup.getSampleCount();
+            sum += rollup.getValueSum();
+            sumSquares += rollup.getSumSquares();
+            if (rollup.getValueMin() != null) {
+                min = min == null ? rollup.getValueMin() : Math.min(min, rollup.getValueMin());
+            }
+            if (rollup.getValueMax() != null) {
+                max = max == null ? rollup.getValueMax() : Math.max(max, rollup.getValueMax());
+            }
+        }
+
+        HealthMetricStatisticsResponse.MetricStatistics toStatistics() {
+            HealthMetricStatisticsResponse.MetricStatistics statistics = new HealthMetricStatisticsResponse.MetricStatistics();
+            double average = sum / count;
+            statistics.setCount(count);
+            statistics.setAverage(average);
+            statistics.setMin(min);
+            statistics.setMax(max);
+            // Rounding in the running sums can make the variance slightly negative
+            statistics.setStandardDeviation(Math.sqrt(Math.max(0.0, sumSquares / count - average * average)));
+            return statistics;
+        }
+    }
+}
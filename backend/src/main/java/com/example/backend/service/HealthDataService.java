@@ -1,22 +1,35 @@
 package com.example.backend.service;
 
 import com.example.backend.dto.request.HealthDataCreateRequest;
+import com.example.backend.dto.response.HealthDataPageResponse;
 import com.example.backend.dto.response.HealthDataResponse;
 import com.example.backend.dto.response.HealthDataStatisticsResponse;
+import com.example.backend.dto.response.HealthMetricStatisticsResponse;
 import com.example.backend.dto.request.HealthDataUpdateRequest;
 import com.example.backend.entity.HealthData;
 import com.example.backend.entity.User;
+import com.example.backend.repository.HealthDataAggregate;
 import com.example.backend.repository.HealthDataRepository;
 import com.example.backend.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -28,6 +41,23 @@ public class HealthDataService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+
+    @Autowired
+    private HealthDataRollupService healthDataRollupService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final int EXPORT_FLUSH_EVERY = 500;
+
     /** Convert centimeters to meters if value looks like cm (>3). */
     private static BigDecimal normalizeHeight(BigDecimal h) {
         if (h == null) return null;
@@ -39,8 +69,7 @@ public class HealthDataService {
     }
 
     public HealthDataResponse createHealthData(HealthDataCreateRequest request) {
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User user = userExistenceCache.reference(request.getUserId());
 
         HealthData healthData = new HealthData();
         healthData.setUser(user);
@@ -62,53 +91,138 @@ public class HealthDataService {
 
         // BMI will be computed in @PrePersist
         HealthData savedHealthData = healthDataRepository.save(healthData);
+        healthDataRollupService.recordAdded(savedHealthData);
         return HealthDataResponse.fromHealthData(savedHealthData);
     }
 
+    /**
+     * One page of all records (admin/dev use), newest first. cursor is null for the first page.
+     */
     @Transactional(readOnly = true)
-    public List<HealthDataResponse> getAllHealthData() {
-        return healthDataRepository.findAll().stream()
-                .map(HealthDataResponse::fromHealthData)
-                .collect(Collectors.toList());
+    public HealthDataPageResponse getHealthDataPage(String cursor, int limit) {
+        return page(cursor, limit, (after, pageable) ->
+                healthDataRepository.findPage(after.recordedAt(), after.id(), pageable));
     }
 
     @Transactional(readOnly = true)
-    public Optional<HealthDataResponse> getHealthDataById(Long id) {
-        return healthDataRepository.findById(id).map(HealthDataResponse::fromHealthData);
+    public HealthDataPageResponse getHealthDataPageByUserId(Long userId, String cursor, int limit) {
+        requireUser(userId);
+        return page(cursor, limit, (after, pageable) ->
+                healthDataRepository.findPageByUserId(userId, after.recordedAt(), after.id(), pageable));
     }
 
     @Transactional(readOnly = true)
-    public List<HealthDataResponse> getHealthDataByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public HealthDataPageResponse getHealthDataPageByUserAndDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                                                      String cursor, int limit) {
+        requireUser(userId);
+        return page(cursor, limit, (after, pageable) -> healthDataRepository.findPageByUserIdAndDateRange(
+                userId, startDate, endDate, after.recordedAt(), after.id(), pageable));
+    }
 
-        return healthDataRepository.findByUserOrderByRecordedAtDesc(user).stream()
+    @Transactional(readOnly = true)
+    public HealthDataPageResponse getHealthDataPageByMood(Long userId, HealthData.MoodLevel mood, String cursor, int limit) {
+        requireUser(userId);
+        return page(cursor, limit, (after, pageable) ->
+                healthDataRepository.findPageByUserIdAndMood(userId, mood, after.recordedAt(), after.id(), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public HealthDataPageResponse getWeightHistoryPage(Long userId, String cursor, int limit) {
+        requireUser(userId);
+        return page(cursor, limit, (after, pageable) ->
+                healthDataRepository.findWeightPageByUserId(userId, after.recordedAt(), after.id(), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public HealthDataPageResponse getBMIHistoryPage(Long userId, String cursor, int limit) {
+        requireUser(userId);
+        return page(cursor, limit, (after, pageable) ->
+                healthDataRepository.findBMIPageByUserId(userId, after.recordedAt(), after.id(), pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public HealthDataPageResponse getHeartRateHistoryPage(Long userId, String cursor, int limit) {
+        requireUser(userId);
+        return page(cursor, limit, (after, pageable) ->
+                healthDataRepository.findHeartRatePageByUserId(userId, after.recordedAt(), after.id(), pageable));
+    }
+
+    /**
+     * Write all of a user's records to out as NDJSON (one HealthDataResponse per line), newest first.
+     * Rows are streamed from the database and detached once written, so memory use does not grow
+     * with the length of the history.
+     */
+    @Transactional(readOnly = true)
+    public void exportHealthData(Long userId, OutputStream out) {
+        requireUser(userId);
+        try (Stream<HealthData> records = healthDataRepository.streamByUserId(userId)) {
+            int written = 0;
+            for (HealthData healthData : (Iterable<HealthData>) records::iterator) {
+                out.write(objectMapper.writeValueAsBytes(HealthDataResponse.fromHealthData(healthData)));
+                out.write('\n');
+                entityManager.detach(healthData);
+                if (++written % EXPORT_FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Throws "User not found" without loading the user. */
+    @Transactional(readOnly = true)
+    public void requireUser(Long userId) {
+        userExistenceCache.requireExists(userId);
+    }
+
+    /**
+     * Fetch limit + 1 rows after the cursor: the extra row only tells whether another page exists.
+     */
+    private HealthDataPageResponse page(String cursor, int limit,
+                                        BiFunction<HealthDataCursor, Pageable, List<HealthData>> query) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<HealthData> rows = query.apply(HealthDataCursor.decode(cursor), PageRequest.of(0, pageSize + 1));
+
+        boolean hasMore = rows.size() > pageSize;
+        List<HealthData> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+
+        HealthDataPageResponse page = new HealthDataPageResponse();
+        page.setItems(pageRows.stream()
                 .map(HealthDataResponse::fromHealthData)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+        page.setHasMore(hasMore);
+        page.setNextCursor(hasMore ? HealthDataCursor.after(pageRows.get(pageSize - 1)).encode() : null);
+        return page;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<HealthDataResponse> getHealthDataById(Long id) {
+        return healthDataRepository.findById(id).map(HealthDataResponse::fromHealthData);
     }
 
     @Transactional(readOnly = true)
     public List<HealthDataResponse> getHealthDataByUserAndDateRange(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        requireUser(userId);
 
-        return healthDataRepository.findByUserAndRecordedAtBetweenOrderByRecordedAtDesc(user, startDate, endDate).stream()
+        return healthDataRepository.findByUserIdAndRecordedAtBetweenOrderByRecordedAtDesc(userId, startDate, endDate).stream()
                 .map(HealthDataResponse::fromHealthData)
                 .collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
     public Optional<HealthDataResponse> getLatestHealthDataByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        requireUser(userId);
 
-        return healthDataRepository.findFirstByUserOrderByRecordedAtDesc(user)
+        return healthDataRepository.findFirstByUserIdOrderByRecordedAtDesc(userId)
                 .map(HealthDataResponse::fromHealthData);
     }
 
     public HealthDataResponse updateHealthData(Long id, HealthDataUpdateRequest request) {
         HealthData healthData = healthDataRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Health data not found"));
+        HealthDataRollupService.Readings before = HealthDataRollupService.Readings.of(healthData);
 
         if (request.getRecordedAt() != null) healthData.setRecordedAt(request.getRecordedAt());
         if (request.getWeight() != null) healthData.setWeight(request.getWeight());
@@ -125,59 +239,60 @@ public class HealthDataService {
         if (request.getSteps() != null) healthData.setSteps(request.getSteps());
         if (request.getNotes() != null) healthData.setNotes(request.getNotes());
 
-        // BMI will be recalculated in @PreUpdate
+        // BMI is recalculated in @PreUpdate; do it now so the rollups see the new value
+        healthData.calculateBMI();
         HealthData updatedHealthData = healthDataRepository.save(healthData);
+        healthDataRollupService.recordUpdated(before, updatedHealthData);
         return HealthDataResponse.fromHealthData(updatedHealthData);
     }
 
     public void deleteHealthData(Long id) {
-        if (!healthDataRepository.existsById(id)) {
-            throw new RuntimeException("Health data not found");
-        }
-        healthDataRepository.deleteById(id);
-    }
-
-    @Transactional(readOnly = true)
-    public List<HealthDataResponse> getHealthDataByMood(Long userId, HealthData.MoodLevel mood) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
-        return healthDataRepository.findByUserAndMoodOrderByRecordedAtDesc(user, mood).stream()
-                .map(HealthDataResponse::fromHealthData)
-                .collect(Collectors.toList());
+        HealthData healthData = healthDataRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Health data not found"));
+        HealthDataRollupService.Readings removed = HealthDataRollupService.Readings.of(healthData);
+        healthDataRepository.delete(healthData);
+        healthDataRollupService.recordRemoved(removed);
     }
 
     @Transactional(readOnly = true)
     public HealthDataStatisticsResponse getHealthDataStatistics(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
-        User user = userRepository.findById(userId)
+        // Only the username is needed, not the whole user row
+        String username = userRepository.findUsernameById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         HealthDataStatisticsResponse statistics = new HealthDataStatisticsResponse();
         statistics.setUserId(userId);
-        statistics.setUsername(user.getUsername());
+        statistics.setUsername(username);
         statistics.setStartDate(startDate);
         statistics.setEndDate(endDate);
 
-        List<HealthData> healthDataList = healthDataRepository.findByUserAndDateRange(user, startDate, endDate);
-        statistics.setTotalRecords((long) healthDataList.size());
-
-        if (!healthDataList.isEmpty()) {
-            Double avgWeight = healthDataRepository.findAverageWeightByUserAndDateRange(user, startDate);
-            Double avgBMI = healthDataRepository.findAverageBMIByUserAndDateRange(user, startDate);
-            Double avgHeartRate = healthDataRepository.findAverageHeartRateByUserAndDateRange(user, startDate);
-            Double avgSteps = healthDataRepository.findAverageStepsByUserAndDateRange(user, startDate);
-            Double avgSleepHours = healthDataRepository.findAverageSleepHoursByUserAndDateRange(user, startDate);
-            Double avgExerciseMinutes = healthDataRepository.findAverageExerciseMinutesByUserAndDateRange(user, startDate);
-
-            statistics.setAverageWeight(avgWeight != null ? BigDecimal.valueOf(avgWeight) : null);
-            statistics.setAverageBMI(avgBMI != null ? BigDecimal.valueOf(avgBMI) : null);
-            statistics.setAverageHeartRate(avgHeartRate);
-            statistics.setAverageSteps(avgSteps);
-            statistics.setAverageSleepHours(avgSleepHours);
-            statistics.setAverageExerciseMinutes(avgExerciseMinutes);
-
-            List<HealthDataResponse> recentRecords = healthDataList.stream()
-                    .limit(10)
+        // Aggregates are computed by the database; only the 10 most recent rows are loaded
+        HealthDataAggregate aggregate = healthDataRepository.aggregateByUserIdAndDateRange(userId, startDate, endDate);
+        statistics.setTotalRecords(aggregate.totalRecords());
+
+        if (aggregate.totalRecords() > 0) {
+            statistics.setAverageWeight(aggregate.averageWeight() != null ? BigDecimal.valueOf(aggregate.averageWeight()) : null);
+            statistics.setAverageBMI(aggregate.averageBMI() != null ? BigDecimal.valueOf(aggregate.averageBMI()) : null);
+            statistics.setAverageHeartRate(aggregate.averageHeartRate());
+            statistics.setAverageSteps(aggregate.averageSteps());
+            statistics.setAverageSleepHours(aggregate.averageSleepHours());
+            statistics.setAverageExerciseMinutes(aggregate.averageExerciseMinutes());
+
+            statistics.setMinWeight(aggregate.minWeight());
+            statistics.setMaxWeight(aggregate.maxWeight());
+            statistics.setMinBMI(aggregate.minBMI());
+            statistics.setMaxBMI(aggregate.maxBMI());
+            statistics.setMinHeartRate(aggregate.minHeartRate());
+            statistics.setMaxHeartRate(aggregate.maxHeartRate());
+            statistics.setMinSteps(aggregate.minSteps());
+            statistics.setMaxSteps(aggregate.maxSteps());
+            statistics.setMinSleepHours(aggregate.minSleepHours());
+            statistics.setMaxSleepHours(aggregate.maxSleepHours());
+            statistics.setMinExerciseMinutes(aggregate.minExerciseMinutes());
+            statistics.setMaxExerciseMinutes(aggregate.maxExerciseMinutes());
+
+            List<HealthDataResponse> recentRecords = healthDataRepository
+                    .findTop10ByUserIdAndRecordedAtBetweenOrderByRecordedAtDesc(userId, startDate, endDate).stream()
                     .map(HealthDataResponse::fromHealthData)
                     .collect(Collectors.toList());
             statistics.setRecentRecords(recentRecords);
@@ -186,15 +301,26 @@ public class HealthDataService {
         return statistics;
     }
 
+    /**
+     * Per-metric count, average, min, max and standard deviation, answered from the daily/weekly rollups.
+     */
+    @Transactional(readOnly = true)
+    public HealthMetricStatisticsResponse getMetricStatistics(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        return healthDataRollupService.getStatistics(userId, startDate, endDate);
+    }
+
+    public void rebuildRollups(Long userId) {
+        healthDataRollupService.rebuild(userId);
+    }
+
     @Transactional(readOnly = true)
     public List<HealthDataResponse> getTodayHealthData(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        requireUser(userId);
 
         LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
         LocalDateTime endOfDay = startOfDay.plusDays(1);
 
-        return healthDataRepository.findTodayRecordsByUser(user, startOfDay, endOfDay).stream()
+        return healthDataRepository.findTodayRecordsByUserId(userId, startOfDay, endOfDay).stream()
                 .map(HealthDataResponse::fromHealthData)
                 .collect(Collectors.toList());
     }
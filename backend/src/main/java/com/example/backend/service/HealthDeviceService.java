@@ -23,6 +23,9 @@ public class HealthDeviceService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+    
     public HealthDeviceResponse connectDevice(Long userId, HealthDevice device) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -37,20 +40,18 @@ public class HealthDeviceService {
     
     @Transactional(readOnly = true)
     public List<HealthDeviceResponse> getUserDevices(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return healthDeviceRepository.findByUser(user).stream()
+        return healthDeviceRepository.findByUserId(userId).stream()
                 .map(HealthDeviceResponse::fromHealthDevice)
                 .collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
     public List<HealthDeviceResponse> getConnectedDevices(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return healthDeviceRepository.findByUserAndIsConnectedTrue(user).stream()
+        return healthDeviceRepository.findByUserIdAndIsConnectedTrue(userId).stream()
                 .map(HealthDeviceResponse::fromHealthDevice)
                 .collect(Collectors.toList());
     }
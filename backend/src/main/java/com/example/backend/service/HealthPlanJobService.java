@@ -0,0 +1,286 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.HealthPlanRequest;
+import com.example.backend.dto.response.HealthPlanJobMetricsResponse;
+import com.example.backend.dto.response.HealthPlanJobResponse;
+import com.example.backend.entity.HealthPlan;
+import com.example.backend.entity.HealthPlanJob;
+import com.example.backend.entity.User;
+import com.example.backend.repository.HealthPlanJobRepository;
+import com.example.backend.repository.HealthPlanRepository;
+import com.example.backend.service.ai.GeminiCallLogger;
+import com.example.backend.service.ai.GeminiCallTrace;
+import com.example.backend.service.ai.GeminiFeature;
+import com.example.backend.service.ai.GeminiPlanService;
+import com.example.backend.service.ai.HealthDataSummary;
+import com.example.backend.service.ai.UserProfile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Submit/poll model for health plan generation.
+ * A submit only records the job and hands it to the bounded healthPlanJobExecutor;
+ * the worker calls Gemini and saves the plan, so no HTTP request or transaction stays open meanwhile.
+ * Not class-level @Transactional on purpose: the worker must not hold a connection during the Gemini call.
+ * The worker pool does not wait for its jobs on shutdown, so every instance records a heartbeat for
+ * the jobs it holds every health-plan.jobs.heartbeat-seconds, and fails any unfinished job, its own or
+ * another instance's, that has had none for health-plan.jobs.stale-minutes.
+ */
+@Service
+public class HealthPlanJobService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HealthPlanJobService.class);
+
+    @Autowired
+    private HealthPlanJobRepository healthPlanJobRepository;
+
+    @Autowired
+    private HealthPlanRepository healthPlanRepository;
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private HealthPlanService healthPlanService;
+
+    @Autowired
+    private GeminiPlanService geminiPlanService;
+
+    @Autowired
+    private GeminiCallLogger geminiCallLogger;
+
+    @Autowired
+    private ThreadPoolTaskExecutor healthPlanJobExecutor;
+
+    @Value("${health-plan.jobs.heartbeat-seconds:60}")
+    private long heartbeatSeconds;
+
+    @Value("${health-plan.jobs.stale-minutes:5}")
+    private long staleMinutes;
+
+    // Jobs accepted by this instance and not finished yet
+    private final Set<Long> heldJobs = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService heartbeats;
+
+    private final AtomicLong submittedJobs = new AtomicLong();
+    private final AtomicLong succeededJobs = new AtomicLong();
+    private final AtomicLong failedJobs = new AtomicLong();
+    private final AtomicLong rejectedJobs = new AtomicLong();
+    // Finished jobs that ran, i.e. have a latency; jobs failed before starting are not in the averages
+    private final AtomicLong timedJobs = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+    private final AtomicLong totalQueueWaitMillis = new AtomicLong();
+
+    /**
+     * Record a QUEUED job and schedule it. Returns as soon as the job is queued.
+     */
+    public HealthPlanJobResponse submitJob(HealthPlanRequest request) {
+        User user = userProfileCache.get(request.getUserId()).toUserReference();
+
+        HealthPlanJob job = new HealthPlanJob();
+        job.setUser(user);
+        job.setType(request.getType());
+        job.setStatus(HealthPlanJob.JobStatus.QUEUED);
+        job.setSubmittedAt(LocalDateTime.now());
+        job.setHeartbeatAt(job.getSubmittedAt());
+        HealthPlanJob savedJob = healthPlanJobRepository.save(job);
+
+        heldJobs.add(savedJob.getId());
+        try {
+            healthPlanJobExecutor.execute(() -> runJob(savedJob.getId(), request));
+        } catch (TaskRejectedException e) {
+            heldJobs.remove(savedJob.getId());
+            rejectedJobs.incrementAndGet();
+            savedJob.setStatus(HealthPlanJob.JobStatus.FAILED);
+            savedJob.setErrorMessage("Plan generation queue is full");
+            savedJob.setFinishedAt(LocalDateTime.now());
+            healthPlanJobRepository.save(savedJob);
+            throw new JobQueueFullException("Plan generation queue is full, please retry later");
+        }
+        submittedJobs.incrementAndGet();
+
+        return HealthPlanJobResponse.fromHealthPlanJob(savedJob);
+    }
+
+    /**
+     * Get job status; includes the generated plan once the job has succeeded
+     */
+    @Transactional(readOnly = true)
+    public Optional<HealthPlanJobResponse> getJob(Long jobId) {
+        return healthPlanJobRepository.findById(jobId)
+                .map(HealthPlanJobResponse::fromHealthPlanJob);
+    }
+
+    public HealthPlanJobMetricsResponse getMetrics() {
+        HealthPlanJobMetricsResponse metrics = new HealthPlanJobMetricsResponse();
+        metrics.setQueueDepth(healthPlanJobExecutor.getQueueSize());
+        metrics.setQueueCapacity(healthPlanJobExecutor.getQueueCapacity());
+        metrics.setActiveWorkers(healthPlanJobExecutor.getActiveCount());
+        metrics.setMaxWorkers(healthPlanJobExecutor.getMaxPoolSize());
+
+        long timed = timedJobs.get();
+        metrics.setSubmittedJobs(submittedJobs.get());
+        metrics.setSucceededJobs(succeededJobs.get());
+        metrics.setFailedJobs(failedJobs.get());
+        metrics.setRejectedJobs(rejectedJobs.get());
+        metrics.setAverageLatencyMillis(timed > 0 ? (double) totalLatencyMillis.get() / timed : null);
+        metrics.setMaxLatencyMillis(timed > 0 ? maxLatencyMillis.get() : null);
+        metrics.setAverageQueueWaitMillis(timed > 0 ? (double) totalQueueWaitMillis.get() / timed : null);
+        return metrics;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (heartbeats != null) {
+            return;
+        }
+        heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "plan-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+            heartbeats = null;
+        }
+    }
+
+    /**
+     * Record a heartbeat for the jobs this instance holds, then fail the jobs nobody holds any more.
+     */
+    public void heartbeat() {
+        try {
+            if (!heldJobs.isEmpty()) {
+                healthPlanJobRepository.recordHeartbeat(List.copyOf(heldJobs), LocalDateTime.now());
+            }
+            failOrphanedJobs();
+        } catch (RuntimeException e) {
+            // Keep the schedule; an exception would cancel it
+            LOG.warn("Health plan job heartbeat failed", e);
+        }
+    }
+
+    /**
+     * Fail the queued and running jobs without a heartbeat for health-plan.jobs.stale-minutes: the
+     * instance that accepted them stopped, and they will never finish.
+     */
+    public void failOrphanedJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int failed = healthPlanJobRepository.failSilentSince(now.minusMinutes(staleMinutes),
+                "Interrupted by server restart", now);
+        if (failed > 0) {
+            LOG.warn("Failed {} health plan jobs left unfinished by a stopped instance", failed);
+        }
+    }
+
+    /**
+     * Every exit, including a failed status save or an Error, leaves the job SUCCEEDED or FAILED.
+     */
+    private void runJob(Long jobId, HealthPlanRequest request) {
+        HealthPlanJob job = null;
+        GeminiCallTrace trace = null;
+        try {
+            job = healthPlanJobRepository.findById(jobId)
+                    .orElseThrow(() -> new RuntimeException("Health plan job not found"));
+            job.setStatus(HealthPlanJob.JobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+            job = healthPlanJobRepository.save(job);
+
+            trace = geminiCallLogger.start(GeminiFeature.PLAN);
+            UserProfile profile = userProfileCache.get(request.getUserId());
+            HealthDataSummary healthData = healthPlanService.getHealthSummaryForPlan(request);
+
+            // Blocking here is intended: this is a dedicated, bounded worker thread
+            HealthPlan healthPlan = trace.bind(geminiPlanService.generateGeminiHealthPlan(
+                    healthData,
+                    profile,
+                    request.getType(),
+                    request.getHealthGoals()))
+                    .block();
+            if (healthPlan == null) {
+                throw new RuntimeException("Gemini returned no plan");
+            }
+
+            job.setHealthPlan(trace.time(GeminiCallTrace.Phase.PERSIST, () -> healthPlanRepository.save(healthPlan)));
+            geminiCallLogger.finish(trace, null);
+            trace = null; // The call is logged; a failure from here on only fails the job
+
+            job.setStatus(HealthPlanJob.JobStatus.SUCCEEDED);
+            job.setFinishedAt(LocalDateTime.now());
+            job = healthPlanJobRepository.save(job);
+            succeededJobs.incrementAndGet();
+            recordLatency(job);
+        } catch (RuntimeException | Error e) {
+            if (trace != null) {
+                geminiCallLogger.finish(trace, e);
+            }
+            failJob(jobId, job, e);
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            heldJobs.remove(jobId);
+        }
+    }
+
+    private void failJob(Long jobId, HealthPlanJob job, Throwable cause) {
+        failedJobs.incrementAndGet();
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        LocalDateTime finishedAt = LocalDateTime.now();
+        try {
+            // A direct update, as the loaded entity may be what failed to save
+            healthPlanJobRepository.markFailed(jobId,
+                    message.length() > 1000 ? message.substring(0, 1000) : message, finishedAt);
+        } catch (RuntimeException e) {
+            // Left unfinished; no longer held, so failOrphanedJobs fails it once it is stale
+            LOG.error("Could not mark health plan job {} failed", jobId, e);
+        }
+        if (job != null && job.getStartedAt() != null) {
+            job.setFinishedAt(finishedAt);
+            recordLatency(job);
+        }
+    }
+
+    private void recordLatency(HealthPlanJob job) {
+        timedJobs.incrementAndGet();
+        long latency = Duration.between(job.getSubmittedAt(), job.getFinishedAt()).toMillis();
+        totalLatencyMillis.addAndGet(latency);
+        maxLatencyMillis.accumulateAndGet(latency, Math::max);
+        totalQueueWaitMillis.addAndGet(Duration.between(job.getSubmittedAt(), job.getStartedAt()).toMillis());
+    }
+
+    /**
+     * Thrown when the worker pool and its queue are both full.
+     */
+    public static class JobQueueFullException extends RuntimeException {
+        public JobQueueFullException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,20 +1,26 @@
 package com.example.backend.service;
 
-import com.example.backend.dto.response.HealthDataResponse;
 import com.example.backend.dto.request.HealthPlanRequest;
 import com.example.backend.dto.response.HealthPlanResponse;
 import com.example.backend.entity.HealthPlan;
-import com.example.backend.entity.User;
 import com.example.backend.repository.HealthPlanRepository;
-import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.GeminiCallLogger;
+import com.example.backend.service.ai.GeminiCallTrace;
+import com.example.backend.service.ai.GeminiFeature;
 import com.example.backend.service.ai.GeminiPlanService;
+import com.example.backend.service.ai.HealthDataSummary;
+import com.example.backend.service.ai.UserProfile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,45 +31,61 @@ public class HealthPlanService {
     private HealthPlanRepository healthPlanRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
     
     @Autowired
-    private HealthDataService healthDataService;
+    private UserProfileCache userProfileCache;
+    
+    @Autowired
+    private HealthDataRollupService healthDataRollupService;
     
     @Autowired
     private GeminiPlanService geminiPlanService;
     
+    @Autowired
+    private GeminiCallLogger geminiCallLogger;
+    
     /**
-     * Generate personalized health plan
+     * Generate personalized health plan.
+     * Completes once Gemini has answered and the plan is saved; no request thread waits on the model.
+     * Runs outside the class-level transaction: the profile and health data reads and the final save
+     * each run in a short transaction of the bean they call (the summary in
+     * HealthDataRollupService.summarize), so no pooled connection is held while Gemini is generating.
      */
-    public HealthPlanResponse generateHealthPlan(HealthPlanRequest request) {
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<HealthPlanResponse> generateHealthPlan(HealthPlanRequest request) {
+        UserProfile profile = userProfileCache.get(request.getUserId());
         
         // Fetch health data
-        List<HealthDataResponse> healthDataList;
+        HealthDataSummary healthData = getHealthSummaryForPlan(request);
         
+        // Generate health plan using Gemini, then save it off the HTTP client threads
+        GeminiCallTrace trace = geminiCallLogger.start(GeminiFeature.PLAN);
+        return geminiCallLogger.track(trace, geminiPlanService.generateGeminiHealthPlan(
+                            healthData, 
+                            profile, 
+                            request.getType(),
+                            request.getHealthGoals())
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(entity -> trace.time(GeminiCallTrace.Phase.PERSIST, () -> healthPlanRepository.save(entity))))
+                .map(HealthPlanResponse::fromHealthPlan)
+                .toFuture();
+    }
+    
+    /**
+     * Summary of the health data the plan is based on: the days of the explicit start/end window if
+     * given, otherwise the last daysBack days. Opens no transaction of its own (it is also called on
+     * this instance from generateHealthPlan, past the proxy); summarize reads in its own read-only one.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public HealthDataSummary getHealthSummaryForPlan(HealthPlanRequest request) {
         if (request.getStartDate() != null && request.getEndDate() != null) {
-            healthDataList = healthDataService.getHealthDataByUserAndDateRange(
-                request.getUserId(), request.getStartDate(), request.getEndDate());
-        } else {
-            LocalDateTime endDate = LocalDateTime.now();
-            LocalDateTime startDate = endDate.minusDays(request.getDaysBack());
-            healthDataList = healthDataService.getHealthDataByUserAndDateRange(
-                request.getUserId(), startDate, endDate);
+            return healthDataRollupService.summarize(
+                request.getUserId(), request.getStartDate().toLocalDate(), request.getEndDate().toLocalDate());
         }
-        
-        // Generate health plan using Gemini
-        HealthPlan healthPlan = geminiPlanService.generateGeminiHealthPlan(
-            healthDataList, 
-            user, 
-            request.getType(),
-            request.getHealthGoals());
-        
-        // Save plan
-        HealthPlan savedPlan = healthPlanRepository.save(healthPlan);
-        
-        return HealthPlanResponse.fromHealthPlan(savedPlan);
+        LocalDate endDate = LocalDate.now();
+        return healthDataRollupService.summarize(
+            request.getUserId(), endDate.minusDays(request.getDaysBack()), endDate);
     }
     
     /**
@@ -90,10 +112,9 @@ public class HealthPlanService {
      */
     @Transactional(readOnly = true)
     public List<HealthPlanResponse> getHealthPlansByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return healthPlanRepository.findByUserOrderByPlanDateDesc(user).stream()
+        return healthPlanRepository.findByUserIdOrderByPlanDateDesc(userId).stream()
                 .map(HealthPlanResponse::fromHealthPlan)
                 .collect(Collectors.toList());
     }
@@ -103,10 +124,9 @@ public class HealthPlanService {
      */
     @Transactional(readOnly = true)
     public Optional<HealthPlanResponse> getLatestHealthPlanByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return healthPlanRepository.findFirstByUserOrderByPlanDateDesc(user)
+        return healthPlanRepository.findFirstByUserIdOrderByPlanDateDesc(userId)
                 .map(HealthPlanResponse::fromHealthPlan);
     }
     
@@ -115,10 +135,9 @@ public class HealthPlanService {
      */
     @Transactional(readOnly = true)
     public List<HealthPlanResponse> getHealthPlansByType(Long userId, HealthPlan.PlanType type) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return healthPlanRepository.findByUserAndTypeOrderByPlanDateDesc(user, type).stream()
+        return healthPlanRepository.findByUserIdAndTypeOrderByPlanDateDesc(userId, type).stream()
                 .map(HealthPlanResponse::fromHealthPlan)
                 .collect(Collectors.toList());
     }
@@ -128,11 +147,10 @@ public class HealthPlanService {
      */
     @Transactional(readOnly = true)
     public Optional<HealthPlanResponse> getActiveHealthPlan(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
         LocalDateTime now = LocalDateTime.now();
-        return healthPlanRepository.findByUserAndStartDateLessThanEqualAndEndDateGreaterThanEqualOrderByPlanDateDesc(user, now, now)
+        return healthPlanRepository.findByUserIdAndStartDateLessThanEqualAndEndDateGreaterThanEqualOrderByPlanDateDesc(userId, now, now)
                 .stream()
                 .findFirst()
                 .map(HealthPlanResponse::fromHealthPlan);
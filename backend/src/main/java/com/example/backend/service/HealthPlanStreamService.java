@@ -0,0 +1,89 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.HealthPlanRequest;
+import com.example.backend.dto.response.HealthPlanResponse;
+import com.example.backend.dto.response.HealthPlanStreamEvent;
+import com.example.backend.entity.HealthPlan;
+import com.example.backend.repository.HealthPlanRepository;
+import com.example.backend.service.ai.GeminiCallLogger;
+import com.example.backend.service.ai.GeminiCallTrace;
+import com.example.backend.service.ai.GeminiFeature;
+import com.example.backend.service.ai.GeminiPlanService;
+import com.example.backend.service.ai.HealthDataSummary;
+import com.example.backend.service.ai.UserProfile;
+import com.example.backend.service.ai.HealthPlanSectionParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Streaming variant of HealthPlanService.generateHealthPlan.
+ * Plan sections are emitted as soon as Gemini has written them; the plan is saved once the stream ends.
+ * Not @Transactional: a transactional method returning Flux would need a reactive transaction manager,
+ * and no connection should be held while the model is writing anyway.
+ */
+@Service
+public class HealthPlanStreamService {
+    
+    @Autowired
+    private HealthPlanRepository healthPlanRepository;
+    
+    @Autowired
+    private UserProfileCache userProfileCache;
+    
+    @Autowired
+    private HealthPlanService healthPlanService;
+    
+    @Autowired
+    private GeminiPlanService geminiPlanService;
+    
+    @Autowired
+    private GeminiCallLogger geminiCallLogger;
+    
+    /**
+     * Emits a DELTA event per streamed chunk, each followed by a SECTION event per plan field that chunk
+     * completed, then COMPLETE with the saved plan. The whole stream is logged as one PLAN call.
+     * Throws right away when the user does not exist.
+     */
+    public Flux<HealthPlanStreamEvent> streamHealthPlan(HealthPlanRequest request) {
+        UserProfile profile = userProfileCache.get(request.getUserId());
+        HealthDataSummary healthData = healthPlanService.getHealthSummaryForPlan(request);
+        
+        return Flux.defer(() -> {
+            GeminiCallTrace trace = geminiCallLogger.start(GeminiFeature.PLAN);
+            HealthPlanSectionParser parser = new HealthPlanSectionParser();
+            StringBuilder fullText = new StringBuilder();
+            
+            Flux<HealthPlanStreamEvent> sections = geminiPlanService.streamGeminiHealthPlanText(
+                        healthData,
+                        profile,
+                        request.getType(),
+                        request.getHealthGoals())
+                    .concatMapIterable(chunk -> {
+                        fullText.append(chunk);
+                        List<HealthPlanStreamEvent> events = new ArrayList<>();
+                        events.add(HealthPlanStreamEvent.delta(chunk));
+                        events.addAll(parser.feed(chunk));
+                        return events;
+                    });
+            
+            Mono<HealthPlanStreamEvent> complete = Mono.fromCallable(() -> {
+                        HealthPlan healthPlan = trace.time(GeminiCallTrace.Phase.PARSE,
+                                () -> geminiPlanService.buildHealthPlanFromText(
+                                        profile, request.getType(), fullText.toString(), trace));
+                        return trace.time(GeminiCallTrace.Phase.PERSIST, () -> healthPlanRepository.save(healthPlan));
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .map(HealthPlanResponse::fromHealthPlan)
+                    .map(HealthPlanStreamEvent::complete);
+            
+            return geminiCallLogger.track(trace, sections.concatWith(complete));
+        });
+    }
+}
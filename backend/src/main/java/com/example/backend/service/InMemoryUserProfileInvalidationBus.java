@@ -0,0 +1,26 @@
+package com.example.backend.service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Single-JVM invalidation bus: publish calls every subscriber synchronously.
+ * Tests share one instance between several caches to stand in for a cluster.
+ */
+public class InMemoryUserProfileInvalidationBus implements UserProfileInvalidationBus {
+
+    private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Long userId) {
+        for (Consumer<Long> listener : listeners) {
+            listener.accept(userId);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Long> listener) {
+        listeners.add(listener);
+    }
+}
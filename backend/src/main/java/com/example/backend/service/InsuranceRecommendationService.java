@@ -7,15 +7,22 @@ import com.example.backend.entity.InsuranceProduct;
 import com.example.backend.entity.User;
 import com.example.backend.repository.InsuranceProductRepository;
 import com.example.backend.repository.InsuranceRecommendationRepository;
-import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.GeminiCallLogger;
+import com.example.backend.service.ai.GeminiCallTrace;
+import com.example.backend.service.ai.GeminiFeature;
 import com.example.backend.service.ai.GeminiInsuranceService;
+import com.example.backend.service.ai.UserProfile;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,17 +36,24 @@ public class InsuranceRecommendationService {
     private InsuranceProductRepository productRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
+    
+    @Autowired
+    private UserProfileCache userProfileCache;
     
     @Autowired(required = false)
     private GeminiInsuranceService geminiInsuranceService;
     
+    @Autowired
+    private GeminiCallLogger geminiCallLogger;
+    
     @Value("${gemini.enabled:false}")
     private Boolean geminiEnabled;
     
-    public InsuranceRecommendationResponse generateRecommendation(InsuranceRecommendationRequest request) {
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<InsuranceRecommendationResponse> generateRecommendation(InsuranceRecommendationRequest request) {
+        UserProfile profile = userProfileCache.get(request.getUserId());
+        User user = profile.toUserReference();
         
         InsuranceRecommendation recommendation = new InsuranceRecommendation();
         recommendation.setUser(user);
@@ -63,21 +77,33 @@ public class InsuranceRecommendationService {
             products = productRepository.findByActiveTrue();
         }
         
+        GeminiCallTrace trace = geminiCallLogger.start(GeminiFeature.INSURANCE);
+        Mono<InsuranceRecommendation> enhanced;
+        
         // Try to use Gemini AI if enabled, otherwise fall back to basic recommendation
         if (geminiEnabled && geminiInsuranceService != null) {
-            try {
-                geminiInsuranceService.enhanceRecommendationWithGemini(recommendation, user, request, products);
-            } catch (Exception e) {
-                System.err.println("Gemini insurance recommendation failed, falling back to basic recommendation: " + e.getMessage());
-                generateBasicRecommendation(recommendation, user, request, products);
-            }
+            enhanced = geminiInsuranceService.enhanceRecommendationWithGemini(recommendation, profile, request, products)
+                    .onErrorResume(e -> {
+                        trace.fallback("basic recommendation: " + e.getMessage());
+                        return Mono.fromSupplier(() -> {
+                            generateBasicRecommendation(recommendation, user, request, products);
+                            return recommendation;
+                        });
+                    });
         } else {
             // Fall back to basic recommendation
-            generateBasicRecommendation(recommendation, user, request, products);
+            trace.fallback("gemini disabled");
+            enhanced = Mono.fromSupplier(() -> {
+                generateBasicRecommendation(recommendation, user, request, products);
+                return recommendation;
+            });
         }
         
-        InsuranceRecommendation saved = recommendationRepository.save(recommendation);
-        return InsuranceRecommendationResponse.fromInsuranceRecommendation(saved);
+        return geminiCallLogger.track(trace, enhanced
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(entity -> trace.time(GeminiCallTrace.Phase.PERSIST, () -> recommendationRepository.save(entity))))
+                .map(InsuranceRecommendationResponse::fromInsuranceRecommendation)
+                .toFuture();
     }
     
     private void generateBasicRecommendation(InsuranceRecommendation recommendation, 
@@ -123,20 +149,18 @@ public class InsuranceRecommendationService {
     
     @Transactional(readOnly = true)
     public List<InsuranceRecommendationResponse> getUserRecommendations(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return recommendationRepository.findByUserOrderByRecommendationDateDesc(user).stream()
+        return recommendationRepository.findByUserIdOrderByRecommendationDateDesc(userId).stream()
                 .map(InsuranceRecommendationResponse::fromInsuranceRecommendation)
                 .collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
     public Optional<InsuranceRecommendationResponse> getLatestRecommendation(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return recommendationRepository.findFirstByUserOrderByRecommendationDateDesc(user)
+        return recommendationRepository.findFirstByUserIdOrderByRecommendationDateDesc(userId)
                 .map(InsuranceRecommendationResponse::fromInsuranceRecommendation);
     }
 }
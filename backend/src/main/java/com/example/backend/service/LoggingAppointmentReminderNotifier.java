@@ -0,0 +1,18 @@
+package com.example.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes each reminder to the appointments.reminders log instead of sending it anywhere.
+ */
+public class LoggingAppointmentReminderNotifier implements AppointmentReminderNotifier {
+
+    private static final Logger LOG = LoggerFactory.getLogger("appointments.reminders");
+
+    @Override
+    public void send(AppointmentReminder reminder) {
+        LOG.info("Reminder for appointment {}: user {} at {} on {}",
+                reminder.appointmentId(), reminder.userId(), reminder.facilityName(), reminder.appointmentDate());
+    }
+}
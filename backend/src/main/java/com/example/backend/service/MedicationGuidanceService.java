@@ -4,15 +4,22 @@ import com.example.backend.dto.response.MedicationGuidanceResponse;
 import com.example.backend.entity.MedicationGuidance;
 import com.example.backend.entity.User;
 import com.example.backend.repository.MedicationGuidanceRepository;
-import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.GeminiCallLogger;
+import com.example.backend.service.ai.GeminiCallTrace;
+import com.example.backend.service.ai.GeminiFeature;
+import com.example.backend.service.ai.UserProfile;
 import com.example.backend.service.ai.GeminiMedicationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,35 +30,46 @@ public class MedicationGuidanceService {
     private MedicationGuidanceRepository medicationGuidanceRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
+    
+    @Autowired
+    private UserProfileCache userProfileCache;
     
     @Autowired(required = false)
     private GeminiMedicationService geminiMedicationService;
     
+    @Autowired
+    private GeminiCallLogger geminiCallLogger;
+    
     @Value("${gemini.enabled:false}")
     private Boolean geminiEnabled;
     
-    public MedicationGuidanceResponse generateMedicationGuidance(Long userId, String symptoms) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<MedicationGuidanceResponse> generateMedicationGuidance(Long userId, String symptoms) {
+        UserProfile profile = userProfileCache.get(userId);
+        User user = profile.toUserReference();
         
-        MedicationGuidance guidance;
+        GeminiCallTrace trace = geminiCallLogger.start(GeminiFeature.MEDICATION);
+        Mono<MedicationGuidance> guidance;
         
         // Try to use Gemini AI if enabled, otherwise fall back to basic guidance
         if (geminiEnabled && geminiMedicationService != null) {
-            try {
-                guidance = geminiMedicationService.generateGeminiMedicationGuidance(user, symptoms);
-            } catch (Exception e) {
-                System.err.println("Gemini medication guidance failed, falling back to basic guidance: " + e.getMessage());
-                guidance = createBasicMedicationGuidance(user, symptoms);
-            }
+            guidance = geminiMedicationService.generateGeminiMedicationGuidance(profile, symptoms)
+                    .onErrorResume(e -> {
+                        trace.fallback("basic guidance: " + e.getMessage());
+                        return Mono.fromSupplier(() -> createBasicMedicationGuidance(user, symptoms));
+                    });
         } else {
             // Fall back to basic guidance
-            guidance = createBasicMedicationGuidance(user, symptoms);
+            trace.fallback("gemini disabled");
+            guidance = Mono.fromSupplier(() -> createBasicMedicationGuidance(user, symptoms));
         }
         
-        MedicationGuidance savedGuidance = medicationGuidanceRepository.save(guidance);
-        return MedicationGuidanceResponse.fromMedicationGuidance(savedGuidance);
+        return geminiCallLogger.track(trace, guidance
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(entity -> trace.time(GeminiCallTrace.Phase.PERSIST, () -> medicationGuidanceRepository.save(entity))))
+                .map(MedicationGuidanceResponse::fromMedicationGuidance)
+                .toFuture();
     }
     
     private MedicationGuidance createBasicMedicationGuidance(User user, String symptoms) {
@@ -80,10 +98,9 @@ public class MedicationGuidanceService {
     
     @Transactional(readOnly = true)
     public List<MedicationGuidanceResponse> getUserGuidance(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return medicationGuidanceRepository.findByUserOrderByCreatedAtDesc(user).stream()
+        return medicationGuidanceRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
                 .map(MedicationGuidanceResponse::fromMedicationGuidance)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,91 @@
+package com.example.backend.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of reminder deadlines keyed by appointment id. A deadline is rounded up to a
+ * tick and kept in the bucket for that tick modulo the wheel size, so scheduling and cancelling are
+ * O(1) and each tick only looks at one bucket; deadlines more than a full turn ahead stay in their
+ * bucket until the turn they are due. Never fires early, and at most one tick late plus however long
+ * advance is not called. Scheduling a key again replaces its deadline.
+ */
+public class ReminderTimingWheel {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<Map<Long, Long>> buckets;
+    // Key -> deadline tick, to find the bucket of a key being replaced or cancelled
+    private final Map<Long, Long> deadlines = new HashMap<>();
+    // First tick not yet processed by advance
+    private long nextTick;
+
+    /**
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    public ReminderTimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new HashMap<>());
+        }
+        this.nextTick = nowMillis / tickMillis + 1;
+    }
+
+    /** Fire key once deadlineMillis has passed; a deadline already past fires on the next advance. */
+    public synchronized void schedule(Long key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.max(-Math.floorDiv(-deadlineMillis, tickMillis), nextTick);
+        buckets.get((int) (tick & mask)).put(key, tick);
+        deadlines.put(key, tick);
+    }
+
+    public synchronized boolean cancel(Long key) {
+        Long tick = deadlines.remove(key);
+        if (tick == null) {
+            return false;
+        }
+        buckets.get((int) (tick & mask)).remove(key);
+        return true;
+    }
+
+    public synchronized boolean contains(Long key) {
+        return deadlines.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    /** Remove and return the keys whose deadlines have passed by nowMillis. */
+    public synchronized List<Long> advance(long nowMillis) {
+        long currentTick = nowMillis / tickMillis;
+        if (currentTick < nextTick) {
+            return List.of();
+        }
+        List<Long> due = new ArrayList<>();
+        // A gap of a full turn or more (a stalled caller) visits every bucket once
+        long ticks = Math.min(currentTick - nextTick + 1, buckets.size());
+        for (long i = 0; i < ticks; i++) {
+            Map<Long, Long> bucket = buckets.get((int) ((nextTick + i) & mask));
+            for (Iterator<Map.Entry<Long, Long>> it = bucket.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Long> entry = it.next();
+                if (entry.getValue() <= currentTick) {
+                    due.add(entry.getKey());
+                    deadlines.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        nextTick = currentTick + 1;
+        return due;
+    }
+}
@@ -2,9 +2,7 @@ package com.example.backend.service;
 
 import com.example.backend.dto.response.RewardSystemResponse;
 import com.example.backend.entity.RewardSystem;
-import com.example.backend.entity.User;
 import com.example.backend.repository.RewardSystemRepository;
-import com.example.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,14 +17,11 @@ public class RewardSystemService {
     private RewardSystemRepository rewardSystemRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private UserExistenceCache userExistenceCache;
     
     public RewardSystemResponse dailyCheckIn(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        RewardSystem rewardSystem = rewardSystemRepository.findByUser(user)
-                .orElseGet(() -> createRewardSystem(user));
+        RewardSystem rewardSystem = rewardSystemRepository.findByUserId(userId)
+                .orElseGet(() -> createRewardSystem(userId));
         
         rewardSystem.dailyCheckIn();
         
@@ -36,16 +31,17 @@ public class RewardSystemService {
     
     @Transactional(readOnly = true)
     public Optional<RewardSystemResponse> getUserRewards(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return rewardSystemRepository.findByUser(user)
-                .map(RewardSystemResponse::fromRewardSystem);
+        Optional<RewardSystem> rewardSystem = rewardSystemRepository.findByUserId(userId);
+        if (rewardSystem.isEmpty()) {
+            // Only an unknown user is an error; a user without rewards yet just has none
+            userExistenceCache.requireExists(userId);
+        }
+        return rewardSystem.map(RewardSystemResponse::fromRewardSystem);
     }
     
-    private RewardSystem createRewardSystem(User user) {
+    private RewardSystem createRewardSystem(Long userId) {
         RewardSystem rewardSystem = new RewardSystem();
-        rewardSystem.setUser(user);
+        rewardSystem.setUser(userExistenceCache.reference(userId));
         rewardSystem.setTotalPoints(0);
         rewardSystem.setLifetimePoints(0);
         rewardSystem.setTier(1);
@@ -54,11 +50,8 @@ public class RewardSystemService {
     }
     
     public RewardSystemResponse recordHealthDataEntry(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        RewardSystem rewardSystem = rewardSystemRepository.findByUser(user)
-                .orElseGet(() -> createRewardSystem(user));
+        RewardSystem rewardSystem = rewardSystemRepository.findByUserId(userId)
+                .orElseGet(() -> createRewardSystem(userId));
         
         rewardSystem.recordHealthDataEntry();
         RewardSystem saved = rewardSystemRepository.save(rewardSystem);
@@ -66,11 +59,8 @@ public class RewardSystemService {
     }
     
     public RewardSystemResponse recordAssessmentCompletion(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        RewardSystem rewardSystem = rewardSystemRepository.findByUser(user)
-                .orElseGet(() -> createRewardSystem(user));
+        RewardSystem rewardSystem = rewardSystemRepository.findByUserId(userId)
+                .orElseGet(() -> createRewardSystem(userId));
         
         rewardSystem.recordAssessmentCompletion();
         RewardSystem saved = rewardSystemRepository.save(rewardSystem);
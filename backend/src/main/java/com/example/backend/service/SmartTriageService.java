@@ -6,13 +6,19 @@ import com.example.backend.entity.SmartTriage;
 import com.example.backend.entity.User;
 import com.example.backend.repository.SmartTriageRepository;
 import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.GeminiCallLogger;
+import com.example.backend.service.ai.GeminiCallTrace;
+import com.example.backend.service.ai.GeminiFeature;
 import com.example.backend.service.ai.GeminiTriageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,39 +31,45 @@ public class SmartTriageService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+    
     @Autowired
     private GeminiTriageService geminiTriageService;
     
-    public SmartTriageResponse generateTriage(SmartTriageRequest request) {
+    @Autowired
+    private GeminiCallLogger geminiCallLogger;
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<SmartTriageResponse> generateTriage(SmartTriageRequest request) {
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
-        SmartTriage triage = geminiTriageService.generateGeminiTriage(
-            request.getSymptomsInfo(), 
-            user, 
-            request.getAdditionalContext());
-        
-        SmartTriage savedTriage = smartTriageRepository.save(triage);
-        
-        return SmartTriageResponse.fromSmartTriage(savedTriage);
+        GeminiCallTrace trace = geminiCallLogger.start(GeminiFeature.TRIAGE);
+        return geminiCallLogger.track(trace, geminiTriageService.generateGeminiTriage(
+                            request.getSymptomsInfo(), 
+                            user, 
+                            request.getAdditionalContext())
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(entity -> trace.time(GeminiCallTrace.Phase.PERSIST, () -> smartTriageRepository.save(entity))))
+                .map(SmartTriageResponse::fromSmartTriage)
+                .toFuture();
     }
     
     @Transactional(readOnly = true)
     public List<SmartTriageResponse> getTriageHistory(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return smartTriageRepository.findByUserOrderByTriageTimeDesc(user).stream()
+        return smartTriageRepository.findByUserIdOrderByTriageTimeDesc(userId).stream()
                 .map(SmartTriageResponse::fromSmartTriage)
                 .collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
     public Optional<SmartTriageResponse> getLatestTriage(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userExistenceCache.requireExists(userId);
         
-        return smartTriageRepository.findFirstByUserOrderByTriageTimeDesc(user)
+        return smartTriageRepository.findFirstByUserIdOrderByTriageTimeDesc(userId)
                 .map(SmartTriageResponse::fromSmartTriage);
     }
     
@@ -0,0 +1,52 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of users known to exist, so per-user reads can reject unknown ids without loading the user row.
+ * A miss costs one existence query; ids are added once seen and removed by UserService.deleteUser.
+ * A user deleted through another instance stays cached here, so its reads return empty results
+ * rather than "User not found".
+ */
+@Component
+public class UserExistenceCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Set<Long> knownIds = ConcurrentHashMap.newKeySet();
+
+    /** Throws "User not found" unless the user exists; no query once the id has been seen. */
+    public void requireExists(Long userId) {
+        if (userId == null) {
+            throw new RuntimeException("User not found");
+        }
+        if (knownIds.contains(userId)) {
+            return;
+        }
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        knownIds.add(userId);
+    }
+
+    /** An unloaded User proxy for setting foreign keys, after the existence check. */
+    public User reference(Long userId) {
+        requireExists(userId);
+        return userRepository.getReferenceById(userId);
+    }
+
+    public void remember(Long userId) {
+        knownIds.add(userId);
+    }
+
+    public void forget(Long userId) {
+        knownIds.remove(userId);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.UserProfile;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache of UserProfile snapshots for building Gemini prompts, LRU-bounded.
+ * UserService invalidates an entry when the user is updated or deleted; the invalidation is also
+ * published on the UserProfileInvalidationBus so other instances drop their copy.
+ * Meters: user.profile.cache.requests (result = hit/miss) and user.profile.cache.size.
+ */
+@Component
+public class UserProfileCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProfileInvalidationBus invalidationBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${user-profile.cache.max-entries:10000}")
+    private Integer maxEntries;
+
+    private Map<Long, UserProfile> profiles;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    // Bumped by every eviction; a load that overlapped one is returned but not cached, as it may be stale
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        int capacity = Math.max(1, maxEntries);
+        profiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserProfile> eldest) {
+                return size() > capacity;
+            }
+        };
+        FunctionCounter.builder("user.profile.cache.requests", hits, AtomicLong::get)
+                .description("User profile lookups for AI prompts")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("user.profile.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("user.profile.cache.size", this, UserProfileCache::size)
+                .register(meterRegistry);
+        invalidationBus.subscribe(this::evict);
+    }
+
+    /**
+     * The user's profile; loads it on a miss. Throws "User not found" for an unknown id.
+     */
+    public UserProfile get(Long userId) {
+        synchronized (profiles) {
+            UserProfile cached = profiles.get(userId);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        long evictionsBeforeLoad = evictions.get();
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        UserProfile profile = UserProfile.from(user);
+        synchronized (profiles) {
+            if (evictions.get() == evictionsBeforeLoad) {
+                profiles.put(userId, profile);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Drop the user's profile here and on every other instance. Inside a transaction it is dropped
+     * again after commit, so a read that raced the update cannot leave the old profile cached.
+     */
+    public void invalidate(Long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidationBus.publish(userId);
+                }
+            });
+        } else {
+            invalidationBus.publish(userId);
+        }
+    }
+
+    public int size() {
+        synchronized (profiles) {
+            return profiles.size();
+        }
+    }
+
+    private void evict(Long userId) {
+        synchronized (profiles) {
+            evictions.incrementAndGet();
+            profiles.remove(userId);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.backend.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries "profile of user X changed" messages to every instance's UserProfileCache.
+ * The default InMemoryUserProfileInvalidationBus only reaches this JVM; a deployment with several
+ * instances declares its own bean (e.g. on Redis pub/sub) and the in-memory one backs off.
+ * Subscribers also receive their own instance's messages; evicting twice is harmless.
+ */
+public interface UserProfileInvalidationBus {
+
+    void publish(Long userId);
+
+    void subscribe(Consumer<Long> listener);
+}
@@ -21,6 +21,12 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserExistenceCache userExistenceCache;
+    
+    @Autowired
+    private UserProfileCache userProfileCache;
+    
     @Autowired
     private PasswordEncoder passwordEncoder;
     
@@ -140,6 +146,7 @@ public class UserService {
         }
         
         User updatedUser = userRepository.save(user);
+        userProfileCache.invalidate(id);
         return UserResponse.fromUser(updatedUser);
     }
     
@@ -148,6 +155,8 @@ public class UserService {
             throw new RuntimeException("User not found");
         }
         userRepository.deleteById(id);
+        userExistenceCache.forget(id);
+        userProfileCache.invalidate(id);
     }
     
     @Transactional(readOnly = true)
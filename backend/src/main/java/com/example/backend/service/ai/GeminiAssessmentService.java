@@ -1,111 +1,89 @@
 package com.example.backend.service.ai;
 
-import com.example.backend.config.GeminiConfig;
-import com.example.backend.dto.response.HealthDataResponse;
 import com.example.backend.entity.HealthAssessment;
+import com.example.backend.entity.HealthDataRollup.Metric;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.util.*;
-import java.util.stream.DoubleStream;
+import java.util.Locale;
 
 @Service
 public class GeminiAssessmentService {
 
-    @Value("${gemini.enabled:false}")
-    private Boolean geminiEnabled;
+    @Autowired
+    private GeminiClient geminiClient;
 
-    @Autowired(required = false)
-    private WebClient geminiWebClient;
+    @Autowired
+    private GeminiResponseParser responseParser;
 
-    @Autowired(required = false)
-    private GeminiConfig geminiConfig;
+    @Autowired
+    private GeminiCallLogger callLogger;
 
-    @Value("${gemini.model:gemini-2.5-pro}")
-    private String model;
-
-    @Value("${gemini.max-tokens:8000}")
-    private Integer maxTokens;
-
-    @Value("${gemini.temperature:0.7}")
-    private Double temperature;
+    @Autowired
+    private HealthDataPromptCompactor promptCompactor;
 
     /**
      * Main entry:
      * - If Gemini is available and enabled -> call Gemini with a strict JSON schema.
      * - Otherwise -> fall back to local heuristic scoring (never hard-code 75).
+     * The returned Mono never errors; any Gemini failure resolves to the heuristic result.
      */
-    public HealthAssessment generateGeminiAssessment(
-            List<HealthDataResponse> healthDataList,
+    public Mono<HealthAssessment> generateGeminiAssessment(
+            HealthDataSummary healthData,
             HealthAssessment.AssessmentType type
     ) {
         // If Gemini is disabled or not configured, return a heuristic assessment.
-        if (!Boolean.TRUE.equals(geminiEnabled) || geminiWebClient == null || geminiConfig == null) {
-            return buildHeuristicAssessment(healthDataList, type);
+        if (!geminiClient.isAvailable()) {
+            return Mono.fromSupplier(() -> buildHeuristicAssessment(healthData, type));
         }
 
         // Prepare the base entity
         HealthAssessment base = new HealthAssessment();
         base.setType(type);
 
-        try {
+        return callLogger.traced(GeminiFeature.ASSESSMENT, trace -> {
             // Prepare prompt
-            String healthDataSummary = formatHealthDataForGemini(healthDataList);
-            String baseAssessmentSummary = "Preliminary analysis prepared, please produce a structured report.";
-            String prompt = buildGeminiPrompt(healthDataSummary, baseAssessmentSummary, type);
-
-            // Request body
-            Map<String, Object> requestBody = new HashMap<>();
-            Map<String, Object> contents = new HashMap<>();
-            contents.put("parts", List.of(Map.of("text", prompt)));
-            requestBody.put("contents", List.of(contents));
-
-            Map<String, Object> generationConfig = new HashMap<>();
-            generationConfig.put("maxOutputTokens", maxTokens);
-            generationConfig.put("temperature", temperature);
-            requestBody.put("generationConfig", generationConfig);
-
-            // Call Gemini
-            String apiKey = geminiConfig.getApiKey();
-            String uri = String.format("/models/%s:generateContent?key=%s", model, apiKey);
-
-            String response = geminiWebClient.post()
-                    .uri(uri)
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            // Parse response -> fill assessment
-            String text = extractResponseText(response);
-            if (text == null || text.isBlank()) {
-                // If parsing failed, fall back to heuristic
-                return buildHeuristicAssessment(healthDataList, type);
-            }
-            HealthAssessment parsed = parseGeminiResponse(base, text);
-
-            // If score/risk missing from AI, compute heuristics instead.
-            if (parsed.getOverallScore() == null || parsed.getOverallRiskLevel() == null) {
-                HealthAssessment h = buildHeuristicAssessment(healthDataList, type);
-                if (parsed.getOverallScore() == null) {
-                    parsed.setOverallScore(h.getOverallScore());
-                }
-                if (parsed.getOverallRiskLevel() == null) {
-                    parsed.setOverallRiskLevel(h.getOverallRiskLevel());
-                }
-            }
-            return parsed;
-
-        } catch (Exception e) {
-            // Any error -> fall back to heuristic assessment
-            System.err.println("[Gemini] Falling back to heuristic scoring: " + e.getMessage());
-            return buildHeuristicAssessment(healthDataList, type);
-        }
+            String prompt = trace.time(GeminiCallTrace.Phase.PROMPT_BUILD, () -> {
+                String healthDataSummary = promptCompactor.compact(healthData);
+                String baseAssessmentSummary = "Preliminary analysis prepared, please produce a structured report.";
+                return buildGeminiPrompt(healthDataSummary, baseAssessmentSummary, type);
+            });
+            trace.recordPrompt(prompt);
+
+            return trace.time(GeminiCallTrace.Phase.NETWORK, geminiClient.generateContent(GeminiFeature.ASSESSMENT, prompt))
+                    .map(response -> trace.time(GeminiCallTrace.Phase.PARSE, () -> {
+                        // Parse response -> fill assessment
+                        String text = responseParser.extractText(response);
+                        trace.recordResponse(text);
+                        if (text == null || text.isBlank()) {
+                            // If parsing failed, fall back to heuristic
+                            trace.fallback("heuristic: empty response");
+                            return buildHeuristicAssessment(healthData, type);
+                        }
+                        HealthAssessment parsed = parseGeminiResponse(base, text);
+
+                        // If score/risk missing from AI, compute heuristics instead.
+                        if (parsed.getOverallScore() == null || parsed.getOverallRiskLevel() == null) {
+                            HealthAssessment h = buildHeuristicAssessment(healthData, type);
+                            if (parsed.getOverallScore() == null) {
+                                parsed.setOverallScore(h.getOverallScore());
+                            }
+                            if (parsed.getOverallRiskLevel() == null) {
+                                parsed.setOverallRiskLevel(h.getOverallRiskLevel());
+                            }
+                        }
+                        return parsed;
+                    }))
+                    .switchIfEmpty(Mono.fromSupplier(() -> buildHeuristicAssessment(healthData, type)))
+                    .onErrorResume(e -> {
+                        // Any error -> fall back to heuristic assessment
+                        trace.fallback("heuristic: " + e.getMessage());
+                        return Mono.fromSupplier(() -> buildHeuristicAssessment(healthData, type));
+                    });
+        });
     }
 
     /* ----------------------- Prompt & parsing ----------------------- */
@@ -148,64 +126,21 @@ public class GeminiAssessmentService {
         }
     }
 
-    private String formatHealthDataForGemini(List<HealthDataResponse> dataList) {
-        if (dataList == null || dataList.isEmpty()) {
-            return "No health data available.";
-        }
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("Total %d records:\n", dataList.size()));
-        for (HealthDataResponse d : dataList) {
-            sb.append("- ");
-            if (d.getBmi() != null) sb.append(String.format("BMI: %.1f, ", d.getBmi().doubleValue()));
-            if (d.getSystolicPressure() != null && d.getDiastolicPressure() != null)
-                sb.append(String.format("BP: %d/%d, ", d.getSystolicPressure(), d.getDiastolicPressure()));
-            if (d.getHeartRate() != null) sb.append(String.format("HR: %d, ", d.getHeartRate()));
-            if (d.getSleepHours() != null) sb.append(String.format("Sleep: %d h, ", d.getSleepHours()));
-            if (d.getSteps() != null) sb.append(String.format("Steps: %d", d.getSteps()));
-            sb.append("\n");
-        }
-        return sb.toString();
-    }
-
-    private String extractResponseText(String jsonResponse) {
-        if (jsonResponse == null || jsonResponse.isBlank()) return null;
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(jsonResponse);
-            JsonNode candidates = root.path("candidates");
-            if (!candidates.isArray() || candidates.size() == 0) return null;
-            JsonNode parts = candidates.get(0).path("content").path("parts");
-            if (!parts.isArray() || parts.size() == 0) return null;
-            String text = parts.get(0).path("text").asText(null);
-            if (text == null) return null;
-
-            // Strip ``` fences if present
-            String t = text.trim();
-            if (t.startsWith("```")) {
-                t = t.replaceFirst("^```(json)?\\s*", "");
-                if (t.endsWith("```")) t = t.substring(0, t.length() - 3);
-                t = t.trim();
-            }
-            return t;
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
     /**
      * Parse JSON from Gemini. If fields missing, they will be filled by heuristic later.
      */
     private HealthAssessment parseGeminiResponse(HealthAssessment base, String geminiResponse) {
         try {
-            String jsonText = extractJsonFromText(geminiResponse).trim();
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode node = mapper.readTree(jsonText);
+            JsonNode node = responseParser.readJsonObject(geminiResponse);
+            if (node == null) {
+                return base;
+            }
 
             // Textual sections
-            String summary = textOrJoined(node.path("summary"), "\n");
-            String keyFindings = textOrJoined(node.path("keyFindings"), "\n");
-            String recommendations = textOrJoined(node.path("recommendations"), "\n");
-            String aiInsights = textOrJoined(node.path("aiInsights"), "\n");
+            String summary = textOrJoined(node, "summary");
+            String keyFindings = textOrJoined(node, "keyFindings");
+            String recommendations = textOrJoined(node, "recommendations");
+            String aiInsights = textOrJoined(node, "aiInsights");
 
             base.setSummary(summary != null ? summary : "Health assessment completed.");
             base.setKeyFindings(keyFindings != null ? keyFindings : "No key findings.");
@@ -246,38 +181,9 @@ public class GeminiAssessmentService {
         }
     }
 
-    private static String textOrJoined(JsonNode node, String sep) {
-        if (node == null || node.isMissingNode() || node.isNull()) return null;
-        if (node.isTextual()) return node.asText();
-        if (node.isArray()) {
-            StringBuilder sb = new StringBuilder();
-            for (JsonNode it : node) if (it.isTextual()) sb.append(it.asText()).append(sep);
-            String s = sb.toString().trim();
-            return s.isEmpty() ? null : s;
-        }
-        return null;
-    }
-
-    /**
-     * Extract a JSON object inside free text by brace matching.
-     */
-    private String extractJsonFromText(String text) {
-        if (text == null) return "";
-        String trimmed = text.trim();
-        if (trimmed.startsWith("{") && trimmed.endsWith("}")) return trimmed;
-
-        int start = text.indexOf('{');
-        if (start < 0) return text;
-        int count = 0;
-        for (int i = start; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c == '{') count++;
-            else if (c == '}') {
-                count--;
-                if (count == 0) return text.substring(start, i + 1);
-            }
-        }
-        return text.substring(start);
+    private String textOrJoined(JsonNode node, String fieldName) {
+        String text = responseParser.fieldText(node, fieldName);
+        return (text == null || text.isEmpty()) ? null : text;
     }
 
     /* ----------------------- Heuristic fallback ----------------------- */
@@ -287,18 +193,19 @@ public class GeminiAssessmentService {
      * - Ideal BMI 18.5–24.9; ideal sleep 7–9h; steps target 8000+;
      * - BP: normal < 120/80, elevated 120–129/<80, high ≥ 130/80;
      * - Resting HR ideal ~60–80.
+     * Used whenever Gemini is unavailable or its answer is incomplete.
      */
-    private HealthAssessment buildHeuristicAssessment(List<HealthDataResponse> data, HealthAssessment.AssessmentType type) {
+    public HealthAssessment buildHeuristicAssessment(HealthDataSummary data, HealthAssessment.AssessmentType type) {
         HealthAssessment a = new HealthAssessment();
         a.setType(type);
 
-        int n = (data == null) ? 0 : data.size();
-        Double avgBmi = avgOrNull(data, d -> d.getBmi() == null ? null : d.getBmi().doubleValue());
-        Double avgSys = avgOrNull(data, d -> d.getSystolicPressure() == null ? null : d.getSystolicPressure().doubleValue());
-        Double avgDia = avgOrNull(data, d -> d.getDiastolicPressure() == null ? null : d.getDiastolicPressure().doubleValue());
-        Double avgHr  = avgOrNull(data, d -> d.getHeartRate() == null ? null : d.getHeartRate().doubleValue());
-        Double avgSleep = avgOrNull(data, d -> d.getSleepHours() == null ? null : d.getSleepHours().doubleValue());
-        Double avgSteps = avgOrNull(data, d -> d.getSteps() == null ? null : d.getSteps().doubleValue());
+        long n = data.sampleCount();
+        Double avgBmi = data.average(Metric.BMI);
+        Double avgSys = data.average(Metric.SYSTOLIC_PRESSURE);
+        Double avgDia = data.average(Metric.DIASTOLIC_PRESSURE);
+        Double avgHr  = data.average(Metric.HEART_RATE);
+        Double avgSleep = data.average(Metric.SLEEP_HOURS);
+        Double avgSteps = data.average(Metric.STEPS);
 
         double score = 100.0;
 
@@ -475,14 +382,4 @@ public class GeminiAssessmentService {
         if (steps < 8000) return "Increase incidental activity (stairs, standing breaks).";
         return "Great activity level—keep it up.";
     }
-
-    private static Double avgOrNull(List<HealthDataResponse> list, java.util.function.Function<HealthDataResponse, Double> f) {
-        if (list == null || list.isEmpty()) return null;
-        DoubleStream stream = list.stream()
-                .map(f)
-                .filter(Objects::nonNull)
-                .mapToDouble(Double::doubleValue);
-        OptionalDouble od = stream.average();
-        return od.isPresent() ? od.getAsDouble() : null;
-    }
 }
@@ -0,0 +1,136 @@
+package com.example.backend.service.ai;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Structured logging for Gemini calls, replacing the full-response dumps to stdout.
+ * Every call produces one "gemini.calls" line with key/value fields: feature, outcome, sizes and the
+ * time spent in each GeminiCallTrace.Phase. Response text goes to "gemini.payload" only for a sampled
+ * fraction of calls (and for every call that did not end OK), cut to max-payload-chars.
+ * Both loggers are asynchronous and drop events rather than block (see logback-spring.xml).
+ */
+@Component
+public class GeminiCallLogger {
+
+    private static final Logger CALLS = LoggerFactory.getLogger("gemini.calls");
+    private static final Logger PAYLOADS = LoggerFactory.getLogger("gemini.payload");
+
+    // Fraction of calls whose response text is logged, 0.0 - 1.0
+    @Value("${gemini.logging.payload-sample-rate:0.05}")
+    private Double payloadSampleRate;
+
+    @Value("${gemini.logging.max-payload-chars:2000}")
+    private Integer maxPayloadChars;
+
+    @Autowired
+    private GeminiMetrics geminiMetrics;
+
+    /**
+     * New trace for a call made by a domain service; bind it to the Gemini*Service Mono and finish it
+     * once the result is saved (track does both).
+     */
+    public GeminiCallTrace start(GeminiFeature feature) {
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < payloadSampleRate;
+        return new GeminiCallTrace(feature, sampled, Math.max(0, maxPayloadChars));
+    }
+
+    /**
+     * Bind the trace to the Mono and log it when the Mono terminates.
+     */
+    public <T> Mono<T> track(GeminiCallTrace trace, Mono<T> work) {
+        return trace.bind(work
+                .doOnSuccess(result -> finish(trace, null))
+                .doOnError(e -> finish(trace, e))
+                .doOnCancel(() -> finish(trace, null)));
+    }
+
+    /**
+     * Bind the trace to the Flux and log it when the Flux terminates.
+     */
+    public <T> Flux<T> track(GeminiCallTrace trace, Flux<T> work) {
+        return trace.bind(work
+                .doOnComplete(() -> finish(trace, null))
+                .doOnError(e -> finish(trace, e))
+                .doOnCancel(() -> finish(trace, null)));
+    }
+
+    /**
+     * Used by the Gemini*Service classes: runs the call with the trace from the Reactor context,
+     * or with a trace of its own (logged when the call ends) when the caller did not bind one.
+     */
+    public <T> Mono<T> traced(GeminiFeature feature, Function<GeminiCallTrace, Mono<T>> call) {
+        return Mono.deferContextual(ctx -> {
+            GeminiCallTrace bound = ctx.getOrDefault(GeminiCallTrace.CONTEXT_KEY, null);
+            if (bound != null) {
+                return call.apply(bound);
+            }
+            GeminiCallTrace own = start(feature);
+            return Mono.defer(() -> call.apply(own))
+                    .doOnSuccess(result -> finish(own, null))
+                    .doOnError(e -> finish(own, e))
+                    .doOnCancel(() -> finish(own, null));
+        });
+    }
+
+    /**
+     * Same as traced, for a call that streams its answer.
+     */
+    public <T> Flux<T> tracedStream(GeminiFeature feature, Function<GeminiCallTrace, Flux<T>> call) {
+        return Flux.deferContextual(ctx -> {
+            GeminiCallTrace bound = ctx.getOrDefault(GeminiCallTrace.CONTEXT_KEY, null);
+            if (bound != null) {
+                return call.apply(bound);
+            }
+            GeminiCallTrace own = start(feature);
+            return Flux.defer(() -> call.apply(own))
+                    .doOnComplete(() -> finish(own, null))
+                    .doOnError(e -> finish(own, e))
+                    .doOnCancel(() -> finish(own, null));
+        });
+    }
+
+    /**
+     * Log the trace and record it in GeminiMetrics; later calls for the same trace are ignored.
+     */
+    public void finish(GeminiCallTrace trace, Throwable error) {
+        if (!trace.markFinished()) {
+            return;
+        }
+        GeminiCallTrace.Outcome outcome = error != null ? GeminiCallTrace.Outcome.FAILED : trace.getOutcome();
+        geminiMetrics.recordCall(trace, outcome);
+
+        CALLS.atLevel(outcome == GeminiCallTrace.Outcome.FAILED ? Level.WARN : Level.INFO)
+                .addKeyValue("feature", trace.getFeature())
+                .addKeyValue("outcome", outcome)
+                .addKeyValue("fallbackReason", trace.getFallbackReason())
+                .addKeyValue("error", error != null ? error.getMessage() : null)
+                .addKeyValue("promptChars", trace.getPromptChars())
+                .addKeyValue("promptTokens", trace.getPromptTokens())
+                .addKeyValue("responseChars", trace.getResponseChars())
+                .addKeyValue("promptBuildMs", trace.getPhaseMillis(GeminiCallTrace.Phase.PROMPT_BUILD))
+                .addKeyValue("networkMs", trace.getPhaseMillis(GeminiCallTrace.Phase.NETWORK))
+                .addKeyValue("parseMs", trace.getPhaseMillis(GeminiCallTrace.Phase.PARSE))
+                .addKeyValue("persistMs", trace.getPhaseMillis(GeminiCallTrace.Phase.PERSIST))
+                .addKeyValue("totalMs", trace.getElapsedMillis())
+                .log("gemini call");
+
+        if (trace.getResponseExcerpt() != null && (trace.isSampled() || outcome != GeminiCallTrace.Outcome.OK)) {
+            PAYLOADS.atInfo()
+                    .addKeyValue("feature", trace.getFeature())
+                    .addKeyValue("outcome", outcome)
+                    .addKeyValue("responseChars", trace.getResponseChars())
+                    .addKeyValue("truncated", trace.getResponseChars() > trace.getResponseExcerpt().length())
+                    .log(trace.getResponseExcerpt());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.backend.service.ai;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Timings and outcome of one Gemini-backed request, from building the prompt to saving the result.
+ * Created by the domain service (GeminiCallLogger.start) and carried to the Gemini*Service in the
+ * Reactor context, so each phase is recorded by the code that runs it. Written once by
+ * GeminiCallLogger.finish.
+ */
+public final class GeminiCallTrace {
+
+    /**
+     * NETWORK runs from subscribing to GeminiClient until the response body arrives, so it includes
+     * waiting for quota and a concurrency slot; a cache hit shows as close to zero.
+     */
+    public enum Phase {
+        PROMPT_BUILD, NETWORK, PARSE, PERSIST
+    }
+
+    public enum Outcome {
+        OK, FALLBACK, FAILED
+    }
+
+    static final Class<GeminiCallTrace> CONTEXT_KEY = GeminiCallTrace.class;
+
+    private final GeminiFeature feature;
+    private final boolean sampled;
+    private final int maxPayloadChars;
+    private final long startedAt = System.nanoTime();
+    private final AtomicLongArray phaseNanos = new AtomicLongArray(Phase.values().length);
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private volatile Outcome outcome = Outcome.OK;
+    private volatile String fallbackReason;
+    private volatile int promptChars;
+    private volatile int responseChars;
+    private volatile String responseExcerpt;
+
+    GeminiCallTrace(GeminiFeature feature, boolean sampled, int maxPayloadChars) {
+        this.feature = feature;
+        this.sampled = sampled;
+        this.maxPayloadChars = maxPayloadChars;
+    }
+
+    public <T> T time(Phase phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            phaseNanos.addAndGet(phase.ordinal(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Time from subscription until the Mono terminates or is cancelled.
+     */
+    public <T> Mono<T> time(Phase phase, Mono<T> work) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return work.doFinally(signal -> phaseNanos.addAndGet(phase.ordinal(), System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Time from subscription until the Flux terminates or is cancelled, e.g. a streamed answer.
+     */
+    public <T> Flux<T> time(Phase phase, Flux<T> work) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return work.doFinally(signal -> phaseNanos.addAndGet(phase.ordinal(), System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Make this trace visible to the Gemini*Service that the given Mono subscribes to.
+     */
+    public <T> Mono<T> bind(Mono<T> work) {
+        return work.contextWrite(ctx -> ctx.put(CONTEXT_KEY, this));
+    }
+
+    public <T> Flux<T> bind(Flux<T> work) {
+        return work.contextWrite(ctx -> ctx.put(CONTEXT_KEY, this));
+    }
+
+    public void recordPrompt(String prompt) {
+        promptChars = prompt != null ? prompt.length() : 0;
+    }
+
+    /**
+     * Keep the size and an excerpt of at most max-payload-chars of the model text.
+     */
+    public void recordResponse(String text) {
+        if (text == null) {
+            return;
+        }
+        responseChars = text.length();
+        responseExcerpt = text.length() > maxPayloadChars ? text.substring(0, maxPayloadChars) : text;
+    }
+
+    /**
+     * The request was answered without (a usable) Gemini response, e.g. out of quota.
+     */
+    public void fallback(String reason) {
+        outcome = Outcome.FALLBACK;
+        fallbackReason = reason;
+    }
+
+    boolean markFinished() {
+        return finished.compareAndSet(false, true);
+    }
+
+    public GeminiFeature getFeature() {
+        return feature;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public String getFallbackReason() {
+        return fallbackReason;
+    }
+
+    public int getPromptChars() {
+        return promptChars;
+    }
+
+    /** Estimated like GeminiClient does before sending; the billed count is in gemini.tokens. */
+    public long getPromptTokens() {
+        return (promptChars + 3) / 4;
+    }
+
+    public int getResponseChars() {
+        return responseChars;
+    }
+
+    public String getResponseExcerpt() {
+        return responseExcerpt;
+    }
+
+    public long getPhaseNanos(Phase phase) {
+        return phaseNanos.get(phase.ordinal());
+    }
+
+    public long getPhaseMillis(Phase phase) {
+        return getPhaseNanos(phase) / 1_000_000;
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+}
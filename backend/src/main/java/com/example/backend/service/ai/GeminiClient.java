@@ -0,0 +1,472 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.config.GeminiConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shared non-blocking gateway to the Gemini generateContent API.
+ * All Gemini*Service classes go through here instead of calling the WebClient and blocking.
+ * Requests first wait for quota in GeminiRateLimiter; then the number of in-flight requests
+ * per model is bounded, and callers over the limit wait in a priority queue without holding a thread.
+ * End-to-end latency of every request sent to Gemini is recorded in GeminiLatencyTracker.
+ */
+@Service
+public class GeminiClient {
+
+    @Value("${gemini.enabled:false}")
+    private Boolean geminiEnabled;
+
+    @Autowired(required = false)
+    private WebClient geminiWebClient;
+
+    @Autowired(required = false)
+    private GeminiConfig geminiConfig;
+
+    @Value("${gemini.model:gemini-2.5-pro}")
+    private String model;
+
+    @Value("${gemini.max-tokens:8000}")
+    private Integer maxTokens;
+
+    @Value("${gemini.temperature:0.7}")
+    private Double temperature;
+
+    @Value("${gemini.max-concurrent-requests:4}")
+    private Integer maxConcurrentRequests;
+
+    // In-flight slots held back for URGENT (triage) requests
+    @Value("${gemini.urgent-reserved-requests:1}")
+    private Integer urgentReservedRequests;
+
+    @Autowired
+    private GeminiResponseCache responseCache;
+
+    @Autowired
+    private GeminiRateLimiter rateLimiter;
+
+    @Autowired
+    private GeminiLatencyTracker latencyTracker;
+
+    @Autowired
+    private GeminiResponseParser responseParser;
+
+    @Autowired
+    private GeminiMetrics geminiMetrics;
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_EVENT_TYPE =
+            new ParameterizedTypeReference<>() { };
+
+    private final Map<String, ModelPermits> permitsByModel = new ConcurrentHashMap<>();
+    private final Map<String, Mono<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * True when Gemini is enabled and the WebClient/config beans exist.
+     */
+    public boolean isAvailable() {
+        return Boolean.TRUE.equals(geminiEnabled) && geminiWebClient != null && geminiConfig != null;
+    }
+
+    /**
+     * Send a prompt with the default generation config and emit the raw JSON response body.
+     */
+    public Mono<String> generateContent(GeminiFeature feature, String prompt) {
+        return generateContent(feature, prompt, maxTokens, temperature);
+    }
+
+    /**
+     * Send a prompt and emit the raw JSON response body.
+     * Nothing is sent until the returned Mono is subscribed.
+     * Completed responses are served from GeminiResponseCache, and identical requests
+     * that are already in flight share one Gemini call.
+     */
+    public Mono<String> generateContent(GeminiFeature feature, String prompt, Integer maxOutputTokens, Double temp) {
+        if (!isAvailable()) {
+            return Mono.error(new RuntimeException("Gemini is not enabled or configured. Please check your configuration."));
+        }
+
+        Map<String, Object> requestBody = buildRequestBody(prompt, maxOutputTokens, temp);
+        String uri = String.format("/models/%s:generateContent?key=%s", model, geminiConfig.getApiKey());
+
+        Mono<String> call = Mono.defer(() -> geminiWebClient.post()
+                .uri(uri)
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToMono(String.class));
+
+        ModelPermits permits = permitsByModel.computeIfAbsent(model, m -> new ModelPermits(maxConcurrentRequests, urgentReservedRequests));
+        long promptTokens = estimateTokens(prompt);
+        Mono<String> limitedCall = rateLimiter.acquire(feature, promptTokens + maxOutputTokens)
+                .flatMap(grant -> {
+                    AtomicBoolean sent = new AtomicBoolean();
+                    return permits.acquire(feature)
+                            .flatMap(permit -> call.doOnSubscribe(subscription -> sent.set(true))
+                                    .doFinally(signal -> permit.release()))
+                            .doOnNext(body -> {
+                                GeminiResponseParser.GeminiResponse usage = responseParser.parseResponse(body);
+                                rateLimiter.recordUsage(grant, usage.totalTokenCount() != null ? usage.totalTokenCount() : promptTokens);
+                                geminiMetrics.recordTokens(feature, usage);
+                            })
+                            .doOnError(e -> {
+                                if (e instanceof WebClientResponseException.TooManyRequests) {
+                                    rateLimiter.onRateLimited();
+                                }
+                                rateLimiter.recordUsage(grant, promptTokens);
+                            })
+                            .doOnCancel(() -> releaseCancelled(grant, sent));
+                });
+        Mono<String> trackedCall = Mono.defer(() -> {
+            long start = System.nanoTime();
+            return limitedCall
+                    .doOnNext(body -> {
+                        long nanos = System.nanoTime() - start;
+                        latencyTracker.recordSuccess(feature, TimeUnit.NANOSECONDS.toMillis(nanos));
+                        geminiMetrics.recordRequest(feature, nanos, null);
+                    })
+                    .doOnError(e -> {
+                        // shed requests are counted by the rate limiter, not as failed calls
+                        if (!(e instanceof GeminiQuotaExceededException)) {
+                            latencyTracker.recordFailure(feature);
+                            geminiMetrics.recordRequest(feature, System.nanoTime() - start, e);
+                        }
+                    });
+        });
+
+        if (!responseCache.isEnabled()) {
+            return trackedCall;
+        }
+
+        String key = responseCache.key(model, maxOutputTokens, temp, prompt);
+        return responseCache.get(feature, key)
+                .switchIfEmpty(Mono.defer(() -> joinOrStart(feature, key, trackedCall)));
+    }
+
+    /**
+     * Stream the answer text as Gemini writes it (streamGenerateContent with alt=sse), one element per chunk.
+     * Uses the same quota and concurrency limits as generateContent; the slot is held until the stream ends.
+     * A cached complete answer is replayed as a single chunk, and a stream that finishes normally is cached
+     * under the same key, so generateContent and streamContent share entries.
+     */
+    public Flux<String> streamContent(GeminiFeature feature, String prompt) {
+        if (!isAvailable()) {
+            return Flux.error(new RuntimeException("Gemini is not enabled or configured. Please check your configuration."));
+        }
+
+        Map<String, Object> requestBody = buildRequestBody(prompt, maxTokens, temperature);
+        String uri = String.format("/models/%s:streamGenerateContent?alt=sse&key=%s", model, geminiConfig.getApiKey());
+
+        Flux<String> events = Flux.defer(() -> geminiWebClient.post()
+                .uri(uri)
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToFlux(SSE_EVENT_TYPE)
+                .mapNotNull(ServerSentEvent::data));
+
+        ModelPermits permits = permitsByModel.computeIfAbsent(model, m -> new ModelPermits(maxConcurrentRequests, urgentReservedRequests));
+        long promptTokens = estimateTokens(prompt);
+        String key = responseCache.isEnabled() ? responseCache.key(model, maxTokens, temperature, prompt) : null;
+
+        Flux<String> live = Flux.defer(() -> {
+            long start = System.nanoTime();
+            StringBuilder fullText = new StringBuilder();
+            String[] finishReason = new String[1];
+            long[] totalTokens = {promptTokens};
+            GeminiResponseParser.GeminiResponse[] lastUsage = new GeminiResponseParser.GeminiResponse[1];
+
+            return rateLimiter.acquire(feature, promptTokens + maxTokens)
+                    .flatMapMany(grant -> {
+                        AtomicBoolean sent = new AtomicBoolean();
+                        return permits.acquire(feature)
+                                .flatMapMany(permit -> events.doOnSubscribe(subscription -> sent.set(true))
+                                        .doFinally(signal -> permit.release()))
+                                .map(data -> {
+                                    GeminiResponseParser.GeminiResponse chunk = responseParser.parseResponse(data);
+                                    if (chunk.finishReason() != null) {
+                                        finishReason[0] = chunk.finishReason();
+                                    }
+                                    if (chunk.totalTokenCount() != null) {
+                                        totalTokens[0] = chunk.totalTokenCount();
+                                        lastUsage[0] = chunk;
+                                    }
+                                    String text = chunk.text() != null ? chunk.text() : "";
+                                    fullText.append(text);
+                                    return text;
+                                })
+                                .filter(text -> !text.isEmpty())
+                                .doOnComplete(() -> {
+                                    rateLimiter.recordUsage(grant, totalTokens[0]);
+                                    long nanos = System.nanoTime() - start;
+                                    latencyTracker.recordSuccess(feature, TimeUnit.NANOSECONDS.toMillis(nanos));
+                                    geminiMetrics.recordRequest(feature, nanos, null);
+                                    if (lastUsage[0] != null) {
+                                        geminiMetrics.recordTokens(feature, lastUsage[0]);
+                                    }
+                                    if (key != null && "STOP".equals(finishReason[0])) {
+                                        responseCache.put(key, completeResponseBody(fullText.toString()));
+                                    }
+                                })
+                                .doOnError(e -> {
+                                    if (e instanceof WebClientResponseException.TooManyRequests) {
+                                        rateLimiter.onRateLimited();
+                                    }
+                                    rateLimiter.recordUsage(grant, promptTokens);
+                                })
+                                .doOnCancel(() -> releaseCancelled(grant, sent));
+                    })
+                    .doOnError(e -> {
+                        if (!(e instanceof GeminiQuotaExceededException)) {
+                            latencyTracker.recordFailure(feature);
+                            geminiMetrics.recordRequest(feature, System.nanoTime() - start, e);
+                        }
+                    });
+        });
+
+        if (key == null) {
+            return live;
+        }
+        return responseCache.get(feature, key)
+                .mapNotNull(responseParser::extractText)
+                .flux()
+                .switchIfEmpty(live);
+    }
+
+    /**
+     * A call cancelled after admission (client gone, async timeout) hands its quota back: all of it if
+     * the request was never sent, otherwise the reserved tokens (Gemini may still count the request).
+     */
+    private void releaseCancelled(GeminiRateLimiter.Grant grant, AtomicBoolean sent) {
+        if (sent.get()) {
+            rateLimiter.recordUsage(grant, 0);
+        } else {
+            rateLimiter.refund(grant);
+        }
+    }
+
+    private Map<String, Object> buildRequestBody(String prompt, Integer maxOutputTokens, Double temp) {
+        Map<String, Object> requestBody = new HashMap<>();
+        Map<String, Object> contents = new HashMap<>();
+        contents.put("parts", List.of(Map.of("text", prompt)));
+        requestBody.put("contents", List.of(contents));
+
+        Map<String, Object> generationConfig = new HashMap<>();
+        generationConfig.put("maxOutputTokens", maxOutputTokens);
+        generationConfig.put("temperature", temp);
+        requestBody.put("generationConfig", generationConfig);
+        return requestBody;
+    }
+
+    /**
+     * Same shape as a generateContent response, so a streamed answer can be served from the cache.
+     */
+    private String completeResponseBody(String text) {
+        Map<String, Object> candidate = Map.of(
+                "content", Map.of("parts", List.of(Map.of("text", text))),
+                "finishReason", "STOP");
+        try {
+            return responseParser.writeJson(Map.of("candidates", List.of(candidate)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Single-flight: the first caller for a key starts the call, later callers with the same key
+     * subscribe to the same result until it completes.
+     */
+    private Mono<String> joinOrStart(GeminiFeature feature, String key, Mono<String> remoteCall) {
+        boolean[] started = new boolean[1];
+        Mono<String> shared = inFlight.computeIfAbsent(key, k -> {
+            started[0] = true;
+            return remoteCall
+                    .doOnNext(body -> {
+                        if (isCacheable(body)) {
+                            responseCache.put(k, body);
+                        }
+                    })
+                    .doFinally(signal -> inFlight.remove(k))
+                    .cache();
+        });
+        if (!started[0]) {
+            responseCache.recordCoalesced(feature);
+        }
+        return shared;
+    }
+
+    /**
+     * Rough prompt size before sending; Gemini averages about four characters per token.
+     */
+    static long estimateTokens(String prompt) {
+        return (prompt.length() + 3) / 4;
+    }
+
+    /**
+     * Only complete answers are cached; blocked or truncated (MAX_TOKENS) responses would fail
+     * parsing every time they were served again.
+     */
+    private boolean isCacheable(String body) {
+        return responseParser.parseResponse(body).isComplete();
+    }
+
+    /**
+     * Non-blocking counting semaphore: acquire() completes immediately when a slot is free,
+     * otherwise the subscriber is parked until release() hands over a slot.
+     * Waiters are served by GeminiFeature priority, then arrival order. The last
+     * urgentReserved slots are only handed to URGENT requests, so a triage call never
+     * waits behind long plan generations.
+     */
+    static final class ModelPermits {
+
+        private static final Comparator<PermitWaiter> WAITER_ORDER = Comparator
+                .comparingInt((PermitWaiter w) -> w.feature.getPriority())
+                .thenComparingLong(w -> w.seq);
+
+        private final int limit;
+        private final int urgentReserved;
+        private final PriorityQueue<PermitWaiter> waiters = new PriorityQueue<>(WAITER_ORDER);
+        private int inUse;
+        private int nonUrgentInUse;
+        private long nextSeq;
+
+        ModelPermits(int limit, int urgentReserved) {
+            this.limit = Math.max(1, limit);
+            // at least one slot stays open to non-urgent work
+            this.urgentReserved = Math.max(0, Math.min(urgentReserved, this.limit - 1));
+        }
+
+        /**
+         * A permit the caller never receives (cancelled after the slot was taken but before the sink
+         * completed) is discarded by the sink and released here, so its slot is not lost.
+         */
+        Mono<Permit> acquire(GeminiFeature feature) {
+            return Mono.<Permit>create(sink -> {
+                PermitWaiter waiter = null;
+                boolean granted;
+                synchronized (this) {
+                    granted = waiters.isEmpty() && canUseSlot(feature);
+                    if (granted) {
+                        take(feature);
+                    } else {
+                        waiter = new PermitWaiter(feature, nextSeq++, sink);
+                        waiters.add(waiter);
+                    }
+                }
+                if (granted) {
+                    sink.success(new Permit(this, feature));
+                } else {
+                    PermitWaiter parked = waiter;
+                    sink.onCancel(() -> {
+                        synchronized (this) {
+                            parked.cancelled = true;
+                            waiters.remove(parked);
+                        }
+                    });
+                    // the new waiter may be able to use a reserved slot that the previous head could not
+                    grantWaiting();
+                }
+            }).doOnDiscard(Permit.class, Permit::release);
+        }
+
+        synchronized int inUse() {
+            return inUse;
+        }
+
+        void release(GeminiFeature feature) {
+            synchronized (this) {
+                inUse--;
+                if (!isUrgent(feature)) {
+                    nonUrgentInUse--;
+                }
+            }
+            grantWaiting();
+        }
+
+        /**
+         * URGENT requests may use any free slot; the others together stay below limit - urgentReserved.
+         */
+        private boolean canUseSlot(GeminiFeature feature) {
+            return inUse < limit && (isUrgent(feature) || nonUrgentInUse < limit - urgentReserved);
+        }
+
+        private void take(GeminiFeature feature) {
+            inUse++;
+            if (!isUrgent(feature)) {
+                nonUrgentInUse++;
+            }
+        }
+
+        private static boolean isUrgent(GeminiFeature feature) {
+            return feature.getPriorityClass() == GeminiPriorityClass.URGENT;
+        }
+
+        /**
+         * Hand free slots to waiters in priority order. Only the head is considered:
+         * if it cannot use a slot, no less urgent waiter can either.
+         */
+        private void grantWaiting() {
+            List<PermitWaiter> granted = new ArrayList<>();
+            synchronized (this) {
+                while (!waiters.isEmpty() && canUseSlot(waiters.peek().feature)) {
+                    PermitWaiter next = waiters.poll();
+                    if (next.cancelled) {
+                        continue;
+                    }
+                    take(next.feature);
+                    granted.add(next);
+                }
+            }
+            granted.forEach(waiter -> waiter.sink.success(new Permit(this, waiter.feature)));
+        }
+    }
+
+    private static final class PermitWaiter {
+
+        private final GeminiFeature feature;
+        private final long seq;
+        private final MonoSink<Permit> sink;
+        // Guarded by the ModelPermits lock
+        private boolean cancelled;
+
+        PermitWaiter(GeminiFeature feature, long seq, MonoSink<Permit> sink) {
+            this.feature = feature;
+            this.seq = seq;
+            this.sink = sink;
+        }
+    }
+
+    static final class Permit {
+
+        private final ModelPermits owner;
+        private final GeminiFeature feature;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(ModelPermits owner, GeminiFeature feature) {
+            this.owner = owner;
+            this.feature = feature;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                owner.release(feature);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.backend.service.ai;
+
+/**
+ * Which AI feature a Gemini request is made for.
+ * Used to attribute cache and quota statistics to the calling Gemini*Service,
+ * and to order requests waiting for quota or a connection slot (lower priority value goes first).
+ */
+public enum GeminiFeature {
+    TRIAGE(0, GeminiPriorityClass.URGENT),
+    ASSESSMENT(1, GeminiPriorityClass.NORMAL),
+    MEDICATION(2, GeminiPriorityClass.NORMAL),
+    DIET(3, GeminiPriorityClass.NORMAL),
+    PLAN(4, GeminiPriorityClass.BACKGROUND),
+    INSURANCE(5, GeminiPriorityClass.BACKGROUND);
+
+    private final int priority;
+    private final GeminiPriorityClass priorityClass;
+
+    GeminiFeature(int priority, GeminiPriorityClass priorityClass) {
+        this.priority = priority;
+        this.priorityClass = priorityClass;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public GeminiPriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.dto.response.GeminiLatencyStatsResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram per GeminiPriorityClass, measured from the moment a request starts waiting
+ * for quota until Gemini answers (cache hits are not included).
+ * Each class has an SLO threshold; the stats report how many requests met it.
+ */
+@Component
+public class GeminiLatencyTracker {
+
+    // Upper bounds of the histogram buckets in milliseconds; the last bucket is unbounded
+    static final long[] BUCKET_BOUNDS_MILLIS = {250, 500, 1_000, 2_500, 5_000, 10_000, 20_000, 30_000, 60_000, 120_000, 180_000};
+
+    @Value("${gemini.slo.urgent-millis:10000}")
+    private Long urgentSloMillis;
+
+    @Value("${gemini.slo.normal-millis:30000}")
+    private Long normalSloMillis;
+
+    @Value("${gemini.slo.background-millis:120000}")
+    private Long backgroundSloMillis;
+
+    private final Map<GeminiPriorityClass, Histogram> histograms = new EnumMap<>(GeminiPriorityClass.class);
+
+    @PostConstruct
+    void init() {
+        histograms.put(GeminiPriorityClass.URGENT, new Histogram(urgentSloMillis));
+        histograms.put(GeminiPriorityClass.NORMAL, new Histogram(normalSloMillis));
+        histograms.put(GeminiPriorityClass.BACKGROUND, new Histogram(backgroundSloMillis));
+    }
+
+    public void recordSuccess(GeminiFeature feature, long millis) {
+        histograms.get(feature.getPriorityClass()).record(millis);
+    }
+
+    public void recordFailure(GeminiFeature feature) {
+        histograms.get(feature.getPriorityClass()).failures.incrementAndGet();
+    }
+
+    public GeminiLatencyStatsResponse getStats() {
+        GeminiLatencyStatsResponse stats = new GeminiLatencyStatsResponse();
+        Map<String, GeminiLatencyStatsResponse.ClassStats> byClass = new LinkedHashMap<>();
+        histograms.forEach((priorityClass, histogram) -> byClass.put(priorityClass.name(), histogram.snapshot()));
+        stats.setPriorityClasses(byClass);
+        return stats;
+    }
+
+    private static final class Histogram {
+
+        private final long sloMillis;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong withinSlo = new AtomicLong();
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+
+        Histogram(long sloMillis) {
+            this.sloMillis = sloMillis;
+        }
+
+        void record(long millis) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalMillis.addAndGet(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+            if (millis <= sloMillis) {
+                withinSlo.incrementAndGet();
+            }
+        }
+
+        GeminiLatencyStatsResponse.ClassStats snapshot() {
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+            }
+            long total = count.get();
+
+            GeminiLatencyStatsResponse.ClassStats stats = new GeminiLatencyStatsResponse.ClassStats();
+            stats.setSloMillis(sloMillis);
+            stats.setCount(total);
+            stats.setFailures(failures.get());
+            stats.setWithinSloRatio(total > 0 ? (double) withinSlo.get() / total : null);
+            stats.setAverageMillis(total > 0 ? (double) totalMillis.get() / total : null);
+            stats.setMaxMillis(total > 0 ? maxMillis.get() : null);
+            stats.setP50Millis(percentile(counts, total, 0.50));
+            stats.setP95Millis(percentile(counts, total, 0.95));
+            stats.setP99Millis(percentile(counts, total, 0.99));
+
+            List<GeminiLatencyStatsResponse.Bucket> bucketStats = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                GeminiLatencyStatsResponse.Bucket bucket = new GeminiLatencyStatsResponse.Bucket();
+                bucket.setUpperBoundMillis(i < BUCKET_BOUNDS_MILLIS.length ? BUCKET_BOUNDS_MILLIS[i] : null);
+                bucket.setCount(counts[i]);
+                bucketStats.add(bucket);
+            }
+            stats.setBuckets(bucketStats);
+            return stats;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile; the max when it falls in the last bucket.
+         */
+        private Long percentile(long[] counts, long total, double quantile) {
+            if (total == 0) {
+                return null;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return i < BUCKET_BOUNDS_MILLIS.length ? Math.min(BUCKET_BOUNDS_MILLIS[i], maxMillis.get()) : maxMillis.get();
+                }
+            }
+            return maxMillis.get();
+        }
+    }
+}
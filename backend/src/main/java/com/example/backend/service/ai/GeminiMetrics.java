@@ -0,0 +1,96 @@
+package com.example.backend.service.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Micrometer meters for Gemini, exported with the rest at /actuator/prometheus:
+ * - gemini.requests: timer per request sent to Gemini (quota wait included), by feature and status
+ *   (ok, the HTTP status code, timeout, connect_error, error)
+ * - gemini.tokens: counter of prompt ("in") and output ("out") tokens from usageMetadata, by feature
+ * - gemini.calls: counter per Gemini-backed call, by feature and outcome (OK, FALLBACK, FAILED)
+ * - gemini.call.phase: timer per call phase (prompt build, network, parse, persist), by feature
+ * - gemini.prompt.tokens: distribution of the estimated prompt size per call, by feature
+ */
+@Component
+public class GeminiMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public void recordRequest(GeminiFeature feature, long nanos, Throwable error) {
+        Timer.builder("gemini.requests")
+                .description("Requests sent to Gemini, from quota wait until the response")
+                .tag("feature", feature.name())
+                .tag("priorityClass", feature.getPriorityClass().name())
+                .tag("status", status(error))
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordTokens(GeminiFeature feature, GeminiResponseParser.GeminiResponse response) {
+        if (response.promptTokenCount() != null) {
+            tokens(feature, "in").increment(response.promptTokenCount());
+        }
+        if (response.candidatesTokenCount() != null) {
+            tokens(feature, "out").increment(response.candidatesTokenCount());
+        }
+    }
+
+    public void recordCall(GeminiCallTrace trace, GeminiCallTrace.Outcome outcome) {
+        String feature = trace.getFeature().name();
+        Counter.builder("gemini.calls")
+                .description("Gemini-backed calls by outcome; FALLBACK means a non-AI answer was used")
+                .tag("feature", feature)
+                .tag("outcome", outcome.name())
+                .register(meterRegistry)
+                .increment();
+        if (trace.getPromptChars() > 0) {
+            DistributionSummary.builder("gemini.prompt.tokens")
+                    .description("Estimated prompt tokens per Gemini-backed call")
+                    .baseUnit("tokens")
+                    .tag("feature", feature)
+                    .register(meterRegistry)
+                    .record(trace.getPromptTokens());
+        }
+        for (GeminiCallTrace.Phase phase : GeminiCallTrace.Phase.values()) {
+            Timer.builder("gemini.call.phase")
+                    .tag("feature", feature)
+                    .tag("phase", phase.name())
+                    .register(meterRegistry)
+                    .record(trace.getPhaseNanos(phase), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Counter tokens(GeminiFeature feature, String direction) {
+        return Counter.builder("gemini.tokens")
+                .tag("feature", feature.name())
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    static String status(Throwable error) {
+        if (error == null) {
+            return "ok";
+        }
+        if (error instanceof WebClientResponseException responseError) {
+            return String.valueOf(responseError.getStatusCode().value());
+        }
+        if (error instanceof TimeoutException || error.getCause() instanceof TimeoutException) {
+            return "timeout";
+        }
+        if (error instanceof WebClientRequestException) {
+            return "connect_error";
+        }
+        return "error";
+    }
+}
@@ -1,58 +1,132 @@
 package com.example.backend.service.ai;
 
-import com.example.backend.config.GeminiConfig;
-import com.example.backend.dto.response.HealthDataResponse;
 import com.example.backend.entity.HealthPlan;
-import com.example.backend.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 @Service
 public class GeminiPlanService {
     
-    @Value("${gemini.enabled:false}")
-    private Boolean geminiEnabled;
+    private static final Logger LOG = LoggerFactory.getLogger(GeminiPlanService.class);
     
-    @Autowired(required = false)
-    private WebClient geminiWebClient;
+    @Autowired
+    private GeminiClient geminiClient;
     
-    @Autowired(required = false)
-    private GeminiConfig geminiConfig;
+    @Autowired
+    private GeminiResponseParser responseParser;
     
-    @Value("${gemini.model:gemini-2.5-pro}")
-    private String model;
+    @Autowired
+    private GeminiCallLogger callLogger;
     
-    @Value("${gemini.max-tokens:8000}")
-    private Integer maxTokens;
+    @Autowired
+    private HealthDataPromptCompactor promptCompactor;
     
-    @Value("${gemini.temperature:0.7}")
-    private Double temperature;
+    /**
+     * Generate personalized health plan using Gemini AI.
+     * The returned Mono is lazy; no request is sent until it is subscribed.
+     */
+    public Mono<HealthPlan> generateGeminiHealthPlan(HealthDataSummary healthData, 
+                                                      UserProfile profile, 
+                                                      HealthPlan.PlanType type,
+                                                      String healthGoals) {
+        
+        if (!geminiClient.isAvailable()) {
+            return Mono.error(new RuntimeException("Gemini is not enabled or configured. Please check your configuration."));
+        }
+        
+        HealthPlan healthPlan = newHealthPlan(profile, type);
+        
+        return callLogger.traced(GeminiFeature.PLAN, trace -> {
+            String prompt = trace.time(GeminiCallTrace.Phase.PROMPT_BUILD,
+                    () -> buildGeminiPrompt(formatHealthDataForGemini(healthData), profile, type, healthGoals));
+            trace.recordPrompt(prompt);
+            
+            return trace.time(GeminiCallTrace.Phase.NETWORK, geminiClient.generateContent(GeminiFeature.PLAN, prompt))
+                    .map(response -> trace.time(GeminiCallTrace.Phase.PARSE, () -> {
+                        String geminiResponse = responseParser.extractText(response);
+                        trace.recordResponse(geminiResponse);
+                        
+                        if (geminiResponse != null && !geminiResponse.isEmpty()) {
+                            return parseGeminiResponse(healthPlan, geminiResponse, trace);
+                        }
+                        throw new RuntimeException("Failed to parse Gemini response");
+                    }))
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Failed to parse Gemini response")))
+                    // Out of quota: a general plan is still more useful than an error
+                    .onErrorResume(GeminiQuotaExceededException.class, e -> {
+                        trace.fallback("default plan: " + e.getMessage());
+                        return Mono.fromSupplier(() -> {
+                            setDefaultPlan(healthPlan);
+                            return healthPlan;
+                        });
+                    })
+                    .onErrorMap(e -> new RuntimeException("Gemini plan generation failed: " + e.getMessage(), e));
+        });
+    }
     
     /**
-     * Generate personalized health plan using Gemini AI
+     * Stream the plan as raw model text, chunk by chunk, for the SSE endpoint.
+     * Completed sections can be read from the chunks with HealthPlanSectionParser;
+     * buildHealthPlanFromText turns the full text into the plan once the stream ends.
+     * When the Gemini quota is exhausted the stream is empty, which yields the default plan.
+     * The call is recorded in the caller's GeminiCallTrace when one is bound, else in its own.
      */
-    public HealthPlan generateGeminiHealthPlan(List<HealthDataResponse> healthDataList, 
-                                                User user, 
-                                                HealthPlan.PlanType type,
-                                                String healthGoals) {
+    public Flux<String> streamGeminiHealthPlanText(HealthDataSummary healthData,
+                                                   UserProfile profile,
+                                                   HealthPlan.PlanType type,
+                                                   String healthGoals) {
         
-        if (!geminiEnabled || geminiWebClient == null || geminiConfig == null) {
-            throw new RuntimeException("Gemini is not enabled or configured. Please check your configuration.");
+        if (!geminiClient.isAvailable()) {
+            return Flux.error(new RuntimeException("Gemini is not enabled or configured. Please check your configuration."));
         }
         
+        return callLogger.tracedStream(GeminiFeature.PLAN, trace -> {
+            String prompt = trace.time(GeminiCallTrace.Phase.PROMPT_BUILD,
+                    () -> buildGeminiPrompt(formatHealthDataForGemini(healthData), profile, type, healthGoals));
+            trace.recordPrompt(prompt);
+            StringBuilder fullText = new StringBuilder();
+            
+            return trace.time(GeminiCallTrace.Phase.NETWORK, geminiClient.streamContent(GeminiFeature.PLAN, prompt))
+                    .doOnNext(fullText::append)
+                    .doOnComplete(() -> trace.recordResponse(fullText.toString()))
+                    .onErrorResume(GeminiQuotaExceededException.class, e -> {
+                        trace.fallback("default plan: " + e.getMessage());
+                        return Flux.empty();
+                    })
+                    .onErrorMap(e -> new RuntimeException("Gemini plan generation failed: " + e.getMessage(), e));
+        });
+    }
+    
+    /**
+     * Build the (unsaved) plan from the complete streamed text; falls back to the default plan
+     * when the text is empty or not valid JSON, and records that fallback in the stream's trace.
+     */
+    public HealthPlan buildHealthPlanFromText(UserProfile profile, HealthPlan.PlanType type, String text,
+                                              GeminiCallTrace trace) {
+        HealthPlan healthPlan = newHealthPlan(profile, type);
+        if (text == null || text.isBlank()) {
+            // A shed stream is already recorded as a fallback with its reason
+            if (trace.getOutcome() == GeminiCallTrace.Outcome.OK) {
+                trace.fallback("default plan: empty response");
+            }
+            setDefaultPlan(healthPlan);
+            return healthPlan;
+        }
+        return parseGeminiResponse(healthPlan, text, trace);
+    }
+    
+    private HealthPlan newHealthPlan(UserProfile profile, HealthPlan.PlanType type) {
         HealthPlan healthPlan = new HealthPlan();
         healthPlan.setType(type);
-        healthPlan.setUser(user);
+        healthPlan.setUser(profile.toUserReference());
         healthPlan.setPlanDate(LocalDateTime.now());
         
         // Set date range based on plan type
@@ -67,150 +141,10 @@ public class GeminiPlanService {
             healthPlan.setStartDate(now);
             healthPlan.setEndDate(now.plusMonths(1));
         }
-        
-        try {
-            String healthDataSummary = formatHealthDataForGemini(healthDataList, user);
-            String prompt = buildGeminiPrompt(healthDataSummary, user, type, healthGoals);
-            
-            // Build request body
-            Map<String, Object> requestBody = new HashMap<>();
-            Map<String, Object> contents = new HashMap<>();
-            contents.put("parts", List.of(Map.of("text", prompt)));
-            requestBody.put("contents", List.of(contents));
-            
-            Map<String, Object> generationConfig = new HashMap<>();
-            generationConfig.put("maxOutputTokens", maxTokens);
-            generationConfig.put("temperature", temperature);
-            requestBody.put("generationConfig", generationConfig);
-            
-            // Call Gemini API
-            String apiKey = geminiConfig.getApiKey();
-            String uri = String.format("/models/%s:generateContent?key=%s", model, apiKey);
-            
-            String response = geminiWebClient.post()
-                    .uri(uri)
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            // Debug: Print full API response
-            System.out.println("==========================================");
-            System.out.println("Gemini Plan API Full Response:");
-            System.out.println("==========================================");
-            System.out.println(response);
-            System.out.println("==========================================");
-            
-            if (response != null) {
-                String geminiResponse = extractResponseText(response);
-                
-                // Debug: Print extracted text
-                System.out.println("Extracted Gemini Response Text:");
-                System.out.println(geminiResponse != null ? (geminiResponse.length() > 500 ? geminiResponse.substring(0, 500) + "..." : geminiResponse) : "NULL (extraction failed)");
-                System.out.println("==========================================");
-                
-                if (geminiResponse != null && !geminiResponse.isEmpty()) {
-                    return parseGeminiResponse(healthPlan, geminiResponse);
-                }
-            }
-            
-            throw new RuntimeException("Failed to parse Gemini response");
-            
-        } catch (Exception e) {
-            System.err.println("==========================================");
-            System.err.println("Gemini plan generation failed!");
-            System.err.println("Error message: " + e.getMessage());
-            System.err.println("Error class: " + e.getClass().getName());
-            System.err.println("==========================================");
-            e.printStackTrace();
-            throw new RuntimeException("Gemini plan generation failed: " + e.getMessage(), e);
-        }
+        return healthPlan;
     }
     
-    private String extractResponseText(String jsonResponse) {
-        System.out.println("----------------------------------------");
-        System.out.println("Attempting to extract text from response using Jackson...");
-        
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode = mapper.readTree(jsonResponse);
-            
-            // Navigate: candidates[0].content.parts[0].text
-            JsonNode candidates = rootNode.path("candidates");
-            if (!candidates.isArray() || candidates.size() == 0) {
-                System.err.println("No candidates found or candidates is empty");
-                System.out.println("----------------------------------------");
-                return null;
-            }
-            
-            JsonNode firstCandidate = candidates.get(0);
-            JsonNode content = firstCandidate.path("content");
-            JsonNode parts = content.path("parts");
-            
-            if (!parts.isArray() || parts.size() == 0) {
-                System.err.println("No parts found or parts is empty");
-                System.out.println("----------------------------------------");
-                return null;
-            }
-            
-            JsonNode firstPart = parts.get(0);
-            JsonNode textNode = firstPart.path("text");
-            
-            if (!textNode.isTextual()) {
-                System.err.println("Text field is not a string");
-                System.out.println("----------------------------------------");
-                return null;
-            }
-            
-            String extractedText = textNode.asText();
-            System.out.println("Extracted raw text (length: " + extractedText.length() + ")");
-            System.out.println("First 200 chars: " + (extractedText.length() > 200 ? extractedText.substring(0, 200) + "..." : extractedText));
-            
-            // Remove markdown code block markers if present
-            if (extractedText.startsWith("```json\n")) {
-                extractedText = extractedText.substring(8); // Remove "```json\n"
-                System.out.println("Removed ```json\\n prefix");
-            } else if (extractedText.startsWith("```\n")) {
-                extractedText = extractedText.substring(4); // Remove "```\n"
-                System.out.println("Removed ```\\n prefix");
-            } else if (extractedText.startsWith("```json")) {
-                extractedText = extractedText.substring(7); // Remove "```json"
-                System.out.println("Removed ```json prefix");
-            } else if (extractedText.startsWith("```")) {
-                extractedText = extractedText.substring(3); // Remove "```"
-                System.out.println("Removed ``` prefix");
-            }
-            
-            // Remove trailing ``` if present
-            if (extractedText.endsWith("\n```")) {
-                extractedText = extractedText.substring(0, extractedText.length() - 4);
-                System.out.println("Removed \\n``` suffix");
-            } else if (extractedText.endsWith("```")) {
-                extractedText = extractedText.substring(0, extractedText.length() - 3);
-                System.out.println("Removed ``` suffix");
-            }
-            
-            // Trim whitespace
-            extractedText = extractedText.trim();
-            
-            // Try to extract JSON from text if it's not pure JSON
-            extractedText = extractJsonFromText(extractedText);
-            
-            System.out.println("Final extracted text (length: " + extractedText.length() + ")");
-            System.out.println("First 200 chars of final: " + (extractedText.length() > 200 ? extractedText.substring(0, 200) + "..." : extractedText));
-            System.out.println("----------------------------------------");
-            
-            return extractedText;
-            
-        } catch (Exception e) {
-            System.err.println("Failed to extract text: " + e.getMessage());
-            e.printStackTrace();
-            System.out.println("----------------------------------------");
-            return null;
-        }
-    }
-    
-    private String buildGeminiPrompt(String healthDataSummary, User user, HealthPlan.PlanType type, String healthGoals) {
+    private String buildGeminiPrompt(String healthDataSummary, UserProfile profile, HealthPlan.PlanType type, String healthGoals) {
         String planTypeStr = type == HealthPlan.PlanType.DAILY ? "Daily" : 
                             type == HealthPlan.PlanType.WEEKLY ? "Weekly" : "Monthly";
         
@@ -220,15 +154,15 @@ public class GeminiPlanService {
         promptBuilder.append(planTypeStr).append(" health plan.\n\n");
         
         promptBuilder.append("User Profile:\n");
-        promptBuilder.append("Username: ").append(user.getUsername()).append("\n");
-        if (user.getFullName() != null) {
-            promptBuilder.append("Name: ").append(user.getFullName()).append("\n");
+        promptBuilder.append("Username: ").append(profile.username()).append("\n");
+        if (profile.fullName() != null) {
+            promptBuilder.append("Name: ").append(profile.fullName()).append("\n");
         }
-        if (user.getGender() != null) {
-            promptBuilder.append("Gender: ").append(user.getGender()).append("\n");
+        if (profile.gender() != null) {
+            promptBuilder.append("Gender: ").append(profile.gender()).append("\n");
         }
-        if (user.getDateOfBirth() != null) {
-            promptBuilder.append("Age: ").append(calculateAge(user.getDateOfBirth())).append(" years\n");
+        if (profile.dateOfBirth() != null) {
+            promptBuilder.append("Age: ").append(calculateAge(profile.dateOfBirth())).append(" years\n");
         }
         promptBuilder.append("\n");
         
@@ -278,63 +212,11 @@ public class GeminiPlanService {
         return promptBuilder.toString();
     }
     
-    private String formatHealthDataForGemini(List<HealthDataResponse> dataList, User user) {
-        if (dataList == null || dataList.isEmpty()) {
+    private String formatHealthDataForGemini(HealthDataSummary healthData) {
+        if (healthData.isEmpty()) {
             return "Limited health data available. Please use general health recommendations.";
         }
-        
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("Analysis of %d recent health records:\n", dataList.size()));
-        
-        // Calculate averages and identify patterns
-        double avgBMI = dataList.stream()
-                .filter(d -> d.getBmi() != null)
-                .mapToDouble(d -> d.getBmi().doubleValue())
-                .average()
-                .orElse(0);
-        
-        double avgHeartRate = dataList.stream()
-                .filter(d -> d.getHeartRate() != null)
-                .mapToInt(HealthDataResponse::getHeartRate)
-                .average()
-                .orElse(0);
-        
-        int avgSteps = (int) dataList.stream()
-                .filter(d -> d.getSteps() != null)
-                .mapToInt(HealthDataResponse::getSteps)
-                .average()
-                .orElse(0);
-        
-        double avgSleep = dataList.stream()
-                .filter(d -> d.getSleepHours() != null)
-                .mapToInt(HealthDataResponse::getSleepHours)
-                .average()
-                .orElse(0);
-        
-        int avgExercise = (int) dataList.stream()
-                .filter(d -> d.getExerciseMinutes() != null)
-                .mapToInt(HealthDataResponse::getExerciseMinutes)
-                .average()
-                .orElse(0);
-        
-        sb.append(String.format("\nKey Metrics:\n"));
-        if (avgBMI > 0) {
-            sb.append(String.format("- Average BMI: %.1f\n", avgBMI));
-        }
-        if (avgHeartRate > 0) {
-            sb.append(String.format("- Average Heart Rate: %.0f bpm\n", avgHeartRate));
-        }
-        if (avgSteps > 0) {
-            sb.append(String.format("- Average Daily Steps: %d\n", avgSteps));
-        }
-        if (avgSleep > 0) {
-            sb.append(String.format("- Average Sleep Hours: %.1f\n", avgSleep));
-        }
-        if (avgExercise > 0) {
-            sb.append(String.format("- Average Exercise Minutes: %d\n", avgExercise));
-        }
-        
-        return sb.toString();
+        return promptCompactor.compact(healthData);
     }
     
     private int calculateAge(LocalDateTime dateOfBirth) {
@@ -342,125 +224,48 @@ public class GeminiPlanService {
         return LocalDateTime.now().getYear() - dateOfBirth.getYear();
     }
     
-    private HealthPlan parseGeminiResponse(HealthPlan healthPlan, String geminiResponse) {
+    private HealthPlan parseGeminiResponse(HealthPlan healthPlan, String geminiResponse, GeminiCallTrace trace) {
         try {
-            // First, try to extract JSON if it's embedded in text
-            String jsonText = extractJsonFromText(geminiResponse);
-            
-            // Validate that it looks like JSON
-            String trimmedJson = jsonText.trim();
-            if (!trimmedJson.startsWith("{") || !trimmedJson.endsWith("}")) {
-                System.err.println("Response does not appear to be valid JSON (doesn't start with { or end with }). Falling back to default plan.");
-                System.err.println("First 100 chars: " + (trimmedJson.length() > 100 ? trimmedJson.substring(0, 100) : trimmedJson));
+            // Locate and parse the JSON object; fences and surrounding text are skipped
+            JsonNode jsonNode = responseParser.readJsonObject(geminiResponse);
+            if (jsonNode == null) {
+                trace.fallback("default plan: response contains no complete JSON object");
                 setDefaultPlan(healthPlan);
                 return healthPlan;
             }
             
-            // Use Jackson to parse JSON
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode jsonNode = mapper.readTree(jsonText);
-            
             // Extract all fields using Jackson (handles both strings and arrays)
-            healthPlan.setPlanSummary(extractJsonFieldFromNode(jsonNode, "planSummary"));
-            healthPlan.setDietOverview(extractJsonFieldFromNode(jsonNode, "dietOverview"));
-            healthPlan.setDailyMealPlan(extractJsonFieldFromNode(jsonNode, "dailyMealPlan"));
-            healthPlan.setNutritionGoals(extractJsonFieldFromNode(jsonNode, "nutritionGoals"));
-            healthPlan.setFoodRecommendations(extractJsonFieldFromNode(jsonNode, "foodRecommendations"));
+            healthPlan.setPlanSummary(responseParser.fieldText(jsonNode, "planSummary"));
+            healthPlan.setDietOverview(responseParser.fieldText(jsonNode, "dietOverview"));
+            healthPlan.setDailyMealPlan(responseParser.fieldText(jsonNode, "dailyMealPlan"));
+            healthPlan.setNutritionGoals(responseParser.fieldText(jsonNode, "nutritionGoals"));
+            healthPlan.setFoodRecommendations(responseParser.fieldText(jsonNode, "foodRecommendations"));
             
-            healthPlan.setExerciseOverview(extractJsonFieldFromNode(jsonNode, "exerciseOverview"));
-            healthPlan.setWeeklyWorkoutPlan(extractJsonFieldFromNode(jsonNode, "weeklyWorkoutPlan"));
-            healthPlan.setFitnessGoals(extractJsonFieldFromNode(jsonNode, "fitnessGoals"));
-            healthPlan.setExerciseRecommendations(extractJsonFieldFromNode(jsonNode, "exerciseRecommendations"));
+            healthPlan.setExerciseOverview(responseParser.fieldText(jsonNode, "exerciseOverview"));
+            healthPlan.setWeeklyWorkoutPlan(responseParser.fieldText(jsonNode, "weeklyWorkoutPlan"));
+            healthPlan.setFitnessGoals(responseParser.fieldText(jsonNode, "fitnessGoals"));
+            healthPlan.setExerciseRecommendations(responseParser.fieldText(jsonNode, "exerciseRecommendations"));
             
-            healthPlan.setLifestyleOverview(extractJsonFieldFromNode(jsonNode, "lifestyleOverview"));
-            healthPlan.setDailyRoutine(extractJsonFieldFromNode(jsonNode, "dailyRoutine"));
-            healthPlan.setSleepRecommendations(extractJsonFieldFromNode(jsonNode, "sleepRecommendations"));
-            healthPlan.setStressManagementTips(extractJsonFieldFromNode(jsonNode, "stressManagementTips"));
-            healthPlan.setHydrationGoals(extractJsonFieldFromNode(jsonNode, "hydrationGoals"));
+            healthPlan.setLifestyleOverview(responseParser.fieldText(jsonNode, "lifestyleOverview"));
+            healthPlan.setDailyRoutine(responseParser.fieldText(jsonNode, "dailyRoutine"));
+            healthPlan.setSleepRecommendations(responseParser.fieldText(jsonNode, "sleepRecommendations"));
+            healthPlan.setStressManagementTips(responseParser.fieldText(jsonNode, "stressManagementTips"));
+            healthPlan.setHydrationGoals(responseParser.fieldText(jsonNode, "hydrationGoals"));
             
-            healthPlan.setLongTermGoals(extractJsonFieldFromNode(jsonNode, "longTermGoals"));
-            healthPlan.setProgressTrackingTips(extractJsonFieldFromNode(jsonNode, "progressTrackingTips"));
-            healthPlan.setMotivationalNotes(extractJsonFieldFromNode(jsonNode, "motivationalNotes"));
+            healthPlan.setLongTermGoals(responseParser.fieldText(jsonNode, "longTermGoals"));
+            healthPlan.setProgressTrackingTips(responseParser.fieldText(jsonNode, "progressTrackingTips"));
+            healthPlan.setMotivationalNotes(responseParser.fieldText(jsonNode, "motivationalNotes"));
             
             return healthPlan;
             
         } catch (Exception e) {
-            System.err.println("Failed to parse Gemini response: " + e.getMessage());
-            e.printStackTrace();
+            LOG.warn("Failed to parse Gemini plan response", e);
+            trace.fallback("default plan: " + e.getMessage());
             setDefaultPlan(healthPlan);
             return healthPlan;
         }
     }
     
-    /**
-     * Extract JSON object from text that might contain additional text before or after JSON
-     */
-    private String extractJsonFromText(String text) {
-        if (text == null || text.isEmpty()) {
-            return text;
-        }
-        
-        // If it already looks like pure JSON (starts and ends with braces), return as is
-        String trimmed = text.trim();
-        if (trimmed.startsWith("{") && trimmed.endsWith("}")) {
-            return trimmed;
-        }
-        
-        // Try to find JSON object in the text
-        int firstBrace = text.indexOf('{');
-        if (firstBrace == -1) {
-            System.err.println("No opening brace { found in response. Returning original text.");
-            return text;
-        }
-        
-        // Find matching closing brace by counting braces
-        int braceCount = 0;
-        int lastBrace = -1;
-        for (int i = firstBrace; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c == '{') {
-                braceCount++;
-            } else if (c == '}') {
-                braceCount--;
-                if (braceCount == 0) {
-                    lastBrace = i;
-                    break;
-                }
-            }
-        }
-        
-        if (lastBrace > firstBrace) {
-            String jsonPart = text.substring(firstBrace, lastBrace + 1);
-            System.out.println("Extracted JSON from text (position " + firstBrace + " to " + lastBrace + ")");
-            return jsonPart.trim();
-        }
-        
-        System.err.println("Could not find matching closing brace. Returning original text.");
-        return text;
-    }
-    
-    /**
-     * Extract field from JsonNode, handling both strings and arrays
-     */
-    private String extractJsonFieldFromNode(JsonNode jsonNode, String fieldName) {
-        JsonNode fieldNode = jsonNode.path(fieldName);
-        
-        if (fieldNode.isArray()) {
-            // Convert array to multi-line string
-            StringBuilder sb = new StringBuilder();
-            for (JsonNode item : fieldNode) {
-                if (item.isTextual()) {
-                    sb.append(item.asText()).append("\n");
-                }
-            }
-            return sb.toString().trim();
-        } else if (fieldNode.isTextual()) {
-            return fieldNode.asText();
-        }
-        
-        return null;
-    }
-    
     private void setDefaultPlan(HealthPlan healthPlan) {
         healthPlan.setPlanSummary("Personalized health plan generated successfully.");
         healthPlan.setDietOverview("Focus on balanced nutrition with vegetables, lean proteins, and whole grains.");
@@ -484,24 +289,4 @@ public class GeminiPlanService {
         healthPlan.setMotivationalNotes("Every small step counts towards your health goals. Stay consistent and positive!");
     }
     
-    private String extractJsonField(String json, String fieldName) {
-        try {
-            String searchPattern = "\"" + fieldName + "\":\"";
-            int start = json.indexOf(searchPattern);
-            if (start > 0) {
-                start += searchPattern.length();
-                int end = json.indexOf("\"", start);
-                while (end > start && end < json.length() - 1 && json.charAt(end - 1) == '\\') {
-                    end = json.indexOf("\"", end + 1);
-                }
-                if (end > start) {
-                    String value = json.substring(start, end);
-                    return value.replace("\\n", "\n").replace("\\\"", "\"").replace("\\\\", "\\");
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Failed to extract field " + fieldName + ": " + e.getMessage());
-        }
-        return null;
-    }
 }
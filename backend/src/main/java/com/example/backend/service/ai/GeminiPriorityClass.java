@@ -0,0 +1,11 @@
+package com.example.backend.service.ai;
+
+/**
+ * Latency class of a Gemini request. URGENT may use the concurrency reserved for it;
+ * latency SLOs are tracked per class.
+ */
+public enum GeminiPriorityClass {
+    URGENT,
+    NORMAL,
+    BACKGROUND
+}
@@ -0,0 +1,12 @@
+package com.example.backend.service.ai;
+
+/**
+ * A Gemini request was shed by GeminiRateLimiter instead of being sent:
+ * the daily quota is used up, the wait queue is full, or the request waited too long.
+ * Callers fall back to their non-AI result when they have one.
+ */
+public class GeminiQuotaExceededException extends RuntimeException {
+    public GeminiQuotaExceededException(String message) {
+        super(message);
+    }
+}
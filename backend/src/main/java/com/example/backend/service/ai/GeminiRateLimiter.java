@@ -0,0 +1,390 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.dto.response.GeminiQuotaStatsResponse;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-side enforcement of the Gemini free-tier quota (requests per minute, tokens per minute,
+ * requests per day), shared by every Gemini*Service through GeminiClient.
+ * Requests and tokens are two token buckets that refill continuously. A request is admitted only
+ * when both buckets can cover it; otherwise it waits in a queue ordered by GeminiFeature priority,
+ * so triage goes ahead of insurance. Requests are shed with GeminiQuotaExceededException when the
+ * daily quota is used up, the queue is full, or the wait exceeds max-wait-seconds.
+ */
+@Component
+public class GeminiRateLimiter {
+
+    @Value("${gemini.rate-limit.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${gemini.rate-limit.requests-per-minute:5}")
+    private Integer requestsPerMinute;
+
+    @Value("${gemini.rate-limit.tokens-per-minute:125000}")
+    private Long tokensPerMinute;
+
+    @Value("${gemini.rate-limit.requests-per-day:100}")
+    private Integer requestsPerDay;
+
+    @Value("${gemini.rate-limit.max-queue:20}")
+    private Integer maxQueue;
+
+    @Value("${gemini.rate-limit.max-wait-seconds:60}")
+    private Long maxWaitSeconds;
+
+    // The daily quota resets at midnight Pacific time
+    @Value("${gemini.rate-limit.quota-zone:America/Los_Angeles}")
+    private String quotaZone;
+
+    private static final long NO_DRAIN_SCHEDULED = Long.MIN_VALUE;
+
+    private static final Comparator<Waiter> QUEUE_ORDER = Comparator
+            .comparingInt((Waiter w) -> w.feature.getPriority())
+            .thenComparingLong(w -> w.seq);
+
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(QUEUE_ORDER);
+    private final Map<GeminiFeature, FeatureCounters> counters = new EnumMap<>(GeminiFeature.class);
+
+    private TokenBucket requestBucket;
+    private TokenBucket tokenBucket;
+    private ZoneId zone;
+    private LocalDate quotaDay;
+    private int requestsToday;
+    private long nextSeq;
+    private long scheduledDrainAt = NO_DRAIN_SCHEDULED;
+
+    @PostConstruct
+    void init() {
+        requestBucket = new TokenBucket(requestsPerMinute, Duration.ofMinutes(1));
+        tokenBucket = new TokenBucket(tokensPerMinute, Duration.ofMinutes(1));
+        zone = ZoneId.of(quotaZone);
+        quotaDay = LocalDate.now(zone);
+        for (GeminiFeature feature : GeminiFeature.values()) {
+            counters.put(feature, new FeatureCounters());
+        }
+    }
+
+    /**
+     * Wait for quota for one request of roughly estimatedTokens (prompt + reserved output).
+     * Emits a Grant once admitted; errors with GeminiQuotaExceededException when shed.
+     */
+    public Mono<Grant> acquire(GeminiFeature feature, long estimatedTokens) {
+        if (!Boolean.TRUE.equals(enabled)) {
+            return Mono.just(new Grant(feature, 0, null));
+        }
+        long tokens = Math.min(Math.max(1, estimatedTokens), tokensPerMinute);
+
+        return Mono.<Grant>create(sink -> {
+            Waiter waiter;
+            Waiter displaced = null;
+            String rejection = null;
+            synchronized (this) {
+                rollDay();
+                waiter = new Waiter(feature, tokens, nextSeq++, sink);
+                if (requestsToday >= requestsPerDay) {
+                    rejection = "Daily Gemini request quota exhausted";
+                } else if (queue.size() >= maxQueue) {
+                    // Full queue: a more urgent request takes the place of the least urgent waiter
+                    Waiter leastUrgent = queue.stream().max(QUEUE_ORDER).orElseThrow();
+                    if (QUEUE_ORDER.compare(waiter, leastUrgent) < 0) {
+                        queue.remove(leastUrgent);
+                        queue.add(waiter);
+                        displaced = leastUrgent;
+                    } else {
+                        rejection = "Gemini request queue is full";
+                    }
+                } else {
+                    queue.add(waiter);
+                }
+            }
+
+            if (rejection != null) {
+                counters.get(feature).shed.incrementAndGet();
+                sink.error(new GeminiQuotaExceededException(rejection));
+                return;
+            }
+            if (displaced != null) {
+                counters.get(displaced.feature).shed.incrementAndGet();
+                displaced.sink.error(new GeminiQuotaExceededException("Displaced from the Gemini request queue by a more urgent request"));
+            }
+            // A cancelled waiter leaves the queue; one admitted just before is refunded when its sink
+            // discards the grant (doOnDiscard below)
+            sink.onCancel(() -> {
+                synchronized (this) {
+                    queue.remove(waiter);
+                    waiter.cancelled = true;
+                }
+            });
+            // Timed out here rather than with Mono.timeout, which drops a grant racing the timeout
+            // without a discard signal, leaving its quota charged
+            Disposable timer = Schedulers.parallel().schedule(() -> {
+                boolean removed;
+                synchronized (this) {
+                    removed = queue.remove(waiter);
+                }
+                if (removed) {
+                    counters.get(feature).shed.incrementAndGet();
+                    sink.error(new GeminiQuotaExceededException("Timed out waiting for Gemini quota"));
+                }
+            }, maxWaitSeconds, TimeUnit.SECONDS);
+            sink.onDispose(timer);
+            drain();
+        }).doOnDiscard(Grant.class, this::refund);
+    }
+
+    /**
+     * Replace the estimate taken at admission with the tokens the request actually used.
+     * Over-estimates are returned to the bucket; under-estimates are taken from it.
+     * Only the first call for a grant counts, so a cancel racing completion cannot settle it twice.
+     */
+    public void recordUsage(Grant grant, long actualTokens) {
+        if (grant.reservedTokens == 0 || !grant.settled.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            tokenBucket.adjust(grant.reservedTokens - actualTokens);
+        }
+        drain();
+    }
+
+    /**
+     * Gemini answered 429 despite the local accounting (other clients share the key, or the
+     * server window differs from ours): empty the request bucket so the next request waits.
+     */
+    public void onRateLimited() {
+        synchronized (this) {
+            requestBucket.empty();
+        }
+        drain();
+    }
+
+    public GeminiQuotaStatsResponse getStats() {
+        GeminiQuotaStatsResponse stats = new GeminiQuotaStatsResponse();
+        stats.setEnabled(Boolean.TRUE.equals(enabled));
+        synchronized (this) {
+            rollDay();
+            stats.setRequestsAvailable((int) Math.floor(Math.max(0, requestBucket.available())));
+            stats.setTokensAvailable((long) Math.floor(Math.max(0, tokenBucket.available())));
+            stats.setRequestsToday(requestsToday);
+            stats.setQueueDepth(queue.size());
+        }
+        stats.setRequestsPerMinute(requestsPerMinute);
+        stats.setTokensPerMinute(tokensPerMinute);
+        stats.setRequestsPerDay(requestsPerDay);
+
+        Map<String, GeminiQuotaStatsResponse.FeatureStats> byFeature = new LinkedHashMap<>();
+        counters.forEach((feature, c) -> {
+            GeminiQuotaStatsResponse.FeatureStats featureStats = new GeminiQuotaStatsResponse.FeatureStats();
+            long admitted = c.admitted.get();
+            featureStats.setPriority(feature.getPriority());
+            featureStats.setAdmitted(admitted);
+            featureStats.setShed(c.shed.get());
+            featureStats.setAverageWaitMillis(admitted > 0 ? (double) c.totalWaitMillis.get() / admitted : null);
+            byFeature.put(feature.name(), featureStats);
+        });
+        stats.setFeatures(byFeature);
+        return stats;
+    }
+
+    /**
+     * Admit waiters from the head of the queue while both buckets allow it, then schedule
+     * another pass for when the head can be admitted. Sinks are completed outside the lock.
+     */
+    private void drain() {
+        List<Runnable> completions = new ArrayList<>();
+        synchronized (this) {
+            rollDay();
+            long delayNanos = 0;
+            while (!queue.isEmpty()) {
+                Waiter head = queue.peek();
+                if (head.cancelled) {
+                    queue.poll();
+                    continue;
+                }
+                if (requestsToday >= requestsPerDay) {
+                    queue.poll();
+                    counters.get(head.feature).shed.incrementAndGet();
+                    completions.add(() -> head.sink.error(new GeminiQuotaExceededException("Daily Gemini request quota exhausted")));
+                    continue;
+                }
+                long wait = Math.max(requestBucket.nanosUntil(1), tokenBucket.nanosUntil(head.tokens));
+                if (wait > 0) {
+                    delayNanos = wait;
+                    break;
+                }
+                queue.poll();
+                requestBucket.take(1);
+                tokenBucket.take(head.tokens);
+                requestsToday++;
+                Grant grant = new Grant(head.feature, head.tokens, quotaDay);
+
+                FeatureCounters c = counters.get(head.feature);
+                c.admitted.incrementAndGet();
+                c.totalWaitMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - head.enqueuedAt));
+                completions.add(() -> head.sink.success(grant));
+            }
+
+            // One timer is enough unless it fires later than needed; extra passes are harmless
+            if (delayNanos > 0) {
+                long drainAt = System.nanoTime() + delayNanos;
+                if (scheduledDrainAt == NO_DRAIN_SCHEDULED || drainAt - scheduledDrainAt < 0) {
+                    scheduledDrainAt = drainAt;
+                    Schedulers.parallel().schedule(() -> {
+                        synchronized (this) {
+                            if (scheduledDrainAt == drainAt) {
+                                scheduledDrainAt = NO_DRAIN_SCHEDULED;
+                            }
+                        }
+                        drain();
+                    }, delayNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        completions.forEach(Runnable::run);
+    }
+
+    /**
+     * Hand back everything a grant took (request, daily request and tokens) for a call that was never
+     * made. Like recordUsage, only the first of the two counts for a grant.
+     */
+    public void refund(Grant grant) {
+        if (grant.reservedTokens == 0 || !grant.settled.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            requestBucket.adjust(1);
+            tokenBucket.adjust(grant.reservedTokens);
+            if (grant.quotaDay.equals(quotaDay) && requestsToday > 0) {
+                requestsToday--;
+            }
+        }
+        drain();
+    }
+
+    private void rollDay() {
+        LocalDate today = LocalDate.now(zone);
+        if (!today.equals(quotaDay)) {
+            quotaDay = today;
+            requestsToday = 0;
+        }
+    }
+
+    /**
+     * Quota taken by one admitted request; hand it back through recordUsage.
+     */
+    public static final class Grant {
+
+        private final GeminiFeature feature;
+        private final long reservedTokens;
+        private final LocalDate quotaDay;
+        // Set by the first recordUsage or refund
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        Grant(GeminiFeature feature, long reservedTokens, LocalDate quotaDay) {
+            this.feature = feature;
+            this.reservedTokens = reservedTokens;
+            this.quotaDay = quotaDay;
+        }
+
+        public GeminiFeature getFeature() {
+            return feature;
+        }
+    }
+
+    private static final class Waiter {
+
+        private final GeminiFeature feature;
+        private final long tokens;
+        private final long seq;
+        private final MonoSink<Grant> sink;
+        private final long enqueuedAt = System.nanoTime();
+        // Guarded by the limiter's lock
+        private boolean cancelled;
+
+        Waiter(GeminiFeature feature, long tokens, long seq, MonoSink<Grant> sink) {
+            this.feature = feature;
+            this.tokens = tokens;
+            this.seq = seq;
+            this.sink = sink;
+        }
+    }
+
+    /**
+     * Continuously refilling bucket; not thread-safe, guarded by the limiter's lock.
+     * The level may go negative when actual usage exceeds the estimate.
+     */
+    static final class TokenBucket {
+
+        private final double capacity;
+        private final double refillPerNano;
+        private double level;
+        private long lastRefill;
+
+        TokenBucket(long capacity, Duration period) {
+            this.capacity = capacity;
+            this.refillPerNano = capacity / (double) period.toNanos();
+            this.level = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        double available() {
+            refill();
+            return level;
+        }
+
+        long nanosUntil(long amount) {
+            refill();
+            if (level >= amount) {
+                return 0;
+            }
+            return (long) Math.ceil((amount - level) / refillPerNano);
+        }
+
+        void take(long amount) {
+            refill();
+            level -= amount;
+        }
+
+        void adjust(long delta) {
+            refill();
+            level = Math.min(capacity, level + delta);
+        }
+
+        void empty() {
+            refill();
+            level = Math.min(level, 0);
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            level = Math.min(capacity, level + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+
+    private static final class FeatureCounters {
+        private final AtomicLong admitted = new AtomicLong();
+        private final AtomicLong shed = new AtomicLong();
+        private final AtomicLong totalWaitMillis = new AtomicLong();
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.dto.response.GeminiCacheStatsResponse;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of raw Gemini responses.
+ * The key is a SHA-256 of model + generation config + prompt, so only byte-identical requests share an entry.
+ * Entries expire after the configured TTL; the in-memory tier is LRU-bounded.
+ * When gemini.cache.disk-dir is set, entries are also written there (one file per key) so they survive restarts.
+ */
+@Component
+public class GeminiResponseCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GeminiResponseCache.class);
+
+    // Temp files younger than this may still be being written by writeToDisk; older ones are leftovers
+    static final Duration TEMP_FILE_MAX_AGE = Duration.ofMinutes(10);
+
+    @Value("${gemini.cache.enabled:true}")
+    private Boolean enabled;
+
+    @Value("${gemini.cache.ttl-minutes:360}")
+    private Long ttlMinutes;
+
+    @Value("${gemini.cache.max-entries:500}")
+    private Integer maxEntries;
+
+    @Value("${gemini.cache.disk-dir:}")
+    private String diskDir;
+
+    @Value("${gemini.cache.disk-max-entries:5000}")
+    private Integer diskMaxEntries;
+
+    private Map<String, CachedResponse> memory;
+    private Path diskPath;
+    private final AtomicInteger diskWritesSincePrune = new AtomicInteger();
+
+    private final Map<GeminiFeature, FeatureCounters> counters = new EnumMap<>(GeminiFeature.class);
+
+    @PostConstruct
+    void init() {
+        int capacity = Math.max(1, maxEntries);
+        memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > capacity;
+            }
+        };
+        for (GeminiFeature feature : GeminiFeature.values()) {
+            counters.put(feature, new FeatureCounters());
+        }
+        if (diskDir != null && !diskDir.isBlank()) {
+            diskPath = Paths.get(diskDir);
+            try {
+                Files.createDirectories(diskPath);
+                pruneDisk();
+            } catch (IOException e) {
+                LOG.warn("Gemini response cache: disk tier disabled, cannot use {}", diskDir, e);
+                diskPath = null;
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return Boolean.TRUE.equals(enabled);
+    }
+
+    /**
+     * Cache key for one request: hex SHA-256 over model, generation config and prompt.
+     */
+    public String key(String model, Integer maxOutputTokens, Double temperature, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((model + '\n' + maxOutputTokens + '\n' + temperature + '\n').getBytes(StandardCharsets.UTF_8));
+            digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Look up a response, memory first, then disk. Emits empty on a miss.
+     * Hits and misses are counted against the given feature.
+     */
+    public Mono<String> get(GeminiFeature feature, String key) {
+        String cached = getFromMemory(key);
+        if (cached != null) {
+            counters.get(feature).hits.incrementAndGet();
+            return Mono.just(cached);
+        }
+        if (diskPath == null) {
+            counters.get(feature).misses.incrementAndGet();
+            return Mono.empty();
+        }
+        return Mono.fromCallable(() -> readFromDisk(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(body -> counters.get(feature).diskHits.incrementAndGet())
+                .switchIfEmpty(Mono.fromRunnable(() -> counters.get(feature).misses.incrementAndGet()));
+    }
+
+    /**
+     * Store a response in memory and, when configured, on disk (written off the calling thread).
+     */
+    public void put(String key, String body) {
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(ttlMinutes).toMillis();
+        synchronized (memory) {
+            memory.put(key, new CachedResponse(body, expiresAt));
+        }
+        if (diskPath != null) {
+            Mono.fromRunnable(() -> writeToDisk(key, body, expiresAt))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribe();
+        }
+    }
+
+    /**
+     * Count a request that joined an identical request already in flight instead of calling Gemini.
+     */
+    public void recordCoalesced(GeminiFeature feature) {
+        counters.get(feature).coalesced.incrementAndGet();
+    }
+
+    /**
+     * Drop every entry from both tiers. Counters are kept.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        if (diskPath != null) {
+            // Temp files are left to pruneDisk: writes in flight still need theirs
+            try (Stream<Path> files = Files.list(diskPath)) {
+                files.filter(file -> !isTempFile(file)).forEach(this::deleteQuietly);
+            } catch (IOException e) {
+                LOG.warn("Gemini response cache: failed to clear disk tier", e);
+            }
+        }
+    }
+
+    public GeminiCacheStatsResponse getStats() {
+        GeminiCacheStatsResponse stats = new GeminiCacheStatsResponse();
+        stats.setEnabled(isEnabled());
+        synchronized (memory) {
+            stats.setMemoryEntries(memory.size());
+        }
+        stats.setMaxEntries(maxEntries);
+        stats.setTtlMinutes(ttlMinutes);
+        stats.setDiskEnabled(diskPath != null);
+
+        Map<String, GeminiCacheStatsResponse.FeatureStats> byFeature = new LinkedHashMap<>();
+        counters.forEach((feature, c) -> {
+            GeminiCacheStatsResponse.FeatureStats featureStats = new GeminiCacheStatsResponse.FeatureStats();
+            long hits = c.hits.get() + c.diskHits.get();
+            long lookups = hits + c.misses.get();
+            featureStats.setHits(c.hits.get());
+            featureStats.setDiskHits(c.diskHits.get());
+            featureStats.setMisses(c.misses.get());
+            featureStats.setCoalesced(c.coalesced.get());
+            featureStats.setHitRate(lookups > 0 ? (double) hits / lookups : null);
+            byFeature.put(feature.name(), featureStats);
+        });
+        stats.setFeatures(byFeature);
+        return stats;
+    }
+
+    private String getFromMemory(String key) {
+        synchronized (memory) {
+            CachedResponse entry = memory.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt() <= System.currentTimeMillis()) {
+                memory.remove(key);
+                return null;
+            }
+            return entry.body();
+        }
+    }
+
+    /**
+     * File layout: first line is the expiry time in epoch millis, the rest is the raw response body.
+     * A disk hit is promoted back into memory.
+     */
+    private String readFromDisk(String key) {
+        Path file = diskPath.resolve(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            int newline = content.indexOf('\n');
+            if (newline < 0) {
+                deleteQuietly(file);
+                return null;
+            }
+            long expiresAt = Long.parseLong(content.substring(0, newline));
+            if (expiresAt <= System.currentTimeMillis()) {
+                deleteQuietly(file);
+                return null;
+            }
+            String body = content.substring(newline + 1);
+            synchronized (memory) {
+                memory.put(key, new CachedResponse(body, expiresAt));
+            }
+            return body;
+        } catch (IOException | NumberFormatException e) {
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, String body, long expiresAt) {
+        try {
+            Path tmp = Files.createTempFile(diskPath, key, ".tmp");
+            Files.writeString(tmp, expiresAt + "\n" + body, StandardCharsets.UTF_8);
+            Files.move(tmp, diskPath.resolve(key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Gemini response cache: disk write failed", e);
+        }
+        // Listing the directory is not free, so the size bound is enforced every 50 writes
+        if (diskWritesSincePrune.incrementAndGet() >= 50) {
+            diskWritesSincePrune.set(0);
+            pruneDisk();
+        }
+    }
+
+    /**
+     * Remove temp files older than TEMP_FILE_MAX_AGE (left by a crash; younger ones may belong to a
+     * write in progress) and, when over disk-max-entries, the least recently written entries.
+     * Expired entries are removed lazily when read.
+     */
+    void pruneDisk() {
+        long staleTempBefore = System.currentTimeMillis() - TEMP_FILE_MAX_AGE.toMillis();
+        try (Stream<Path> files = Files.list(diskPath)) {
+            List<Path> entries = files
+                    .filter(file -> {
+                        if (isTempFile(file)) {
+                            if (lastModified(file) < staleTempBefore) {
+                                deleteQuietly(file);
+                            }
+                            return false;
+                        }
+                        return true;
+                    })
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .toList();
+            int excess = entries.size() - diskMaxEntries;
+            for (int i = 0; i < excess; i++) {
+                deleteQuietly(entries.get(i));
+            }
+        } catch (IOException e) {
+            LOG.warn("Gemini response cache: disk prune failed", e);
+        }
+    }
+
+    private static boolean isTempFile(Path file) {
+        return file.getFileName().toString().endsWith(".tmp");
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // already gone or not deletable; the next prune will retry
+        }
+    }
+
+    private record CachedResponse(String body, long expiresAt) {
+    }
+
+    private static final class FeatureCounters {
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong diskHits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong coalesced = new AtomicLong();
+    }
+}
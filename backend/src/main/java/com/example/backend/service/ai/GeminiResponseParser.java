@@ -0,0 +1,237 @@
+package com.example.backend.service.ai;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Shared parsing of Gemini responses for GeminiClient and the Gemini*Service classes.
+ * Uses one ObjectMapper for the whole application. The response envelope is read with the
+ * streaming parser, so only candidates[0] text, finishReason and the usageMetadata token counts
+ * are materialised; the model's JSON answer is located in a single pass over the text.
+ */
+@Component
+public class GeminiResponseParser {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * The parts of a generateContent response (or one streamGenerateContent chunk) that we use.
+     * Any field may be null when absent.
+     */
+    public record GeminiResponse(String text, String finishReason,
+                                 Long promptTokenCount, Long candidatesTokenCount, Long totalTokenCount) {
+
+        static final GeminiResponse EMPTY = new GeminiResponse(null, null, null, null, null);
+
+        /**
+         * A complete answer: finished normally and has text.
+         */
+        public boolean isComplete() {
+            return "STOP".equals(finishReason) && text != null;
+        }
+    }
+
+    /**
+     * Read the envelope without building a tree; unknown fields are skipped.
+     * Returns EMPTY fields rather than throwing on malformed input.
+     */
+    public GeminiResponse parseResponse(String body) {
+        if (body == null || body.isEmpty()) {
+            return GeminiResponse.EMPTY;
+        }
+        String[] candidate = new String[2];
+        Long[] usage = new Long[3];
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return GeminiResponse.EMPTY;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("candidates".equals(name) && value == JsonToken.START_ARRAY) {
+                    readFirstCandidate(parser, candidate);
+                } else if ("usageMetadata".equals(name) && value == JsonToken.START_OBJECT) {
+                    readUsage(parser, usage);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            // Truncated or invalid JSON: keep whatever was read before the error
+        }
+        return new GeminiResponse(candidate[0], candidate[1], usage[0], usage[1], usage[2]);
+    }
+
+    /**
+     * candidates[0].content.parts[0].text, or null.
+     */
+    public String extractText(String body) {
+        return parseResponse(body).text();
+    }
+
+    /**
+     * The first balanced {...} object in model output, ignoring ``` fences and surrounding prose.
+     * One scan, aware of JSON strings so braces inside values do not count; at most one substring.
+     * Returns null when there is no complete object (no brace, or the output was cut off).
+     */
+    public String extractJson(String text) {
+        if (text == null) {
+            return null;
+        }
+        int start = text.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+                if (depth == 0) {
+                    return text.substring(start, i + 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Locate and parse the JSON object in model output.
+     * Returns null when the text holds no complete object; throws when the object is not valid JSON.
+     */
+    public JsonNode readJsonObject(String text) throws JsonProcessingException {
+        String json = extractJson(text);
+        return json == null ? null : OBJECT_MAPPER.readTree(json);
+    }
+
+    /**
+     * A field that the model may write either as a string or as an array of strings
+     * (joined one item per line). Null when missing or of another type.
+     */
+    public String fieldText(JsonNode node, String fieldName) {
+        JsonNode fieldNode = node.path(fieldName);
+        if (fieldNode.isTextual()) {
+            return fieldNode.asText();
+        }
+        if (fieldNode.isArray()) {
+            StringBuilder sb = new StringBuilder();
+            for (JsonNode item : fieldNode) {
+                if (item.isTextual()) {
+                    if (sb.length() > 0) {
+                        sb.append('\n');
+                    }
+                    sb.append(item.asText());
+                }
+            }
+            return sb.toString().trim();
+        }
+        return null;
+    }
+
+    public JsonNode readTree(String json) throws JsonProcessingException {
+        return OBJECT_MAPPER.readTree(json);
+    }
+
+    public String writeJson(Object value) throws JsonProcessingException {
+        return OBJECT_MAPPER.writeValueAsString(value);
+    }
+
+    /**
+     * Parser is just past START_ARRAY of "candidates"; consumes the whole array.
+     */
+    private void readFirstCandidate(JsonParser parser, String[] candidate) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("content".equals(name) && value == JsonToken.START_OBJECT) {
+                    candidate[0] = readFirstPartText(parser);
+                } else if ("finishReason".equals(name) && value == JsonToken.VALUE_STRING) {
+                    candidate[1] = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            token = parser.nextToken();
+        }
+        // skip any further candidates
+        while (token != null && token != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
+    }
+
+    /**
+     * Parser is just past START_OBJECT of "content"; consumes the object.
+     */
+    private String readFirstPartText(JsonParser parser) throws IOException {
+        String text = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("parts".equals(name) && value == JsonToken.START_ARRAY) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String partField = parser.currentName();
+                        JsonToken partValue = parser.nextToken();
+                        if ("text".equals(partField) && partValue == JsonToken.VALUE_STRING) {
+                            text = parser.getText();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    token = parser.nextToken();
+                }
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    parser.skipChildren();
+                    token = parser.nextToken();
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Parser is just past START_OBJECT of "usageMetadata"; consumes the object.
+     * Fills usage with promptTokenCount, candidatesTokenCount and totalTokenCount.
+     */
+    private void readUsage(JsonParser parser, Long[] usage) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.VALUE_NUMBER_INT) {
+                parser.skipChildren();
+            } else if ("promptTokenCount".equals(name)) {
+                usage[0] = parser.getLongValue();
+            } else if ("candidatesTokenCount".equals(name)) {
+                usage[1] = parser.getLongValue();
+            } else if ("totalTokenCount".equals(name)) {
+                usage[2] = parser.getLongValue();
+            }
+        }
+    }
+}
@@ -1,190 +1,79 @@
 package com.example.backend.service.ai;
 
-import com.example.backend.config.GeminiConfig;
 import com.example.backend.entity.SmartTriage;
 import com.example.backend.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
 @Service
 public class GeminiTriageService {
     
-    @Value("${gemini.enabled:false}")
-    private Boolean geminiEnabled;
+    private static final Logger LOG = LoggerFactory.getLogger(GeminiTriageService.class);
     
-    @Autowired(required = false)
-    private WebClient geminiWebClient;
+    private static final List<String> CRITICAL_KEYWORDS = List.of(
+            "chest pain", "difficulty breathing", "shortness of breath", "can't breathe", "cannot breathe",
+            "unconscious", "fainted", "seizure", "stroke", "slurred speech", "severe bleeding",
+            "suicidal", "overdose", "anaphylaxis", "throat swelling");
     
-    @Autowired(required = false)
-    private GeminiConfig geminiConfig;
+    private static final List<String> HIGH_KEYWORDS = List.of(
+            "high fever", "severe pain", "vomiting blood", "blood in", "fracture", "broken bone",
+            "confusion", "dehydrated", "severe headache", "persistent vomiting");
     
-    @Value("${gemini.model:gemini-2.5-pro}")
-    private String model;
+    private static final List<String> LOW_KEYWORDS = List.of(
+            "mild", "runny nose", "sneezing", "sore throat", "slight", "minor");
     
-    @Value("${gemini.max-tokens:8000}")
-    private Integer maxTokens;
+    @Autowired
+    private GeminiClient geminiClient;
     
-    @Value("${gemini.temperature:0.7}")
-    private Double temperature;
+    @Autowired
+    private GeminiResponseParser responseParser;
+    
+    @Autowired
+    private GeminiCallLogger callLogger;
     
     /**
      * Generate triage recommendation using Gemini AI
      */
-    public SmartTriage generateGeminiTriage(String symptomsInfo, User user, String additionalContext) {
+    public Mono<SmartTriage> generateGeminiTriage(String symptomsInfo, User user, String additionalContext) {
         
-        if (!geminiEnabled || geminiWebClient == null || geminiConfig == null) {
-            throw new RuntimeException("Gemini is not enabled or configured.");
+        if (!geminiClient.isAvailable()) {
+            return Mono.error(new RuntimeException("Gemini is not enabled or configured."));
         }
         
         SmartTriage triage = new SmartTriage();
         triage.setUser(user);
         triage.setSymptomsInfo(symptomsInfo);
         
-        try {
-            String prompt = buildGeminiPrompt(symptomsInfo, user, additionalContext);
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            Map<String, Object> contents = new HashMap<>();
-            contents.put("parts", java.util.List.of(Map.of("text", prompt)));
-            requestBody.put("contents", java.util.List.of(contents));
-            
-            Map<String, Object> generationConfig = new HashMap<>();
-            generationConfig.put("maxOutputTokens", maxTokens);
-            generationConfig.put("temperature", temperature);
-            requestBody.put("generationConfig", generationConfig);
-            
-            String apiKey = geminiConfig.getApiKey();
-            String uri = String.format("/models/%s:generateContent?key=%s", model, apiKey);
-            
-            String response = geminiWebClient.post()
-                    .uri(uri)
-                    .bodyValue(requestBody)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            // Debug: Print full API response
-            System.out.println("==========================================");
-            System.out.println("Gemini Triage API Full Response:");
-            System.out.println("==========================================");
-            System.out.println(response);
-            System.out.println("==========================================");
-            
-            if (response != null) {
-                String geminiResponse = extractResponseText(response);
-                
-                // Debug: Print extracted text
-                System.out.println("Extracted Gemini Response Text:");
-                System.out.println(geminiResponse != null ? (geminiResponse.length() > 500 ? geminiResponse.substring(0, 500) + "..." : geminiResponse) : "NULL (extraction failed)");
-                System.out.println("==========================================");
-                
-                if (geminiResponse != null && !geminiResponse.isEmpty()) {
-                    return parseGeminiResponse(triage, geminiResponse);
-                }
-            }
-            
-            throw new RuntimeException("Failed to parse Gemini response");
-            
-        } catch (Exception e) {
-            System.err.println("==========================================");
-            System.err.println("Gemini triage failed!");
-            System.err.println("Error message: " + e.getMessage());
-            System.err.println("Error class: " + e.getClass().getName());
-            System.err.println("==========================================");
-            e.printStackTrace();
-            throw new RuntimeException("Gemini triage failed: " + e.getMessage(), e);
-        }
-    }
-    
-    private String extractResponseText(String jsonResponse) {
-        System.out.println("----------------------------------------");
-        System.out.println("Attempting to extract text from response using Jackson...");
-        
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode = mapper.readTree(jsonResponse);
-            
-            // Navigate: candidates[0].content.parts[0].text
-            JsonNode candidates = rootNode.path("candidates");
-            if (!candidates.isArray() || candidates.size() == 0) {
-                System.err.println("No candidates found or candidates is empty");
-                System.out.println("----------------------------------------");
-                return null;
-            }
-            
-            JsonNode firstCandidate = candidates.get(0);
-            JsonNode content = firstCandidate.path("content");
-            JsonNode parts = content.path("parts");
-            
-            if (!parts.isArray() || parts.size() == 0) {
-                System.err.println("No parts found or parts is empty");
-                System.out.println("----------------------------------------");
-                return null;
-            }
-            
-            JsonNode firstPart = parts.get(0);
-            JsonNode textNode = firstPart.path("text");
-            
-            if (!textNode.isTextual()) {
-                System.err.println("Text field is not a string");
-                System.out.println("----------------------------------------");
-                return null;
-            }
-            
-            String extractedText = textNode.asText();
-            System.out.println("Extracted raw text (length: " + extractedText.length() + ")");
-            System.out.println("First 200 chars: " + (extractedText.length() > 200 ? extractedText.substring(0, 200) + "..." : extractedText));
-            
-            // Remove markdown code block markers if present
-            if (extractedText.startsWith("```json\n")) {
-                extractedText = extractedText.substring(8); // Remove "```json\n"
-                System.out.println("Removed ```json\\n prefix");
-            } else if (extractedText.startsWith("```\n")) {
-                extractedText = extractedText.substring(4); // Remove "```\n"
-                System.out.println("Removed ```\\n prefix");
-            } else if (extractedText.startsWith("```json")) {
-                extractedText = extractedText.substring(7); // Remove "```json"
-                System.out.println("Removed ```json prefix");
-            } else if (extractedText.startsWith("```")) {
-                extractedText = extractedText.substring(3); // Remove "```"
-                System.out.println("Removed ``` prefix");
-            }
-            
-            // Remove trailing ``` if present
-            if (extractedText.endsWith("\n```")) {
-                extractedText = extractedText.substring(0, extractedText.length() - 4);
-                System.out.println("Removed \\n``` suffix");
-            } else if (extractedText.endsWith("```")) {
-                extractedText = extractedText.substring(0, extractedText.length() - 3);
-                System.out.println("Removed ``` suffix");
-            }
-            
-            // Trim whitespace
-            extractedText = extractedText.trim();
-            
-            // Try to extract JSON from text if it's not pure JSON
-            extractedText = extractJsonFromText(extractedText);
-            
-            System.out.println("Final extracted text (length: " + extractedText.length() + ")");
-            System.out.println("First 200 chars of final: " + (extractedText.length() > 200 ? extractedText.substring(0, 200) + "..." : extractedText));
-            System.out.println("----------------------------------------");
-            
-            return extractedText;
-            
-        } catch (Exception e) {
-            System.err.println("Failed to extract text: " + e.getMessage());
-            e.printStackTrace();
-            System.out.println("----------------------------------------");
-            return null;
-        }
+        return callLogger.traced(GeminiFeature.TRIAGE, trace -> {
+            String prompt = trace.time(GeminiCallTrace.Phase.PROMPT_BUILD,
+                    () -> buildGeminiPrompt(symptomsInfo, user, additionalContext));
+            trace.recordPrompt(prompt);
+            
+            return trace.time(GeminiCallTrace.Phase.NETWORK, geminiClient.generateContent(GeminiFeature.TRIAGE, prompt))
+                    .map(response -> trace.time(GeminiCallTrace.Phase.PARSE, () -> {
+                        String geminiResponse = responseParser.extractText(response);
+                        trace.recordResponse(geminiResponse);
+                        
+                        if (geminiResponse != null && !geminiResponse.isEmpty()) {
+                            return parseGeminiResponse(triage, geminiResponse, trace);
+                        }
+                        throw new RuntimeException("Failed to parse Gemini response");
+                    }))
+                    .switchIfEmpty(Mono.error(() -> new RuntimeException("Failed to parse Gemini response")))
+                    // Out of quota: answer from symptom keywords rather than leave the user without a triage
+                    .onErrorResume(GeminiQuotaExceededException.class, e -> {
+                        trace.fallback("keyword triage: " + e.getMessage());
+                        return Mono.fromSupplier(() -> buildHeuristicTriage(triage, symptomsInfo));
+                    })
+                    .onErrorMap(e -> new RuntimeException("Gemini triage failed: " + e.getMessage(), e));
+        });
     }
     
     private String buildGeminiPrompt(String symptomsInfo, User user, String additionalContext) {
@@ -234,23 +123,15 @@ public class GeminiTriageService {
         return java.time.LocalDateTime.now().getYear() - dateOfBirth.getYear();
     }
     
-    private SmartTriage parseGeminiResponse(SmartTriage triage, String geminiResponse) {
+    private SmartTriage parseGeminiResponse(SmartTriage triage, String geminiResponse, GeminiCallTrace trace) {
         try {
-            // First, try to extract JSON if it's embedded in text
-            String jsonText = extractJsonFromText(geminiResponse);
-            
-            // Validate that it looks like JSON
-            String trimmedJson = jsonText.trim();
-            if (!trimmedJson.startsWith("{") || !trimmedJson.endsWith("}")) {
-                System.err.println("Response does not appear to be valid JSON (doesn't start with { or end with }). Falling back to default.");
-                System.err.println("First 100 chars: " + (trimmedJson.length() > 100 ? trimmedJson.substring(0, 100) : trimmedJson));
+            // Locate and parse the JSON object; fences and surrounding text are skipped
+            JsonNode jsonNode = responseParser.readJsonObject(geminiResponse);
+            if (jsonNode == null) {
+                trace.fallback("default triage: response contains no complete JSON object");
                 return triage;
             }
             
-            // Use Jackson to parse JSON
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode jsonNode = mapper.readTree(jsonText);
-            
             // Extract priority
             JsonNode priorityNode = jsonNode.path("priority");
             if (priorityNode.isTextual()) {
@@ -272,8 +153,8 @@ public class GeminiTriageService {
             triage.setAiAnalysis(aiAnalysisNode.isTextual() ? aiAnalysisNode.asText() : null);
             
         } catch (Exception e) {
-            System.err.println("Failed to parse Gemini response: " + e.getMessage());
-            e.printStackTrace();
+            LOG.warn("Failed to parse Gemini triage response", e);
+            trace.fallback("default triage: " + e.getMessage());
             setDefaultTriage(triage);
         }
         
@@ -288,78 +169,47 @@ public class GeminiTriageService {
         }
     }
     
-    private void setDefaultTriage(SmartTriage triage) {
-        triage.setPriority(SmartTriage.TriagePriority.MEDIUM);
-        triage.setTriageResult("Based on your symptoms, a medical consultation is recommended.");
-        triage.setRecommendedAction("Please book a GP appointment to discuss your symptoms with a healthcare professional.");
-        triage.setAiAnalysis("It's important to seek professional medical advice for proper diagnosis and treatment.");
-    }
-    
     /**
-     * Extract JSON object from text that might contain additional text before or after JSON
+     * Keyword-based triage used when Gemini is unavailable for quota reasons.
+     * Errs on the side of urgency: any emergency keyword gives CRITICAL.
      */
-    private String extractJsonFromText(String text) {
-        if (text == null || text.isEmpty()) {
-            return text;
-        }
-        
-        // If it already looks like pure JSON (starts and ends with braces), return as is
-        String trimmed = text.trim();
-        if (trimmed.startsWith("{") && trimmed.endsWith("}")) {
-            return trimmed;
-        }
-        
-        // Try to find JSON object in the text
-        int firstBrace = text.indexOf('{');
-        if (firstBrace == -1) {
-            System.err.println("No opening brace { found in response. Returning original text.");
-            return text;
-        }
-        
-        // Find matching closing brace by counting braces
-        int braceCount = 0;
-        int lastBrace = -1;
-        for (int i = firstBrace; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c == '{') {
-                braceCount++;
-            } else if (c == '}') {
-                braceCount--;
-                if (braceCount == 0) {
-                    lastBrace = i;
-                    break;
-                }
-            }
-        }
-        
-        if (lastBrace > firstBrace) {
-            String jsonPart = text.substring(firstBrace, lastBrace + 1);
-            System.out.println("Extracted JSON from text (position " + firstBrace + " to " + lastBrace + ")");
-            return jsonPart.trim();
+    private SmartTriage buildHeuristicTriage(SmartTriage triage, String symptomsInfo) {
+        String symptoms = symptomsInfo == null ? "" : symptomsInfo.toLowerCase();
+        
+        if (containsAny(symptoms, CRITICAL_KEYWORDS)) {
+            triage.setPriority(SmartTriage.TriagePriority.CRITICAL);
+            triage.setTriageResult("Your symptoms may indicate a medical emergency.");
+            triage.setRecommendedAction("Call emergency services or go to the nearest emergency department immediately.");
+        } else if (containsAny(symptoms, HIGH_KEYWORDS)) {
+            triage.setPriority(SmartTriage.TriagePriority.HIGH);
+            triage.setTriageResult("Your symptoms should be assessed urgently.");
+            triage.setRecommendedAction("See a GP today or visit an urgent care clinic.");
+        } else if (containsAny(symptoms, LOW_KEYWORDS)) {
+            triage.setPriority(SmartTriage.TriagePriority.LOW);
+            triage.setTriageResult("Your symptoms appear mild.");
+            triage.setRecommendedAction("Rest, stay hydrated and monitor your symptoms. Book a GP appointment if they get worse or last more than a few days.");
+        } else {
+            setDefaultTriage(triage);
         }
-        
-        System.err.println("Could not find matching closing brace. Returning original text.");
-        return text;
+        triage.setAiAnalysis("AI analysis is temporarily unavailable; this triage is based on keywords in your symptoms. "
+                + "If you feel your condition is serious, seek medical care without waiting.");
+        return triage;
     }
     
-    private String extractJsonField(String json, String fieldName) {
-        try {
-            String searchPattern = "\"" + fieldName + "\":\"";
-            int start = json.indexOf(searchPattern);
-            if (start > 0) {
-                start += searchPattern.length();
-                int end = json.indexOf("\"", start);
-                while (end > start && end < json.length() - 1 && json.charAt(end - 1) == '\\') {
-                    end = json.indexOf("\"", end + 1);
-                }
-                if (end > start) {
-                    String value = json.substring(start, end);
-                    return value.replace("\\n", "\n").replace("\\\"", "\"").replace("\\\\", "\\");
-                }
+    private static boolean containsAny(String text, List<String> keywords) {
+        for (String keyword : keywords) {
+            if (text.contains(keyword)) {
+                return true;
             }
-        } catch (Exception e) {
-            System.err.println("Failed to extract field " + fieldName + ": " + e.getMessage());
         }
-        return null;
+        return false;
     }
+    
+    private void setDefaultTriage(SmartTriage triage) {
+        triage.setPriority(SmartTriage.TriagePriority.MEDIUM);
+        triage.setTriageResult("Based on your symptoms, a medical consultation is recommended.");
+        triage.setRecommendedAction("Please book a GP appointment to discuss your symptoms with a healthcare professional.");
+        triage.setAiAnalysis("It's important to seek professional medical advice for proper diagnosis and treatment.");
+    }
+    
 }
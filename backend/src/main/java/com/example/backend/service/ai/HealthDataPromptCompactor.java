@@ -0,0 +1,199 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.entity.HealthDataRollup.Metric;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders a HealthDataSummary for a prompt within gemini.prompt.health-data-max-tokens (estimated
+ * like GeminiClient, about four characters per token). The most detailed rendering that fits wins:
+ * 1. statistics, change points and the daily series (mean and min-max per day);
+ * 2. the same with the series bucketed into 2, 4, 7, 14 and then 30 day periods;
+ * 3. statistics and change points only;
+ * 4. statistics only, dropping metric lines from the end if even that is too long.
+ */
+@Component
+public class HealthDataPromptCompactor {
+
+    private static final int[] BUCKET_DAYS = {1, 2, 4, 7, 14, 30};
+    private static final int MIN_DAYS_FOR_CHANGE_POINT = 4;
+    // Shortest possible series entry: " MM-dd 0.0 0.0-0.0,"
+    private static final int MIN_CHARS_PER_BUCKET = 19;
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("MM-dd");
+
+    @Value("${gemini.prompt.health-data-max-tokens:800}")
+    private int maxTokens;
+
+    public String compact(HealthDataSummary summary) {
+        return compact(summary, maxTokens);
+    }
+
+    public String compact(HealthDataSummary summary, int tokenBudget) {
+        if (summary.isEmpty()) {
+            return summary.toPromptText();
+        }
+        String statistics = summary.toPromptText();
+        String withChanges = statistics + changePoints(summary);
+        for (int bucketDays : BUCKET_DAYS) {
+            // Skip rendering series that cannot fit
+            long minChars = withChanges.length() + bucketCount(summary, bucketDays) * MIN_CHARS_PER_BUCKET;
+            if ((minChars + 3) / 4 > tokenBudget) {
+                continue;
+            }
+            String text = withChanges + series(summary, bucketDays);
+            if (GeminiClient.estimateTokens(text) <= tokenBudget) {
+                return text;
+            }
+        }
+        if (GeminiClient.estimateTokens(withChanges) <= tokenBudget) {
+            return withChanges;
+        }
+        if (GeminiClient.estimateTokens(statistics) <= tokenBudget) {
+            return statistics;
+        }
+        StringBuilder sb = new StringBuilder(summary.promptHeader());
+        for (Metric metric : summary.metrics().keySet()) {
+            String line = summary.promptLine(metric);
+            if (GeminiClient.estimateTokens(sb + line) > tokenBudget) {
+                break;
+            }
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Per metric, the split of the daily means into a before and after part with the largest shift
+     * (weighted by how balanced the split is); reported when the shift exceeds half a standard deviation.
+     */
+    private static String changePoints(HealthDataSummary summary) {
+        StringBuilder sb = new StringBuilder();
+        summary.metrics().forEach((metric, metricSummary) -> {
+            List<HealthDataSummary.DailyValue> daily = metricSummary.daily();
+            int n = daily.size();
+            if (n < MIN_DAYS_FOR_CHANGE_POINT) {
+                return;
+            }
+            double total = 0;
+            for (HealthDataSummary.DailyValue day : daily) {
+                total += day.mean();
+            }
+            int bestSplit = -1;
+            double bestScore = 0;
+            double before = 0;
+            for (int k = 1; k < n; k++) {
+                before += daily.get(k - 1).mean();
+                double shift = (total - before) / (n - k) - before / k;
+                double score = Math.abs(shift) * Math.sqrt((double) k * (n - k) / n);
+                if (k >= 2 && n - k >= 2 && score > bestScore) {
+                    bestScore = score;
+                    bestSplit = k;
+                }
+            }
+            if (bestSplit < 0) {
+                return;
+            }
+            double meanBefore = mean(daily.subList(0, bestSplit));
+            double meanAfter = mean(daily.subList(bestSplit, n));
+            if (Math.abs(meanAfter - meanBefore) <= metricSummary.standardDeviation() / 2) {
+                return;
+            }
+            if (sb.isEmpty()) {
+                sb.append("Change points:\n");
+            }
+            String unit = HealthDataSummary.unit(metric);
+            sb.append(String.format(Locale.ROOT, "- %s: from %s%s to %s%s on %s\n", HealthDataSummary.label(metric),
+                    HealthDataSummary.format(meanBefore), unit, HealthDataSummary.format(meanAfter), unit,
+                    daily.get(bestSplit).day()));
+        });
+        return sb.toString();
+    }
+
+    private static double mean(List<HealthDataSummary.DailyValue> days) {
+        double sum = 0;
+        for (HealthDataSummary.DailyValue day : days) {
+            sum += day.mean();
+        }
+        return sum / days.size();
+    }
+
+    /**
+     * Mean (weighted by readings) and min-max per bucket of bucketDays days, counted from the window start.
+     */
+    private static String series(HealthDataSummary summary, int bucketDays) {
+        StringBuilder sb = new StringBuilder(bucketDays == 1
+                ? "Daily values (mean min-max):\n"
+                : String.format(Locale.ROOT, "Values per %d days (mean min-max, from the first day):\n", bucketDays));
+        for (Map.Entry<Metric, HealthDataSummary.MetricSummary> entry : summary.metrics().entrySet()) {
+            sb.append("- ").append(HealthDataSummary.label(entry.getKey())).append(':');
+            for (HealthDataSummary.DailyValue bucket : buckets(entry.getValue().daily(), summary.from(), bucketDays)) {
+                sb.append(' ').append(DAY.format(bucket.day())).append(' ')
+                        .append(HealthDataSummary.format(bucket.mean())).append(' ')
+                        .append(HealthDataSummary.format(bucket.min())).append('-')
+                        .append(HealthDataSummary.format(bucket.max())).append(',');
+            }
+            sb.setLength(sb.length() - 1);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static long bucketCount(HealthDataSummary summary, int bucketDays) {
+        long count = 0;
+        for (HealthDataSummary.MetricSummary metricSummary : summary.metrics().values()) {
+            long previous = -1;
+            for (HealthDataSummary.DailyValue day : metricSummary.daily()) {
+                long bucket = ChronoUnit.DAYS.between(summary.from(), day.day()) / bucketDays;
+                if (bucket != previous) {
+                    count++;
+                    previous = bucket;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static List<HealthDataSummary.DailyValue> buckets(List<HealthDataSummary.DailyValue> daily,
+                                                            LocalDate from, int bucketDays) {
+        if (bucketDays == 1) {
+            return daily;
+        }
+        List<HealthDataSummary.DailyValue> buckets = new ArrayList<>();
+        long currentBucket = -1;
+        LocalDate start = null;
+        long count = 0;
+        double sum = 0;
+        double min = 0;
+        double max = 0;
+        for (HealthDataSummary.DailyValue day : daily) {
+            long bucket = ChronoUnit.DAYS.between(from, day.day()) / bucketDays;
+            if (bucket != currentBucket) {
+                if (count > 0) {
+                    buckets.add(new HealthDataSummary.DailyValue(start, count, sum / count, min, max));
+                }
+                currentBucket = bucket;
+                start = from.plusDays(bucket * bucketDays);
+                count = 0;
+                sum = 0;
+                min = day.min();
+                max = day.max();
+            }
+            count += day.count();
+            sum += day.mean() * day.count();
+            min = Math.min(min, day.min());
+            max = Math.max(max, day.max());
+        }
+        if (count > 0) {
+            buckets.add(new HealthDataSummary.DailyValue(start, count, sum / count, min, max));
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.entity.HealthDataRollup.Metric;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A user's health data in a window of whole days as the AI prompts see it: per-metric statistics,
+ * the linear trend of the daily means and the most unusual days. Built by HealthDataRollupService
+ * from the daily rollups, so its size depends on the number of days and metrics, not on how many
+ * records were taken.
+ */
+public record HealthDataSummary(LocalDate from,
+                                LocalDate to,
+                                int daysWithData,
+                                Map<Metric, MetricSummary> metrics) {
+
+    private static final Map<Metric, String[]> LABELS = new EnumMap<>(Map.of(
+            Metric.WEIGHT, new String[]{"Weight", " kg"},
+            Metric.BMI, new String[]{"BMI", ""},
+            Metric.SYSTOLIC_PRESSURE, new String[]{"Systolic BP", " mmHg"},
+            Metric.DIASTOLIC_PRESSURE, new String[]{"Diastolic BP", " mmHg"},
+            Metric.HEART_RATE, new String[]{"Heart rate", " bpm"},
+            Metric.STEPS, new String[]{"Steps", ""},
+            Metric.SLEEP_HOURS, new String[]{"Sleep", " h"},
+            Metric.EXERCISE_MINUTES, new String[]{"Exercise", " min"},
+            Metric.WATER_INTAKE, new String[]{"Water intake", " ml"}));
+
+    /** Count, mean, min and max of one metric on one day. */
+    public record DailyValue(LocalDate day, long count, double mean, double min, double max) {
+    }
+
+    /**
+     * Statistics of one metric over the window. trendPerWeek is the least-squares slope of the daily
+     * means (null with fewer than two days); outliers are the days furthest outside two standard
+     * deviations, most extreme first; daily has one entry per day with data, oldest first.
+     */
+    public record MetricSummary(long count,
+                                double average,
+                                double min,
+                                double max,
+                                double standardDeviation,
+                                Double trendPerWeek,
+                                List<DailyValue> outliers,
+                                List<DailyValue> daily) {
+    }
+
+    public static HealthDataSummary empty(LocalDate from, LocalDate to) {
+        return new HealthDataSummary(from, to, 0, Collections.emptyMap());
+    }
+
+    public boolean isEmpty() {
+        return metrics.isEmpty();
+    }
+
+    /** Average of the metric over the window, or null when it was never recorded. */
+    public Double average(Metric metric) {
+        MetricSummary summary = metrics.get(metric);
+        return summary == null ? null : summary.average();
+    }
+
+    /** The largest per-metric sample count, i.e. a lower bound on the number of records in the window. */
+    public long sampleCount() {
+        return metrics.values().stream().mapToLong(MetricSummary::count).max().orElse(0);
+    }
+
+    /**
+     * One line per recorded metric, plus a header; the daily series is left out.
+     */
+    public String toPromptText() {
+        if (isEmpty()) {
+            return "No health data available.";
+        }
+        StringBuilder sb = new StringBuilder(promptHeader());
+        metrics.keySet().forEach(metric -> sb.append(promptLine(metric)));
+        return sb.toString();
+    }
+
+    public String promptHeader() {
+        return String.format(Locale.ROOT, "Health data from %s to %s (%d days with readings):\n",
+                from, to, daysWithData);
+    }
+
+    /** The statistics line of one recorded metric. */
+    public String promptLine(Metric metric) {
+        MetricSummary summary = metrics.get(metric);
+        String unit = unit(metric);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "- %s: avg %s%s (range %s-%s, sd %s, %d readings)",
+                label(metric), format(summary.average()), unit, format(summary.min()), format(summary.max()),
+                format(summary.standardDeviation()), summary.count()));
+        if (summary.trendPerWeek() != null) {
+            sb.append(String.format(Locale.ROOT, ", trend %s%s%s/week",
+                    summary.trendPerWeek() >= 0 ? "+" : "", format(summary.trendPerWeek()), unit));
+        }
+        if (!summary.outliers().isEmpty()) {
+            sb.append("; unusual days:");
+            for (DailyValue day : summary.outliers()) {
+                sb.append(String.format(Locale.ROOT, " %s (%s-%s)", day.day(), format(day.min()), format(day.max())));
+            }
+        }
+        return sb.append('\n').toString();
+    }
+
+    public static String label(Metric metric) {
+        return LABELS.get(metric)[0];
+    }
+
+    public static String unit(Metric metric) {
+        return LABELS.get(metric)[1];
+    }
+
+    /** One decimal, none from 100 up. */
+    public static String format(double value) {
+        return Math.abs(value) >= 100 ? String.format(Locale.ROOT, "%.0f", value)
+                : String.format(Locale.ROOT, "%.1f", value);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.dto.response.HealthPlanStreamEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental parser for the plan JSON while Gemini is still writing it.
+ * Feed it the text chunks in order; each call returns the top-level fields completed by that chunk.
+ * String fields are returned as-is, arrays of strings joined one item per line (same as the final parse).
+ * Text before the first '{' (a ```json fence) is skipped, as is everything after the object closes.
+ * One instance per stream; not thread-safe.
+ */
+public class HealthPlanSectionParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private String field;
+    private List<String> items;
+
+    public HealthPlanSectionParser() {
+        try {
+            parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public List<HealthPlanStreamEvent> feed(String chunk) {
+        List<HealthPlanStreamEvent> sections = new ArrayList<>();
+        if (finished || chunk == null || chunk.isEmpty()) {
+            return sections;
+        }
+        String data = chunk;
+        if (!started) {
+            int brace = chunk.indexOf('{');
+            if (brace < 0) {
+                return sections;
+            }
+            started = true;
+            data = chunk.substring(brace);
+        }
+
+        try {
+            byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token, sections);
+            }
+        } catch (IOException e) {
+            // Malformed output: stop streaming sections; the final parse of the full text decides the plan
+            finished = true;
+        }
+        return sections;
+    }
+
+    private void handle(JsonToken token, List<HealthPlanStreamEvent> sections) throws IOException {
+        switch (token) {
+            case START_OBJECT -> depth++;
+            case START_ARRAY -> {
+                depth++;
+                if (depth == 2) {
+                    items = new ArrayList<>();
+                }
+            }
+            case END_ARRAY -> {
+                if (depth == 2 && items != null) {
+                    sections.add(HealthPlanStreamEvent.section(field, String.join("\n", items).trim()));
+                    items = null;
+                }
+                depth--;
+            }
+            case END_OBJECT -> {
+                depth--;
+                if (depth == 0) {
+                    finished = true;
+                }
+            }
+            case FIELD_NAME -> {
+                if (depth == 1) {
+                    field = parser.currentName();
+                }
+            }
+            case VALUE_STRING -> {
+                if (depth == 1) {
+                    sections.add(HealthPlanStreamEvent.section(field, parser.getText()));
+                } else if (depth == 2 && items != null) {
+                    items.add(parser.getText());
+                }
+            }
+            default -> {
+                // numbers, booleans and nested objects are not plan sections
+            }
+        }
+    }
+}
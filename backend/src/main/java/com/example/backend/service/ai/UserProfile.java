@@ -0,0 +1,44 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of the user fields that Gemini prompts and the generated entities need.
+ * Safe to cache and to share between threads; it never touches the persistence context.
+ */
+public record UserProfile(Long id,
+                          String username,
+                          String email,
+                          String fullName,
+                          User.Gender gender,
+                          LocalDateTime dateOfBirth,
+                          Integer age,
+                          String userInfo,
+                          String healthProfile,
+                          String healthGoal) {
+
+    public static UserProfile from(User user) {
+        return new UserProfile(user.getId(), user.getUsername(), user.getEmail(), user.getFullName(),
+                user.getGender(), user.getDateOfBirth(), user.getAge(),
+                user.getUserInfo(), user.getHealthProfile(), user.getHealthGoal());
+    }
+
+    /**
+     * A detached User carrying this snapshot's fields, to set as the owner of a generated entity.
+     * Saving that entity only writes the foreign key (the association does not cascade), and response
+     * mapping reads the id and username without a session.
+     */
+    public User toUserReference() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setFullName(fullName);
+        user.setGender(gender);
+        user.setDateOfBirth(dateOfBirth);
+        user.setAge(age);
+        return user;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files (-rf json) benchmark by benchmark, and exits with status 1 when
+ * any benchmark got slower than the threshold (10% by default). A difference inside the two runs'
+ * combined error margin is never a regression. Throughput benchmarks regress when their score drops,
+ * the time-based modes when it rises.
+ *
+ * Usage: BenchmarkComparison baseline.json current.json [thresholdPercent]
+ * The recorded baseline is src/test/resources/benchmarks/baseline.json; refresh it by copying
+ * target/jmh-result.json over it after an intended change, on the machine the baseline describes.
+ */
+public class BenchmarkComparison {
+
+    private record Result(String mode, double score, double error, String unit) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison baseline.json current.json [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        int regressions = 0;
+        System.out.printf(Locale.ROOT, "%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-80s %14s %14s %9s%n", entry.getKey(), "-",
+                        format(now), "new");
+                continue;
+            }
+            double change = (now.score() - before.score()) / before.score() * 100;
+            boolean worse = "thrpt".equals(now.mode()) ? change < -threshold : change > threshold;
+            boolean beyondError = Math.abs(now.score() - before.score()) > now.error() + before.error();
+            boolean regression = worse && beyondError;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-80s %14s %14s %+8.1f%%%s%n", entry.getKey(), format(before),
+                    format(now), change, regression ? "  REGRESSION" : "");
+        }
+        for (String name : baseline.keySet()) {
+            if (!current.containsKey(name)) {
+                System.out.printf(Locale.ROOT, "%-80s %14s %14s %9s%n", name, format(baseline.get(name)), "-", "missing");
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf(Locale.ROOT, "%n%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Results keyed by benchmark method and parameters, e.g. "PromptBuildingBenchmark.compactedPrompt:days=90".
+     */
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            String benchmark = run.path("benchmark").asText();
+            StringBuilder name = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.',
+                    benchmark.lastIndexOf('.') - 1) + 1));
+            Map<String, String> params = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonNode> field : run.path("params").properties()) {
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            params.forEach((key, value) -> name.append(':').append(key).append('=').append(value));
+            JsonNode metric = run.path("primaryMetric");
+            double error = metric.path("scoreError").isNumber() ? metric.path("scoreError").asDouble() : 0.0;
+            results.put(name.toString(), new Result(run.path("mode").asText(), metric.path("score").asDouble(),
+                    error, metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private static String format(Result result) {
+        return String.format(Locale.ROOT, "%.3f %s", result.score(), result.unit());
+    }
+}
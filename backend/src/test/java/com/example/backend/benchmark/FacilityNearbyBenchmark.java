@@ -0,0 +1,156 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.response.FacilityResponse;
+import com.example.backend.entity.Facility;
+import com.example.backend.service.FacilityGeoIndex;
+import com.example.backend.service.FacilityService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * GET /api/facilities/nearby over 100,000 facilities, half of them within a degree of the query
+ * point (about 400 inside the 10 km radius): the previous haversine JPQL query ("legacy", a full scan
+ * evaluating the formula in WHERE and ORDER BY) against FacilityService on the FacilityGeoIndex, for
+ * the whole radius and for the 10 nearest. Runs against the in-memory H2 database of the "test" profile.
+ * Each call moves the query point a little, since H2 reuses the result of an identical query.
+ *
+ * Run from backend/:
+ *   mvn -B -Pbenchmark test-compile exec:exec@run-benchmarks -Dbenchmark.include=FacilityNearbyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FacilityNearbyBenchmark {
+
+    static final int FACILITIES = 100_000;
+    static final double RADIUS_KM = 10.0;
+    static final double LATITUDE = -33.8688;
+    static final double LONGITUDE = 151.2093;
+    static final int POINTS = 256;
+
+    private ConfigurableApplicationContext context;
+    private FacilityService facilityService;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private final BigDecimal[][] points = new BigDecimal[POINTS][];
+    private int nextPoint;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.show-sql=false",
+                        "logging.level.org.hibernate.SQL=WARN")
+                .run();
+        facilityService = context.getBean(FacilityService.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        Random random = new Random(42);
+        Facility.FacilityType[] types = Facility.FacilityType.values();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(FACILITIES);
+        for (int i = 0; i < FACILITIES; i++) {
+            double latitude;
+            double longitude;
+            if (i % 2 == 0) {
+                latitude = LATITUDE + random.nextDouble() * 2 - 1;
+                longitude = LONGITUDE + random.nextDouble() * 2 - 1;
+            } else {
+                latitude = -44 + random.nextDouble() * 34;
+                longitude = 113 + random.nextDouble() * 41;
+            }
+            rows.add(new Object[]{types[i % types.length].name(), "Facility " + i,
+                    BigDecimal.valueOf(latitude), BigDecimal.valueOf(longitude),
+                    i % 3 == 0 ? "General Practice, Cardiology" : "Pediatrics", now});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO facilities (facility_type, name, latitude, longitude, specialties, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        context.getBean(FacilityGeoIndex.class).reload();
+        for (int i = 0; i < POINTS; i++) {
+            points[i] = new BigDecimal[]{BigDecimal.valueOf(LATITUDE + random.nextDouble() * 0.2 - 0.1),
+                    BigDecimal.valueOf(LONGITUDE + random.nextDouble() * 0.2 - 0.1)};
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<FacilityResponse> legacy() {
+        BigDecimal[] point = nextPoint();
+        return readOnly.execute(status -> entityManager.createQuery("SELECT f FROM Facility f WHERE " +
+                        "(6371 * acos(cos(radians(:lat)) * cos(radians(f.latitude)) * " +
+                        "cos(radians(f.longitude) - radians(:lng)) + sin(radians(:lat)) * sin(radians(f.latitude)))) < :distance " +
+                        "ORDER BY (6371 * acos(cos(radians(:lat)) * cos(radians(f.latitude)) * " +
+                        "cos(radians(f.longitude) - radians(:lng)) + sin(radians(:lat)) * sin(radians(f.latitude))))",
+                        Facility.class)
+                .setParameter("lat", point[0])
+                .setParameter("lng", point[1])
+                .setParameter("distance", RADIUS_KM)
+                .getResultList().stream()
+                .map(FacilityResponse::fromFacility)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<FacilityResponse> indexedRadius() {
+        BigDecimal[] point = nextPoint();
+        return facilityService.getNearbyFacilities(point[0], point[1], RADIUS_KM, null, null, null);
+    }
+
+    @Benchmark
+    public List<FacilityResponse> indexedNearestTen() {
+        BigDecimal[] point = nextPoint();
+        return facilityService.getNearbyFacilities(point[0], point[1], RADIUS_KM, null, null, 10);
+    }
+
+    private BigDecimal[] nextPoint() {
+        nextPoint = (nextPoint + 1) % POINTS;
+        return points[nextPoint];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FacilityNearbyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.response.FacilityResponse;
+import com.example.backend.entity.Facility;
+import com.example.backend.service.FacilitySearchIndex;
+import com.example.backend.service.FacilityService;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Facility name and specialty search over 100,000 facilities: the previous LIKE '%x%' queries
+ * ("legacy") against FacilitySearchIndex on its own and behind FacilityService (index lookup plus
+ * loading the best 20 by id). Queries rotate through name fragments ("index*" also through one-typo
+ * misspellings the LIKE query cannot match), since H2 reuses the result of an identical query.
+ * Runs against the in-memory H2 database of the "test" profile.
+ *
+ * Run from backend/:
+ *   mvn -B -Pbenchmark test-compile exec:exec@run-benchmarks -Dbenchmark.include=FacilitySearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FacilitySearchBenchmark {
+
+    static final int FACILITIES = 100_000;
+    static final int LIMIT = 20;
+    static final String[] PLACES = {"Wellington", "Auckland", "Christchurch", "Hamilton", "Tauranga", "Dunedin",
+            "Napier", "Nelson", "Rotorua", "Whangarei", "Invercargill", "Palmerston", "Gisborne", "Timaru"};
+    static final String[] KINDS = {"Medical Centre", "Family Practice", "Health Clinic", "Hospital", "Pharmacy",
+            "Urgent Care", "Community Health", "Specialist Rooms"};
+    static final String[] SPECIALTIES = {"General Practice", "Cardiology", "Pediatrics", "Dermatology", "Emergency",
+            "Orthopaedics", "Mental Health", "Radiology", "Oncology", "Physiotherapy", "Obstetrics", "Neurology"};
+    static final String[] NAME_QUERIES = {"wellington medical", "auckland", "christchurch family", "hamilton urg",
+            "dunedin hosp", "napier health", "nelson pharm", "rotorua comm", "specialist", "gisborne"};
+    static final String[] NAME_TYPOS = {"welington medical", "aukland", "christchruch family", "hamliton urgent",
+            "dunedin hospitl", "napeir health", "nelson pharmcy", "rotoura community", "specalist", "gisbrone"};
+    static final String[] SPECIALTY_QUERIES = {"cardio", "pediatrics", "derm", "mental health", "radiology",
+            "onco", "physio", "obstetrics", "neuro", "orthopaedics"};
+
+    private ConfigurableApplicationContext context;
+    private FacilityService facilityService;
+    private FacilitySearchIndex facilitySearchIndex;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private int nextQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.show-sql=false",
+                        "logging.level.org.hibernate.SQL=WARN")
+                .run();
+        facilityService = context.getBean(FacilityService.class);
+        facilitySearchIndex = context.getBean(FacilitySearchIndex.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        Random random = new Random(42);
+        Facility.FacilityType[] types = Facility.FacilityType.values();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(FACILITIES);
+        for (int i = 0; i < FACILITIES; i++) {
+            String name = PLACES[random.nextInt(PLACES.length)] + " " + KINDS[random.nextInt(KINDS.length)] + " " + i;
+            String specialties = SPECIALTIES[random.nextInt(SPECIALTIES.length)] + ", "
+                    + SPECIALTIES[random.nextInt(SPECIALTIES.length)];
+            rows.add(new Object[]{types[i % types.length].name(), name, BigDecimal.ZERO, BigDecimal.ZERO,
+                    specialties, now});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO facilities (facility_type, name, latitude, longitude, specialties, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?)", rows);
+        facilitySearchIndex.reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<FacilityResponse> legacyName() {
+        return legacy("SELECT f FROM Facility f WHERE LOWER(f.name) LIKE LOWER(CONCAT('%', :q, '%'))",
+                NAME_QUERIES[next()]);
+    }
+
+    @Benchmark
+    public List<FacilityResponse> legacySpecialty() {
+        return legacy("SELECT f FROM Facility f WHERE LOWER(f.specialties) LIKE LOWER(CONCAT('%', :q, '%'))",
+                SPECIALTY_QUERIES[next()]);
+    }
+
+    @Benchmark
+    public List<Long> indexName() {
+        return facilitySearchIndex.searchByName(NAME_QUERIES[next()], LIMIT);
+    }
+
+    @Benchmark
+    public List<Long> indexNameWithTypo() {
+        return facilitySearchIndex.searchByName(NAME_TYPOS[next()], LIMIT);
+    }
+
+    @Benchmark
+    public List<Long> indexSpecialty() {
+        return facilitySearchIndex.searchBySpecialty(SPECIALTY_QUERIES[next()], LIMIT);
+    }
+
+    @Benchmark
+    public List<FacilityResponse> serviceName() {
+        return facilityService.searchFacilitiesByName(NAME_QUERIES[next()], LIMIT);
+    }
+
+    private List<FacilityResponse> legacy(String jpql, String query) {
+        return readOnly.execute(status -> entityManager.createQuery(jpql, Facility.class)
+                .setParameter("q", query)
+                .getResultList().stream()
+                .map(FacilityResponse::fromFacility)
+                .collect(Collectors.toList()));
+    }
+
+    private int next() {
+        nextQuery = (nextQuery + 1) % NAME_QUERIES.length;
+        return nextQuery;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FacilitySearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
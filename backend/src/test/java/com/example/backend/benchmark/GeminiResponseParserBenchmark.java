@@ -0,0 +1,205 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.service.ai.GeminiResponseParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gemini response parsing: the per-service code that GeminiResponseParser replaced ("legacy")
+ * against the shared parser, on health-plan shaped responses of 8, 16 and 30 KB.
+ * Both paths go from the raw generateContent body to the plan fields.
+ *
+ * Run from backend/:
+ *   mvn -B test-compile
+ *   mvn -B exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.GeminiResponseParserBenchmark
+ * (or any JMH launcher pointed at target/test-classes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeminiResponseParserBenchmark {
+
+    private static final List<String> PLAN_FIELDS = List.of(
+            "planSummary", "dietOverview", "dailyMealPlan", "nutritionGoals", "foodRecommendations",
+            "exerciseOverview", "weeklyWorkoutPlan", "fitnessGoals", "exerciseRecommendations",
+            "lifestyleOverview", "dailyRoutine", "sleepRecommendations", "stressManagementTips",
+            "hydrationGoals", "longTermGoals", "progressTrackingTips", "motivationalNotes");
+
+    @Param({"8", "16", "30"})
+    public int sizeKb;
+
+    private String body;
+    private final GeminiResponseParser parser = new GeminiResponseParser();
+
+    @Setup
+    public void setUp() throws Exception {
+        body = buildResponse(sizeKb * 1024);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) throws Exception {
+        String text = Legacy.extractResponseText(body);
+        String json = Legacy.extractJsonFromText(text);
+        JsonNode node = new ObjectMapper().readTree(json);
+        for (String field : PLAN_FIELDS) {
+            bh.consume(Legacy.extractJsonFieldFromNode(node, field));
+        }
+    }
+
+    @Benchmark
+    public void shared(Blackhole bh) throws Exception {
+        String text = parser.extractText(body);
+        JsonNode node = parser.readJsonObject(text);
+        for (String field : PLAN_FIELDS) {
+            bh.consume(parser.fieldText(node, field));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeminiResponseParserBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * A generateContent envelope whose text is a fenced plan JSON padded to roughly targetBytes,
+     * with safety ratings and usage metadata like the real API returns.
+     */
+    static String buildResponse(int targetBytes) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Object> plan = new HashMap<>();
+        String sentence = "Include a short walk after meals, keep {portions} moderate and drink water regularly. ";
+        int perField = Math.max(1, targetBytes / PLAN_FIELDS.size() / sentence.length());
+        for (int i = 0; i < PLAN_FIELDS.size(); i++) {
+            if (i % 2 == 0) {
+                plan.put(PLAN_FIELDS.get(i), sentence.repeat(perField));
+            } else {
+                plan.put(PLAN_FIELDS.get(i), Collections.nCopies(perField, sentence.trim()));
+            }
+        }
+        String text = "```json\n" + mapper.writerWithDefaultPrettyPrinter().writeValueAsString(plan) + "\n```";
+
+        Map<String, Object> envelope = Map.of(
+                "candidates", List.of(Map.of(
+                        "content", Map.of("role", "model", "parts", List.of(Map.of("text", text))),
+                        "finishReason", "STOP",
+                        "safetyRatings", List.of(
+                                Map.of("category", "HARM_CATEGORY_HARASSMENT", "probability", "NEGLIGIBLE"),
+                                Map.of("category", "HARM_CATEGORY_DANGEROUS_CONTENT", "probability", "NEGLIGIBLE")))),
+                "usageMetadata", Map.of("promptTokenCount", 900, "candidatesTokenCount", 4000, "totalTokenCount", 4900),
+                "modelVersion", "gemini-2.5-flash");
+        return mapper.writeValueAsString(envelope);
+    }
+
+    /**
+     * The parsing code as it was duplicated in each Gemini*Service, minus the console logging.
+     */
+    static final class Legacy {
+
+        static String extractResponseText(String jsonResponse) throws Exception {
+            ObjectMapper mapper = new ObjectMapper();
+            JsonNode rootNode = mapper.readTree(jsonResponse);
+            JsonNode candidates = rootNode.path("candidates");
+            if (!candidates.isArray() || candidates.size() == 0) {
+                return null;
+            }
+            JsonNode parts = candidates.get(0).path("content").path("parts");
+            if (!parts.isArray() || parts.size() == 0) {
+                return null;
+            }
+            JsonNode textNode = parts.get(0).path("text");
+            if (!textNode.isTextual()) {
+                return null;
+            }
+            String extractedText = textNode.asText();
+            if (extractedText.startsWith("```json\n")) {
+                extractedText = extractedText.substring(8);
+            } else if (extractedText.startsWith("```\n")) {
+                extractedText = extractedText.substring(4);
+            } else if (extractedText.startsWith("```json")) {
+                extractedText = extractedText.substring(7);
+            } else if (extractedText.startsWith("```")) {
+                extractedText = extractedText.substring(3);
+            }
+            if (extractedText.endsWith("\n```")) {
+                extractedText = extractedText.substring(0, extractedText.length() - 4);
+            } else if (extractedText.endsWith("```")) {
+                extractedText = extractedText.substring(0, extractedText.length() - 3);
+            }
+            extractedText = extractedText.trim();
+            return extractJsonFromText(extractedText);
+        }
+
+        static String extractJsonFromText(String text) {
+            if (text == null || text.isEmpty()) {
+                return text;
+            }
+            String trimmed = text.trim();
+            if (trimmed.startsWith("{") && trimmed.endsWith("}")) {
+                return trimmed;
+            }
+            int firstBrace = text.indexOf('{');
+            if (firstBrace == -1) {
+                return text;
+            }
+            int braceCount = 0;
+            int lastBrace = -1;
+            for (int i = firstBrace; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '{') {
+                    braceCount++;
+                } else if (c == '}') {
+                    braceCount--;
+                    if (braceCount == 0) {
+                        lastBrace = i;
+                        break;
+                    }
+                }
+            }
+            if (lastBrace > firstBrace) {
+                return text.substring(firstBrace, lastBrace + 1).trim();
+            }
+            return text;
+        }
+
+        static String extractJsonFieldFromNode(JsonNode jsonNode, String fieldName) {
+            JsonNode fieldNode = jsonNode.path(fieldName);
+            if (fieldNode.isArray()) {
+                StringBuilder sb = new StringBuilder();
+                for (JsonNode item : fieldNode) {
+                    if (item.isTextual()) {
+                        sb.append(item.asText()).append("\n");
+                    }
+                }
+                return sb.toString().trim();
+            } else if (fieldNode.isTextual()) {
+                return fieldNode.asText();
+            }
+            return null;
+        }
+    }
+}
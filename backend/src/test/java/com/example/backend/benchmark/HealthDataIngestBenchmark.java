@@ -0,0 +1,127 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.request.HealthDataCreateRequest;
+import com.example.backend.dto.response.HealthDataBulkResponse;
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.HealthDataIngestService;
+import com.example.backend.service.HealthDataService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest throughput in rows per second: 1,000 readings saved one createHealthData call at a time
+ * (one transaction and IDENTITY insert each) against one HealthDataIngestService.ingest call.
+ * Both paths update the rollups. Runs against the in-memory H2 database of the "test" profile,
+ * so it understates the gap on MySQL, where each round trip costs more.
+ *
+ * Run from backend/:
+ *   mvn -B test-compile
+ *   mvn -B exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.HealthDataIngestBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class HealthDataIngestBenchmark {
+
+    static final int ROWS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private HealthDataService healthDataService;
+    private HealthDataIngestService healthDataIngestService;
+
+    private List<HealthDataCreateRequest> rows;
+    private LocalDateTime nextRecordedAt = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.show-sql=false",
+                        "logging.level.org.hibernate.SQL=WARN")
+                .run();
+        healthDataService = context.getBean(HealthDataService.class);
+        healthDataIngestService = context.getBean(HealthDataIngestService.class);
+
+        User user = new User();
+        user.setUsername("ingest-benchmark-user");
+        user.setEmail("ingest-benchmark-user@example.com");
+        user.setPassword("secret-password");
+        Long userId = context.getBean(UserRepository.class).save(user).getId();
+
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            HealthDataCreateRequest request = new HealthDataCreateRequest();
+            request.setUserId(userId);
+            request.setWeight(BigDecimal.valueOf(60 + i % 30));
+            request.setHeight(new BigDecimal("175"));
+            request.setHeartRate(55 + i % 60);
+            request.setSteps(i * 10);
+            request.setSleepHours(i % 12);
+            rows.add(request);
+        }
+    }
+
+    /** Spread each batch over a new minute range, as a device sync would. */
+    @Setup(Level.Invocation)
+    public void advanceTimestamps() {
+        for (HealthDataCreateRequest request : rows) {
+            request.setRecordedAt(nextRecordedAt);
+            nextRecordedAt = nextRecordedAt.plusMinutes(1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void singleRecord(Blackhole blackhole) {
+        for (HealthDataCreateRequest request : rows) {
+            blackhole.consume(healthDataService.createHealthData(request));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public HealthDataBulkResponse bulk() {
+        return healthDataIngestService.ingest(rows);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HealthDataIngestBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.dto.response.HealthDataResponse;
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-record work of the health data endpoints, without the database: HealthData.prePersist
+ * (centimeter height to meters, then BMI), HealthDataResponse.fromHealthData for a page of records,
+ * and writing that page as JSON with an ObjectMapper configured like Spring Boot's.
+ *
+ * Run from backend/ (see the benchmark profile in pom.xml):
+ *   mvn -B -Pbenchmark test-compile exec:exec@run-benchmarks -Dbenchmark.include=HealthDataMappingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HealthDataMappingBenchmark {
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<HealthData> records;
+    private List<HealthDataResponse> responses;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark-user");
+        records = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            HealthData healthData = record(i);
+            healthData.setId((long) i);
+            healthData.setUser(user);
+            healthData.prePersist();
+            records.add(healthData);
+        }
+        responses = records.stream().map(HealthDataResponse::fromHealthData).toList();
+    }
+
+    @Benchmark
+    public HealthData prePersist() {
+        HealthData healthData = record(7);
+        healthData.prePersist();
+        return healthData;
+    }
+
+    @Benchmark
+    public List<HealthDataResponse> mapPage() {
+        List<HealthDataResponse> page = new ArrayList<>(records.size());
+        for (HealthData healthData : records) {
+            page.add(HealthDataResponse.fromHealthData(healthData));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HealthDataMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static HealthData record(int i) {
+        HealthData healthData = new HealthData();
+        healthData.setRecordedAt(LocalDateTime.of(2026, 1, 1, 8, 0).plusMinutes(i));
+        healthData.setWeight(BigDecimal.valueOf(700 + i % 50, 1));
+        healthData.setHeight(BigDecimal.valueOf(165 + i % 20));
+        healthData.setSystolicPressure(110 + i % 30);
+        healthData.setDiastolicPressure(70 + i % 20);
+        healthData.setHeartRate(55 + i % 60);
+        healthData.setSteps(i * 37 % 20000);
+        healthData.setSleepHours(5 + i % 5);
+        healthData.setNotes("Morning reading");
+        return healthData;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.request.HealthDataCreateRequest;
+import com.example.backend.dto.response.HealthDataResponse;
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.HealthDataIngestService;
+import com.example.backend.service.HealthDataRollupService;
+import com.example.backend.service.HealthDataService;
+import com.example.backend.service.ai.HealthDataPromptCompactor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the health data part of an assessment prompt for a user with 10,000 readings over 30 days:
+ * the previous implementation ("legacy": load every record in the window, one line per record)
+ * against the rollup-based summary compacted to gemini.prompt.health-data-max-tokens.
+ * Runs against the in-memory H2 database of the "test" profile.
+ *
+ * The estimated prompt tokens of both (four characters per token, as GeminiClient estimates)
+ * are printed before the first iteration.
+ *
+ * Run from backend/:
+ *   mvn -B test-compile
+ *   mvn -B exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.HealthDataPromptBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class HealthDataPromptBenchmark {
+
+    static final int READINGS = 10_000;
+    static final int DAYS = 30;
+
+    private ConfigurableApplicationContext context;
+    private HealthDataService healthDataService;
+    private HealthDataRollupService healthDataRollupService;
+    private HealthDataPromptCompactor promptCompactor;
+
+    private Long userId;
+    private LocalDate firstDay;
+    private LocalDate lastDay;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.show-sql=false",
+                        "logging.level.org.hibernate.SQL=WARN")
+                .run();
+        healthDataService = context.getBean(HealthDataService.class);
+        healthDataRollupService = context.getBean(HealthDataRollupService.class);
+        promptCompactor = context.getBean(HealthDataPromptCompactor.class);
+
+        User user = new User();
+        user.setUsername("prompt-benchmark-user");
+        user.setEmail("prompt-benchmark-user@example.com");
+        user.setPassword("secret-password");
+        userId = context.getBean(UserRepository.class).save(user).getId();
+
+        lastDay = LocalDate.of(2026, 1, 31);
+        firstDay = lastDay.minusDays(DAYS - 1);
+        long minutesBetween = DAYS * 24L * 60 / READINGS;
+        List<HealthDataCreateRequest> rows = new ArrayList<>(READINGS);
+        for (int i = 0; i < READINGS; i++) {
+            HealthDataCreateRequest request = new HealthDataCreateRequest();
+            request.setUserId(userId);
+            request.setRecordedAt(firstDay.atStartOfDay().plusMinutes(i * minutesBetween));
+            request.setWeight(BigDecimal.valueOf(700 + i % 50, 1));
+            request.setHeight(new BigDecimal("175"));
+            request.setHeartRate(55 + i % 60);
+            request.setSystolicPressure(110 + i % 30);
+            request.setDiastolicPressure(70 + i % 20);
+            request.setSteps(i % 20000);
+            request.setSleepHours(5 + i % 5);
+            rows.add(request);
+        }
+        context.getBean(HealthDataIngestService.class).ingest(rows);
+
+        System.out.printf("%n  estimated prompt tokens: legacy %d, compacted %d%n",
+                (legacy().length() + 3) / 4, (compacted().length() + 3) / 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacyFormat(healthDataService.getHealthDataByUserAndDateRange(
+                userId, firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay()));
+    }
+
+    @Benchmark
+    public String compacted() {
+        return promptCompactor.compact(healthDataRollupService.summarize(userId, firstDay, lastDay));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HealthDataPromptBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /**
+     * GeminiAssessmentService.formatHealthDataForGemini as it was before the rollup-based summary.
+     */
+    private static String legacyFormat(List<HealthDataResponse> dataList) {
+        if (dataList == null || dataList.isEmpty()) {
+            return "No health data available.";
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Total %d records:\n", dataList.size()));
+        for (HealthDataResponse d : dataList) {
+            sb.append("- ");
+            if (d.getBmi() != null) sb.append(String.format("BMI: %.1f, ", d.getBmi().doubleValue()));
+            if (d.getSystolicPressure() != null && d.getDiastolicPressure() != null)
+                sb.append(String.format("BP: %d/%d, ", d.getSystolicPressure(), d.getDiastolicPressure()));
+            if (d.getHeartRate() != null) sb.append(String.format("HR: %d, ", d.getHeartRate()));
+            if (d.getSleepHours() != null) sb.append(String.format("Sleep: %d h, ", d.getSleepHours()));
+            if (d.getSteps() != null) sb.append(String.format("Steps: %d", d.getSteps()));
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
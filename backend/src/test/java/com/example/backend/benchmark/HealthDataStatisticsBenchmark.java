@@ -0,0 +1,207 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.BackendApplication;
+import com.example.backend.dto.response.HealthDataResponse;
+import com.example.backend.dto.response.HealthDataStatisticsResponse;
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.HealthDataService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * HealthDataService.getHealthDataStatistics for a user with 100k readings in the window:
+ * the previous implementation ("legacy": load every row, then one AVG query per metric) against
+ * the single aggregate query plus a LIMIT 10 query for the recent records.
+ * Runs against the in-memory H2 database of the "test" profile.
+ *
+ * Round trips per call are printed at the end of each run (from Hibernate statistics);
+ * heap allocated per call is the gc.alloc.rate.norm line of the GC profiler.
+ *
+ * Run from backend/:
+ *   mvn -B test-compile
+ *   mvn -B exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.backend.benchmark.HealthDataStatisticsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class HealthDataStatisticsBenchmark {
+
+    static final int READINGS = 100_000;
+
+    private ConfigurableApplicationContext context;
+    private HealthDataService healthDataService;
+    private UserRepository userRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnly;
+    private Statistics statistics;
+
+    private Long userId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    private long statementsBefore;
+    private long callsBefore;
+    private long calls;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.properties.hibernate.generate_statistics=true",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN")
+                .run();
+        healthDataService = context.getBean(HealthDataService.class);
+        userRepository = context.getBean(UserRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setUsername("benchmark-user");
+        user.setEmail("benchmark-user@example.com");
+        user.setPassword("secret-password");
+        userId = userRepository.save(user).getId();
+
+        endDate = LocalDateTime.of(2026, 1, 1, 0, 0);
+        startDate = endDate.minusMinutes(READINGS);
+        List<Object[]> rows = new ArrayList<>(READINGS);
+        for (int i = 0; i < READINGS; i++) {
+            LocalDateTime recordedAt = startDate.plusMinutes(i);
+            rows.add(new Object[]{userId, Timestamp.valueOf(recordedAt), BigDecimal.valueOf(60 + i % 30),
+                    BigDecimal.valueOf(20 + i % 10), 55 + i % 60, i % 20000, i % 12, i % 90, "NEUTRAL",
+                    Timestamp.valueOf(recordedAt)});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO health_data (user_id, recorded_at, weight, bmi, heart_rate, steps, sleep_hours, " +
+                "exercise_minutes, mood, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Setup(Level.Iteration)
+    public void markIteration() {
+        statementsBefore = statistics.getPrepareStatementCount();
+        callsBefore = calls;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportRoundTrips() {
+        long iterationCalls = calls - callsBefore;
+        if (iterationCalls > 0) {
+            System.out.printf("%n  round trips per call: %.1f%n",
+                    (double) (statistics.getPrepareStatementCount() - statementsBefore) / iterationCalls);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HealthDataStatisticsResponse legacy() {
+        calls++;
+        return readOnly.execute(status -> legacyStatistics(userId, startDate, endDate));
+    }
+
+    @Benchmark
+    public HealthDataStatisticsResponse aggregate() {
+        calls++;
+        return healthDataService.getHealthDataStatistics(userId, startDate, endDate);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HealthDataStatisticsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * getHealthDataStatistics as it was before the aggregate query, with the AVG queries inlined.
+     */
+    private HealthDataStatisticsResponse legacyStatistics(Long userId, LocalDateTime startDate, LocalDateTime endDate) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        HealthDataStatisticsResponse statistics = new HealthDataStatisticsResponse();
+        statistics.setUserId(userId);
+        statistics.setUsername(user.getUsername());
+        statistics.setStartDate(startDate);
+        statistics.setEndDate(endDate);
+
+        List<HealthData> healthDataList = entityManager.createQuery(
+                        "SELECT h FROM HealthData h WHERE h.user = :user AND h.recordedAt BETWEEN :startDate AND :endDate " +
+                        "ORDER BY h.recordedAt DESC", HealthData.class)
+                .setParameter("user", user)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList();
+        statistics.setTotalRecords((long) healthDataList.size());
+
+        if (!healthDataList.isEmpty()) {
+            Double avgWeight = average(user, startDate, "weight");
+            Double avgBMI = average(user, startDate, "bmi");
+            statistics.setAverageWeight(avgWeight != null ? BigDecimal.valueOf(avgWeight) : null);
+            statistics.setAverageBMI(avgBMI != null ? BigDecimal.valueOf(avgBMI) : null);
+            statistics.setAverageHeartRate(average(user, startDate, "heartRate"));
+            statistics.setAverageSteps(average(user, startDate, "steps"));
+            statistics.setAverageSleepHours(average(user, startDate, "sleepHours"));
+            statistics.setAverageExerciseMinutes(average(user, startDate, "exerciseMinutes"));
+
+            List<HealthDataResponse> recentRecords = healthDataList.stream()
+                    .limit(10)
+                    .map(HealthDataResponse::fromHealthData)
+                    .collect(Collectors.toList());
+            statistics.setRecentRecords(recentRecords);
+        }
+        return statistics;
+    }
+
+    private Double average(User user, LocalDateTime startDate, String field) {
+        return entityManager.createQuery("SELECT AVG(h." + field + ") FROM HealthData h WHERE h.user = :user AND h."
+                        + field + " IS NOT NULL AND h.recordedAt >= :startDate", Double.class)
+                .setParameter("user", user)
+                .setParameter("startDate", startDate)
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.backend.benchmark;
+
+import com.example.backend.entity.HealthAssessment;
+import com.example.backend.entity.HealthDataRollup;
+import com.example.backend.service.ai.GeminiAssessmentService;
+import com.example.backend.service.ai.HealthDataPromptCompactor;
+import com.example.backend.service.ai.HealthDataSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU side of an assessment once the HealthDataSummary is loaded: rendering its statistics,
+ * compacting it to the default 800-token budget (which buckets the longer series), and the
+ * rule-based assessment used when Gemini is unavailable. Summaries have every metric recorded on
+ * every day of the window.
+ *
+ * Run from backend/ (see the benchmark profile in pom.xml):
+ *   mvn -B -Pbenchmark test-compile exec:exec@run-benchmarks -Dbenchmark.include=PromptBuildingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBuildingBenchmark {
+
+    private static final int TOKEN_BUDGET = 800;
+
+    @Param({"30", "90"})
+    public int days;
+
+    private final HealthDataPromptCompactor compactor = new HealthDataPromptCompactor();
+    private final GeminiAssessmentService assessmentService = new GeminiAssessmentService();
+    private HealthDataSummary summary;
+
+    @Setup
+    public void setUp() {
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        Map<HealthDataRollup.Metric, HealthDataSummary.MetricSummary> metrics = new EnumMap<>(HealthDataRollup.Metric.class);
+        for (HealthDataRollup.Metric metric : HealthDataRollup.Metric.values()) {
+            double base = 20 + metric.ordinal() * 15;
+            List<HealthDataSummary.DailyValue> daily = new ArrayList<>(days);
+            double sum = 0;
+            for (int i = 0; i < days; i++) {
+                double mean = base + i % 7 + (i > days / 2 ? base / 10 : 0);
+                daily.add(new HealthDataSummary.DailyValue(from.plusDays(i), 300, mean, mean - 5, mean + 5));
+                sum += mean;
+            }
+            metrics.put(metric, new HealthDataSummary.MetricSummary(300L * days, sum / days, base - 5,
+                    base + base / 10 + 11, 4.2, 0.8, List.of(daily.get(days / 3)), daily));
+        }
+        summary = new HealthDataSummary(from, from.plusDays(days - 1), days, metrics);
+    }
+
+    @Benchmark
+    public String statisticsText() {
+        return summary.toPromptText();
+    }
+
+    @Benchmark
+    public String compactedPrompt() {
+        return compactor.compact(summary, TOKEN_BUDGET);
+    }
+
+    @Benchmark
+    public HealthAssessment heuristicAssessment() {
+        return assessmentService.buildHeuristicAssessment(summary, HealthAssessment.AssessmentType.GENERAL);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PromptBuildingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class HealthDataRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime END = LocalDateTime.of(2026, 1, 31, 23, 59);
+
+    @Autowired
+    private HealthDataRepository healthDataRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("stats-user");
+        user.setEmail("stats-user@example.com");
+        user.setPassword("secret-password");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void aggregateCoversExactlyTheWindowAndSkipsMissingMetrics() {
+        save(START, new BigDecimal("70.00"), 60, 8000);
+        save(START.plusDays(10), new BigDecimal("74.00"), 80, null);
+        save(END, null, 70, 4000);
+        // outside the window on both sides
+        save(START.minusMinutes(1), new BigDecimal("200.00"), 200, 99999);
+        save(END.plusMinutes(1), new BigDecimal("200.00"), 200, 99999);
+
+        HealthDataAggregate aggregate = healthDataRepository.aggregateByUserIdAndDateRange(user.getId(), START, END);
+
+        assertThat(aggregate.totalRecords()).isEqualTo(3L);
+        assertThat(aggregate.averageWeight()).isEqualTo(72.0);
+        assertThat(aggregate.minWeight()).isEqualByComparingTo("70.00");
+        assertThat(aggregate.maxWeight()).isEqualByComparingTo("74.00");
+        assertThat(aggregate.averageHeartRate()).isEqualTo(70.0);
+        assertThat(aggregate.minHeartRate()).isEqualTo(60);
+        assertThat(aggregate.maxHeartRate()).isEqualTo(80);
+        assertThat(aggregate.averageSteps()).isEqualTo(6000.0);
+        assertThat(aggregate.averageSleepHours()).isNull();
+        assertThat(aggregate.maxExerciseMinutes()).isNull();
+    }
+
+    @Test
+    void aggregateOfEmptyWindowHasZeroCount() {
+        HealthDataAggregate aggregate = healthDataRepository.aggregateByUserIdAndDateRange(user.getId(), START, END);
+
+        assertThat(aggregate.totalRecords()).isZero();
+        assertThat(aggregate.averageWeight()).isNull();
+    }
+
+    @Test
+    void recentRecordsAreTheTenNewestInTheWindow() {
+        for (int day = 0; day < 15; day++) {
+            save(START.plusDays(day), null, 60 + day, null);
+        }
+        save(END.plusDays(1), null, 200, null);
+
+        List<HealthData> recent = healthDataRepository
+                .findTop10ByUserIdAndRecordedAtBetweenOrderByRecordedAtDesc(user.getId(), START, END);
+
+        assertThat(recent).hasSize(10);
+        assertThat(recent.get(0).getHeartRate()).isEqualTo(74);
+        assertThat(recent.get(9).getHeartRate()).isEqualTo(65);
+    }
+
+    private void save(LocalDateTime recordedAt, BigDecimal weight, Integer heartRate, Integer steps) {
+        HealthData data = new HealthData();
+        data.setUser(user);
+        data.setRecordedAt(recordedAt);
+        data.setWeight(weight);
+        data.setHeartRate(heartRate);
+        data.setSteps(steps);
+        healthDataRepository.save(data);
+    }
+}
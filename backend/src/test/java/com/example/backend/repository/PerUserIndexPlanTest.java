@@ -0,0 +1,105 @@
+package com.example.backend.repository;
+
+import com.example.backend.migration.V2__Per_user_time_indexes;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Query-plan regression test: per-user queries bounded on the timestamp must range-scan the composite
+ * (user_id, timestamp) indexes rather than the plain user_id foreign key index. H2 does not credit an
+ * index for an ORDER BY that follows an equality prefix, so unbounded "latest first" lists tie with the
+ * foreign key index here and only bounded ranges and keyset pages are checked.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PerUserIndexPlanTest {
+
+    private static final String FROM = "TIMESTAMP '2026-01-01 00:00:00'";
+    private static final String TO = "TIMESTAMP '2026-02-01 00:00:00'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void healthDataRangesAndKeysetPagesUseUserRecordedAtIndex() {
+        assertUsesIndex("SELECT * FROM health_data WHERE user_id = 1 " +
+                        "AND recorded_at BETWEEN " + FROM + " AND " + TO + " ORDER BY recorded_at DESC",
+                "idx_health_data_user_recorded_at");
+        // Shape of HealthDataRepository.findPageByUserId
+        assertUsesIndex("SELECT * FROM health_data WHERE user_id = 1 AND recorded_at <= " + TO +
+                        " AND (recorded_at < " + TO + " OR (recorded_at = " + TO + " AND id < 42)) " +
+                        "ORDER BY recorded_at DESC, id DESC LIMIT 51",
+                "idx_health_data_user_recorded_at");
+    }
+
+    @Test
+    void otherPerUserHistoriesUseTheirIndexes() {
+        assertUsesIndex("SELECT * FROM health_assessments WHERE user_id = 1 " +
+                        "AND assessed_at BETWEEN " + FROM + " AND " + TO + " ORDER BY assessed_at DESC",
+                "idx_health_assessments_user_assessed_at");
+        assertUsesIndex("SELECT * FROM health_plans WHERE user_id = 1 " +
+                        "AND plan_date BETWEEN " + FROM + " AND " + TO + " ORDER BY plan_date DESC",
+                "idx_health_plans_user_plan_date");
+        assertUsesIndex("SELECT * FROM smart_triage WHERE user_id = 1 AND triage_time >= " + FROM +
+                        " ORDER BY triage_time DESC",
+                "idx_smart_triage_user_triage_time");
+        assertUsesIndex("SELECT * FROM gp_appointments WHERE user_id = 1 AND appointment_date >= " + FROM +
+                        " ORDER BY appointment_date DESC",
+                "idx_gp_appointments_user_appointment_date");
+        assertUsesIndex("SELECT * FROM diet_guidance WHERE user_id = 1 AND created_at >= " + FROM +
+                        " ORDER BY created_at DESC",
+                "idx_diet_guidance_user_created_at");
+        assertUsesIndex("SELECT * FROM medication_guidance WHERE user_id = 1 AND created_at >= " + FROM +
+                        " ORDER BY created_at DESC",
+                "idx_medication_guidance_user_created_at");
+        assertUsesIndex("SELECT * FROM insurance_recommendations WHERE user_id = 1 AND recommendation_date >= " + FROM +
+                        " ORDER BY recommendation_date DESC",
+                "idx_insurance_recommendations_user_recommendation_date");
+    }
+
+    @Test
+    void migrationCreatesMissingIndexesAndIsIdempotent() throws Exception {
+        jdbcTemplate.execute("DROP INDEX idx_smart_triage_user_triage_time");
+
+        try (Connection connection = dataSource.getConnection()) {
+            Context context = mock(Context.class);
+            when(context.getConnection()).thenReturn(connection);
+            V2__Per_user_time_indexes migration = new V2__Per_user_time_indexes();
+
+            migration.migrate(context);
+            migration.migrate(context);
+
+            try (ResultSet indexes = connection.getMetaData().getIndexInfo(
+                    connection.getCatalog(), connection.getSchema(), "smart_triage", false, false)) {
+                boolean found = false;
+                while (indexes.next()) {
+                    found |= "idx_smart_triage_user_triage_time".equalsIgnoreCase(indexes.getString("INDEX_NAME"));
+                }
+                assertThat(found).isTrue();
+            }
+        }
+        assertUsesIndex("SELECT * FROM smart_triage WHERE user_id = 1 AND triage_time >= " + FROM +
+                        " ORDER BY triage_time DESC",
+                "idx_smart_triage_user_triage_time");
+    }
+
+    private void assertUsesIndex(String sql, String index) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        assertThat(plan).as(sql).containsIgnoringCase(index);
+    }
+}
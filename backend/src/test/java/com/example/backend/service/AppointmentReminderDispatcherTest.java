@@ -0,0 +1,261 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.GpAppointmentRequest;
+import com.example.backend.dto.response.GpAppointmentResponse;
+import com.example.backend.entity.Facility;
+import com.example.backend.entity.GpAppointment;
+import com.example.backend.entity.User;
+import com.example.backend.migration.V4__Appointment_reminders;
+import com.example.backend.repository.FacilityRepository;
+import com.example.backend.repository.GpAppointmentRepository;
+import com.example.backend.repository.UserRepository;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reminders go out once at their time, follow cancels and reschedules, are retried until the
+ * notifier succeeds, and after a restart only the next horizon window is loaded again; plus the
+ * migration that adds reminder_sent_at to an existing database.
+ * Runs on its own in-memory database so no other test context's dispatcher sends these reminders.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reminders;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "appointments.reminders.tick-millis=20",
+        "appointments.reminders.horizon-minutes=60",
+        "appointments.reminders.retry-millis=50",
+        "appointments.reminders.max-retry-millis=200"
+})
+@ActiveProfiles("test")
+class AppointmentReminderDispatcherTest {
+
+    private static final String INDEX = "idx_gp_appointments_reminder_sent_at_reminder_time";
+
+    @TestConfiguration
+    static class RecordingNotifierConfig {
+
+        @Bean
+        @Primary
+        RecordingNotifier recordingNotifier() {
+            return new RecordingNotifier();
+        }
+    }
+
+    /** Records every send; fails the next failuresLeft sends. */
+    static class RecordingNotifier implements AppointmentReminderNotifier {
+
+        final List<AppointmentReminder> sent = new CopyOnWriteArrayList<>();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+
+        @Override
+        public void send(AppointmentReminder reminder) {
+            calls.incrementAndGet();
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new RuntimeException("Notifier unavailable");
+            }
+            sent.add(reminder);
+        }
+
+        long sentFor(Long appointmentId) {
+            return sent.stream().filter(reminder -> reminder.appointmentId().equals(appointmentId)).count();
+        }
+    }
+
+    @Autowired
+    private AppointmentReminderDispatcher dispatcher;
+
+    @Autowired
+    private RecordingNotifier notifier;
+
+    @Autowired
+    private GpAppointmentService gpAppointmentService;
+
+    @Autowired
+    private GpAppointmentRepository gpAppointmentRepository;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Facility facility;
+    private User user;
+    private LocalDateTime morning;
+
+    @BeforeEach
+    void setUp() {
+        String marker = "reminders-" + System.nanoTime();
+        facility = new Facility();
+        facility.setName(marker + " clinic");
+        facility = facilityRepository.save(facility);
+
+        user = new User();
+        user.setUsername(marker);
+        user.setEmail(marker + "@example.com");
+        user.setPassword("secret-password");
+        user = userRepository.save(user);
+
+        morning = LocalDate.now().plusDays(2).atTime(9, 0);
+        notifier.failuresLeft.set(0);
+    }
+
+    @Test
+    void dueReminderIsSentOnceAndRecorded() throws Exception {
+        GpAppointmentResponse booked = book(morning, LocalDateTime.now().plusNanos(200_000_000));
+
+        awaitTrue(() -> notifier.sentFor(booked.getAppointmentId()) == 1);
+        awaitTrue(() -> sentAt(booked.getAppointmentId()) != null);
+        Thread.sleep(200);
+
+        assertThat(notifier.sentFor(booked.getAppointmentId())).isEqualTo(1);
+        AppointmentReminder reminder = notifier.sent.stream()
+                .filter(sent -> sent.appointmentId().equals(booked.getAppointmentId()))
+                .findFirst().orElseThrow();
+        assertThat(reminder.email()).isEqualTo(user.getEmail());
+        assertThat(reminder.facilityName()).isEqualTo(facility.getName());
+        assertThat(reminder.appointmentDate()).isEqualTo(morning);
+        assertThat(dispatcher.isScheduled(booked.getAppointmentId())).isFalse();
+    }
+
+    @Test
+    void cancelAndRescheduleMoveTheReminder() {
+        GpAppointmentResponse cancelled = book(morning, LocalDateTime.now().plusMinutes(30));
+        assertThat(dispatcher.isScheduled(cancelled.getAppointmentId())).isTrue();
+        gpAppointmentService.cancelAppointment(cancelled.getAppointmentId());
+        assertThat(dispatcher.isScheduled(cancelled.getAppointmentId())).isFalse();
+
+        // Moved a day later, the reminder keeps its lead time and leaves the loaded window
+        LocalDateTime reminderTime = LocalDateTime.now().plusMinutes(30).withNano(0);
+        GpAppointmentResponse moved = book(morning.plusHours(1), reminderTime);
+        assertThat(dispatcher.isScheduled(moved.getAppointmentId())).isTrue();
+        GpAppointmentResponse rescheduled = gpAppointmentService.rescheduleAppointment(
+                moved.getAppointmentId(), morning.plusDays(1).plusHours(1));
+
+        assertThat(rescheduled.getReminderTime()).isEqualTo(reminderTime.plusDays(1));
+        assertThat(dispatcher.isScheduled(moved.getAppointmentId())).isFalse();
+
+        // Moved back, it is due again and is sent even though it went out before
+        gpAppointmentRepository.markReminderSent(moved.getAppointmentId(), reminderTime.plusDays(1), LocalDateTime.now());
+        gpAppointmentService.rescheduleAppointment(moved.getAppointmentId(), morning.plusHours(1));
+        assertThat(sentAt(moved.getAppointmentId())).isNull();
+        assertThat(dispatcher.isScheduled(moved.getAppointmentId())).isTrue();
+    }
+
+    @Test
+    void failedSendsAreRetriedUntilDelivered() {
+        notifier.failuresLeft.set(3);
+        int callsBefore = notifier.calls.get();
+        GpAppointmentResponse booked = book(morning, LocalDateTime.now());
+
+        awaitTrue(() -> sentAt(booked.getAppointmentId()) != null);
+
+        assertThat(notifier.sentFor(booked.getAppointmentId())).isEqualTo(1);
+        assertThat(notifier.calls.get() - callsBefore).isEqualTo(4);
+    }
+
+    @Test
+    void reloadSchedulesOnlyPendingRemindersWithinTheHorizon() {
+        // Saved directly, as if written before a restart; nothing is in the wheel for them
+        LocalDateTime now = LocalDateTime.now();
+        GpAppointment overdue = save(morning, now.minusHours(1), GpAppointment.AppointmentStatus.SCHEDULED, null);
+        GpAppointment upcoming = save(morning.plusHours(1), now.plusMinutes(20), GpAppointment.AppointmentStatus.CONFIRMED, null);
+        GpAppointment beyondHorizon = save(morning.plusHours(2), now.plusHours(2), GpAppointment.AppointmentStatus.SCHEDULED, null);
+        GpAppointment alreadySent = save(morning.plusHours(3), now.minusMinutes(5), GpAppointment.AppointmentStatus.SCHEDULED, now.minusMinutes(5));
+        GpAppointment cancelled = save(morning.plusHours(4), now.minusMinutes(5), GpAppointment.AppointmentStatus.CANCELLED, null);
+        GpAppointment past = save(now.minusHours(1), now.minusHours(2), GpAppointment.AppointmentStatus.SCHEDULED, null);
+
+        dispatcher.reload();
+
+        assertThat(dispatcher.isScheduled(upcoming.getAppointmentId())).isTrue();
+        assertThat(dispatcher.isScheduled(beyondHorizon.getAppointmentId())).isFalse();
+        awaitTrue(() -> notifier.sentFor(overdue.getAppointmentId()) == 1);
+        for (GpAppointment appointment : List.of(beyondHorizon, alreadySent, cancelled, past)) {
+            assertThat(dispatcher.isScheduled(appointment.getAppointmentId())).isFalse();
+            assertThat(notifier.sentFor(appointment.getAppointmentId())).isZero();
+        }
+    }
+
+    @Test
+    void migrationAddsTheColumnAndIndexOnce() throws Exception {
+        jdbcTemplate.execute("DROP INDEX " + INDEX);
+        jdbcTemplate.execute("ALTER TABLE gp_appointments DROP COLUMN reminder_sent_at");
+
+        try (Connection connection = dataSource.getConnection()) {
+            Context context = mock(Context.class);
+            when(context.getConnection()).thenReturn(connection);
+            new V4__Appointment_reminders().migrate(context);
+            new V4__Appointment_reminders().migrate(context);
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.indexes " +
+                "WHERE index_name = ?", Integer.class, INDEX)).isPositive();
+        GpAppointmentResponse booked = book(morning, LocalDateTime.now());
+        awaitTrue(() -> sentAt(booked.getAppointmentId()) != null);
+    }
+
+    private GpAppointmentResponse book(LocalDateTime start, LocalDateTime reminderTime) {
+        GpAppointmentRequest request = new GpAppointmentRequest();
+        request.setUserId(user.getId());
+        request.setFacilityId(facility.getFacilityId());
+        request.setAppointmentDate(start);
+        request.setReminderTime(reminderTime);
+        return gpAppointmentService.bookAppointment(request);
+    }
+
+    private GpAppointment save(LocalDateTime start, LocalDateTime reminderTime,
+                               GpAppointment.AppointmentStatus status, LocalDateTime reminderSentAt) {
+        GpAppointment appointment = new GpAppointment();
+        appointment.setUser(user);
+        appointment.setFacility(facility);
+        appointment.setAppointmentDate(start);
+        appointment.setReminderTime(reminderTime);
+        appointment.setReminderSentAt(reminderSentAt);
+        appointment.setStatus(status);
+        return gpAppointmentRepository.save(appointment);
+    }
+
+    private LocalDateTime sentAt(Long appointmentId) {
+        return gpAppointmentRepository.findById(appointmentId).orElseThrow().getReminderSentAt();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 10 s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Facility;
+import com.example.backend.repository.FacilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Index answers must equal a brute-force haversine scan, including near the antimeridian and the poles.
+ */
+class FacilityGeoIndexTest {
+
+    private final List<Facility> facilities = new ArrayList<>();
+    private FacilityGeoIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(7);
+        long id = 1;
+        // Clusters around Sydney, Auckland (close to the antimeridian) and Svalbard, plus a global scatter
+        double[][] centers = {{-33.87, 151.21}, {-36.85, 174.76}, {-37.0, 179.95}, {78.2, 15.6}};
+        for (double[] center : centers) {
+            for (int i = 0; i < 400; i++) {
+                facilities.add(facility(id++, center[0] + random.nextGaussian() * 0.3,
+                        wrap(center[1] + random.nextGaussian() * 0.3), random));
+            }
+        }
+        for (int i = 0; i < 400; i++) {
+            facilities.add(facility(id++, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180, random));
+        }
+
+        FacilityRepository repository = mock(FacilityRepository.class);
+        when(repository.findAll()).thenReturn(facilities);
+        index = new FacilityGeoIndex();
+        ReflectionTestUtils.setField(index, "facilityRepository", repository);
+        ReflectionTestUtils.setField(index, "refreshSeconds", 60L);
+    }
+
+    @Test
+    void radiusQueriesMatchBruteForce() {
+        double[][] queries = {{-33.87, 151.21, 5}, {-33.5, 151.0, 40}, {-37.0, -179.9, 60}, {-36.9, 179.99, 300},
+                {78.2, 15.6, 25}, {89.5, 0, 200}, {-89.9, 10, 500}, {0, 0, 3000}, {10, 20, 20_000}};
+        for (double[] query : queries) {
+            assertThat(index.withinRadius(query[0], query[1], query[2], null, null))
+                    .as("lat %s lng %s radius %s", query[0], query[1], query[2])
+                    .isEqualTo(bruteForce(query[0], query[1], query[2], null, null));
+        }
+    }
+
+    @Test
+    void filtersByTypeAndSpecialty() {
+        List<FacilityGeoIndex.Hit> hits = index.withinRadius(-33.87, 151.21, 50, Facility.FacilityType.CLINIC, "Cardio");
+
+        assertThat(hits).isNotEmpty()
+                .isEqualTo(bruteForce(-33.87, 151.21, 50, Facility.FacilityType.CLINIC, "cardio"));
+    }
+
+    @Test
+    void nearestReturnsTheKClosest() {
+        List<FacilityGeoIndex.Hit> all = bruteForce(-36.85, 174.76, 20_000, null, null);
+
+        assertThat(index.nearest(-36.85, 174.76, 10, 20_000, null, null)).isEqualTo(all.subList(0, 10));
+        assertThat(index.nearest(-36.85, 174.76, 10, 1, null, null))
+                .isEqualTo(bruteForce(-36.85, 174.76, 1, null, null).stream().limit(10).toList());
+    }
+
+    @Test
+    void nearestRejectsALimitBelowOne() {
+        assertThatThrownBy(() -> index.nearest(-36.85, 174.76, 0, 20_000, null, null))
+                .hasMessage("limit must be at least 1");
+        assertThatThrownBy(() -> index.nearest(-36.85, 174.76, -3, 20_000, null, null))
+                .hasMessage("limit must be at least 1");
+    }
+
+    @Test
+    void putAndRemoveUpdateTheIndex() {
+        Facility added = facility(100_000L, 51.5, -0.12, new Random(1));
+        index.put(added);
+
+        assertThat(index.withinRadius(51.5, -0.12, 1, null, null))
+                .extracting(FacilityGeoIndex.Hit::facilityId).contains(100_000L);
+
+        index.remove(100_000L);
+
+        assertThat(index.withinRadius(51.5, -0.12, 1, null, null))
+                .extracting(FacilityGeoIndex.Hit::facilityId).doesNotContain(100_000L);
+        assertThat(index.size()).isEqualTo(facilities.size());
+    }
+
+    @Test
+    void reloadsFacilitiesWrittenElsewhereAfterTheRefreshInterval() {
+        assertThat(index.size()).isEqualTo(facilities.size());
+        facilities.add(facility(100_001L, 51.5, -0.12, new Random(1)));
+
+        assertThat(index.withinRadius(51.5, -0.12, 1, null, null)).isEmpty();
+
+        ReflectionTestUtils.setField(index, "refreshAtNanos", System.nanoTime());
+
+        assertThat(index.withinRadius(51.5, -0.12, 1, null, null))
+                .extracting(FacilityGeoIndex.Hit::facilityId).containsExactly(100_001L);
+    }
+
+    private List<FacilityGeoIndex.Hit> bruteForce(double latitude, double longitude, double radiusKm,
+                                                  Facility.FacilityType type, String specialty) {
+        List<FacilityGeoIndex.Hit> hits = new ArrayList<>();
+        for (Facility facility : facilities) {
+            double distance = FacilityGeoIndex.distanceKm(latitude, longitude,
+                    facility.getLatitude().doubleValue(), facility.getLongitude().doubleValue());
+            boolean typeMatches = type == null || facility.getFacilityType() == type;
+            boolean specialtyMatches = specialty == null || facility.getSpecialties().toLowerCase().contains(specialty);
+            if (distance < radiusKm && typeMatches && specialtyMatches) {
+                hits.add(new FacilityGeoIndex.Hit(facility.getFacilityId(), distance));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(FacilityGeoIndex.Hit::distanceKm).thenComparing(FacilityGeoIndex.Hit::facilityId));
+        return hits;
+    }
+
+    private static Facility facility(long id, double latitude, double longitude, Random random) {
+        Facility facility = new Facility();
+        facility.setFacilityId(id);
+        facility.setName("Facility " + id);
+        facility.setLatitude(BigDecimal.valueOf(Math.max(-90, Math.min(90, latitude))));
+        facility.setLongitude(BigDecimal.valueOf(longitude));
+        facility.setFacilityType(Facility.FacilityType.values()[random.nextInt(Facility.FacilityType.values().length)]);
+        facility.setSpecialties(random.nextBoolean() ? "General Practice, Cardiology" : "Pediatrics");
+        return facility;
+    }
+
+    private static double wrap(double longitude) {
+        return longitude > 180 ? longitude - 360 : longitude < -180 ? longitude + 360 : longitude;
+    }
+}
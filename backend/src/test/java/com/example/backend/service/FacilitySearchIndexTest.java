@@ -0,0 +1,197 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Facility;
+import com.example.backend.repository.FacilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Substring matches must equal a brute-force scan of the names and specialties; ranking, typo
+ * tolerance and incremental updates on top of that.
+ */
+class FacilitySearchIndexTest {
+
+    private static final String[] WORDS = {"harbour", "city", "central", "north", "st mary's", "wellington",
+            "family", "health", "medical", "community", "care", "kids", "pharmacy"};
+    private static final String[] SPECIALTIES = {"General Practice", "Cardiology", "Pediatrics", "Dermatology",
+            "Emergency", "Orthopaedics", "Mental Health"};
+
+    private final List<Facility> facilities = new ArrayList<>();
+    private FacilitySearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(11);
+        for (long id = 1; id <= 2000; id++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+            String specialties = SPECIALTIES[random.nextInt(SPECIALTIES.length)] + ", "
+                    + SPECIALTIES[random.nextInt(SPECIALTIES.length)];
+            facilities.add(facility(id, name, specialties));
+        }
+        facilities.add(facility(5001L, "Harbour Clinic", "General Practice"));
+        facilities.add(facility(5002L, "Clinic of the Harbour", "Cardiology"));
+        facilities.add(facility(5003L, "Harbourside Clinic", "Cardiology"));
+        facilities.add(facility(5004L, "Ōtaki Medical Centre", "Mental Health"));
+
+        FacilityRepository repository = mock(FacilityRepository.class);
+        when(repository.findAll()).thenReturn(facilities);
+        index = new FacilitySearchIndex();
+        ReflectionTestUtils.setField(index, "facilityRepository", repository);
+        ReflectionTestUtils.setField(index, "refreshSeconds", 60L);
+    }
+
+    @Test
+    void nameMatchesEqualASubstringScan() {
+        for (String query : new String[]{"harbour", "Central Hea", "ty ca", "1", "12", "mary", "st. mary's", "zz"}) {
+            assertThat(index.searchByName(query, null))
+                    .as(query)
+                    .containsExactlyInAnyOrderElementsOf(bruteForce(query, false));
+        }
+    }
+
+    @Test
+    void rankingPrefersExactThenPrefixThenWordPrefix() {
+        assertThat(index.searchByName("harbour clinic", null)).startsWith(5001L);
+        assertThat(index.searchByName("clinic", null)).containsExactly(5002L, 5001L, 5003L);
+    }
+
+    @Test
+    void toleratesTyposAndAccents() {
+        assertThat(index.searchByName("harbor clinic", null)).contains(5001L);
+        assertThat(index.searchByName("otaki", null)).containsExactly(5004L);
+        assertThat(index.searchBySpecialty("cardiolgy", null)).isEqualTo(index.searchBySpecialty("cardiology", null));
+        assertThat(index.searchBySpecialty("pediatircs", null)).isEqualTo(index.searchBySpecialty("pediatrics", null));
+    }
+
+    @Test
+    void specialtyMatchesEqualASubstringScan() {
+        for (String query : new String[]{"cardio", "General Practice", "health", "ology", "ORTHO", "practice"}) {
+            assertThat(index.searchBySpecialty(query, null))
+                    .as(query)
+                    .containsExactlyInAnyOrderElementsOf(bruteForce(query, true));
+        }
+    }
+
+    @Test
+    void specialtyRankingPrefersWholeTerms() {
+        List<Long> hits = index.searchBySpecialty("mental health", 1);
+
+        assertThat(hits).hasSize(1);
+        assertThat(byId(hits.get(0)).getSpecialties()).contains("Mental Health");
+
+        index.put(facility(9002L, "Zed Clinic", "Cardio"));
+
+        assertThat(index.searchBySpecialty("cardio", null).get(0)).isEqualTo(9002L);
+    }
+
+    @Test
+    void limitKeepsTheBestMatches() {
+        List<Long> all = index.searchByName("harbour", null);
+
+        assertThat(index.searchByName("harbour", 5)).isEqualTo(all.subList(0, 5));
+    }
+
+    @Test
+    void putAndRemoveUpdateTheIndex() {
+        index.put(facility(9001L, "Quay Pharmacy", "Pharmacy, Travel Medicine"));
+
+        assertThat(index.searchByName("quay", null)).containsExactly(9001L);
+        assertThat(index.searchBySpecialty("travel", null)).containsExactly(9001L);
+
+        index.put(facility(9001L, "Wharf Pharmacy", "Pharmacy"));
+
+        assertThat(index.searchByName("quay", null)).isEmpty();
+        assertThat(index.searchBySpecialty("travel", null)).isEmpty();
+        assertThat(index.searchByName("wharf", null)).containsExactly(9001L);
+
+        index.remove(9001L);
+
+        assertThat(index.searchByName("wharf", null)).isEmpty();
+        assertThat(index.size()).isEqualTo(facilities.size());
+    }
+
+    @Test
+    void reloadsFacilitiesWrittenElsewhereAfterTheRefreshInterval() {
+        assertThat(index.size()).isEqualTo(facilities.size());
+        facilities.add(facility(9002L, "Quay Pharmacy", "Travel Medicine"));
+
+        assertThat(index.searchByName("quay", null)).isEmpty();
+
+        ReflectionTestUtils.setField(index, "refreshAtNanos", System.nanoTime());
+
+        assertThat(index.searchByName("quay", null)).containsExactly(9002L);
+        assertThat(index.searchBySpecialty("travel", null)).containsExactly(9002L);
+    }
+
+    @Test
+    void resultsSurviveCompaction() {
+        // Deleting most facilities and renaming some of the rest triggers compaction
+        for (Facility facility : new ArrayList<>(facilities.subList(0, 1500))) {
+            index.remove(facility.getFacilityId());
+            facilities.remove(facility);
+        }
+        for (int i = 0; i < 100; i++) {
+            Facility renamed = facilities.get(i);
+            renamed.setName("Renamed Harbour " + renamed.getFacilityId());
+            index.put(renamed);
+        }
+
+        assertThat(index.size()).isEqualTo(facilities.size());
+        for (String query : new String[]{"harbour", "renamed", "central", "1"}) {
+            assertThat(index.searchByName(query, null))
+                    .as(query)
+                    .containsExactlyInAnyOrderElementsOf(bruteForce(query, false));
+        }
+        assertThat(index.searchBySpecialty("cardio", null))
+                .containsExactlyInAnyOrderElementsOf(bruteForce("cardio", true));
+    }
+
+    @Test
+    void editDistanceCountsTranspositionsOnce() {
+        assertThat(FacilitySearchIndex.editDistance("cardiology", "cardiology", 2)).isZero();
+        assertThat(FacilitySearchIndex.editDistance("cardiolgoy", "cardiology", 2)).isEqualTo(1);
+        assertThat(FacilitySearchIndex.editDistance("kardiolgy", "cardiology", 2)).isEqualTo(2);
+        assertThat(FacilitySearchIndex.editDistance("derm", "cardiology", 2)).isEqualTo(3);
+    }
+
+    private List<Long> bruteForce(String query, boolean specialties) {
+        String normalized = FacilitySearchIndex.normalize(query);
+        List<Long> hits = new ArrayList<>();
+        for (Facility facility : facilities) {
+            if (specialties) {
+                for (String specialty : facility.getSpecialties().split(",")) {
+                    if (FacilitySearchIndex.normalize(specialty).contains(normalized)) {
+                        hits.add(facility.getFacilityId());
+                        break;
+                    }
+                }
+            } else if (FacilitySearchIndex.normalize(facility.getName()).contains(normalized)) {
+                hits.add(facility.getFacilityId());
+            }
+        }
+        return hits;
+    }
+
+    private Facility byId(Long id) {
+        return facilities.stream().filter(f -> f.getFacilityId().equals(id)).findFirst().orElseThrow();
+    }
+
+    private static Facility facility(long id, String name, String specialties) {
+        Facility facility = new Facility();
+        facility.setFacilityId(id);
+        facility.setName(name.substring(0, 1).toUpperCase(Locale.ROOT) + name.substring(1));
+        facility.setFacilityType(Facility.FacilityType.CLINIC);
+        facility.setSpecialties(specialties);
+        return facility;
+    }
+}
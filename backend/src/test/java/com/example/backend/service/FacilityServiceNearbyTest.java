@@ -0,0 +1,63 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.response.FacilityResponse;
+import com.example.backend.entity.Facility;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Facilities created and deleted through FacilityService show up in, and disappear from, nearby results.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FacilityServiceNearbyTest {
+
+    private static final BigDecimal LATITUDE = new BigDecimal("-41.2865");
+    private static final BigDecimal LONGITUDE = new BigDecimal("174.7762");
+
+    @Autowired
+    private FacilityService facilityService;
+
+    @Test
+    void nearbyFollowsCreateAndDelete() {
+        FacilityResponse near = facilityService.createFacility(facility("Harbour Clinic", "-41.2900", "174.7800",
+                Facility.FacilityType.CLINIC, "General Practice, Cardiology"));
+        FacilityResponse nearer = facilityService.createFacility(facility("Quay Pharmacy", "-41.2866", "174.7763",
+                Facility.FacilityType.PHARMACY, "Pharmacy"));
+        facilityService.createFacility(facility("Far Hospital", "-41.5000", "175.2000",
+                Facility.FacilityType.HOSPITAL, "Emergency"));
+
+        List<FacilityResponse> nearby = facilityService.getNearbyFacilities(LATITUDE, LONGITUDE, 5, null, null, null);
+
+        assertThat(nearby).extracting(FacilityResponse::getFacilityId)
+                .containsExactly(nearer.getFacilityId(), near.getFacilityId());
+        assertThat(nearby.get(0).getDistance()).isBetween(0, 50);
+        assertThat(facilityService.getNearbyFacilities(LATITUDE, LONGITUDE, 5, Facility.FacilityType.CLINIC, "cardio", null))
+                .extracting(FacilityResponse::getFacilityId).containsExactly(near.getFacilityId());
+        assertThat(facilityService.getNearbyFacilities(LATITUDE, LONGITUDE, 100, null, null, 1))
+                .extracting(FacilityResponse::getFacilityId).containsExactly(nearer.getFacilityId());
+
+        facilityService.deleteFacility(nearer.getFacilityId());
+
+        assertThat(facilityService.getNearbyFacilities(LATITUDE, LONGITUDE, 5, null, null, null))
+                .extracting(FacilityResponse::getFacilityId).containsExactly(near.getFacilityId());
+    }
+
+    private static Facility facility(String name, String latitude, String longitude,
+                                     Facility.FacilityType type, String specialties) {
+        Facility facility = new Facility();
+        facility.setName(name);
+        facility.setLatitude(new BigDecimal(latitude));
+        facility.setLongitude(new BigDecimal(longitude));
+        facility.setFacilityType(type);
+        facility.setSpecialties(specialties);
+        return facility;
+    }
+}
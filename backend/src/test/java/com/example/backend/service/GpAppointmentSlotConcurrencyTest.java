@@ -0,0 +1,256 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.GpAppointmentRequest;
+import com.example.backend.dto.response.AppointmentSlotResponse;
+import com.example.backend.dto.response.GpAppointmentResponse;
+import com.example.backend.entity.Facility;
+import com.example.backend.entity.User;
+import com.example.backend.migration.V3__Appointment_slots;
+import com.example.backend.repository.FacilityRepository;
+import com.example.backend.repository.UserRepository;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Many threads booking, rescheduling into and cancelling the same slots: a slot never holds more
+ * appointments than its capacity, and its booked count always equals its active appointments.
+ * Runs on H2, whose row locking differs from InnoDB's: deadlocks between concurrent first bookings of
+ * a slot (see AppointmentSlotRepository.ensureExists) cannot be reproduced here.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class GpAppointmentSlotConcurrencyTest {
+
+    private static final int THREADS = 40;
+    private static final int CAPACITY = 3;
+    private static final int SLOT_MINUTES = 30;
+
+    @Autowired
+    private GpAppointmentService gpAppointmentService;
+
+    @Autowired
+    private AppointmentSlotService appointmentSlotService;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Facility facility;
+    private List<Long> userIds;
+    private LocalDateTime morning;
+
+    @BeforeEach
+    void setUp() {
+        String marker = "slots-" + System.nanoTime();
+        facility = new Facility();
+        facility.setName(marker + " clinic");
+        facility.setAppointmentSlotMinutes(SLOT_MINUTES);
+        facility.setAppointmentCapacity(CAPACITY);
+        facility = facilityRepository.save(facility);
+
+        userIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            User user = new User();
+            user.setUsername(marker + "-" + i);
+            user.setEmail(user.getUsername() + "@example.com");
+            user.setPassword("secret-password");
+            userIds.add(userRepository.save(user).getId());
+        }
+        morning = LocalDate.now().plusDays(2).atTime(9, 0);
+    }
+
+    @Test
+    void concurrentBookingsNeverOverfillASlot() throws Exception {
+        // Every thread books one of two slots at the same moment
+        List<Callable<GpAppointmentResponse>> bookings = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Long userId = userIds.get(i);
+            LocalDateTime start = morning.plusMinutes(i % 2 == 0 ? 0 : SLOT_MINUTES);
+            bookings.add(() -> gpAppointmentService.bookAppointment(request(userId, start)));
+        }
+
+        List<Object> results = runTogether(bookings);
+
+        assertThat(results).filteredOn(GpAppointmentResponse.class::isInstance).hasSize(2 * CAPACITY);
+        assertThat(results).filteredOn(RuntimeException.class::isInstance)
+                .extracting(result -> ((RuntimeException) result).getMessage())
+                .hasSize(THREADS - 2 * CAPACITY)
+                .containsOnly("Appointment slot is fully booked");
+        assertSlotsMatchAppointments();
+        assertThat(appointmentSlotService.getAvailableSlots(facility.getFacilityId(), morning, morning.plusHours(2)))
+                .extracting(AppointmentSlotResponse::getSlotStart)
+                .containsExactly(morning.plusMinutes(60), morning.plusMinutes(90));
+    }
+
+    @Test
+    void concurrentReschedulesAndCancelsKeepCountsExact() throws Exception {
+        // One appointment per user in its own slot, all rescheduled into a slot with one place left
+        LocalDateTime target = morning.plusDays(1);
+        List<Long> appointmentIds = new ArrayList<>();
+        for (int i = 0; i < THREADS / 2; i++) {
+            appointmentIds.add(gpAppointmentService.bookAppointment(
+                    request(userIds.get(i), morning.plusMinutes((long) i * SLOT_MINUTES))).getAppointmentId());
+        }
+        for (int i = 0; i < CAPACITY - 1; i++) {
+            gpAppointmentService.bookAppointment(request(userIds.get(THREADS / 2 + i), target));
+        }
+
+        List<Callable<GpAppointmentResponse>> reschedules = new ArrayList<>();
+        for (Long appointmentId : appointmentIds) {
+            reschedules.add(() -> gpAppointmentService.rescheduleAppointment(appointmentId, target));
+        }
+        List<Object> rescheduled = runTogether(reschedules);
+
+        assertThat(rescheduled).filteredOn(GpAppointmentResponse.class::isInstance).hasSize(1);
+        assertSlotsMatchAppointments();
+
+        // Cancelling the same appointments twice over, concurrently, frees each place once
+        List<Callable<GpAppointmentResponse>> cancels = new ArrayList<>();
+        for (Long appointmentId : appointmentIds) {
+            cancels.add(() -> gpAppointmentService.cancelAppointment(appointmentId));
+            cancels.add(() -> gpAppointmentService.cancelAppointment(appointmentId));
+        }
+        assertThat(runTogether(cancels)).allMatch(GpAppointmentResponse.class::isInstance);
+        assertSlotsMatchAppointments();
+        assertThat(appointmentSlotService.getAvailableSlots(facility.getFacilityId(), target, target.plusMinutes(SLOT_MINUTES)))
+                .singleElement()
+                .extracting(AppointmentSlotResponse::getAvailable)
+                .isEqualTo(1);
+    }
+
+    @Test
+    void rejectsStartsOffTheSlotGrid() {
+        assertThatThrownBy(() -> gpAppointmentService.bookAppointment(request(userIds.get(0), morning.plusMinutes(10))))
+                .hasMessage("Appointments start on 30 minute slot boundaries");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM gp_appointments WHERE facility_id = ?", Integer.class, facility.getFacilityId()))
+                .isZero();
+    }
+
+    @Test
+    void rejectsStartsInThePast() {
+        LocalDateTime past = LocalDate.now().minusDays(1).atTime(9, 0);
+        assertThatThrownBy(() -> gpAppointmentService.bookAppointment(request(userIds.get(0), past)))
+                .hasMessage("Appointment date must be in the future");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM appointment_slots WHERE facility_id = ?", Integer.class, facility.getFacilityId()))
+                .isZero();
+    }
+
+    @Test
+    void migrationBackfillsSlotsFromUpcomingAppointments() throws Exception {
+        for (int i = 0; i < CAPACITY; i++) {
+            gpAppointmentService.bookAppointment(request(userIds.get(i), morning));
+        }
+        GpAppointmentResponse cancelled = gpAppointmentService.bookAppointment(request(userIds.get(0), morning.plusHours(1)));
+        gpAppointmentService.cancelAppointment(cancelled.getAppointmentId());
+        // Booked before slots were tracked, between two slot boundaries
+        GpAppointmentResponse offBoundary = gpAppointmentService.bookAppointment(request(userIds.get(1), morning.plusHours(2)));
+        jdbcTemplate.update("UPDATE gp_appointments SET appointment_date = ? WHERE appointment_id = ?",
+                morning.plusHours(2).plusMinutes(7), offBoundary.getAppointmentId());
+        Map<LocalDateTime, Integer> before = slotCounts();
+
+        jdbcTemplate.execute("DROP TABLE appointment_slots");
+        try (Connection connection = dataSource.getConnection()) {
+            Context context = mock(Context.class);
+            when(context.getConnection()).thenReturn(connection);
+            new V3__Appointment_slots().migrate(context);
+            new V3__Appointment_slots().migrate(context);
+        }
+
+        assertThat(slotCounts()).isEqualTo(Map.of(morning, CAPACITY, morning.plusHours(2), 1)).isEqualTo(before);
+
+        gpAppointmentService.cancelAppointment(offBoundary.getAppointmentId());
+
+        assertThat(slotCounts()).isEqualTo(Map.of(morning, CAPACITY));
+    }
+
+    private GpAppointmentRequest request(Long userId, LocalDateTime start) {
+        GpAppointmentRequest request = new GpAppointmentRequest();
+        request.setUserId(userId);
+        request.setFacilityId(facility.getFacilityId());
+        request.setAppointmentDate(start);
+        return request;
+    }
+
+    /** Run the tasks on their own threads released at once; each result is the value or the exception. */
+    private static List<Object> runTogether(List<? extends Callable<?>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Object>> futures = new ArrayList<>();
+            for (Callable<?> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return task.call();
+                    } catch (RuntimeException e) {
+                        return e;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Every slot's booked count equals the facility's active appointments starting then, within capacity. */
+    private void assertSlotsMatchAppointments() {
+        Map<LocalDateTime, Integer> active = new HashMap<>();
+        jdbcTemplate.query("SELECT appointment_date, COUNT(*) FROM gp_appointments " +
+                        "WHERE facility_id = ? AND status IN ('SCHEDULED', 'CONFIRMED') GROUP BY appointment_date",
+                row -> {
+                    active.put(row.getTimestamp(1).toLocalDateTime(), row.getInt(2));
+                }, facility.getFacilityId());
+
+        assertThat(slotCounts()).isEqualTo(active);
+        assertThat(active.values()).allMatch(count -> count <= CAPACITY);
+    }
+
+    private Map<LocalDateTime, Integer> slotCounts() {
+        Map<LocalDateTime, Integer> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT slot_start, booked FROM appointment_slots WHERE facility_id = ? AND booked > 0",
+                row -> {
+                    counts.put(row.getTimestamp(1).toLocalDateTime(), row.getInt(2));
+                }, facility.getFacilityId());
+        return counts;
+    }
+}
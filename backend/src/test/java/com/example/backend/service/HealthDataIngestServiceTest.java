@@ -0,0 +1,111 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.HealthDataCreateRequest;
+import com.example.backend.dto.response.HealthDataBulkResponse;
+import com.example.backend.dto.response.HealthDataResponse;
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.HealthDataRollup;
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HealthDataIngestServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 4, 6, 7, 0);
+
+    @Autowired
+    private HealthDataIngestService healthDataIngestService;
+
+    @Autowired
+    private HealthDataService healthDataService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("ingest-" + System.nanoTime());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPassword("secret-password");
+        userId = userRepository.save(user).getId();
+    }
+
+    @Test
+    void validRowsAreInsertedAndInvalidRowsReported() {
+        List<HealthDataCreateRequest> rows = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            rows.add(reading(userId, BASE.plusMinutes(i), 60 + i % 40));
+        }
+        rows.get(3).setHeartRate(10);          // below @Min(30)
+        rows.get(7).setUserId(null);
+        rows.get(11).setUserId(Long.MAX_VALUE); // unknown user
+        rows.set(13, null);
+
+        HealthDataBulkResponse response = healthDataIngestService.ingest(rows);
+
+        assertThat(response.getReceived()).isEqualTo(1200);
+        assertThat(response.getInserted()).isEqualTo(1196);
+        assertThat(response.getErrors()).extracting(HealthDataBulkResponse.RowError::getIndex)
+                .containsExactly(3, 7, 11, 13);
+        assertThat(response.getErrors().get(0).getError()).isEqualTo("heartRate: Heart rate must be at least 30");
+        assertThat(response.getErrors().get(2).getError()).isEqualTo("User not found");
+
+        HealthDataResponse latest = healthDataService.getLatestHealthDataByUserId(userId).orElseThrow();
+        assertThat(latest.getRecordedAt()).isEqualTo(BASE.plusMinutes(1199));
+        // 175 cm normalized to 1.75 m, BMI = 70 / 1.75^2
+        assertThat(latest.getHeight()).isEqualByComparingTo("1.75");
+        assertThat(latest.getBmi()).isEqualByComparingTo("22.86");
+        assertThat(latest.getMood()).isEqualTo(HealthData.MoodLevel.NEUTRAL);
+
+        assertThat(healthDataService.getMetricStatistics(userId, BASE, BASE.plusDays(1)).getMetrics()
+                .get(HealthDataRollup.Metric.HEART_RATE).getCount()).isEqualTo(1196L);
+    }
+
+    @Test
+    void ndjsonLinesAreParsedIndividually() {
+        String body = """
+                {"userId": %d, "recordedAt": "2026-04-06T08:00:00", "heartRate": 70}
+                not json
+
+                {"userId": %d, "recordedAt": "2026-04-06T09:00:00", "steps": 1200}
+                """.formatted(userId, userId);
+
+        HealthDataBulkResponse response = healthDataIngestService.ingestNdjson(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getReceived()).isEqualTo(3);
+        assertThat(response.getInserted()).isEqualTo(2);
+        assertThat(response.getErrors()).hasSize(1);
+        assertThat(response.getErrors().get(0).getIndex()).isEqualTo(1);
+        assertThat(response.getErrors().get(0).getError()).startsWith("Invalid JSON");
+    }
+
+    static HealthDataCreateRequest reading(Long userId, LocalDateTime recordedAt, int heartRate) {
+        HealthDataCreateRequest request = new HealthDataCreateRequest();
+        request.setUserId(userId);
+        request.setRecordedAt(recordedAt);
+        request.setWeight(new BigDecimal("70.0"));
+        request.setHeight(new BigDecimal("175"));
+        request.setHeartRate(heartRate);
+        request.setSteps(heartRate * 100);
+        return request;
+    }
+}
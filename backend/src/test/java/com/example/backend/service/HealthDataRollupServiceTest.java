@@ -0,0 +1,203 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.HealthDataCreateRequest;
+import com.example.backend.dto.request.HealthDataUpdateRequest;
+import com.example.backend.dto.response.HealthDataResponse;
+import com.example.backend.dto.response.HealthMetricStatisticsResponse;
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.HealthDataRollup;
+import com.example.backend.entity.User;
+import com.example.backend.migration.V5__Health_data_rollups;
+import com.example.backend.repository.HealthDataRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.HealthDataSummary;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rollup-based statistics must match a scan of the raw records after any mix of creates, updates
+ * and deletes, for ranges with partial edge days, whole days and whole weeks; records from before
+ * rollups existed are backfilled by a migration.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class HealthDataRollupServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 0, 0);
+
+    @Autowired
+    private HealthDataService healthDataService;
+
+    @Autowired
+    private HealthDataRollupService healthDataRollupService;
+
+    @Autowired
+    private HealthDataRepository healthDataRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void rollupStatisticsMatchRawRecordsAfterCreateUpdateDelete() {
+        Long userId = newUser("rollup-crud");
+        Random random = new Random(42);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            HealthDataCreateRequest request = new HealthDataCreateRequest();
+            request.setUserId(userId);
+            request.setRecordedAt(BASE.plusHours(random.nextInt(24 * 40)).plusMinutes(random.nextInt(60)));
+            request.setWeight(BigDecimal.valueOf(600 + random.nextInt(300), 1));
+            request.setHeight(new BigDecimal("175"));
+            request.setHeartRate(random.nextBoolean() ? 50 + random.nextInt(60) : null);
+            request.setSteps(random.nextInt(15000));
+            request.setSystolicPressure(100 + random.nextInt(50));
+            ids.add(healthDataService.createHealthData(request).getId());
+        }
+        for (int i = 0; i < 30; i++) {
+            HealthDataUpdateRequest update = new HealthDataUpdateRequest();
+            update.setHeartRate(40 + random.nextInt(100));
+            update.setWeight(BigDecimal.valueOf(500 + random.nextInt(500), 1));
+            if (i % 3 == 0) {
+                update.setRecordedAt(BASE.plusHours(random.nextInt(24 * 40)));
+            }
+            healthDataService.updateHealthData(ids.get(random.nextInt(ids.size())), update);
+        }
+        for (int i = 0; i < 25; i++) {
+            healthDataService.deleteHealthData(ids.remove(random.nextInt(ids.size())));
+        }
+
+        assertMatchesRaw(userId, BASE, BASE.plusDays(40));
+        assertMatchesRaw(userId, BASE.plusHours(7).plusMinutes(13), BASE.plusDays(33).plusHours(5));
+        assertMatchesRaw(userId, BASE.plusDays(2).plusHours(3), BASE.plusDays(2).plusHours(20));
+        assertMatchesRaw(userId, BASE.plusDays(9), BASE.plusDays(16).minusNanos(1));
+        assertMatchesRaw(userId, BASE.plusDays(3).plusHours(12), BASE.plusDays(5).plusHours(1));
+    }
+
+    @Test
+    void deletingTheExtremeValueRecomputesMinAndMax() {
+        Long userId = newUser("rollup-extreme");
+        HealthDataResponse low = create(userId, BASE.plusHours(8), 60);
+        create(userId, BASE.plusHours(12), 70);
+        HealthDataResponse high = create(userId, BASE.plusDays(1).plusHours(9), 90);
+
+        healthDataService.deleteHealthData(low.getId());
+        healthDataService.deleteHealthData(high.getId());
+
+        HealthMetricStatisticsResponse.MetricStatistics heartRate = healthDataService
+                .getMetricStatistics(userId, BASE, BASE.plusDays(7))
+                .getMetrics().get(HealthDataRollup.Metric.HEART_RATE);
+        assertThat(heartRate.getCount()).isEqualTo(1L);
+        assertThat(heartRate.getMin()).isEqualTo(70.0);
+        assertThat(heartRate.getMax()).isEqualTo(70.0);
+        assertThat(heartRate.getStandardDeviation()).isCloseTo(0.0, within(1e-9));
+    }
+
+    @Test
+    void rebuildRestoresRollupsForExistingRecords() {
+        Long userId = newUser("rollup-rebuild");
+        User user = userRepository.findById(userId).orElseThrow();
+        // Saved directly, bypassing the service, like data from before rollups existed
+        for (int day = 0; day < 10; day++) {
+            HealthData healthData = new HealthData();
+            healthData.setUser(user);
+            healthData.setRecordedAt(BASE.plusDays(day).plusHours(10));
+            healthData.setHeartRate(60 + day);
+            healthDataRepository.save(healthData);
+        }
+        assertThat(healthDataService.getMetricStatistics(userId, BASE, BASE.plusDays(10)).getMetrics()).isEmpty();
+
+        healthDataService.rebuildRollups(userId);
+
+        assertMatchesRaw(userId, BASE, BASE.plusDays(10));
+    }
+
+    @Test
+    void migrationBackfillsRollupsOfRecordsSavedBeforeThem() throws Exception {
+        Long userId = newUser("rollup-migration");
+        User user = userRepository.findById(userId).orElseThrow();
+        Random random = new Random(7);
+        for (int i = 0; i < 60; i++) {
+            HealthData healthData = new HealthData();
+            healthData.setUser(user);
+            healthData.setRecordedAt(BASE.plusHours(random.nextInt(24 * 20)));
+            healthData.setWeight(BigDecimal.valueOf(600 + random.nextInt(300), 1));
+            healthData.setHeartRate(random.nextBoolean() ? 50 + random.nextInt(60) : null);
+            healthData.setSleepHours(4 + random.nextInt(6));
+            healthDataRepository.save(healthData);
+        }
+        // One record written through the service already has its rollups; the migration must not count it twice
+        create(userId, BASE.plusDays(3).plusHours(8), 75);
+        assertThat(healthDataRollupService.summarize(userId, BASE.toLocalDate(), BASE.toLocalDate().plusDays(20))
+                .metrics()).containsOnlyKeys(HealthDataRollup.Metric.HEART_RATE);
+
+        try (Connection connection = dataSource.getConnection()) {
+            Context context = mock(Context.class);
+            when(context.getConnection()).thenReturn(connection);
+            new V5__Health_data_rollups().migrate(context);
+            new V5__Health_data_rollups().migrate(context);
+        }
+
+        assertMatchesRaw(userId, BASE, BASE.plusDays(20));
+        assertMatchesRaw(userId, BASE.plusHours(5), BASE.plusDays(11).plusHours(2));
+        HealthDataSummary summary = healthDataRollupService.summarize(userId, BASE.toLocalDate(), BASE.toLocalDate().plusDays(20));
+        assertThat(summary.metrics()).containsKeys(HealthDataRollup.Metric.WEIGHT, HealthDataRollup.Metric.SLEEP_HOURS);
+        assertThat(summary.metrics().get(HealthDataRollup.Metric.SLEEP_HOURS).count()).isEqualTo(60L);
+    }
+
+    private void assertMatchesRaw(Long userId, LocalDateTime start, LocalDateTime end) {
+        HealthMetricStatisticsResponse response = healthDataRollupService.getStatistics(userId, start, end);
+        List<HealthData> raw = healthDataRepository.findByUserIdAndRecordedAtBetween(userId, start, end);
+
+        for (HealthDataRollup.Metric metric : HealthDataRollup.Metric.values()) {
+            List<Double> values = raw.stream().map(metric::valueOf).filter(v -> v != null).toList();
+            HealthMetricStatisticsResponse.MetricStatistics statistics = response.getMetrics().get(metric);
+            if (values.isEmpty()) {
+                assertThat(statistics).as(metric.name()).isNull();
+                continue;
+            }
+            double average = values.stream().mapToDouble(Double::doubleValue).average().orElseThrow();
+            double variance = values.stream().mapToDouble(v -> (v - average) * (v - average)).sum() / values.size();
+            assertThat(statistics).as(metric.name()).isNotNull();
+            assertThat(statistics.getCount()).as(metric.name()).isEqualTo((long) values.size());
+            assertThat(statistics.getAverage()).as(metric.name()).isCloseTo(average, within(1e-6));
+            assertThat(statistics.getMin()).as(metric.name()).isEqualTo(values.stream().min(Double::compare).orElseThrow());
+            assertThat(statistics.getMax()).as(metric.name()).isEqualTo(values.stream().max(Double::compare).orElseThrow());
+            assertThat(statistics.getStandardDeviation()).as(metric.name()).isCloseTo(Math.sqrt(variance), within(1e-3));
+        }
+    }
+
+    private HealthDataResponse create(Long userId, LocalDateTime recordedAt, int heartRate) {
+        HealthDataCreateRequest request = new HealthDataCreateRequest();
+        request.setUserId(userId);
+        request.setRecordedAt(recordedAt);
+        request.setHeartRate(heartRate);
+        return healthDataService.createHealthData(request);
+    }
+
+    private Long newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret-password");
+        return userRepository.save(user).getId();
+    }
+}
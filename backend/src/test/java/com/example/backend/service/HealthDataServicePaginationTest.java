@@ -0,0 +1,122 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.response.HealthDataPageResponse;
+import com.example.backend.dto.response.HealthDataResponse;
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.User;
+import com.example.backend.repository.HealthDataRepository;
+import com.example.backend.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class HealthDataServicePaginationTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 2, 1, 8, 0);
+
+    @Autowired
+    private HealthDataService healthDataService;
+
+    @Autowired
+    private HealthDataRepository healthDataRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Long userId;
+    private List<HealthData> saved;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("paging-" + System.nanoTime());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPassword("secret-password");
+        user = userRepository.save(user);
+        userId = user.getId();
+
+        // 23 records, several sharing a recordedAt so the id tie-breaker matters
+        saved = new ArrayList<>();
+        for (int i = 0; i < 23; i++) {
+            HealthData healthData = new HealthData();
+            healthData.setUser(user);
+            healthData.setRecordedAt(BASE.plusHours(i / 3));
+            healthData.setHeartRate(i % 2 == 0 ? 60 + i : null);
+            healthData.setMood(i % 4 == 0 ? HealthData.MoodLevel.HAPPY : HealthData.MoodLevel.NEUTRAL);
+            saved.add(healthDataRepository.save(healthData));
+        }
+        saved.sort(Comparator.comparing(HealthData::getRecordedAt).thenComparing(HealthData::getId).reversed());
+    }
+
+    @Test
+    void cursorPagesCoverEveryRecordOnceInOrder() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            HealthDataPageResponse page = healthDataService.getHealthDataPageByUserId(userId, cursor, 5);
+            page.getItems().forEach(item -> seen.add(item.getId()));
+            assertThat(page.isHasMore()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(5);
+        assertThat(seen).containsExactlyElementsOf(saved.stream().map(HealthData::getId).toList());
+    }
+
+    @Test
+    void filteredPagesOnlyContainMatchingRecords() {
+        HealthDataPageResponse heartRate = healthDataService.getHeartRateHistoryPage(userId, null, 100);
+        assertThat(heartRate.getItems()).hasSize(12).allMatch(item -> item.getHeartRate() != null);
+        assertThat(heartRate.isHasMore()).isFalse();
+
+        HealthDataPageResponse happy = healthDataService.getHealthDataPageByMood(userId, HealthData.MoodLevel.HAPPY, null, 100);
+        assertThat(happy.getItems()).hasSize(6).allMatch(item -> item.getMood() == HealthData.MoodLevel.HAPPY);
+
+        HealthDataPageResponse range = healthDataService.getHealthDataPageByUserAndDateRange(
+                userId, BASE.plusHours(2), BASE.plusHours(3), null, 4);
+        assertThat(range.getItems()).hasSize(4).allMatch(item -> !item.getRecordedAt().isBefore(BASE.plusHours(2)));
+        assertThat(range.isHasMore()).isTrue();
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThatThrownBy(() -> healthDataService.getHealthDataPageByUserId(userId, "not-a-cursor", 5))
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void exportWritesOneJsonLinePerRecord() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        healthDataService.exportHealthData(userId, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(saved.size());
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asLong()).isEqualTo(saved.get(0).getId());
+        assertThat(first.get("userId").asLong()).isEqualTo(userId);
+        assertThat(objectMapper.readValue(lines[lines.length - 1], HealthDataResponse.class).getId())
+                .isEqualTo(saved.get(saved.size() - 1).getId());
+    }
+}
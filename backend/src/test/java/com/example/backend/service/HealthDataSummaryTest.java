@@ -0,0 +1,113 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.HealthDataCreateRequest;
+import com.example.backend.entity.HealthDataRollup;
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.HealthDataSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Prompt summaries come from the day rollups: their statistics match the raw records and their size
+ * does not grow with the number of records per day.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class HealthDataSummaryTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 5, 4);
+
+    @Autowired
+    private HealthDataService healthDataService;
+
+    @Autowired
+    private HealthDataRollupService healthDataRollupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void summaryMatchesRecordsAndShowsTrendAndOutliers() {
+        Long userId = newUser("summary-trend");
+        double sum = 0;
+        int count = 0;
+        for (int day = 0; day < 14; day++) {
+            for (int hour = 8; hour < 12; hour++) {
+                // One bpm more every day, and a spike on day 9
+                int heartRate = day == 9 && hour == 10 ? 150 : 60 + day + hour % 2;
+                add(userId, FIRST_DAY.plusDays(day).atTime(hour, 0), heartRate);
+                sum += heartRate;
+                count++;
+            }
+        }
+
+        HealthDataSummary summary = healthDataRollupService.summarize(userId, FIRST_DAY, FIRST_DAY.plusDays(20));
+        HealthDataSummary.MetricSummary heartRate = summary.metrics().get(HealthDataRollup.Metric.HEART_RATE);
+
+        assertThat(summary.daysWithData()).isEqualTo(14);
+        assertThat(heartRate.count()).isEqualTo(count);
+        assertThat(heartRate.average()).isCloseTo(sum / count, within(1e-9));
+        assertThat(heartRate.min()).isEqualTo(60.0);
+        assertThat(heartRate.max()).isEqualTo(150.0);
+        assertThat(heartRate.daily()).hasSize(14);
+        assertThat(heartRate.trendPerWeek()).isCloseTo(7.0, within(3.0));
+        assertThat(heartRate.outliers()).extracting(HealthDataSummary.DailyValue::day)
+                .containsExactly(FIRST_DAY.plusDays(9));
+        assertThat(summary.toPromptText()).contains("Heart rate: avg").contains("unusual days: " + FIRST_DAY.plusDays(9));
+    }
+
+    @Test
+    void promptSizeDoesNotDependOnRecordsPerDay() {
+        Long sparse = newUser("summary-sparse");
+        Long dense = newUser("summary-dense");
+        for (int day = 0; day < 7; day++) {
+            add(sparse, FIRST_DAY.plusDays(day).atTime(12, 0), 70);
+            for (int minute = 0; minute < 24 * 60; minute += 20) {
+                add(dense, FIRST_DAY.plusDays(day).atStartOfDay().plusMinutes(minute), 70 + minute % 3);
+            }
+        }
+
+        String sparseText = healthDataRollupService.summarize(sparse, FIRST_DAY, FIRST_DAY.plusDays(6)).toPromptText();
+        String denseText = healthDataRollupService.summarize(dense, FIRST_DAY, FIRST_DAY.plusDays(6)).toPromptText();
+
+        assertThat(denseText).contains("504 readings");
+        assertThat(denseText.lines().count()).isEqualTo(sparseText.lines().count());
+        assertThat(denseText.length()).isLessThan(sparseText.length() + 40);
+    }
+
+    @Test
+    void windowWithoutDataIsEmpty() {
+        Long userId = newUser("summary-empty");
+
+        HealthDataSummary summary = healthDataRollupService.summarize(userId, FIRST_DAY, FIRST_DAY.plusDays(30));
+
+        assertThat(summary.isEmpty()).isTrue();
+        assertThat(summary.sampleCount()).isZero();
+        assertThat(summary.average(HealthDataRollup.Metric.HEART_RATE)).isNull();
+    }
+
+    private void add(Long userId, LocalDateTime recordedAt, int heartRate) {
+        HealthDataCreateRequest request = new HealthDataCreateRequest();
+        request.setUserId(userId);
+        request.setRecordedAt(recordedAt);
+        request.setHeartRate(heartRate);
+        healthDataService.createHealthData(request);
+    }
+
+    private Long newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("secret-password");
+        return userRepository.save(user).getId();
+    }
+}
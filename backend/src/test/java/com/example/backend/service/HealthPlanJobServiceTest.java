@@ -0,0 +1,145 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.HealthPlanRequest;
+import com.example.backend.dto.response.HealthPlanJobResponse;
+import com.example.backend.entity.HealthPlan;
+import com.example.backend.entity.HealthPlanJob;
+import com.example.backend.entity.User;
+import com.example.backend.repository.HealthPlanJobRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.GeminiPlanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Jobs always finish, even when the worker dies with an Error, and the sweep only fails unfinished
+ * jobs whose heartbeats stopped, i.e. that were left behind by a stopped instance.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class HealthPlanJobServiceTest {
+
+    @Autowired
+    private HealthPlanJobService healthPlanJobService;
+
+    @Autowired
+    private HealthPlanJobRepository healthPlanJobRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private GeminiPlanService geminiPlanService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        String marker = "plan-jobs-" + System.nanoTime();
+        user = new User();
+        user.setUsername(marker);
+        user.setEmail(marker + "@example.com");
+        user.setPassword("secret-password");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void errorInWorkerFailsTheJob() throws Exception {
+        when(geminiPlanService.generateGeminiHealthPlan(any(), any(), any(), any()))
+                .thenThrow(new AssertionError("Model client crashed"));
+        HealthPlanRequest request = new HealthPlanRequest();
+        request.setUserId(user.getId());
+        request.setType(HealthPlan.PlanType.WEEKLY);
+
+        HealthPlanJobResponse submitted = healthPlanJobService.submitJob(request);
+
+        HealthPlanJob job = awaitFinished(submitted.getJobId());
+        assertThat(job.getStatus()).isEqualTo(HealthPlanJob.JobStatus.FAILED);
+        assertThat(job.getErrorMessage()).isEqualTo("Model client crashed");
+        assertThat(job.getFinishedAt()).isNotNull();
+    }
+
+    @Test
+    void sweepOnlyFailsJobsWithoutRecentHeartbeat() {
+        LocalDateTime longAgo = LocalDateTime.now().minusHours(2);
+        HealthPlanJob stale = save(HealthPlanJob.JobStatus.RUNNING, longAgo, null);
+        HealthPlanJob staleQueued = save(HealthPlanJob.JobStatus.QUEUED, longAgo, longAgo.plusMinutes(1));
+        HealthPlanJob recent = save(HealthPlanJob.JobStatus.RUNNING, LocalDateTime.now().minusMinutes(1), null);
+        // Long running on a live instance
+        HealthPlanJob alive = save(HealthPlanJob.JobStatus.RUNNING, longAgo, LocalDateTime.now().minusSeconds(30));
+
+        healthPlanJobService.failOrphanedJobs();
+
+        assertThat(status(stale)).isEqualTo(HealthPlanJob.JobStatus.FAILED);
+        assertThat(status(staleQueued)).isEqualTo(HealthPlanJob.JobStatus.FAILED);
+        assertThat(status(recent)).isEqualTo(HealthPlanJob.JobStatus.RUNNING);
+        assertThat(status(alive)).isEqualTo(HealthPlanJob.JobStatus.RUNNING);
+    }
+
+    @Test
+    void heartbeatKeepsHeldJobsAndFailsDroppedOnes() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(geminiPlanService.generateGeminiHealthPlan(any(), any(), any(), any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            throw new RuntimeException("Model unavailable");
+        });
+        HealthPlanRequest request = new HealthPlanRequest();
+        request.setUserId(user.getId());
+        request.setType(HealthPlan.PlanType.WEEKLY);
+        Long held = healthPlanJobService.submitJob(request).getJobId();
+        // As if accepted by an instance that has since stopped: nobody sends its heartbeat
+        HealthPlanJob dropped = save(HealthPlanJob.JobStatus.QUEUED, LocalDateTime.now().minusMinutes(1), null);
+        LocalDateTime old = LocalDateTime.now().minusHours(1);
+        jdbcTemplate.update("UPDATE health_plan_jobs SET submitted_at = ?, heartbeat_at = ? WHERE id IN (?, ?)",
+                old, old, held, dropped.getId());
+
+        healthPlanJobService.heartbeat();
+        release.countDown();
+
+        assertThat(status(dropped)).isEqualTo(HealthPlanJob.JobStatus.FAILED);
+        HealthPlanJob finished = awaitFinished(held);
+        assertThat(finished.getErrorMessage()).isEqualTo("Model unavailable");
+    }
+
+    private HealthPlanJob save(HealthPlanJob.JobStatus status, LocalDateTime submittedAt, LocalDateTime heartbeatAt) {
+        HealthPlanJob job = new HealthPlanJob();
+        job.setUser(user);
+        job.setType(HealthPlan.PlanType.WEEKLY);
+        job.setStatus(status);
+        job.setSubmittedAt(submittedAt);
+        job.setHeartbeatAt(heartbeatAt);
+        return healthPlanJobRepository.save(job);
+    }
+
+    private HealthPlanJob.JobStatus status(HealthPlanJob job) {
+        return healthPlanJobRepository.findById(job.getId()).orElseThrow().getStatus();
+    }
+
+    private HealthPlanJob awaitFinished(Long jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            HealthPlanJob job = healthPlanJobRepository.findById(jobId).orElseThrow();
+            if (job.getStatus() == HealthPlanJob.JobStatus.SUCCEEDED || job.getStatus() == HealthPlanJob.JobStatus.FAILED) {
+                return job;
+            }
+            assertThat(System.nanoTime()).as("job not finished within 10 s").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
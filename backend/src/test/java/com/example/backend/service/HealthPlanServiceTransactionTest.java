@@ -0,0 +1,93 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.request.HealthPlanRequest;
+import com.example.backend.dto.response.HealthPlanResponse;
+import com.example.backend.entity.HealthPlan;
+import com.example.backend.entity.User;
+import com.example.backend.repository.HealthPlanRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.GeminiPlanService;
+import com.example.backend.service.ai.UserProfile;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * The remote model call must run with no transaction and no pooled connection checked out.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class HealthPlanServiceTransactionTest {
+
+    @Autowired
+    private HealthPlanService healthPlanService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HealthPlanRepository healthPlanRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockitoBean
+    private GeminiPlanService geminiPlanService;
+
+    @Test
+    void geminiCallHoldsNoConnection() throws Exception {
+        User user = new User();
+        user.setUsername("tx-boundary");
+        user.setEmail("tx-boundary@example.com");
+        user.setPassword("secret-password");
+        User savedUser = userRepository.save(user);
+
+        HikariPoolMXBean pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        AtomicInteger activeConnectionsDuringCall = new AtomicInteger(-1);
+        AtomicBoolean transactionActiveDuringCall = new AtomicBoolean(true);
+
+        when(geminiPlanService.generateGeminiHealthPlan(any(), any(), any(), any())).thenAnswer(invocation -> {
+            UserProfile planUser = invocation.getArgument(1);
+            // Mono.defer (not fromCallable, which publishOn would move to another thread) runs
+            // synchronously on subscription, i.e. on the caller's thread inside generateHealthPlan
+            return Mono.defer(() -> {
+                activeConnectionsDuringCall.set(pool.getActiveConnections());
+                transactionActiveDuringCall.set(TransactionSynchronizationManager.isActualTransactionActive());
+
+                HealthPlan plan = new HealthPlan();
+                plan.setUser(planUser.toUserReference());
+                plan.setType(HealthPlan.PlanType.WEEKLY);
+                plan.setStartDate(LocalDateTime.now());
+                plan.setEndDate(LocalDateTime.now().plusWeeks(1));
+                plan.setPlanSummary("Stub plan");
+                return Mono.just(plan);
+            });
+        });
+
+        HealthPlanRequest request = new HealthPlanRequest();
+        request.setUserId(savedUser.getId());
+        request.setType(HealthPlan.PlanType.WEEKLY);
+
+        HealthPlanResponse response = healthPlanService.generateHealthPlan(request).get(10, TimeUnit.SECONDS);
+
+        assertThat(activeConnectionsDuringCall.get()).isZero();
+        assertThat(transactionActiveDuringCall.get()).isFalse();
+        assertThat(healthPlanRepository.findById(response.getId())).isPresent();
+    }
+}
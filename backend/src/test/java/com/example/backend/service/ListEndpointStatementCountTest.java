@@ -0,0 +1,193 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.DietGuidance;
+import com.example.backend.entity.Facility;
+import com.example.backend.entity.GpAppointment;
+import com.example.backend.entity.HealthAssessment;
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.HealthDevice;
+import com.example.backend.entity.HealthPlan;
+import com.example.backend.entity.MedicationGuidance;
+import com.example.backend.entity.User;
+import com.example.backend.repository.DietGuidanceRepository;
+import com.example.backend.repository.FacilityRepository;
+import com.example.backend.repository.GpAppointmentRepository;
+import com.example.backend.repository.HealthAssessmentRepository;
+import com.example.backend.repository.HealthDataRepository;
+import com.example.backend.repository.HealthDeviceRepository;
+import com.example.backend.repository.HealthPlanRepository;
+import com.example.backend.repository.MedicationGuidanceRepository;
+import com.example.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * List endpoints map each row's user (and facility) into the response; those associations are lazy, so
+ * without a fetch join every distinct user costs one more SELECT. Each list below is read with several
+ * users' rows present and must stay within a fixed statement count.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ListEndpointStatementCountTest {
+
+    private static final int USERS = 4;
+    private static final long MAX_STATEMENTS = 1;
+
+    @Autowired
+    private HealthDataService healthDataService;
+
+    @Autowired
+    private HealthAssessmentService healthAssessmentService;
+
+    @Autowired
+    private HealthPlanService healthPlanService;
+
+    @Autowired
+    private DietGuidanceService dietGuidanceService;
+
+    @Autowired
+    private MedicationGuidanceService medicationGuidanceService;
+
+    @Autowired
+    private GpAppointmentService gpAppointmentService;
+
+    @Autowired
+    private HealthDeviceService healthDeviceService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private HealthDataRepository healthDataRepository;
+
+    @Autowired
+    private HealthAssessmentRepository healthAssessmentRepository;
+
+    @Autowired
+    private HealthPlanRepository healthPlanRepository;
+
+    @Autowired
+    private DietGuidanceRepository dietGuidanceRepository;
+
+    @Autowired
+    private MedicationGuidanceRepository medicationGuidanceRepository;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private GpAppointmentRepository gpAppointmentRepository;
+
+    @Autowired
+    private HealthDeviceRepository healthDeviceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String marker;
+    private List<Long> userIds;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        marker = "n1-" + System.nanoTime();
+
+        Facility facility = new Facility();
+        facility.setName(marker + " clinic");
+        facility = facilityRepository.save(facility);
+
+        userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUsername(marker + "-" + i);
+            user.setEmail(user.getUsername() + "@example.com");
+            user.setPassword("secret-password");
+            user = userRepository.save(user);
+            userIds.add(user.getId());
+
+            HealthData healthData = new HealthData();
+            healthData.setUser(user);
+            healthData.setRecordedAt(LocalDateTime.now().minusMinutes(i));
+            healthDataRepository.save(healthData);
+
+            HealthAssessment assessment = new HealthAssessment();
+            assessment.setUser(user);
+            healthAssessmentRepository.save(assessment);
+
+            HealthPlan plan = new HealthPlan();
+            plan.setUser(user);
+            plan.setStartDate(LocalDateTime.now().minusDays(1));
+            plan.setEndDate(LocalDateTime.now().plusDays(6));
+            healthPlanRepository.save(plan);
+
+            DietGuidance dietGuidance = new DietGuidance();
+            dietGuidance.setUser(user);
+            dietGuidance.setHealthIssue(marker + " issue");
+            dietGuidanceRepository.save(dietGuidance);
+
+            MedicationGuidance medicationGuidance = new MedicationGuidance();
+            medicationGuidance.setUser(user);
+            medicationGuidance.setSymptoms(marker + " symptoms");
+            medicationGuidanceRepository.save(medicationGuidance);
+
+            for (int j = 0; j < 2; j++) {
+                GpAppointment appointment = new GpAppointment();
+                appointment.setUser(user);
+                appointment.setFacility(facility);
+                appointment.setAppointmentDate(LocalDateTime.now().plusDays(j + 1));
+                gpAppointmentRepository.save(appointment);
+
+                HealthDevice device = new HealthDevice();
+                device.setUser(user);
+                device.setDeviceName(marker + " device " + j);
+                device.setDeviceType(HealthDevice.DeviceType.SMARTWATCH);
+                healthDeviceRepository.save(device);
+            }
+        }
+        // Known ids skip the existence query, so only the list statement itself is counted
+        userIds.forEach(healthDataService::requireUser);
+    }
+
+    @Test
+    void crossUserListsFetchUsersInTheSameStatement() {
+        assertWithinBudget(() -> healthAssessmentService.getAllAssessments(), USERS);
+        assertWithinBudget(() -> healthPlanService.getAllHealthPlans(), USERS);
+        assertWithinBudget(() -> healthDataService.getHealthDataPage(null, 50).getItems(), USERS);
+        assertWithinBudget(() -> dietGuidanceService.searchByHealthIssue(marker), USERS);
+        assertWithinBudget(() -> medicationGuidanceService.searchBySymptoms(marker), USERS);
+    }
+
+    @Test
+    void perUserListsFetchUserAndFacilityInTheSameStatement() {
+        Long userId = userIds.get(0);
+        assertWithinBudget(() -> gpAppointmentService.getUserAppointments(userId), 2);
+        assertWithinBudget(() -> gpAppointmentService.getUpcomingAppointments(userId), 2);
+        assertWithinBudget(() -> healthDeviceService.getUserDevices(userId), 2);
+        assertWithinBudget(() -> dietGuidanceService.getUserGuidance(userId), 1);
+        assertWithinBudget(() -> medicationGuidanceService.getUserGuidance(userId), 1);
+        assertWithinBudget(() -> healthAssessmentService.getAssessmentsByUserId(userId), 1);
+        assertWithinBudget(() -> healthPlanService.getHealthPlansByUserId(userId), 1);
+    }
+
+    private void assertWithinBudget(Supplier<? extends Collection<?>> list, int minimumRows) {
+        statistics.clear();
+        Collection<?> rows = list.get();
+        assertThat(rows).hasSizeGreaterThanOrEqualTo(minimumRows);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+}
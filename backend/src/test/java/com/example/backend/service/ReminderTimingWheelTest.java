@@ -0,0 +1,106 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReminderTimingWheelTest {
+
+    private static final long TICK = 100;
+    private static final long START = 1_000_000;
+
+    @Test
+    void firesEachKeyOnceOnTheFirstTickAtOrAfterItsDeadline() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 8, START);
+        wheel.schedule(1L, START + 250);
+        wheel.schedule(2L, START + 300);
+        wheel.schedule(3L, START + 301);
+
+        assertThat(wheel.advance(START + 249)).isEmpty();
+        assertThat(wheel.advance(START + 300)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(wheel.advance(START + 399)).isEmpty();
+        assertThat(wheel.advance(START + 400)).containsExactly(3L);
+        assertThat(wheel.advance(START + 10_000)).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void deadlinesSeveralTurnsAheadWaitForTheirTurn() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 4, START);
+        wheel.schedule(1L, START + 100);
+        wheel.schedule(2L, START + 100 + 3 * 4 * TICK);
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = START; now <= START + 100 + 3 * 4 * TICK; now += TICK) {
+            List<Long> due = wheel.advance(now);
+            for (Long key : due) {
+                assertThat(now).isGreaterThanOrEqualTo(key == 1L ? START + 100 : START + 100 + 3 * 4 * TICK);
+            }
+            fired.addAll(due);
+        }
+        assertThat(fired).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void rescheduleReplacesAndCancelRemoves() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 8, START);
+        wheel.schedule(1L, START + 200);
+        wheel.schedule(1L, START + 5000);
+        wheel.schedule(2L, START + 200);
+        assertThat(wheel.cancel(2L)).isTrue();
+        assertThat(wheel.cancel(2L)).isFalse();
+
+        assertThat(wheel.advance(START + 4999)).isEmpty();
+        assertThat(wheel.contains(1L)).isTrue();
+        assertThat(wheel.advance(START + 5000)).containsExactly(1L);
+        assertThat(wheel.contains(1L)).isFalse();
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextAdvance() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 8, START);
+        wheel.advance(START + 1000);
+        wheel.schedule(1L, START - 60_000);
+
+        assertThat(wheel.advance(START + 1000)).isEmpty();
+        assertThat(wheel.advance(START + 1100)).containsExactly(1L);
+    }
+
+    @Test
+    void stalledAdvanceCatchesUpOnEverythingDue() {
+        // Random deadlines over many turns, advanced in uneven jumps: nothing early, nothing lost
+        Random random = new Random(42);
+        ReminderTimingWheel wheel = new ReminderTimingWheel(TICK, 16, START);
+        long[] deadlines = new long[2000];
+        for (int key = 0; key < deadlines.length; key++) {
+            deadlines[key] = START + random.nextInt(100_000);
+            wheel.schedule((long) key, deadlines[key]);
+        }
+
+        boolean[] fired = new boolean[deadlines.length];
+        long now = START;
+        while (now < START + 110_000) {
+            now += random.nextInt(5000);
+            for (Long key : wheel.advance(now)) {
+                assertThat(fired[key.intValue()]).isFalse();
+                assertThat(deadlines[key.intValue()]).isLessThanOrEqualTo(now);
+                fired[key.intValue()] = true;
+            }
+        }
+        for (boolean keyFired : fired) {
+            assertThat(keyFired).isTrue();
+        }
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveTickOrSize() {
+        assertThatThrownBy(() -> new ReminderTimingWheel(0, 8, START)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ReminderTimingWheel(TICK, 0, START)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
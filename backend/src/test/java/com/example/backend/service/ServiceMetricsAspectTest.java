@@ -0,0 +1,136 @@
+package com.example.backend.service;
+
+import com.example.backend.config.ServiceMetricsAspect;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ServiceMetricsAspectTest {
+
+    private final MockClock clock = new MockClock();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+
+    private static final String METRIC = "service.method";
+
+    /**
+     * A @Service in the service package, so the aspect's pointcut matches it.
+     */
+    @Service
+    static class SampleService {
+
+        public String plain() {
+            return "ok";
+        }
+
+        public CompletableFuture<String> future(CompletableFuture<String> result) {
+            return result;
+        }
+
+        public Mono<String> mono(Mono<String> result) {
+            return result;
+        }
+
+        public Flux<String> flux(Flux<String> result) {
+            return result;
+        }
+
+        public String failing() {
+            throw new IllegalStateException("boom");
+        }
+    }
+
+    @Test
+    void asyncResultsAreTimedUntilTheyComplete() {
+        SampleService service = proxy();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> result = service.future(pending);
+        assertThat(meterRegistry.find(METRIC).tag("method", "future").timer()).isNull();
+
+        pending.complete("done");
+        assertThat(result.join()).isEqualTo("done");
+        assertThat(timer("future", "success").count()).isEqualTo(1);
+
+        Sinks.One<String> sink = Sinks.one();
+        Mono<String> mono = service.mono(sink.asMono());
+        mono.subscribe();
+        assertThat(meterRegistry.find(METRIC).tag("method", "mono").timer()).isNull();
+        sink.tryEmitError(new IllegalArgumentException("bad"));
+        assertThat(timer("mono", "IllegalArgumentException").count()).isEqualTo(1);
+    }
+
+    @Test
+    void cancellingTheResultReachesTheProducerAndIsTaggedCancelled() {
+        SampleService service = proxy();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> result = service.future(pending);
+        assertThat(result).isSameAs(pending);
+        result.cancel(true);
+        assertThat(pending).isCancelled();
+        assertThat(timer("future", "cancelled").count()).isEqualTo(1);
+
+        Disposable subscription = service.flux(Flux.never()).subscribe();
+        assertThat(meterRegistry.find(METRIC).tag("method", "flux").timer()).isNull();
+        subscription.dispose();
+        assertThat(timer("flux", "cancelled").count()).isEqualTo(1);
+        assertThat(meterRegistry.find(METRIC).tag("method", "flux").tag("outcome", "success").timer()).isNull();
+    }
+
+    @Test
+    void eachSubscriptionIsTimedFromItsOwnSubscribe() {
+        SampleService service = proxy();
+        Mono<String> mono = service.mono(Mono.just("ok"));
+        Flux<String> flux = service.flux(Flux.just("a", "b"));
+        clock.add(Duration.ofSeconds(10));
+
+        assertThat(mono.block()).isEqualTo("ok");
+        assertThat(mono.block()).isEqualTo("ok");
+        assertThat(flux.collectList().block()).isEqualTo(List.of("a", "b"));
+        assertThat(flux.collectList().block()).isEqualTo(List.of("a", "b"));
+
+        assertThat(timer("mono", "success").count()).isEqualTo(2);
+        assertThat(timer("mono", "success").totalTime(TimeUnit.SECONDS)).isZero();
+        assertThat(timer("flux", "success").count()).isEqualTo(2);
+        assertThat(timer("flux", "success").totalTime(TimeUnit.SECONDS)).isZero();
+    }
+
+    @Test
+    void synchronousCallsRecordTheirOutcome() {
+        SampleService service = proxy();
+
+        assertThat(service.plain()).isEqualTo("ok");
+        assertThatThrownBy(service::failing).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timer("plain", "success").count()).isEqualTo(1);
+        assertThat(timer("failing", "IllegalStateException").count()).isEqualTo(1);
+        assertThat(timer("plain", "success").getId().getTag("class")).isEqualTo("SampleService");
+    }
+
+    private SampleService proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new SampleService());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ServiceMetricsAspect(meterRegistry));
+        return factory.getProxy();
+    }
+
+    private Timer timer(String method, String outcome) {
+        return meterRegistry.get(METRIC).tag("method", method).tag("outcome", outcome).timer();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.User;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.service.ai.UserProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserProfileCacheTest {
+
+    private UserRepository userRepository;
+    private InMemoryUserProfileInvalidationBus bus;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        bus = new InMemoryUserProfileInvalidationBus();
+        meterRegistry = new SimpleMeterRegistry();
+        when(userRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Long id = invocation.getArgument(0);
+            return id > 0 ? Optional.of(user(id, "user-" + id)) : Optional.empty();
+        });
+    }
+
+    private UserProfileCache newCache(int maxEntries) {
+        UserProfileCache cache = new UserProfileCache();
+        ReflectionTestUtils.setField(cache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(cache, "invalidationBus", bus);
+        ReflectionTestUtils.setField(cache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    void loadsOnceAndCountsHitsAndMisses() {
+        UserProfileCache cache = newCache(10);
+
+        UserProfile first = cache.get(1L);
+        UserProfile second = cache.get(1L);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.username()).isEqualTo("user-1");
+        verify(userRepository, times(1)).findById(1L);
+        assertThat(meterRegistry.get("user.profile.cache.requests").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("user.profile.cache.requests").tag("result", "miss").functionCounter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedProfile() {
+        UserProfileCache cache = newCache(2);
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(1L);
+        cache.get(3L);
+
+        cache.get(1L);
+        cache.get(2L);
+
+        assertThat(cache.size()).isEqualTo(2);
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void invalidationReachesEveryCacheOnTheBus() {
+        UserProfileCache local = newCache(10);
+        UserProfileCache remote = newCache(10);
+        local.get(1L);
+        remote.get(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, "renamed")));
+
+        local.invalidate(1L);
+
+        assertThat(local.get(1L).username()).isEqualTo("renamed");
+        assertThat(remote.get(1L).username()).isEqualTo("renamed");
+    }
+
+    @Test
+    void unknownUserIsNotCached() {
+        UserProfileCache cache = newCache(10);
+
+        assertThatThrownBy(() -> cache.get(-1L)).hasMessage("User not found");
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void referenceCarriesTheFieldsResponsesRead() {
+        User reference = UserProfile.from(user(7L, "ref")).toUserReference();
+
+        assertThat(reference.getId()).isEqualTo(7L);
+        assertThat(reference.getUsername()).isEqualTo("ref");
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setHealthGoal("Walk more");
+        return user;
+    }
+}
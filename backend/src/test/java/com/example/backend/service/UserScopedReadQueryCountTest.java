@@ -0,0 +1,131 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.HealthData;
+import com.example.backend.entity.HealthPlan;
+import com.example.backend.entity.User;
+import com.example.backend.repository.HealthDataRepository;
+import com.example.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Per-user reads must not load the user row first: once the user id is known to exist, each read is
+ * a single statement, including the username needed by the response DTOs.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class UserScopedReadQueryCountTest {
+
+    @Autowired
+    private HealthDataService healthDataService;
+
+    @Autowired
+    private HealthPlanService healthPlanService;
+
+    @Autowired
+    private HealthAssessmentService healthAssessmentService;
+
+    @Autowired
+    private SmartTriageService smartTriageService;
+
+    @Autowired
+    private GpAppointmentService gpAppointmentService;
+
+    @Autowired
+    private HealthDeviceService healthDeviceService;
+
+    @Autowired
+    private RewardSystemService rewardSystemService;
+
+    @Autowired
+    private HealthDataRepository healthDataRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setUsername("lookup-" + System.nanoTime());
+        user.setEmail(user.getUsername() + "@example.com");
+        user.setPassword("secret-password");
+        user = userRepository.save(user);
+        userId = user.getId();
+
+        for (int i = 0; i < 3; i++) {
+            HealthData healthData = new HealthData();
+            healthData.setUser(user);
+            healthData.setRecordedAt(LocalDateTime.of(2026, 4, 1, 8, 0).plusDays(i));
+            healthData.setHeartRate(60 + i);
+            healthDataRepository.save(healthData);
+        }
+    }
+
+    @Test
+    void firstReadChecksExistenceOnceAndLaterReadsSkipIt() {
+        assertThat(statementsFor(() -> healthDataService.getLatestHealthDataByUserId(userId))).isEqualTo(2);
+        assertThat(statementsFor(() -> healthDataService.getLatestHealthDataByUserId(userId))).isEqualTo(1);
+    }
+
+    @Test
+    void perUserReadsIssueOneStatementEach() {
+        healthDataService.requireUser(userId);
+
+        assertThat(statementsFor(() -> assertThat(healthDataService.getHealthDataByUserAndDateRange(
+                userId, LocalDateTime.of(2026, 4, 1, 0, 0), LocalDateTime.of(2026, 5, 1, 0, 0)))
+                .hasSize(3)
+                .allSatisfy(response -> assertThat(response.getUsername()).startsWith("lookup-"))))
+                .isEqualTo(1);
+        assertThat(statementsFor(() -> healthDataService.getTodayHealthData(userId))).isEqualTo(1);
+        assertThat(statementsFor(() -> healthPlanService.getHealthPlansByUserId(userId))).isEqualTo(1);
+        assertThat(statementsFor(() -> healthPlanService.getHealthPlansByType(userId, HealthPlan.PlanType.DAILY)))
+                .isEqualTo(1);
+        assertThat(statementsFor(() -> healthPlanService.getActiveHealthPlan(userId))).isEqualTo(1);
+        assertThat(statementsFor(() -> healthAssessmentService.getAssessmentsByUserId(userId))).isEqualTo(1);
+        assertThat(statementsFor(() -> smartTriageService.getTriageHistory(userId))).isEqualTo(1);
+        assertThat(statementsFor(() -> gpAppointmentService.getUserAppointments(userId))).isEqualTo(1);
+        assertThat(statementsFor(() -> healthDeviceService.getUserDevices(userId))).isEqualTo(1);
+        assertThat(statementsFor(() -> rewardSystemService.getUserRewards(userId))).isEqualTo(1);
+    }
+
+    @Test
+    void statisticsLoadOnlyTheUsername() {
+        // username, aggregate, ten most recent records
+        assertThat(statementsFor(() -> healthDataService.getHealthDataStatistics(
+                userId, LocalDateTime.of(2026, 4, 1, 0, 0), LocalDateTime.of(2026, 5, 1, 0, 0))))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void unknownUserIsStillRejected() {
+        assertThatThrownBy(() -> healthPlanService.getHealthPlansByUserId(-1L))
+                .hasMessage("User not found");
+        assertThatThrownBy(() -> rewardSystemService.getUserRewards(-1L))
+                .hasMessage("User not found");
+    }
+
+    private long statementsFor(Runnable read) {
+        statistics.clear();
+        read.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
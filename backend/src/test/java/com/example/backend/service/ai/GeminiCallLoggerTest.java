@@ -0,0 +1,140 @@
+package com.example.backend.service.ai;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiCallLoggerTest {
+
+    private final GeminiCallLogger callLogger = new GeminiCallLogger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ListAppender<ILoggingEvent> calls = new ListAppender<>();
+    private final ListAppender<ILoggingEvent> payloads = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(callLogger, "payloadSampleRate", 0.0);
+        ReflectionTestUtils.setField(callLogger, "maxPayloadChars", 10);
+        GeminiMetrics geminiMetrics = new GeminiMetrics();
+        ReflectionTestUtils.setField(geminiMetrics, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(callLogger, "geminiMetrics", geminiMetrics);
+        attach("gemini.calls", calls);
+        attach("gemini.payload", payloads);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((Logger) LoggerFactory.getLogger("gemini.calls")).detachAppender(calls);
+        ((Logger) LoggerFactory.getLogger("gemini.payload")).detachAppender(payloads);
+    }
+
+    @Test
+    void serviceRecordsIntoTheCallersTraceAndOneLineIsLogged() {
+        GeminiCallTrace trace = callLogger.start(GeminiFeature.PLAN);
+        AtomicReference<GeminiCallTrace> seen = new AtomicReference<>();
+
+        Mono<String> serviceCall = callLogger.traced(GeminiFeature.PLAN, t -> {
+            seen.set(t);
+            t.recordPrompt("prompt");
+            t.recordResponse("{\"planSummary\": \"ok\"}");
+            return Mono.just("plan");
+        });
+        String result = callLogger.track(trace, serviceCall
+                        .map(plan -> trace.time(GeminiCallTrace.Phase.PERSIST, () -> plan + " saved")))
+                .block();
+
+        assertThat(result).isEqualTo("plan saved");
+        assertThat(seen.get()).isSameAs(trace);
+        assertThat(calls.list).hasSize(1);
+        Map<String, Object> fields = fields(calls.list.get(0));
+        assertThat(fields).containsEntry("feature", GeminiFeature.PLAN)
+                .containsEntry("outcome", GeminiCallTrace.Outcome.OK)
+                .containsEntry("promptChars", 6)
+                .containsEntry("responseChars", 21)
+                .containsKeys("promptBuildMs", "networkMs", "parseMs", "persistMs", "totalMs");
+        // not sampled and OK: no payload
+        assertThat(payloads.list).isEmpty();
+    }
+
+    @Test
+    void fallbackLogsTruncatedPayloadEvenWhenNotSampled() {
+        Mono<String> serviceCall = callLogger.traced(GeminiFeature.TRIAGE, t -> {
+            t.recordResponse("this response is longer than ten characters");
+            t.fallback("keyword triage");
+            return Mono.just("triage");
+        });
+
+        serviceCall.block();
+
+        assertThat(calls.list).hasSize(1);
+        assertThat(fields(calls.list.get(0))).containsEntry("outcome", GeminiCallTrace.Outcome.FALLBACK)
+                .containsEntry("fallbackReason", "keyword triage");
+        assertThat(payloads.list).hasSize(1);
+        assertThat(payloads.list.get(0).getFormattedMessage()).isEqualTo("this respo");
+        assertThat(fields(payloads.list.get(0))).containsEntry("truncated", true);
+        assertThat(meterRegistry.get("gemini.calls").tag("feature", "TRIAGE").tag("outcome", "FALLBACK")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void streamedCallRecordsIntoTheCallersTraceAndIsLoggedOnceItEnds() {
+        GeminiCallTrace trace = callLogger.start(GeminiFeature.PLAN);
+        AtomicReference<GeminiCallTrace> seen = new AtomicReference<>();
+
+        Flux<String> serviceCall = callLogger.tracedStream(GeminiFeature.PLAN, t -> {
+            seen.set(t);
+            t.recordPrompt("prompt");
+            return t.time(GeminiCallTrace.Phase.NETWORK, Flux.just("{\"plan", "Summary\": \"ok\"}"))
+                    .doOnComplete(() -> t.recordResponse("{\"planSummary\": \"ok\"}"));
+        });
+        Flux<String> stream = callLogger.track(trace, serviceCall);
+
+        assertThat(calls.list).isEmpty();
+        List<String> chunks = stream.collectList().block();
+
+        assertThat(chunks).hasSize(2);
+        assertThat(seen.get()).isSameAs(trace);
+        assertThat(calls.list).hasSize(1);
+        assertThat(fields(calls.list.get(0))).containsEntry("outcome", GeminiCallTrace.Outcome.OK)
+                .containsEntry("promptChars", 6)
+                .containsEntry("responseChars", 21);
+    }
+
+    @Test
+    void streamedCallWithoutACallerTraceLogsItsOwn() {
+        Flux<String> serviceCall = callLogger.tracedStream(GeminiFeature.PLAN,
+                t -> Flux.<String>error(new RuntimeException("Stream broke")));
+
+        assertThat(serviceCall.onErrorResume(e -> Flux.empty()).collectList().block()).isEmpty();
+
+        assertThat(calls.list).hasSize(1);
+        assertThat(fields(calls.list.get(0))).containsEntry("outcome", GeminiCallTrace.Outcome.FAILED)
+                .containsEntry("error", "Stream broke");
+    }
+
+    private static void attach(String name, ListAppender<ILoggingEvent> appender) {
+        appender.start();
+        ((Logger) LoggerFactory.getLogger(name)).addAppender(appender);
+    }
+
+    private static Map<String, Object> fields(ILoggingEvent event) {
+        return event.getKeyValuePairs().stream()
+                .filter(pair -> pair.value != null)
+                .collect(Collectors.toMap(pair -> pair.key, pair -> pair.value));
+    }
+}
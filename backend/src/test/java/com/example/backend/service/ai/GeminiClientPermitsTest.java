@@ -0,0 +1,92 @@
+package com.example.backend.service.ai;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiClientPermitsTest {
+
+    @Test
+    void reservedSlotIsOnlyUsedByTriage() {
+        GeminiClient.ModelPermits permits = new GeminiClient.ModelPermits(2, 1);
+        List<GeminiFeature> granted = new CopyOnWriteArrayList<>();
+
+        GeminiClient.Permit plan = permits.acquire(GeminiFeature.PLAN).block();
+        permits.acquire(GeminiFeature.INSURANCE).subscribe(p -> granted.add(GeminiFeature.INSURANCE));
+        permits.acquire(GeminiFeature.TRIAGE).subscribe(p -> granted.add(GeminiFeature.TRIAGE));
+
+        // Insurance waits for the shared slot; triage takes the reserved one straight away
+        assertThat(plan).isNotNull();
+        assertThat(granted).containsExactly(GeminiFeature.TRIAGE);
+
+        plan.release();
+        assertThat(granted).containsExactly(GeminiFeature.TRIAGE, GeminiFeature.INSURANCE);
+    }
+
+    @Test
+    void waitersAreServedByPriority() {
+        GeminiClient.ModelPermits permits = new GeminiClient.ModelPermits(1, 0);
+        List<GeminiFeature> granted = new CopyOnWriteArrayList<>();
+
+        GeminiClient.Permit first = permits.acquire(GeminiFeature.DIET).block();
+        for (GeminiFeature feature : List.of(GeminiFeature.INSURANCE, GeminiFeature.PLAN, GeminiFeature.TRIAGE)) {
+            permits.acquire(feature).subscribe(p -> {
+                granted.add(feature);
+                p.release();
+            });
+        }
+        assertThat(granted).isEmpty();
+
+        first.release();
+        assertThat(granted).containsExactly(GeminiFeature.TRIAGE, GeminiFeature.PLAN, GeminiFeature.INSURANCE);
+    }
+
+    @Test
+    void cancelRacingAGrantNeverLosesTheSlot() throws Exception {
+        GeminiClient.ModelPermits permits = new GeminiClient.ModelPermits(1, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 5000; i++) {
+                GeminiClient.Permit held = permits.acquire(GeminiFeature.DIET).block();
+                List<GeminiClient.Permit> received = new CopyOnWriteArrayList<>();
+                // BaseSubscriber sees every onNext, even one arriving as it is disposed
+                BaseSubscriber<GeminiClient.Permit> waiter = new BaseSubscriber<>() {
+                    @Override
+                    protected void hookOnNext(GeminiClient.Permit permit) {
+                        received.add(permit);
+                    }
+                };
+                permits.acquire(GeminiFeature.PLAN).subscribe(waiter);
+
+                // Releasing the held slot grants it to the waiter while the waiter cancels
+                CountDownLatch start = new CountDownLatch(1);
+                Future<?> release = executor.submit(() -> {
+                    start.await();
+                    held.release();
+                    return null;
+                });
+                Future<?> cancel = executor.submit(() -> {
+                    start.await();
+                    waiter.dispose();
+                    return null;
+                });
+                start.countDown();
+                release.get();
+                cancel.get();
+                received.forEach(GeminiClient.Permit::release);
+
+                assertThat(permits.inUse()).as("slots in use after round %d", i).isZero();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.entity.HealthPlan;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A response the plan cannot be read from falls back to the default plan and says so in the trace.
+ */
+class GeminiPlanServiceTest {
+
+    private final GeminiPlanService planService = new GeminiPlanService();
+    private final UserProfile profile = new UserProfile(1L, "planner", "planner@example.com", null,
+            null, null, null, null, null, null);
+
+    GeminiPlanServiceTest() {
+        ReflectionTestUtils.setField(planService, "responseParser", new GeminiResponseParser());
+    }
+
+    @Test
+    void parsedPlanLeavesTheTraceOk() {
+        GeminiCallTrace trace = new GeminiCallTrace(GeminiFeature.PLAN, false, 100);
+
+        HealthPlan plan = planService.buildHealthPlanFromText(profile, HealthPlan.PlanType.DAILY,
+                "```json\n{\"planSummary\": \"Walk daily\"}\n```", trace);
+
+        assertThat(plan.getPlanSummary()).isEqualTo("Walk daily");
+        assertThat(trace.getOutcome()).isEqualTo(GeminiCallTrace.Outcome.OK);
+    }
+
+    @Test
+    void unreadableResponseIsRecordedAsFallback() {
+        GeminiCallTrace trace = new GeminiCallTrace(GeminiFeature.PLAN, false, 100);
+
+        HealthPlan plan = planService.buildHealthPlanFromText(profile, HealthPlan.PlanType.DAILY,
+                "Sorry, here is your plan: {\"planSummary\": ", trace);
+
+        assertThat(plan.getPlanSummary()).isEqualTo("Personalized health plan generated successfully.");
+        assertThat(trace.getOutcome()).isEqualTo(GeminiCallTrace.Outcome.FALLBACK);
+        assertThat(trace.getFallbackReason()).isEqualTo("default plan: response contains no complete JSON object");
+    }
+
+    @Test
+    void emptyStreamKeepsTheShedReason() {
+        GeminiCallTrace trace = new GeminiCallTrace(GeminiFeature.PLAN, false, 100);
+        trace.fallback("default plan: quota exhausted");
+
+        planService.buildHealthPlanFromText(profile, HealthPlan.PlanType.WEEKLY, "", trace);
+
+        assertThat(trace.getFallbackReason()).isEqualTo("default plan: quota exhausted");
+    }
+}
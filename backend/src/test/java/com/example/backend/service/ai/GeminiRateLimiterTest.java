@@ -0,0 +1,136 @@
+package com.example.backend.service.ai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeminiRateLimiterTest {
+
+    private GeminiRateLimiter newLimiter(int requestsPerMinute, int requestsPerDay, int maxQueue) {
+        GeminiRateLimiter limiter = new GeminiRateLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "requestsPerMinute", requestsPerMinute);
+        ReflectionTestUtils.setField(limiter, "tokensPerMinute", 125_000L);
+        ReflectionTestUtils.setField(limiter, "requestsPerDay", requestsPerDay);
+        ReflectionTestUtils.setField(limiter, "maxQueue", maxQueue);
+        ReflectionTestUtils.setField(limiter, "maxWaitSeconds", 10L);
+        ReflectionTestUtils.setField(limiter, "quotaZone", "America/Los_Angeles");
+        limiter.init();
+        return limiter;
+    }
+
+    @Test
+    void triageIsAdmittedBeforeEarlierInsuranceRequest() {
+        // 120 RPM refills one request every 0.5s
+        GeminiRateLimiter limiter = newLimiter(120, 100, 10);
+        limiter.onRateLimited();
+
+        List<GeminiFeature> order = new CopyOnWriteArrayList<>();
+        Mono<Void> insurance = limiter.acquire(GeminiFeature.INSURANCE, 100)
+                .doOnNext(grant -> order.add(grant.getFeature())).then().cache();
+        Mono<Void> triage = limiter.acquire(GeminiFeature.TRIAGE, 100)
+                .doOnNext(grant -> order.add(grant.getFeature())).then();
+
+        // insurance is queued first
+        insurance.subscribe();
+        Mono.when(triage, insurance).block();
+
+        assertThat(order).containsExactly(GeminiFeature.TRIAGE, GeminiFeature.INSURANCE);
+        assertThat(limiter.getStats().getFeatures().get("TRIAGE").getAdmitted()).isEqualTo(1);
+    }
+
+    @Test
+    void fullQueueShedsLeastUrgentRequest() {
+        GeminiRateLimiter limiter = newLimiter(1, 100, 1);
+        limiter.onRateLimited();
+
+        Mono<GeminiRateLimiter.Grant> plan = limiter.acquire(GeminiFeature.PLAN, 100).cache();
+        plan.subscribe(grant -> { }, error -> { });
+        limiter.acquire(GeminiFeature.TRIAGE, 100).subscribe();
+
+        assertThatThrownBy(plan::block).isInstanceOf(GeminiQuotaExceededException.class);
+        assertThatThrownBy(() -> limiter.acquire(GeminiFeature.INSURANCE, 100).block())
+                .isInstanceOf(GeminiQuotaExceededException.class)
+                .hasMessageContaining("queue is full");
+        assertThat(limiter.getStats().getFeatures().get("PLAN").getShed()).isEqualTo(1);
+    }
+
+    @Test
+    void dailyQuotaIsEnforced() {
+        GeminiRateLimiter limiter = newLimiter(5, 1, 10);
+
+        assertThat(limiter.acquire(GeminiFeature.DIET, 100).block()).isNotNull();
+        assertThatThrownBy(() -> limiter.acquire(GeminiFeature.DIET, 100).block())
+                .isInstanceOf(GeminiQuotaExceededException.class)
+                .hasMessageContaining("Daily");
+        assertThat(limiter.getStats().getRequestsToday()).isEqualTo(1);
+    }
+
+    @Test
+    void grantsDroppedByCancelAreRefunded() throws Exception {
+        // 6000 RPM admits one request every 10 ms from the scheduler thread, racing the cancels below
+        GeminiRateLimiter limiter = newLimiter(6000, 100_000, 1000);
+        limiter.onRateLimited();
+        Random random = new Random(7);
+        List<GeminiRateLimiter.Grant> received = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 300; i++) {
+            // BaseSubscriber sees every onNext, even one arriving as it is disposed
+            BaseSubscriber<GeminiRateLimiter.Grant> subscriber = new BaseSubscriber<>() {
+                @Override
+                protected void hookOnNext(GeminiRateLimiter.Grant grant) {
+                    received.add(grant);
+                }
+            };
+            limiter.acquire(GeminiFeature.PLAN, 100).subscribe(subscriber);
+            Thread.sleep(random.nextInt(15));
+            subscriber.dispose();
+        }
+        Thread.sleep(50);
+
+        // Every grant either reached its subscriber or was handed back
+        assertThat(received).isNotEmpty();
+        assertThat(limiter.getStats().getRequestsToday()).isEqualTo(received.size());
+        assertThat(limiter.getStats().getQueueDepth()).isZero();
+    }
+
+    @Test
+    void refundAfterRecordedUsageIsIgnored() {
+        GeminiRateLimiter limiter = newLimiter(5, 100, 10);
+        GeminiRateLimiter.Grant grant = limiter.acquire(GeminiFeature.DIET, 100).block();
+
+        limiter.recordUsage(grant, 100);
+        limiter.refund(grant);
+
+        assertThat(limiter.getStats().getRequestsToday()).isEqualTo(1);
+        assertThat(limiter.getStats().getRequestsAvailable()).isEqualTo(4);
+
+        GeminiRateLimiter.Grant unused = limiter.acquire(GeminiFeature.DIET, 100).block();
+        limiter.refund(unused);
+        limiter.refund(unused);
+        assertThat(limiter.getStats().getRequestsToday()).isEqualTo(1);
+        assertThat(limiter.getStats().getRequestsAvailable()).isEqualTo(4);
+    }
+
+    @Test
+    void waitersTimeOutWithoutBeingCharged() {
+        GeminiRateLimiter limiter = newLimiter(1, 100, 10);
+        ReflectionTestUtils.setField(limiter, "maxWaitSeconds", 1L);
+        limiter.onRateLimited();
+
+        assertThatThrownBy(() -> limiter.acquire(GeminiFeature.INSURANCE, 100).block())
+                .isInstanceOf(GeminiQuotaExceededException.class)
+                .hasMessageContaining("Timed out");
+        assertThat(limiter.getStats().getRequestsToday()).isZero();
+        assertThat(limiter.getStats().getQueueDepth()).isZero();
+        assertThat(limiter.getStats().getFeatures().get("INSURANCE").getShed()).isEqualTo(1);
+    }
+}
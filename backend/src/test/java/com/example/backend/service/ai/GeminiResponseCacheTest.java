@@ -0,0 +1,94 @@
+package com.example.backend.service.ai;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiResponseCacheTest {
+
+    @TempDir
+    Path diskDir;
+
+    private GeminiResponseCache newCache(long ttlMinutes, int maxEntries, String disk) {
+        GeminiResponseCache cache = new GeminiResponseCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlMinutes", ttlMinutes);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        ReflectionTestUtils.setField(cache, "diskDir", disk);
+        ReflectionTestUtils.setField(cache, "diskMaxEntries", 100);
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    void keyDependsOnModelConfigAndPrompt() {
+        GeminiResponseCache cache = newCache(60, 10, "");
+        String key = cache.key("gemini-2.5-pro", 8000, 0.7, "prompt");
+
+        assertThat(cache.key("gemini-2.5-pro", 8000, 0.7, "prompt")).isEqualTo(key);
+        assertThat(cache.key("gemini-2.5-flash", 8000, 0.7, "prompt")).isNotEqualTo(key);
+        assertThat(cache.key("gemini-2.5-pro", 5000, 0.7, "prompt")).isNotEqualTo(key);
+        assertThat(cache.key("gemini-2.5-pro", 8000, 0.2, "prompt")).isNotEqualTo(key);
+        assertThat(cache.key("gemini-2.5-pro", 8000, 0.7, "prompt ")).isNotEqualTo(key);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        GeminiResponseCache cache = newCache(60, 2, "");
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.get(GeminiFeature.PLAN, "a").block();
+        cache.put("c", "C");
+
+        assertThat(cache.get(GeminiFeature.PLAN, "a").block()).isEqualTo("A");
+        assertThat(cache.get(GeminiFeature.PLAN, "b").block()).isNull();
+        assertThat(cache.get(GeminiFeature.PLAN, "c").block()).isEqualTo("C");
+        assertThat(cache.getStats().getFeatures().get("PLAN").getMisses()).isEqualTo(1);
+        assertThat(cache.getStats().getFeatures().get("PLAN").getHits()).isEqualTo(3);
+    }
+
+    @Test
+    void expiredEntriesAreMisses() {
+        GeminiResponseCache cache = newCache(0, 10, "");
+        cache.put("a", "A");
+
+        assertThat(cache.get(GeminiFeature.TRIAGE, "a").block()).isNull();
+        assertThat(cache.getStats().getMemoryEntries()).isZero();
+    }
+
+    @Test
+    void diskTierSurvivesRestart() {
+        GeminiResponseCache first = newCache(60, 10, diskDir.toString());
+        first.put("k", "{\"candidates\":[]}");
+
+        GeminiResponseCache second = newCache(60, 10, diskDir.toString());
+        String body = second.get(GeminiFeature.DIET, "k")
+                .repeatWhenEmpty(5, attempts -> attempts.delayElements(Duration.ofMillis(100)))
+                .block();
+
+        assertThat(body).isEqualTo("{\"candidates\":[]}");
+        assertThat(second.getStats().getFeatures().get("DIET").getDiskHits()).isEqualTo(1);
+    }
+
+    @Test
+    void pruneKeepsTempFilesOfWritesInProgress() throws Exception {
+        GeminiResponseCache cache = newCache(60, 10, diskDir.toString());
+        Path inProgress = Files.writeString(diskDir.resolve("k1.tmp"), "partial");
+        Path leftover = Files.writeString(diskDir.resolve("k2.tmp"), "partial");
+        Files.setLastModifiedTime(leftover, FileTime.fromMillis(
+                System.currentTimeMillis() - GeminiResponseCache.TEMP_FILE_MAX_AGE.toMillis() - 60_000));
+
+        cache.pruneDisk();
+        cache.clear();
+
+        assertThat(inProgress).exists();
+        assertThat(leftover).doesNotExist();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.backend.service.ai;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeminiResponseParserTest {
+
+    private final GeminiResponseParser parser = new GeminiResponseParser();
+
+    @Test
+    void readsTextFinishReasonAndTokensFromEnvelope() {
+        String body = "{\"candidates\": [{\"safetyRatings\": [{\"category\": \"X\"}],"
+                + " \"content\": {\"role\": \"model\", \"parts\": [{\"text\": \"first\"}, {\"text\": \"second\"}]},"
+                + " \"finishReason\": \"STOP\"}, {\"content\": {\"parts\": [{\"text\": \"other candidate\"}]}}],"
+                + " \"usageMetadata\": {\"promptTokenCount\": 10, \"totalTokenCount\": 42}, \"modelVersion\": \"m\"}";
+
+        GeminiResponseParser.GeminiResponse response = parser.parseResponse(body);
+
+        assertThat(response.text()).isEqualTo("first");
+        assertThat(response.finishReason()).isEqualTo("STOP");
+        assertThat(response.totalTokenCount()).isEqualTo(42L);
+        assertThat(response.isComplete()).isTrue();
+    }
+
+    @Test
+    void malformedEnvelopeKeepsWhatWasReadBeforeTheError() {
+        assertThat(parser.extractText(null)).isNull();
+        assertThat(parser.extractText("not json")).isNull();
+
+        GeminiResponseParser.GeminiResponse truncated = parser.parseResponse(
+                "{\"candidates\": [{\"content\": {\"parts\": [{\"text\": \"partial\"}]}, \"finishRea");
+        assertThat(truncated.text()).isEqualTo("partial");
+        assertThat(truncated.isComplete()).isFalse();
+    }
+
+    @Test
+    void extractsObjectFromFencesAndProseIgnoringBracesInStrings() throws Exception {
+        String text = "Here is your plan:\n```json\n{\"summary\": \"Use {curly} and \\\"}\\\" freely\","
+                + " \"items\": [\"a\", \"b\"]}\n```\nLet me know {if} you need more.";
+
+        JsonNode node = parser.readJsonObject(text);
+
+        assertThat(node).isNotNull();
+        assertThat(parser.fieldText(node, "summary")).isEqualTo("Use {curly} and \"}\" freely");
+        assertThat(parser.fieldText(node, "items")).isEqualTo("a\nb");
+        assertThat(parser.fieldText(node, "missing")).isNull();
+    }
+
+    @Test
+    void truncatedOrMissingObjectGivesNull() throws Exception {
+        assertThat(parser.extractJson("no json here")).isNull();
+        assertThat(parser.readJsonObject("```json\n{\"summary\": \"cut off mid-")).isNull();
+        assertThat(parser.readJsonObject(null)).isNull();
+    }
+}
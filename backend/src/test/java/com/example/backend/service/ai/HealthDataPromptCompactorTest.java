@@ -0,0 +1,83 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.entity.HealthDataRollup.Metric;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HealthDataPromptCompactorTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+
+    private final HealthDataPromptCompactor compactor = new HealthDataPromptCompactor();
+
+    @Test
+    void largeBudgetKeepsTheDailySeries() {
+        HealthDataSummary summary = summary(14, Metric.HEART_RATE);
+
+        String text = compactor.compact(summary, 10_000);
+
+        assertThat(text).startsWith(summary.toPromptText()).contains("Daily values").contains("01-14 ");
+    }
+
+    @Test
+    void seriesIsBucketedThenDroppedToFitTheBudget() {
+        HealthDataSummary summary = summary(90, Metric.values());
+        String statistics = summary.toPromptText();
+        int statisticsTokens = (int) GeminiClient.estimateTokens(statistics);
+
+        for (int budget : new int[]{4_000, 2_000, 1_000, statisticsTokens + 200, statisticsTokens}) {
+            String text = compactor.compact(summary, budget);
+            assertThat(GeminiClient.estimateTokens(text)).isLessThanOrEqualTo(budget);
+            assertThat(text).startsWith(statistics);
+        }
+        assertThat(compactor.compact(summary, 4_000)).contains("Values per");
+        assertThat(compactor.compact(summary, statisticsTokens)).isEqualTo(statistics);
+    }
+
+    @Test
+    void tinyBudgetDropsMetricLines() {
+        HealthDataSummary summary = summary(30, Metric.values());
+
+        String text = compactor.compact(summary, 60);
+
+        assertThat(GeminiClient.estimateTokens(text)).isLessThanOrEqualTo(60);
+        assertThat(text).startsWith(summary.promptHeader()).contains("- Weight");
+        assertThat(text).doesNotContain("Water intake");
+    }
+
+    @Test
+    void reportsStepChangeInTheDailyMeans() {
+        HealthDataSummary summary = summary(20, Metric.WEIGHT);
+
+        String text = compactor.compact(summary, 10_000);
+
+        // summary() raises every metric by 20 from day 10 on
+        assertThat(text).contains("Change points:\n- Weight: from ").contains(" on " + FROM.plusDays(10));
+    }
+
+    /**
+     * One DailyValue per day and metric, around 70 with a step of +20 from day 10.
+     */
+    private static HealthDataSummary summary(int days, Metric... metrics) {
+        Map<Metric, HealthDataSummary.MetricSummary> summaries = new EnumMap<>(Metric.class);
+        for (Metric metric : metrics) {
+            List<HealthDataSummary.DailyValue> daily = new ArrayList<>();
+            double sum = 0;
+            for (int i = 0; i < days; i++) {
+                double mean = 70 + i % 3 + (i >= 10 ? 20 : 0);
+                daily.add(new HealthDataSummary.DailyValue(FROM.plusDays(i), 100, mean, mean - 8, mean + 8));
+                sum += mean;
+            }
+            summaries.put(metric, new HealthDataSummary.MetricSummary(100L * days, sum / days, 62, 100, 9.5, 1.2,
+                    List.of(), daily));
+        }
+        return new HealthDataSummary(FROM, FROM.plusDays(days - 1), days, summaries);
+    }
+}
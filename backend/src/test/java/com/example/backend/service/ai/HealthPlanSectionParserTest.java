@@ -0,0 +1,53 @@
+package com.example.backend.service.ai;
+
+import com.example.backend.dto.response.HealthPlanStreamEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HealthPlanSectionParserTest {
+
+    @Test
+    void emitsEachSectionAsSoonAsItIsComplete() {
+        HealthPlanSectionParser parser = new HealthPlanSectionParser();
+
+        assertThat(parser.feed("```json\n{\"planSumm")).isEmpty();
+        assertThat(parser.feed("ary\": \"Walk more, \\\"sleep\\\" more")).isEmpty();
+
+        List<HealthPlanStreamEvent> first = parser.feed(".\", \"nutritionGoals\": [\"Eat greens\", ");
+        assertThat(first).extracting(HealthPlanStreamEvent::getSection).containsExactly("planSummary");
+        assertThat(first.get(0).getContent()).isEqualTo("Walk more, \"sleep\" more.");
+
+        List<HealthPlanStreamEvent> second = parser.feed("\"Drink water\"], \"hydrationGoals\": \"2L\"}\n```");
+        assertThat(second).extracting(HealthPlanStreamEvent::getSection).containsExactly("nutritionGoals", "hydrationGoals");
+        assertThat(second.get(0).getContent()).isEqualTo("Eat greens\nDrink water");
+        assertThat(second.get(1).getContent()).isEqualTo("2L");
+
+        assertThat(parser.feed("trailing text {\"ignored\": \"x\"}")).isEmpty();
+    }
+
+    @Test
+    void characterByCharacterFeedGivesSameSections() {
+        String json = "{\"dietOverview\": \"Balanced – less sugar\", \"meta\": {\"v\": 1}, \"fitnessGoals\": [\"5k run\"]}";
+        HealthPlanSectionParser parser = new HealthPlanSectionParser();
+        List<HealthPlanStreamEvent> sections = new ArrayList<>();
+        for (char c : json.toCharArray()) {
+            sections.addAll(parser.feed(String.valueOf(c)));
+        }
+
+        assertThat(sections).extracting(HealthPlanStreamEvent::getSection).containsExactly("dietOverview", "fitnessGoals");
+        assertThat(sections.get(0).getContent()).isEqualTo("Balanced – less sugar");
+    }
+
+    @Test
+    void malformedOutputStopsWithoutThrowing() {
+        HealthPlanSectionParser parser = new HealthPlanSectionParser();
+
+        assertThat(parser.feed("{\"planSummary\": \"ok\", oops")).extracting(HealthPlanStreamEvent::getSection)
+                .containsExactly("planSummary");
+        assertThat(parser.feed("\"more\": \"x\"}")).isEmpty();
+    }
+}
@@ -254,14 +254,34 @@ export async function deleteUser(id: number) {
 
 /* ---------------- HEALTH DATA ---------------- */
 
-export async function listHealthDataByUser(
-  userId = USER_ID
-): Promise<HealthDataResponse[]> {
-  const res = await fetch(`${BASE}${PATH.data}/user/${userId}`, { cache: "no-store" });
+export type HealthDataPage = {
+  items: HealthDataResponse[];
+  nextCursor: string | null;
+  hasMore: boolean;
+};
+
+/** One page of a user's records, newest first; pass nextCursor to get the next page. */
+export async function listHealthDataPage(
+  userId = USER_ID,
+  cursor?: string | null,
+  limit = 100
+): Promise<HealthDataPage> {
+  const params = new URLSearchParams({ limit: String(limit) });
+  if (cursor) params.set("cursor", cursor);
+  const res = await fetch(`${BASE}${PATH.data}/user/${userId}?${params}`, { cache: "no-store" });
   if (!res.ok) throw new Error("Failed to load health data");
   return res.json();
 }
 
+/** The user's most recent records (first page only). */
+export async function listHealthDataByUser(
+  userId = USER_ID,
+  limit = 100
+): Promise<HealthDataResponse[]> {
+  const page = await listHealthDataPage(userId, null, limit);
+  return page.items;
+}
+
 export async function deleteHealthData(id: number) {
   return del(`${BASE}${PATH.data}/${id}`);
 }